@@ -0,0 +1,18 @@
+package org.cs4j.core;
+
+/**
+ * A search domain which supplies an abstraction of its state space (see {@link StateAbstraction}),
+ * e.g. for partitioning the states among the threads of a parallel search.
+ */
+public interface AbstractableSearchDomain extends SearchDomain {
+
+    /**
+     * Creates an abstraction of the state space of the domain.
+     *
+     * @param abstractStatesCount the required number of abstract states (the domain creates the
+     *                            abstraction it supports whose number of abstract states is
+     *                            the closest)
+     * @return the created abstraction
+     */
+    StateAbstraction createAbstraction(int abstractStatesCount);
+}
@@ -354,6 +354,70 @@ public abstract class MultipleGoalsSearchDomain implements SearchDomain {
        return this.stateIsOneOfValidGoals(state);
     }
 
+    /**
+     * By default, the costs may be fractional
+     */
+    @Override
+    public boolean hasIntegralCosts() {
+        return false;
+    }
+
+    /**
+     * By default, the states may be packed into several longs
+     */
+    @Override
+    public boolean packsIntoSingleLong() {
+        return false;
+    }
+
+    @Override
+    public long packLong(SearchState state) {
+        PackedElement packed = this.pack(state);
+        if (packed.getLongsCount() != 1) {
+            throw new UnsupportedOperationException("The state is packed into " +
+                    packed.getLongsCount() + " longs");
+        }
+        return packed.getFirst();
+    }
+
+    @Override
+    public SearchState unpackLong(long packed) {
+        return this.unpack(new PackedElement(packed));
+    }
+
+    /**
+     * By default, the operators have no ids
+     */
+    @Override
+    public boolean hasOperatorIds() {
+        return false;
+    }
+
+    @Override
+    public int getOperatorIdsCount() {
+        throw new UnsupportedOperationException("The operators of the domain have no ids");
+    }
+
+    @Override
+    public int getOperatorId(SearchState state, int index) {
+        throw new UnsupportedOperationException("The operators of the domain have no ids");
+    }
+
+    @Override
+    public Operator getOperatorById(int id) {
+        throw new UnsupportedOperationException("The operators of the domain have no ids");
+    }
+
+    @Override
+    public int getReverseOperatorId(SearchState state, int id) {
+        throw new UnsupportedOperationException("The operators of the domain have no ids");
+    }
+
+    @Override
+    public SearchState applyOperator(SearchState state, int id) {
+        return this.applyOperator(state, this.getOperatorById(id));
+    }
+
     @Override
     public final SearchResultImpl searchBy(SearchAlgorithm alg) {
         return alg.concreteSearch(this);
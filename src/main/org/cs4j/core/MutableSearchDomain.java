@@ -0,0 +1,43 @@
+package org.cs4j.core;
+
+/**
+ * A search domain whose states can be changed in place: instead of creating a new state for each
+ * generated child (as {@link SearchDomain#applyOperator(SearchState, Operator)} does), an operator
+ * is applied on the state itself and later undone.
+ *
+ * Depth-first algorithms (e.g. IDA*) may use a single state for the whole search this way.
+ *
+ * NOTE: The h and d values of the state are updated on each apply (incrementally where possible),
+ *       and restored by undo
+ */
+public interface MutableSearchDomain extends SearchDomain {
+
+    /**
+     * Returns the cost of applying the specified operator on the specified state (computed before
+     * the operator is applied, since the parent state doesn't exist after the state is changed).
+     * The returned value must be equal to op.getCost(child, state)
+     *
+     * @param state the state
+     * @param op    the operator
+     * @return the cost
+     */
+    double getOperatorCost(SearchState state, Operator op);
+
+    /**
+     * Applies the specified operator on the specified state in place.
+     *
+     * @param state the state (which is changed)
+     * @param op    the operator
+     * @return the operator which restores the state (should be passed to
+     *         {@link #undo(SearchState, Operator)})
+     */
+    Operator apply(SearchState state, Operator op);
+
+    /**
+     * Restores the state of the last {@link #apply(SearchState, Operator)}.
+     *
+     * @param state  the state (which is changed)
+     * @param undoOp the operator returned by apply
+     */
+    void undo(SearchState state, Operator undoOp);
+}
@@ -5,10 +5,35 @@ import org.cs4j.core.collections.PackedElement;
 /**
  * The search domain interface.
  *
+ * Thread-safety: A domain is configured by a single thread (the constructor,
+ * {@link #setAdditionalParameter(String, String)}, {@link #setOptimalSolutionCost(double)}
+ * and the reading of PDBs), and is then shared by all the threads of the search (e.g. parallel
+ * search algorithms, or experiments which run several instances with the same PDBs). Hence, after
+ * the configuration, the functions that query the domain - {@link #initialState()},
+ * {@link #isGoal(SearchState)}, the operator functions, {@link #applyOperator(SearchState, Operator)},
+ * {@link #copy(SearchState)} and the packing functions - must allow concurrent calls by several
+ * threads, as long as each thread works on its own states. In order to achieve that:
+ * <ul>
+ *     <li>The large tables of the heuristic (PDBs, pre-computed MSTs, distances from pivots etc.)
+ *         are read-only after the configuration and are shared by all the threads</li>
+ *     <li>Scratch buffers of the heuristic calculation are never stored in fields of the domain:
+ *         each call either allocates its (small) buffers, or takes them from an evaluation context
+ *         of the current thread (a ThreadLocal, e.g. see TopSpin)</li>
+ *     <li>Counters that are updated during the search (e.g. the number of heuristic evaluations)
+ *         are thread-safe</li>
+ * </ul>
+ * NOTE: A single state (e.g. a state of a {@link MutableSearchDomain}, which is changed in place)
+ *       must not be used by several threads concurrently
+ *
  * @author Matthew Hatem & Vitali Sepetnitsky
  */
 public interface SearchDomain extends SearchConfigurable {
 
+    /**
+     * Marks a missing operator id (e.g. the reverse of an operator that can't be reversed)
+     */
+    int NO_OPERATOR_ID = -1;
+
     /**
      * Returns the initial state for an instance of Domain.
      *
@@ -51,6 +76,62 @@ public interface SearchDomain extends SearchConfigurable {
      */
     SearchState applyOperator(SearchState state, Operator op);
 
+    /**
+     * Returns whether the operators of the domain are interned as dense integer ids (between 0 and
+     * {@link #getOperatorIdsCount()} - 1). In this case the search algorithms may identify the
+     * operators by their ids (e.g. compare ids in order to avoid the generation of the parent)
+     * instead of comparing Operator objects and calling {@link Operator#reverse(SearchState)}.
+     *
+     * @return true if the operators have ids, false otherwise
+     */
+    boolean hasOperatorIds();
+
+    /**
+     * Returns the number of the operator ids of the domain.
+     * NOTE: Should be called only if {@link #hasOperatorIds()} returns true
+     *
+     * @return the number of the ids
+     */
+    int getOperatorIdsCount();
+
+    /**
+     * Returns the id of the specified operator applicable for the specified state.
+     * NOTE: Should be called only if {@link #hasOperatorIds()} returns true
+     *
+     * @param state the state
+     * @param index the nth operator index
+     * @return the id of the nth operator
+     */
+    int getOperatorId(SearchState state, int index);
+
+    /**
+     * Returns the (interned) operator with the specified id.
+     *
+     * @param id the id of the operator
+     * @return the operator
+     */
+    Operator getOperatorById(int id);
+
+    /**
+     * Returns the id of the operator that would reverse the operation (the id version of
+     * {@link Operator#reverse(SearchState)}).
+     *
+     * @param state the state on which the operator is applied
+     * @param id the id of the operator
+     * @return the id of the reverse operator or {@link #NO_OPERATOR_ID} if the operator has
+     *         no reverse
+     */
+    int getReverseOperatorId(SearchState state, int id);
+
+    /**
+     * Applies the operator with the specified id to the specified state and returns a new state.
+     *
+     * @param state the state
+     * @param id    the id of the operator
+     * @return the new state
+     */
+    SearchState applyOperator(SearchState state, int id);
+
     /**
      * Returns a copy of the specified state.
      *
@@ -81,6 +162,32 @@ public interface SearchDomain extends SearchConfigurable {
      */
     SearchState unpackLite(PackedElement packed);
 
+    /**
+     * Returns whether every state of the domain is packed into a single long.
+     * In this case the search algorithms may use {@link #packLong(SearchState)} and
+     * {@link #unpackLong(long)} and avoid the allocation of a PackedElement per state.
+     *
+     * @return true if the states are packed into a single long, false otherwise
+     */
+    boolean packsIntoSingleLong();
+
+    /**
+     * Packs a representation of the specified state into a single long.
+     * NOTE: Should be called only if {@link #packsIntoSingleLong()} returns true
+     *
+     * @param state the state
+     * @return the packed state
+     */
+    long packLong(SearchState state);
+
+    /**
+     * Unpacks the specified single long representation into a new state.
+     *
+     * @param packed the long representation (see {@link #packLong(SearchState)})
+     * @return the new state
+     */
+    SearchState unpackLong(long packed);
+
     /**
      * This function allows to dump a collection of states based on the domain (e.g. dump all
      * the states of a
@@ -98,6 +205,15 @@ public interface SearchDomain extends SearchConfigurable {
      */
     boolean isCurrentHeuristicConsistent();
 
+    /**
+     * Returns whether the costs of all the operators and the heuristic values of all the states
+     * (with the current parameters of the domain) are integral. In this case the search algorithms
+     * may store the states in buckets according to their f (and g) values.
+     *
+     * @return true if the costs and the heuristic values are integral, false otherwise
+     */
+    boolean hasIntegralCosts();
+
     /**
      * For tests with oracles, set the optimal cost of the solution
      */
@@ -66,6 +66,17 @@ public abstract class SearchState {
         return this.domain.pack(this);
     }
 
+    /**
+     * @return Whether the state can be packed into a single long (see {@link #packLong()})
+     */
+    public boolean packsIntoSingleLong() {
+        return this.domain.packsIntoSingleLong();
+    }
+
+    public long packLong() {
+        return this.domain.packLong(this);
+    }
+
     /**
      * Returns a string representation of the state
      *
@@ -0,0 +1,40 @@
+package org.cs4j.core;
+
+/**
+ * An abstraction of the state space of a domain: a many-to-one mapping of the states to the
+ * nodes of a (small) abstract graph, such that the abstract state of each child of a state s is
+ * either the abstract state of s or one of its successors in the abstract graph.
+ *
+ * Parallel search algorithms partition the states by their abstract states (e.g. PBNF, which
+ * locks the successors of an abstract state in order to perform duplicate detection).
+ *
+ * NOTE: The abstraction is shared by all the threads of the search, hence it must not be changed
+ *       after it was created
+ */
+public interface StateAbstraction {
+
+    /**
+     * Returns the number of the abstract states (the abstract states are 0 .. count - 1).
+     *
+     * @return the number of the abstract states
+     */
+    int getAbstractStatesCount();
+
+    /**
+     * Returns the abstract state of the specified state.
+     *
+     * @param state the state
+     * @return the abstract state
+     */
+    int getAbstractState(SearchState state);
+
+    /**
+     * Returns the successors of the specified abstract state in the abstract graph - the abstract
+     * states of all the children of all the states that are mapped to it (a superset is allowed).
+     * The abstract state itself may be contained too.
+     *
+     * @param abstractState the abstract state
+     * @return the successors
+     */
+    int[] getSuccessors(int abstractState);
+}
@@ -15,6 +15,31 @@ import java.util.*;
 public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm implements AnytimeSearchAlgorithm {
     private final static Logger logger = LogManager.getLogger(AbstractAnytimeSearch.class);
 
+    private static final Map<String, Class> AbstractAnytimeSearchPossibleParameters;
+
+    // Declare the parameters that can be tuned before running the search
+    static {
+        AbstractAnytimeSearchPossibleParameters = new HashMap<>();
+        AbstractAnytimeSearch.AbstractAnytimeSearchPossibleParameters.put("open-reordering", String.class);
+        AbstractAnytimeSearch.AbstractAnytimeSearchPossibleParameters.put("open-list", String.class);
+    }
+
+    /**
+     * How OPEN is re-ordered before each iteration of continueSearch (required when the comparator
+     * of the nodes depends on the incumbent solution)
+     */
+    public enum OpenReordering {
+        // OPEN isn't re-ordered
+        NONE,
+        // All the nodes are polled and added back - O(n log n)
+        REINSERT,
+        // OPEN is rebuilt bottom-up (see BinHeap.reorder() and KeyedHeap.reorder()) - O(n)
+        HEAPIFY
+    }
+
+    // The arity of OPEN, when it is a KeyedHeap
+    private static final int KEYED_HEAP_ARITY = 4;
+
     // The domain to which the search problem belongs
     protected SearchDomain domain;
 
@@ -42,15 +67,26 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
     // Whether reopening is allowed
     protected boolean reopen;
 
+    // How OPEN is re-ordered when the incumbent solution improves (NONE by default - algorithms whose
+    // comparator depends on the incumbent should set it)
+    protected OpenReordering openReordering;
+
+    // Whether OPEN is a KeyedHeap (if the algorithm defines the keys of the nodes - see createNodeKeys()) or a BinHeap
+    // (the default, since the order of the ties, hence the results, differs - e.g. of the PAC searches)
+    protected boolean keyedOpen;
 
-    // A data structure to maintain minf. @TODO: Allow disabling this for Anytime algorithms that don't care about this
-    protected HashMap<Double, Integer> fCounter = new HashMap<Double,Integer>();
+
+    // A data structure to maintain minf (the f values of the nodes in OPEN). @TODO: Allow disabling this for Anytime
+    // algorithms that don't care about this
+    protected SortedDoubleMultiset fCounter = new SortedDoubleMultiset();
     protected double maxFmin; // The maximal fmin observed so far. This is a lower bound on the optimal cost
     protected double fmin; // The minimal f value currently in the open list
 
     public AbstractAnytimeSearch() {
         // Initial values (afterwards they can be set independently)
         this.reopen = true;
+        this.openReordering = OpenReordering.NONE;
+        this.keyedOpen = false;
     }
 
     @Override
@@ -67,7 +103,12 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
      */
     protected void _initDataStructures(boolean clearOpen, boolean clearClosed) {
         if (clearOpen) {
-            this.open = new BinHeap<Node>(this.createNodeComparator(), 0);
+            KeyedHeap.Keys<Node> keys = this.keyedOpen ? this.createNodeKeys() : null;
+            if (keys != null) {
+                this.open = new KeyedHeap<Node>(keys, 0, AbstractAnytimeSearch.KEYED_HEAP_ARITY);
+            } else {
+                this.open = new BinHeap<Node>(this.createNodeComparator(), 0);
+            }
         }
         if (clearClosed) {
             this.closed = new HashMap<>();
@@ -80,6 +121,16 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
      */
     abstract protected Comparator<Node> createNodeComparator();
 
+    /**
+     * Create the keys of the nodes, used by the open list when it is a KeyedHeap (the keys are computed once, when a
+     * node is added to the open list or updated, and the ties of the keys are broken by the insertion order)
+     *
+     * @return The keys, or null if the open list should be a BinHeap ordered by createNodeComparator()
+     */
+    protected KeyedHeap.Keys<Node> createNodeKeys() {
+        return null;
+    }
+
 
     /**
      * The internal main search procedure
@@ -99,7 +150,11 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
         SearchState childState,currentState;
         Node currentNode, childNode, dupChildNode;
         Operator op;
+        int opId;
         double childf,dupChildf;
+        // Identify the operators by their ids if possible (the ids are stored in the nodes as shorts)
+        boolean useOperatorIds = domain.hasOperatorIds() &&
+                domain.getOperatorIdsCount() <= Short.MAX_VALUE;
         while ((goal == null) && !this.open.isEmpty()) {
             // Take a node from the OPEN list (nodes are sorted according to the 'u' function)
             currentNode = this.open.poll();
@@ -114,18 +169,35 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
 
             // Go over all the successors of the state
             for (int i = 0; i < domain.getNumOperators(currentState); ++i) {
-                // Get the current operator
-                op = domain.getOperator(currentState, i);
-                // Don't apply the previous operator on the state - in order not to enter a loop
-                if (op.equals(currentNode.pop)) {
-                    continue;
+                if (useOperatorIds) {
+                    // Get the id of the current operator
+                    opId = domain.getOperatorId(currentState, i);
+                    // Don't apply the previous operator on the state - in order not to enter a loop
+                    if (opId == currentNode.popId) {
+                        continue;
+                    }
+                    // Otherwise, let's generate the child state
+                    ++result.generated;
+                    // Get it by applying the operator on the parent state
+                    childState = domain.applyOperator(currentState, opId);
+                    // Create a search node for this state
+                    childNode = new Node(childState, currentNode, currentState,
+                            domain.getOperatorById(opId), null);
+                    childNode.popId = (short) domain.getReverseOperatorId(currentState, opId);
+                } else {
+                    // Get the current operator
+                    op = domain.getOperator(currentState, i);
+                    // Don't apply the previous operator on the state - in order not to enter a loop
+                    if (op.equals(currentNode.pop)) {
+                        continue;
+                    }
+                    // Otherwise, let's generate the child state
+                    ++result.generated;
+                    // Get it by applying the operator on the parent state
+                    childState = domain.applyOperator(currentState, op);
+                    // Create a search node for this state
+                    childNode = new Node(childState, currentNode, currentState, op, op.reverse(currentState));
                 }
-                // Otherwise, let's generate the child state
-                ++result.generated;
-                // Get it by applying the operator on the parent state
-                childState = domain.applyOperator(currentState, op);
-                // Create a search node for this state
-                childNode = new Node(childState, currentNode, currentState, op, op.reverse(currentState));
 
                 // Prune nodes over the bound
                 if (childNode.getF() >= this.incumbentSolution) {
@@ -158,6 +230,7 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
                             dupChildNode.g = childNode.g;
                             dupChildNode.op = childNode.op;
                             dupChildNode.pop = childNode.pop;
+                            dupChildNode.popId = childNode.popId;
                             dupChildNode.parent = childNode.parent;
 
                             // In case the node is in the OPEN list - update its key using the new G
@@ -217,10 +290,7 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
      * @param f the (admissible) f value of the node that was just added to OPEN
      */
     private void addTofCounter(double f){
-        if(this.fCounter.containsKey(f))
-            this.fCounter.put(f, this.fCounter.get(f)+1);
-        else
-            this.fCounter.put(f,1);
+        this.fCounter.add(f);
 
         // Update fmin if needed
         if(f<this.fmin)
@@ -230,30 +300,29 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
      * After removing from OPEN a node with a given f-value,
      */
     protected void removeFromfCounter(double f) {
-        int newfCount = this.fCounter.get(f)-1;
-        this.fCounter.put(f,newfCount);
-
-        if(newfCount==0){
-            this.fCounter.remove(f);
-        }
+        this.fCounter.remove(f);
     }
 
     /**
      * If there are no more nodes with the old fmin, need to update fmin and maybe also maxfmin accordingly.
      */
     protected void updateFmin(){
-        // If fmin is no longer fmin, need to search for a new fmin @TODO: May improve efficiency
-        if(this.fCounter.containsKey(fmin)==false){
-            fmin=Double.MAX_VALUE;
-            for(double fInOpen : this.fCounter.keySet()){
-                if(fInOpen<fmin)
-                    fmin=fInOpen;
+        // fmin is never higher than the f values in OPEN, hence it is no longer fmin iff the minimal f value differs
+        if(this.fCounter.isEmpty() || this.fCounter.min()!=fmin){
+            fmin=this.fCounter.isEmpty() ? Double.MAX_VALUE : this.fCounter.min();
+            if(maxFmin<fmin) {
+                maxFmin = fmin;
+                this._maxFminIncreased();
             }
-            if(maxFmin<fmin)
-                maxFmin=fmin;
         }
     }
 
+    /**
+     * Called when maxFmin (the lower bound on the optimal cost) was increased
+     */
+    protected void _maxFminIncreased() {
+    }
+
 
 
     /**
@@ -325,7 +394,8 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
         // Start the search: Add the node to the OPEN and CLOSED lists
         this.open.add(initialNode);
         double startFmin = initialNode.getF();
-        this.fCounter.put(startFmin,1);
+        this.fCounter.clear();
+        this.fCounter.add(startFmin);
         this.maxFmin = startFmin;
         this.fmin = startFmin;
 
@@ -341,6 +411,30 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
         return results;
     }
 
+    /**
+     * Re-orders OPEN according to openReordering
+     */
+    protected void _reorderOpen() {
+        if (this.openReordering == OpenReordering.NONE) {
+            return;
+        }
+        if (this.openReordering == OpenReordering.HEAPIFY && this.open instanceof BinHeap) {
+            ((BinHeap<Node>) this.open).reorder();
+            return;
+        }
+        if (this.openReordering == OpenReordering.HEAPIFY && this.open instanceof KeyedHeap) {
+            // The keys of the nodes are recomputed as well
+            ((KeyedHeap<Node>) this.open).reorder();
+            return;
+        }
+        // Otherwise, poll all the nodes and add them back
+        List<Node> openNodes = new ArrayList<Node>(this.open.size());
+        while (this.open.size() > 0)
+            openNodes.add(this.open.poll());
+        for (Node node : openNodes)
+            this.open.add(node);
+    }
+
     /**
      * Continues the search to find better goals
      * @return a better solution, if exists
@@ -348,6 +442,8 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
     @Override
     public SearchResultImpl continueSearch() {
         this.iteration++;
+        // The order of OPEN may depend on the incumbent solution (which was improved by the previous iteration)
+        this._reorderOpen();
         this._initDataStructures(false,false);
         SearchResultImpl results = this._search();
 
@@ -368,12 +464,50 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
 
     @Override
     public Map<String, Class> getPossibleParameters() {
-        return new HashMap<>();
+        return AbstractAnytimeSearch.AbstractAnytimeSearchPossibleParameters;
     }
 
     @Override
     public void setAdditionalParameter(String parameterName, String value) {
         switch (parameterName) {
+            case "open-reordering": {
+                switch (value) {
+                    case "none": {
+                        this.openReordering = OpenReordering.NONE;
+                        break;
+                    }
+                    case "reinsert": {
+                        this.openReordering = OpenReordering.REINSERT;
+                        break;
+                    }
+                    case "heapify": {
+                        this.openReordering = OpenReordering.HEAPIFY;
+                        break;
+                    }
+                    default: {
+                        logger.error("Illegal open-reordering: " + value + " (none | reinsert | heapify)");
+                        throw new IllegalArgumentException();
+                    }
+                }
+                break;
+            }
+            case "open-list": {
+                switch (value) {
+                    case "keyed": {
+                        this.keyedOpen = true;
+                        break;
+                    }
+                    case "bin": {
+                        this.keyedOpen = false;
+                        break;
+                    }
+                    default: {
+                        logger.error("Illegal open-list: " + value + " (keyed | bin)");
+                        throw new IllegalArgumentException();
+                    }
+                }
+                break;
+            }
             default: {
                 System.err.println("No such parameter: " + parameterName + " (value: " + value + ")");
                 throw new UnsupportedOperationException();
@@ -397,6 +531,9 @@ public abstract class AbstractAnytimeSearch extends GenericSearchAlgorithm imple
 
         private Operator op;
         private Operator pop;
+        // The id of the reverse operator, in case the operators of the domain have ids (in this
+        // case pop is null)
+        private short popId = SearchDomain.NO_OPERATOR_ID;
 
         private Node parent;
 
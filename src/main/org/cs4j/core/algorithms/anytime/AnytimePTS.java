@@ -1,11 +1,9 @@
 package org.cs4j.core.algorithms.anytime;
 
 
-import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.collections.KeyedHeap;
 
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.List;
 
 /**
  * Created by user on 23/02/2017.
@@ -17,33 +15,27 @@ public class AnytimePTS extends AbstractAnytimeSearch {
 
     public AnytimePTS() {
         super();
+        // The potential of the nodes depends on the incumbent solution
+        this.openReordering = OpenReordering.HEAPIFY;
     }
 
+
     /**
-     * Continues the search to find better goals
-     * @return a better solution, if exists
+     * Create a node comparator used by the open list to prioritize the nodes
      */
     @Override
-    public SearchResultImpl continueSearch() {
-        // Resort open according to the new incumbent @TODO: Study if this actually helps or not?
-        List<Node> openNodes = new ArrayList<Node>(this.open.size());
-        while(this.open.size()>0)
-            openNodes.add(this.open.poll());
-        for(Node node : openNodes)
-            this.open.add(node);
-        openNodes.clear();
-
-        return super.continueSearch();
+    protected Comparator<Node> createNodeComparator()
+    {
+        return new AnytimePTS.NodeComparator();
     }
 
-
     /**
-     * Create a node comparator used by the open list to prioritize the nodes
+     * Create the keys of the nodes: the potential, and then g (breaks the ties of the comparator)
      */
     @Override
-    protected Comparator<Node> createNodeComparator()
+    protected KeyedHeap.Keys<Node> createNodeKeys()
     {
-        return new AnytimePTS.NodeComparator();
+        return new AnytimePTS.NodeKeys();
     }
 
 
@@ -64,8 +56,27 @@ public class AnytimePTS extends AbstractAnytimeSearch {
                 return 1;
             }
 
-            // Here we have a tie @TODO: What about tie-breaking?
+            // Here we have a tie (broken by the keyed open list, if used - see createNodeKeys())
             return 0;
         }
     }
+
+    /**
+     * The keys of the nodes: the potential (higher is first), and then g (higher is first)
+     */
+    public class NodeKeys implements KeyedHeap.Keys<Node> {
+        @Override
+        public double getPrimary(Node node) {
+            // The potential of a node with h=0 is infinite (regardless of its g)
+            if (node.h == 0) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            return -(AnytimePTS.this.incumbentSolution - node.g) / node.h;
+        }
+
+        @Override
+        public double getSecondary(Node node) {
+            return -node.g;
+        }
+    }
 }
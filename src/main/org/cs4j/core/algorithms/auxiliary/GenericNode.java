@@ -6,25 +6,36 @@ package org.cs4j.core.algorithms.auxiliary;
  */
 
 import org.cs4j.core.Operator;
+import org.cs4j.core.SearchDomain;
 import org.cs4j.core.SearchState;
+import org.cs4j.core.collections.BucketHeap;
 import org.cs4j.core.collections.PackedElement;
 
 /**
  * The node class
  */
-public class GenericNode<T extends GenericNode<T>> extends SearchQueueElementImpl {
+public class GenericNode<T extends GenericNode<T>> extends SearchQueueElementImpl
+        implements BucketHeap.BucketHeapElement {
 
     protected double g;
     protected double h;
 
     protected Operator op;
     protected Operator pop;
+    // The id of the reverse operator, in case the operators of the domain have ids (in this case
+    // pop is null - see SearchDomain.hasOperatorIds())
+    protected short popId = SearchDomain.NO_OPERATOR_ID;
 
     protected T parent;
 
+    // The packed state (created lazily if the state is packed into a single long)
     protected PackedElement packed;
+    // The packed state, in case the domain packs its states into a single long
+    protected long packedLong;
+    protected boolean packedIntoLong;
 
-//      private int[] secondaryIndex;
+    // The indexes of the bins in BucketHeaps (created only if the node is added to a BucketHeap)
+    private int[] secondaryIndex;
 
     public GenericNode getNode(SearchState state) {
         return new GenericNode(state);
@@ -38,17 +49,55 @@ public class GenericNode<T extends GenericNode<T>> extends SearchQueueElementImp
                        Operator pop) {
         // Size of key
         super(2);
+        this._init(state, parent, parentState, op, pop);
+
+        // Avoid the allocation of a PackedElement (and its array) if a single long is enough
+        if (state.packsIntoSingleLong()) {
+            this.packedLong = state.packLong();
+            this.packedIntoLong = true;
+        } else {
+            this.packed = state.pack();
+        }
+    }
+
+    /**
+     * A constructor of the class for a state which was already packed
+     *
+     * @param packedLong The packed state, in case the state is packed into a single long
+     * @param packed The packed state (may be null in case the state is packed into a single long)
+     */
+    public GenericNode(SearchState state,
+                       T parent,
+                       SearchState parentState,
+                       Operator op,
+                       Operator pop,
+                       long packedLong,
+                       PackedElement packed) {
+        // Size of key
+        super(2);
+        this._init(state, parent, parentState, op, pop);
+
+        if (state.packsIntoSingleLong()) {
+            this.packedLong = packedLong;
+            this.packedIntoLong = true;
+        } else {
+            assert packed != null;
+        }
+        this.packed = packed;
+    }
+
+    private void _init(SearchState state,
+                       T parent,
+                       SearchState parentState,
+                       Operator op,
+                       Operator pop) {
         // Parent node
         this.parent = parent;
 
-        // TODO: Why?
-//            this.secondaryIndex = new int[(heapType == HeapType.BUCKET) ? 2 : 1];
         double cost = (op != null) ? op.getCost(state, parentState) : 0;
         this.h = this.computeH(state);
         // If each operation costs something, we should add the cost to the g value of the parent
         this.g = (parent != null) ? parent.g + cost : cost;
-
-        this.packed = state.pack();
         this.pop = pop;
         this.op = op;
     }
@@ -70,6 +119,7 @@ public class GenericNode<T extends GenericNode<T>> extends SearchQueueElementImp
         this.g = other.getG();
         this.op = other.getOp();
         this.pop = other.getPop();
+        this.popId = other.popId;
         this.parent = other.getParent();
     }
 
@@ -107,6 +157,20 @@ public class GenericNode<T extends GenericNode<T>> extends SearchQueueElementImp
         return previousH;
     }
 
+    public double setG(double gValue) {
+        double previousG = this.getG();
+        this.g = gValue;
+        return previousG;
+    }
+
+    /**
+     * Removes the reference to the parent, such that the parent can be garbage collected (used
+     * when the search tree is stored elsewhere - e.g. in an off-heap closed list)
+     */
+    public void detachParent() {
+        this.parent = null;
+    }
+
     @Override
     public double getD() {
         return 0;
@@ -122,14 +186,53 @@ public class GenericNode<T extends GenericNode<T>> extends SearchQueueElementImp
         return 0;
     }
 
+    @Override
+    public void setSecondaryIndex(int key, int index) {
+        if (this.secondaryIndex == null) {
+            // Same size as the key of the indexes
+            this.secondaryIndex = new int[]{-1, -1};
+        }
+        this.secondaryIndex[key] = index;
+    }
+
+    @Override
+    public int getSecondaryIndex(int key) {
+        return (this.secondaryIndex == null) ? -1 : this.secondaryIndex[key];
+    }
+
+    /**
+     * The ranks of the node in a BucketHeap: f (smaller is polled first) and then g (bigger is
+     * polled first)
+     */
+    @Override
+    public double getRank(int level) {
+        return (level == 0) ? this.getF() : this.g;
+    }
+
     public T getParent() {
         return this.parent;
     }
 
     public PackedElement getPacked() {
+        if (this.packed == null) {
+            this.packed = new PackedElement(this.packedLong);
+        }
         return this.packed;
     }
 
+    /**
+     * @return Whether the state of the node is packed into a single long (and
+     *         {@link #getPackedLong()} can be used instead of {@link #getPacked()})
+     */
+    public boolean isPackedIntoLong() {
+        return this.packedIntoLong;
+    }
+
+    public long getPackedLong() {
+        assert this.packedIntoLong;
+        return this.packedLong;
+    }
+
     public Operator getOp() {
         return this.op;
     }
@@ -137,4 +240,19 @@ public class GenericNode<T extends GenericNode<T>> extends SearchQueueElementImp
     public Operator getPop() {
         return this.pop;
     }
+
+    /**
+     * @return The id of the reverse operator (or SearchDomain.NO_OPERATOR_ID)
+     */
+    public int getPopId() {
+        return this.popId;
+    }
+
+    /**
+     * Sets the id of the reverse operator (must fit into a short)
+     */
+    public void setPopId(int popId) {
+        assert popId == (short) popId;
+        this.popId = (short) popId;
+    }
 }
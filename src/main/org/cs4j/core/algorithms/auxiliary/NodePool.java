@@ -0,0 +1,321 @@
+package org.cs4j.core.algorithms.auxiliary;
+
+import org.cs4j.core.Operator;
+import org.cs4j.core.collections.IntBinHeap;
+import org.cs4j.core.collections.PackedElement;
+
+import java.util.Arrays;
+
+/**
+ * A store of search nodes, where each node is an int handle into parallel primitive arrays
+ * (instead of a GenericNode object)
+ *
+ * For each node the pool stores: g, h, the handle of the parent, the index of the operator that
+ * generated the node from its parent, the reverse of that operator, the packed state and the index
+ * of the node in the open list. The pool also serves as the closed list: the handles are found by
+ * an open-addressing hash table over the stored packed states.
+ *
+ * Nodes are never removed, hence generating a node requires no allocations (except for the
+ * amortized growth of the arrays).
+ */
+public class NodePool implements IntBinHeap.Elements {
+
+    public static final int NO_PARENT = -1;
+    public static final int NO_OPERATOR = -1;
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double LOAD_FACTOR = 0.75d;
+
+    // Number of longs required to pack a single state
+    private final int longsCount;
+
+    private double[] g;
+    private double[] h;
+    private int[] parent;
+    private int[] operator;
+    private Operator[] pop;
+    // longsCount longs per node
+    private long[] packed;
+    private int[] heapIndex;
+    // Number of the stored nodes
+    private int size;
+
+    // The hash table: each slot contains the handle of a node + 1 (0 marks an empty slot)
+    private int[] table;
+    // table.length - 1 (the capacity is always a power of 2)
+    private int mask;
+    // The table is doubled when the size exceeds this value
+    private int resizeThreshold;
+
+    // Used for comparing the nodes in the open list (see IntBinHeap.Elements)
+    private HandleComparator comparator;
+
+    /**
+     * Compares two nodes of the pool (by their handles)
+     */
+    public interface HandleComparator {
+        int compare(NodePool pool, int a, int b);
+    }
+
+    /**
+     * The constructor of the class
+     *
+     * @param longsCount The number of longs that each packed state contains
+     */
+    public NodePool(int longsCount) {
+        if (longsCount <= 0) {
+            throw new IllegalArgumentException("The number of longs must be positive");
+        }
+        this.longsCount = longsCount;
+        this.g = new double[NodePool.DEFAULT_CAPACITY];
+        this.h = new double[NodePool.DEFAULT_CAPACITY];
+        this.parent = new int[NodePool.DEFAULT_CAPACITY];
+        this.operator = new int[NodePool.DEFAULT_CAPACITY];
+        this.pop = new Operator[NodePool.DEFAULT_CAPACITY];
+        this.packed = new long[NodePool.DEFAULT_CAPACITY * longsCount];
+        this.heapIndex = new int[NodePool.DEFAULT_CAPACITY];
+        this._allocateTable(NodePool.DEFAULT_CAPACITY << 1);
+    }
+
+    /**
+     * Sets the order of the nodes in the open list
+     */
+    public void setComparator(HandleComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    /*******************************************************************************************************************
+     * Private methods
+     ******************************************************************************************************************/
+
+    private void _allocateTable(int capacity) {
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * NodePool.LOAD_FACTOR);
+    }
+
+    private boolean _keyEquals(int handle, long[] key) {
+        int offset = handle * this.longsCount;
+        for (int i = 0; i < this.longsCount; ++i) {
+            if (this.packed[offset + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int _findSlot(long[] key, int hash) {
+        int slot = hash & this.mask;
+        int value;
+        while ((value = this.table[slot]) != 0 && !this._keyEquals(value - 1, key)) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    private int _findSlot(long key, int hash) {
+        int slot = hash & this.mask;
+        int value;
+        while ((value = this.table[slot]) != 0 && this.packed[value - 1] != key) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    private void _growTable() {
+        if (this.table.length == NodePool.MAX_CAPACITY) {
+            throw new OutOfMemoryError("Node pool reached its maximum capacity");
+        }
+        this._allocateTable(this.table.length << 1);
+        for (int handle = 0; handle < this.size; ++handle) {
+            int slot = PackedElement.hash(this.packed, handle * this.longsCount, this.longsCount) & this.mask;
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.table[slot] = handle + 1;
+        }
+    }
+
+    /**
+     * Allocates a new handle (and grows the arrays if required)
+     */
+    private int _newHandle() {
+        if (this.size == this.g.length) {
+            int capacity = this.g.length << 1;
+            this.g = Arrays.copyOf(this.g, capacity);
+            this.h = Arrays.copyOf(this.h, capacity);
+            this.parent = Arrays.copyOf(this.parent, capacity);
+            this.operator = Arrays.copyOf(this.operator, capacity);
+            this.pop = Arrays.copyOf(this.pop, capacity);
+            this.packed = Arrays.copyOf(this.packed, capacity * this.longsCount);
+            this.heapIndex = Arrays.copyOf(this.heapIndex, capacity);
+        }
+        return this.size++;
+    }
+
+    /**
+     * Fills the fields of a new node (whose packed state was already written) and places its
+     * handle in the given (empty) slot
+     */
+    private int _fill(int slot, int handle, double g, double h, int parent, int operator, Operator pop) {
+        this.h[handle] = h;
+        this.heapIndex[handle] = -1;
+        this.setPath(handle, g, parent, operator, pop);
+        this.table[slot] = handle + 1;
+        if (this.size > this.resizeThreshold) {
+            this._growTable();
+        }
+        return handle;
+    }
+
+    private long[] _keyOf(PackedElement packed) {
+        if (packed.getLongsCount() != this.longsCount) {
+            throw new IllegalArgumentException("Expected states packed into " + this.longsCount +
+                    " longs (got " + packed.getLongsCount() + ")");
+        }
+        return packed.getInternal();
+    }
+
+    private void _assertSingleLong() {
+        if (this.longsCount != 1) {
+            throw new IllegalArgumentException("The states are packed into " + this.longsCount + " longs");
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Public methods
+     ******************************************************************************************************************/
+
+    /**
+     * @param packed The packed state to look for
+     *
+     * @return The handle of the node of the state or -1 if the state wasn't stored
+     */
+    public int find(PackedElement packed) {
+        return this.table[this._findSlot(this._keyOf(packed), packed.hashCode())] - 1;
+    }
+
+    /**
+     * A version of {@link #find(PackedElement)} for states which are packed into a single long
+     */
+    public int find(long packed) {
+        this._assertSingleLong();
+        return this.table[this._findSlot(packed, PackedElement.hash(packed))] - 1;
+    }
+
+    /**
+     * Stores a new node
+     *
+     * @param packed The packed state of the node (mustn't be stored already)
+     * @param g The g value of the node
+     * @param h The h value of the node
+     * @param parent The handle of the parent (or {@link #NO_PARENT})
+     * @param operator The index of the operator that generated the node from its parent
+     * @param pop The reverse of that operator (or null)
+     *
+     * @return The handle of the new node
+     */
+    public int add(PackedElement packed, double g, double h, int parent, int operator, Operator pop) {
+        int slot = this._findSlot(this._keyOf(packed), packed.hashCode());
+        if (this.table[slot] != 0) {
+            throw new IllegalArgumentException("The state is already stored");
+        }
+        int handle = this._newHandle();
+        System.arraycopy(packed.getInternal(), 0, this.packed, handle * this.longsCount,
+                this.longsCount);
+        return this._fill(slot, handle, g, h, parent, operator, pop);
+    }
+
+    /**
+     * A version of {@link #add(PackedElement, double, double, int, int, Operator)} for states
+     * which are packed into a single long
+     */
+    public int add(long packed, double g, double h, int parent, int operator, Operator pop) {
+        this._assertSingleLong();
+        int slot = this._findSlot(packed, PackedElement.hash(packed));
+        if (this.table[slot] != 0) {
+            throw new IllegalArgumentException("The state is already stored");
+        }
+        int handle = this._newHandle();
+        this.packed[handle] = packed;
+        return this._fill(slot, handle, g, h, parent, operator, pop);
+    }
+
+    /**
+     * Updates the path of the node (e.g. when the node is reached via a shorter path)
+     */
+    public void setPath(int handle, double g, int parent, int operator, Operator pop) {
+        this.g[handle] = g;
+        this.parent[handle] = parent;
+        this.operator[handle] = operator;
+        this.pop[handle] = pop;
+    }
+
+    public double getG(int handle) {
+        return this.g[handle];
+    }
+
+    public double getH(int handle) {
+        return this.h[handle];
+    }
+
+    public void setH(int handle, double h) {
+        this.h[handle] = h;
+    }
+
+    public int getParent(int handle) {
+        return this.parent[handle];
+    }
+
+    public int getOperator(int handle) {
+        return this.operator[handle];
+    }
+
+    public Operator getPop(int handle) {
+        return this.pop[handle];
+    }
+
+    public long getPackedLong(int handle) {
+        assert this.longsCount == 1;
+        return this.packed[handle];
+    }
+
+    public PackedElement getPacked(int handle) {
+        int offset = handle * this.longsCount;
+        return new PackedElement(Arrays.copyOfRange(this.packed, offset, offset + this.longsCount));
+    }
+
+    /**
+     * @return Whether the states are packed into a single long
+     */
+    public boolean isSingleLong() {
+        return this.longsCount == 1;
+    }
+
+    /**
+     * @return The number of the stored nodes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /*******************************************************************************************************************
+     * IntBinHeap.Elements interface
+     ******************************************************************************************************************/
+
+    @Override
+    public int compare(int a, int b) {
+        return this.comparator.compare(this, a, b);
+    }
+
+    @Override
+    public int getIndex(int handle) {
+        return this.heapIndex[handle];
+    }
+
+    @Override
+    public void setIndex(int handle, int index) {
+        this.heapIndex[handle] = index;
+    }
+}
@@ -24,6 +24,10 @@ public class DFS extends GenericSearchAlgorithm {
 
     private Stack<Node> stack;
 
+    // Whether to generate the children by changing the state in place, in case the domain supports
+    // it (see MutableSearchDomain)
+    private boolean applyInPlace = true;
+
     @Override
     public String getName() {
         return "dfs";
@@ -44,7 +48,15 @@ public class DFS extends GenericSearchAlgorithm {
 
     @Override
     public void setAdditionalParameter(String parameterName, String value) {
-        throw new UnsupportedOperationException();
+        switch (parameterName) {
+            case "apply-in-place": {
+                this.applyInPlace = Boolean.parseBoolean(value);
+                break;
+            }
+            default: {
+                throw new UnsupportedOperationException();
+            }
+        }
     }
 
     @Override
@@ -54,6 +66,12 @@ public class DFS extends GenericSearchAlgorithm {
         // Initialize all the data structures relevant to the search
         this._initDataStructures();
 
+        // The children are only packed, so they can be generated by changing the parent in place
+        MutableSearchDomain mutableDomain = null;
+        if (this.applyInPlace && domain instanceof MutableSearchDomain) {
+            mutableDomain = (MutableSearchDomain) domain;
+        }
+
         SearchResultImpl result = new SearchResultImpl();
         result.startTimer();
 
@@ -93,6 +111,7 @@ public class DFS extends GenericSearchAlgorithm {
             if (!this.visited.containsKey(currentNode.packed)) {
                 // Add to visited
                 this.visited.put(currentNode.packed, currentNode);
+                ++result.expanded;
 
                 // Auxiliary stack to visit neighbors in the order they appear by applying the operators
                 // alternatively: iterate through the generated neighbours in reverse order
@@ -104,8 +123,17 @@ public class DFS extends GenericSearchAlgorithm {
                     if (op.equals(currentNode.pop)) {
                         continue;
                     }
-                    SearchState childState = domain.applyOperator(state, op);
-                    Node childNode = new Node(childState, currentNode, op, op.reverse(state));
+                    ++result.generated;
+                    Node childNode;
+                    if (mutableDomain != null) {
+                        Operator pop = op.reverse(state);
+                        Operator undoOp = mutableDomain.apply(state, op);
+                        childNode = new Node(state, currentNode, op, pop);
+                        mutableDomain.undo(state, undoOp);
+                    } else {
+                        SearchState childState = domain.applyOperator(state, op);
+                        childNode = new Node(childState, currentNode, op, op.reverse(state));
+                    }
                     // Ignore if duplicate
                     if (!this.visited.containsKey(childNode.packed)) {
                         auxiliaryStack.push(childNode);
@@ -2,13 +2,26 @@ package org.cs4j.core.algorithms.basic;
 import org.cs4j.core.*;
 import org.cs4j.core.SearchResultImpl;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Iterative Deepening A* Search
  *
+ * In case more than a single thread is used, each iteration expands the tree up to the frontier depth (by the same
+ * order as of the sequential search), and the subtrees below the frontier are searched in a ForkJoinPool (by a
+ * separate instance of the class each, hence the threads don't share any state but the domain - see the thread-safety
+ * contract of SearchDomain). The solution of the leftmost subtree is returned, and the subtrees on its right are
+ * aborted - hence the solution, and the expanded and generated counts, are the same as of the sequential search (the
+ * aborted work is reported separately).
+ *
  * @author Matthew Hatem
  */
 public class IDAstar extends GenericSearchAlgorithm {
@@ -21,6 +34,15 @@ public class IDAstar extends GenericSearchAlgorithm {
     private double weight;
     private double bound;
     private double minNextF;
+    // Whether to change a single state in place, in case the domain supports it (see
+    // MutableSearchDomain)
+    private boolean applyInPlace;
+    // The number of threads (the search is sequential in case of a single thread)
+    private int threads;
+    // The depth of the subtrees which are searched in parallel
+    private int frontierDepth;
+    // The subtree searched by this instance (null if this instance performs the whole search)
+    private Subtree subtree;
 
     /**
      * The default constructor of the class
@@ -31,6 +53,9 @@ public class IDAstar extends GenericSearchAlgorithm {
 
     protected IDAstar(double weight) {
         this.weight = weight;
+        this.applyInPlace = true;
+        this.threads = 1;
+        this.frontierDepth = 6;
     }
 
     @Override
@@ -56,6 +81,26 @@ public class IDAstar extends GenericSearchAlgorithm {
                 }
                 break;
             }
+            case "apply-in-place": {
+                this.applyInPlace = Boolean.parseBoolean(value);
+                break;
+            }
+            case "threads": {
+                this.threads = Integer.parseInt(value);
+                if (this.threads < 1) {
+                    System.out.println("[ERROR] The number of threads must be >= 1");
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
+            case "frontier-depth": {
+                this.frontierDepth = Integer.parseInt(value);
+                if (this.frontierDepth < 0) {
+                    System.out.println("[ERROR] The frontier depth must be >= 0");
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
             default:{
                 throw new UnsupportedOperationException();
             }
@@ -67,20 +112,19 @@ public class IDAstar extends GenericSearchAlgorithm {
         this.result = new SearchResultImpl();
         this.solution = new SearchResultImpl.SolutionImpl();
         SearchState root = domain.initialState();
+        MutableSearchDomain mutableDomain = null;
+        if (this.applyInPlace && domain instanceof MutableSearchDomain) {
+            mutableDomain = (MutableSearchDomain) domain;
+            // The whole search changes this state (the initial state of the domain is kept)
+            root = domain.copy(root);
+        }
         this.result.startTimer();
         this.bound = this.weight * root.getH();
-        int i = 0;
-        do {
-            this.minNextF = -1;
-            boolean goalWasFound = this.dfs(domain, root, 0, null);
-/*            System.out.println("min next f: " + minNextF ) ;
-            System.out.println("next");*/
-            this.result.addIteration(i, this.bound, this.result.expanded, this.result.generated);
-            this.bound = this.minNextF;
-            if (goalWasFound) {
-                break;
-            }
-        } while (true);
+        if (this.threads > 1) {
+            this._searchParallel(domain, root, mutableDomain != null);
+        } else {
+            this._searchSequential(mutableDomain, domain, root);
+        }
         this.result.stopTimer();
 
         SearchResultImpl.SolutionImpl solution = new SearchResultImpl.SolutionImpl(this.domain);
@@ -101,6 +145,144 @@ public class IDAstar extends GenericSearchAlgorithm {
         return this.result;
     }
 
+    /**
+     * Runs the iterations of the search on a single thread
+     */
+    private void _searchSequential(MutableSearchDomain mutableDomain, SearchDomain domain, SearchState root) {
+        int i = 0;
+        do {
+            this.minNextF = -1;
+            boolean goalWasFound = (mutableDomain != null) ?
+                    this.dfsInPlace(mutableDomain, root, 0, null) :
+                    this.dfs(domain, root, 0, null);
+/*            System.out.println("min next f: " + minNextF ) ;
+            System.out.println("next");*/
+            this.result.addIteration(i, this.bound, this.result.expanded, this.result.generated);
+            this.bound = this.minNextF;
+            if (goalWasFound) {
+                break;
+            }
+        } while (true);
+    }
+
+    /**
+     * Runs the iterations of the search, where the subtrees below the frontier are searched in parallel
+     */
+    private void _searchParallel(SearchDomain domain, SearchState root, boolean inPlace) {
+        ForkJoinPool pool = new ForkJoinPool(this.threads);
+        // The work which was performed on the right of the solution (not counted in the result)
+        long abortedExpanded = 0;
+        try {
+            int i = 0;
+            do {
+                Iteration iteration = new Iteration(domain, this.bound, inPlace);
+                this._collectFrontier(iteration, root, 0, null, 0, new ArrayList<Operator>(),
+                        new ArrayList<SearchState>());
+                if (!iteration.subtrees.isEmpty()) {
+                    pool.invoke(new SubtreesAction(iteration.subtrees, 0, iteration.subtrees.size()));
+                }
+                int solutionIndex = iteration.firstSolution.get();
+                if (solutionIndex != Integer.MAX_VALUE) {
+                    Subtree solutionSubtree = iteration.subtrees.get(solutionIndex);
+                    // The counts of the sequential search: until the root of the subtree, and then the subtrees on
+                    // its left and the subtree itself
+                    this.result.expanded += solutionSubtree.prefixExpanded;
+                    this.result.generated += solutionSubtree.prefixGenerated;
+                    for (int j = 0; j < iteration.subtrees.size(); ++j) {
+                        Subtree subtree = iteration.subtrees.get(j);
+                        if (j <= solutionIndex) {
+                            this.result.expanded += subtree.expanded;
+                            this.result.generated += subtree.generated;
+                        } else {
+                            abortedExpanded += subtree.expanded;
+                        }
+                    }
+                    this._setParallelSolution(solutionSubtree);
+                } else {
+                    this.result.expanded += iteration.expanded;
+                    this.result.generated += iteration.generated;
+                    for (Subtree subtree : iteration.subtrees) {
+                        this.result.expanded += subtree.expanded;
+                        this.result.generated += subtree.generated;
+                    }
+                    iteration.updateMinNextF(iteration.frontierMinNextF);
+                }
+                this.result.addIteration(i, this.bound, this.result.expanded, this.result.generated);
+                this.bound = iteration.getMinNextF();
+                if (solutionIndex != Integer.MAX_VALUE) {
+                    break;
+                }
+            } while (true);
+        } finally {
+            pool.shutdown();
+        }
+        this.result.setExtras("threads", this.threads);
+        this.result.setExtras("aborted-expanded", abortedExpanded);
+    }
+
+    /**
+     * Expands the tree up to the frontier depth (by the same order as of dfs), and collects the subtrees below it.
+     * A goal above the frontier becomes a subtree as well (and the expansion stops, like in dfs).
+     *
+     * @param ops The operators from the root to the current state
+     * @param states The states from the root to the parent of the current state
+     *
+     * @return Whether a goal was found
+     */
+    private boolean _collectFrontier(Iteration iteration, SearchState state, double cost, Operator pop, int depth,
+                                     List<Operator> ops, List<SearchState> states) {
+        SearchDomain domain = iteration.domain;
+        double f = cost + this.weight * state.getH();
+        boolean goal = f <= this.bound && domain.isGoal(state);
+        if (depth == this.frontierDepth || goal) {
+            iteration.subtrees.add(new Subtree(iteration, iteration.subtrees.size(), state, cost, pop, ops, states));
+            return goal;
+        }
+
+        if (f > this.bound) {
+            if (iteration.frontierMinNextF < 0 || f < iteration.frontierMinNextF) {
+                iteration.frontierMinNextF = f;
+            }
+            return false;
+        }
+
+        ++iteration.expanded;
+        int numOps = domain.getNumOperators(state);
+        for (int i = 0; i < numOps; ++i) {
+            Operator op = domain.getOperator(state, i);
+            // Bypass reverse operators
+            if (op.equals(pop)) {
+                continue;
+            }
+            ++iteration.generated;
+            SearchState child = domain.applyOperator(state, op);
+            ops.add(op);
+            states.add(state);
+            boolean found = this._collectFrontier(iteration, child, op.getCost(child, state) + cost, op.reverse(state),
+                    depth + 1, ops, states);
+            ops.remove(ops.size() - 1);
+            states.remove(states.size() - 1);
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the solution of the search to be the solution found in the given subtree (in the same form as the
+     * solution found by dfs)
+     */
+    private void _setParallelSolution(Subtree subtree) {
+        this.solution.addOperators(subtree.solution.getOperators());
+        this.solution.addStates(subtree.solution.getStates());
+        for (int i = subtree.ops.size() - 1; i >= 0; --i) {
+            this.solution.addOperator(subtree.ops.get(i));
+            this.solution.addState(subtree.states.get(i));
+        }
+        this.solution.setCost(subtree.solution.getCost());
+    }
+
     /**
      * A single iteration of the IDA*
      *
@@ -127,6 +309,11 @@ public class IDAstar extends GenericSearchAlgorithm {
             return false;
         }
 
+        // A solution was found on the left of the subtree searched by this instance
+        if (this.subtree != null && this.subtree.isAborted()) {
+            return false;
+        }
+
         // Expand the current node
         ++result.expanded;
         int numOps = domain.getNumOperators(parent);
@@ -149,4 +336,206 @@ public class IDAstar extends GenericSearchAlgorithm {
         // No solution was found
         return false;
     }
+
+    /**
+     * A single iteration of the IDA*, which changes a single state in place (instead of creating
+     * a new state per generated node) - the performed operations are exactly the same as of
+     * {@link #dfs(SearchDomain, SearchState, double, Operator)}
+     *
+     * @param domain The domain on which the search is performed
+     * @param state The current state (restored before the function returns)
+     * @param cost The cost to reach the current state
+     * @param pop The reverse operator
+     *
+     * @return Whether a solution was found
+     */
+    private boolean dfsInPlace(MutableSearchDomain domain, SearchState state, double cost, Operator pop) {
+        double f = cost + this.weight * state.getH();
+
+        if (f <= this.bound && domain.isGoal(state)) {
+            this.solution.setCost(f);
+            this.solution.addOperator(pop);
+            return true;
+        }
+
+        if (f > this.bound) {
+            // Let's record the lowest value of f that is greater than the bound
+            if (this.minNextF < 0 || f < this.minNextF)
+                this.minNextF = f;
+            return false;
+        }
+
+        // A solution was found on the left of the subtree searched by this instance
+        if (this.subtree != null && this.subtree.isAborted()) {
+            return false;
+        }
+
+        // Expand the current node
+        ++result.expanded;
+        int numOps = domain.getNumOperators(state);
+        for (int i = 0; i < numOps; ++i) {
+            Operator op = domain.getOperator(state, i);
+            // Bypass reverse operators
+            if (op.equals(pop)) {
+                continue;
+            }
+            ++result.generated;
+            // The cost and the reverse operator are computed on the parent (before it is changed)
+            double opCost = domain.getOperatorCost(state, op);
+            Operator childPop = op.reverse(state);
+            Operator undoOp = domain.apply(state, op);
+            boolean goal = this.dfsInPlace(domain, state, opCost + cost, childPop);
+            domain.undo(state, undoOp);
+            if (goal) {
+                this.solution.addOperator(op);
+                this.solution.addState(domain.copy(state));
+                return true;
+            }
+        }
+
+        // No solution was found
+        return false;
+    }
+
+    /**
+     * The data of a single iteration of the parallel search, which is shared by the subtrees
+     */
+    private static final class Iteration {
+        private final SearchDomain domain;
+        private final double bound;
+        private final boolean inPlace;
+        // The subtrees below the frontier (by the order of the sequential search)
+        private final List<Subtree> subtrees = new ArrayList<>();
+        // The counts of the expansion above the frontier
+        private long expanded;
+        private long generated;
+        private double frontierMinNextF = -1;
+        // The index of the leftmost subtree in which a solution was found so far
+        private final AtomicInteger firstSolution = new AtomicInteger(Integer.MAX_VALUE);
+        // The lowest f which is greater than the bound (the bits of the double, or -1 if there is none)
+        private final AtomicLong minNextF = new AtomicLong(-1);
+
+        private Iteration(SearchDomain domain, double bound, boolean inPlace) {
+            this.domain = domain;
+            this.bound = bound;
+            this.inPlace = inPlace;
+        }
+
+        private void updateMinNextF(double f) {
+            if (f < 0) {
+                return;
+            }
+            long current;
+            do {
+                current = this.minNextF.get();
+                if (current != -1 && Double.longBitsToDouble(current) <= f) {
+                    return;
+                }
+            } while (!this.minNextF.compareAndSet(current, Double.doubleToLongBits(f)));
+        }
+
+        private double getMinNextF() {
+            long bits = this.minNextF.get();
+            return (bits == -1) ? -1 : Double.longBitsToDouble(bits);
+        }
+
+        private void solutionFound(int index) {
+            int current;
+            do {
+                current = this.firstSolution.get();
+                if (current <= index) {
+                    return;
+                }
+            } while (!this.firstSolution.compareAndSet(current, index));
+        }
+    }
+
+    /**
+     * A subtree below the frontier, which is searched by a separate instance of IDAstar
+     */
+    private final class Subtree {
+        private final Iteration iteration;
+        private final int index;
+        private final SearchState state;
+        private final double cost;
+        private final Operator pop;
+        // The path from the root (the states are the parents of the states reached by the operators)
+        private final List<Operator> ops;
+        private final List<SearchState> states;
+        // The counts of the expansion above the frontier, until the root of the subtree was generated
+        private final long prefixExpanded;
+        private final long prefixGenerated;
+
+        private long expanded;
+        private long generated;
+        private SearchResultImpl.SolutionImpl solution;
+
+        private Subtree(Iteration iteration, int index, SearchState state, double cost, Operator pop,
+                        List<Operator> ops, List<SearchState> states) {
+            this.iteration = iteration;
+            this.index = index;
+            this.state = state;
+            this.cost = cost;
+            this.pop = pop;
+            this.ops = new ArrayList<>(ops);
+            this.states = new ArrayList<>(states);
+            this.prefixExpanded = iteration.expanded;
+            this.prefixGenerated = iteration.generated;
+        }
+
+        private boolean isAborted() {
+            return this.iteration.firstSolution.get() < this.index;
+        }
+
+        private void search() {
+            if (this.isAborted()) {
+                return;
+            }
+            IDAstar searcher = new IDAstar(IDAstar.this.weight);
+            searcher.subtree = this;
+            searcher.bound = this.iteration.bound;
+            searcher.minNextF = -1;
+            searcher.result = new SearchResultImpl();
+            searcher.solution = new SearchResultImpl.SolutionImpl();
+            boolean goalWasFound = this.iteration.inPlace ?
+                    searcher.dfsInPlace((MutableSearchDomain) this.iteration.domain, this.state, this.cost, this.pop) :
+                    searcher.dfs(this.iteration.domain, this.state, this.cost, this.pop);
+            this.expanded = searcher.result.expanded;
+            this.generated = searcher.result.generated;
+            this.iteration.updateMinNextF(searcher.minNextF);
+            if (goalWasFound) {
+                this.solution = searcher.solution;
+                this.iteration.solutionFound(this.index);
+            }
+        }
+    }
+
+    /**
+     * Searches a range of subtrees (the range is split between the threads of the pool by work stealing)
+     */
+    private static final class SubtreesAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Subtree> subtrees;
+        private final int from;
+        private final int to;
+
+        private SubtreesAction(List<Subtree> subtrees, int from, int to) {
+            this.subtrees = subtrees;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from == 1) {
+                this.subtrees.get(this.from).search();
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            // The left half is searched first by the current thread (the right half may be stolen)
+            ForkJoinTask.invokeAll(new SubtreesAction(this.subtrees, this.from, middle),
+                    new SubtreesAction(this.subtrees, middle, this.to));
+        }
+    }
 }
@@ -33,11 +33,12 @@ public class PHS extends GenericSearchAlgorithm {
         PHSPossibleParameters.put("max-cost", Double.class);
         PHSPossibleParameters.put("reopen", Boolean.class);
         PHSPossibleParameters.put("rerun-if-not-found-and-nr", Boolean.class);
+        PHSPossibleParameters.put("open-list", String.class);
     }
 
     private static final int QID = 0;
 
-    public enum HeapType {BIN, BUCKET}
+    public enum HeapType {BIN, BUCKET, RADIX}
     // TODO ...
     private HeapType heapType;
 
@@ -86,6 +87,9 @@ public class PHS extends GenericSearchAlgorithm {
             case BUCKET:
                 heap = new BucketHeap<>(size, QID);
                 break;
+            case RADIX:
+                heap = new RadixHeap<>(QID);
+                break;
             case BIN:
                 heap = new BinHeap<>(new NodeComparator(), 0);
                 break;
@@ -116,6 +120,26 @@ public class PHS extends GenericSearchAlgorithm {
             } case "rerun-if-not-found-and-nr": {
                 this.rerun = Boolean.parseBoolean(value);
                 break;
+            } case "open-list": {
+                // NOTE: The h values of the expanded nodes may decrease (even if the heuristic is
+                // consistent), hence a radix heap (which is exact in any case) isn't chosen by
+                // default
+                switch (value) {
+                    case "bin": {
+                        this.heapType = HeapType.BIN;
+                        break;
+                    } case "bucket": {
+                        this.heapType = HeapType.BUCKET;
+                        break;
+                    } case "radix": {
+                        this.heapType = HeapType.RADIX;
+                        break;
+                    } default: {
+                        System.err.println("Illegal open list type: " + value + " (bin | bucket | radix)");
+                        throw new IllegalArgumentException();
+                    }
+                }
+                break;
             } default: {
                 System.err.println("No such parameter: " + parameterName + " (value: " + value + ")");
                 throw new UnsupportedOperationException();
@@ -3,11 +3,15 @@ package org.cs4j.core.algorithms.familiar;
 import org.cs4j.core.*;
 import org.cs4j.core.algorithms.auxiliary.SearchQueueElementImpl;
 import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.collections.ClosedList;
+import org.cs4j.core.collections.ClosedLists;
 import org.cs4j.core.collections.PackedElement;
 import org.cs4j.core.collections.SearchQueueElement;
 import org.cs4j.core.collections.GH_heap;
+import org.cs4j.core.collections.QueueTraceWriter;
 
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
@@ -30,6 +34,8 @@ public class DP  extends GenericSearchAlgorithm {
         DP.DPPossibleParameters.put("reopen", Boolean.class);
         DP.DPPossibleParameters.put("FR", Integer.class);
         DP.DPPossibleParameters.put("optimalSolution", Double.class);
+        DP.DPPossibleParameters.put("closed-list", String.class);
+        DP.DPPossibleParameters.put("queue-trace", String.class);
     }
 
     // The domain for the search
@@ -39,8 +45,13 @@ public class DP  extends GenericSearchAlgorithm {
     private GH_heap<Node> open;//gh_heap
     //    private BinHeapF<LazyAstarNode> openF;
     // Closed list (seen states)
-    private TreeMap<PackedElement, Node> closed;
-    //    private Map<PackedElement, LazyAstarNode> closed;
+    private ClosedList<Node> closed;
+    // The implementation of the closed list (tree | hash | open-addressing)
+    private ClosedList.Type closedListType;
+    // The file to which the operations on the open list are recorded (null if they aren't
+    // recorded - see QueueTraceWriter)
+    private File queueTraceFile;
+    private QueueTraceWriter queueTrace;
     //the result to return
     private SearchResultImpl result;
 
@@ -72,6 +83,7 @@ public class DP  extends GenericSearchAlgorithm {
         this.reopen = true;
         this.FR = Integer.MAX_VALUE;
         this.useFR = false;
+        this.closedListType = ClosedList.Type.TREE;
     }
 
 
@@ -108,10 +120,25 @@ public class DP  extends GenericSearchAlgorithm {
         if (this.optimalSolution != 0) {
             this.open.setOptimal(optimalSolution);
         }
+        if (this.queueTraceFile != null) {
+            // The parameters of GH_heap are required in order to replay the trace on it
+            Map<String, String> properties = new HashMap<>();
+            properties.put("algorithm", this.getName());
+            properties.put("domain", this.domain.getClass().getSimpleName());
+            properties.put("weight", Double.toString(this.weight));
+            properties.put("fmin", Double.toString(this.domain.initialState().getH()));
+            properties.put("dmin", Double.toString(this.domain.initialState().getD()));
+            properties.put("use-fr", Boolean.toString(this.useFR));
+            properties.put("use-d", Boolean.toString(this.useD));
+            properties.put("focalized", Boolean.toString(this.isFocalized));
+            properties.put("wa-priority", Boolean.toString(this.useWApriority));
+            properties.put("optimal", Boolean.toString(this.optimalSolution != 0));
+            this.queueTrace = new QueueTraceWriter(this.queueTraceFile, properties);
+        }
 //        this.openF = new BinHeapF<>(openF_ID,domain);
         //this.open = buildHeap(heapType, 100);
-        this.closed = new TreeMap<>();
-//        this.closed = new HashMap<>();
+        this.closed = ClosedLists.create(this.closedListType,
+                this.domain.initialState().pack().getLongsCount());
     }
 
     @Override
@@ -175,6 +202,10 @@ public class DP  extends GenericSearchAlgorithm {
         }
 
         result.stopTimer();
+        if (this.queueTrace != null) {
+            this.queueTrace.close();
+            this.queueTrace = null;
+        }
         // If a goal was found: update the solution
         handleGoal();
 
@@ -289,12 +320,9 @@ public class DP  extends GenericSearchAlgorithm {
             int smallerThanFmin = 0;
             int smallerThanWcost = 0;
             double fmin = open.getFmin();
-            for(Iterator<Map.Entry<PackedElement,Node>> it = closed.entrySet().iterator(); it.hasNext();){
-                Map.Entry<PackedElement,Node> entry = it.next();
-                Node node = entry.getValue();
+            for (Node node : closed.values()) {
                 if(node.f < fmin) smallerThanFmin++;
                 if(weight * node.f < cost) smallerThanWcost++;
-//                it.remove();
             }
             result.setExtras("fmin",fmin+"");
 /*            System.out.println("closed size:"+closed.size());
@@ -345,6 +373,14 @@ public class DP  extends GenericSearchAlgorithm {
                 this.optimalSolution = Double.parseDouble(value);
                 break;
             }
+            case "closed-list": {
+                this.closedListType = ClosedLists.parseOnHeapType(value);
+                break;
+            }
+            case "queue-trace": {
+                this.queueTraceFile = new File(value);
+                break;
+            }
             default: {
                 throw new UnsupportedOperationException();
             }
@@ -381,6 +417,9 @@ public class DP  extends GenericSearchAlgorithm {
      * @param toAdd is the new node toAdd to open
      */
     private void _addNode(Node toAdd) {
+        if (this.queueTrace != null) {
+            this.queueTrace.add(0, toAdd);
+        }
         this.open.add(toAdd);
 //        this.openF.add(toAdd);
         // The nodes are ordered in the closed list by their packed values
@@ -427,8 +466,14 @@ public class DP  extends GenericSearchAlgorithm {
         // if dupChildNode is in open, update it there too
         if (oldNode.getIndex(this.open.getKey()) != -1) {
             ++result.opupdated;
+            if (this.queueTrace != null) {
+                this.queueTrace.remove(0, oldNode);
+            }
             this.open.remove(oldNode);
             _copyNodeValues(oldNode,newNode);
+            if (this.queueTrace != null) {
+                this.queueTrace.add(0, newNode);
+            }
             this.open.add(newNode);
 //            this.open.updateF(oldNode,oldG,oldH);//gh_heap
 //            this.open.updateF(oldNode, oldF);
@@ -439,6 +484,9 @@ public class DP  extends GenericSearchAlgorithm {
             if (this.reopen) {
                 ++result.reopened;
                 _copyNodeValues(oldNode,newNode);
+                if (this.queueTrace != null) {
+                    this.queueTrace.add(0, oldNode);
+                }
                 this.open.add(oldNode);//gh_heap
 //                this.open.add(oldNode);
 //                this.openF.add(oldNode);
@@ -477,6 +525,9 @@ public class DP  extends GenericSearchAlgorithm {
      */
     private void _removeNode(Node toRemove) {
 //        double prevFmin = open.getFmin();
+        if (this.queueTrace != null) {
+            this.queueTrace.remove(0, toRemove);
+        }
         this.open.remove(toRemove);
 //        this.openF.remove(toRemove);
 /*        if(prevFmin < open.getFmin()){//fmin changed, need to reorder priority Queue
@@ -5,6 +5,7 @@ import org.cs4j.core.algorithms.auxiliary.SearchQueueElementImpl;
 import org.cs4j.core.SearchResultImpl;
 import org.cs4j.core.collections.*;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
@@ -12,20 +13,41 @@ import java.util.*;
 public class EES extends GenericSearchAlgorithm {
     private static final int CLEANUP_ID = 0;
     private static final int FOCAL_ID = 1;
+    private static final int OPEN_ID = 2;
+
+    private static final Map<String, Class> EESPossibleParameters;
+
+    // Declare the parameters that can be tuned before running the search
+    static {
+        EESPossibleParameters = new HashMap<>();
+        EES.EESPossibleParameters.put("weight", Double.class);
+        EES.EESPossibleParameters.put("reopen", Boolean.class);
+        EES.EESPossibleParameters.put("closed-list", String.class);
+        EES.EESPossibleParameters.put("focal-queue", String.class);
+        EES.EESPossibleParameters.put("queue-trace", String.class);
+    }
 
     private SearchDomain domain;
     private double weight;
     private boolean reopen;
+    // The implementation of the closed list (tree | hash | open-addressing)
+    private ClosedList.Type closedListType = ClosedList.Type.TREE;
+    // The implementation of OPEN and FOCAL (both perform the same search)
+    private FocalQueueType focalQueueType = FocalQueueType.TREAP;
+
+    public enum FocalQueueType {RBTREE, TREAP}
 
     private OpenNodeComparator openComparator = new OpenNodeComparator();
 
-    private GEQueue<Node> gequeue;
+    private FocalQueue<Node> gequeue;
     // cleanup is implemented as a binary heap and actually contains nodes ordered by their f values
-    private BinHeap<Node> cleanup;
+    private SearchQueue<Node> cleanup;
     // Closed list
-    // private LongObjectOpenHashMap<LazyAstarNode> closed;
-    private TreeMap<PackedElement, Node> closed;
-//    private Map<PackedElement, LazyAstarNode> closed;
+    private ClosedList<Node> closed;
+    // The file to which the operations on OPEN and FOCAL (channel 0) and on cleanup (channel 1)
+    // are recorded (null if they aren't recorded - see QueueTraceWriter)
+    private File queueTraceFile;
+    private QueueTraceWriter queueTrace;
 
     private SearchResultImpl result;
 
@@ -33,21 +55,46 @@ public class EES extends GenericSearchAlgorithm {
      * Initializes all the data structures required for the search,
      * especially OPEN, FOCAL, CLEANUP and CLOSED lists
      */
-    private void _initDataStructures() {
-        // this.closed = new LongObjectOpenHashMap<>();
-        // this.closed = new HashMap<>();
-        this.closed = new TreeMap<>();
-
-        this.gequeue =
-                new GEQueue<>(
-                        this.openComparator,
-                        new GENodeComparator(),
-                        new FocalNodeComparator(),
-                        EES.FOCAL_ID);
+    private void _initDataStructures(SearchDomain domain) {
+        this.closed = ClosedLists.create(this.closedListType,
+                domain.initialState().pack().getLongsCount());
+
+        switch (this.focalQueueType) {
+            case RBTREE: {
+                this.gequeue =
+                        new GEQueue<>(
+                                this.openComparator,
+                                new GENodeComparator(),
+                                new FocalNodeComparator(),
+                                EES.FOCAL_ID);
+                break;
+            }
+            case TREAP: {
+                this.gequeue =
+                        new TreapGEQueue<>(
+                                this.openComparator,
+                                new FocalNodeComparator(),
+                                new FHatPrimaryKey(),
+                                this.weight,
+                                EES.FOCAL_ID,
+                                EES.OPEN_ID);
+                break;
+            }
+        }
         this.cleanup =
                 new BinHeap<>(
                         new CleanupNodeComparator(),
                         EES.CLEANUP_ID);
+        if (this.queueTraceFile != null) {
+            Map<String, String> properties = new HashMap<>();
+            properties.put("algorithm", this.getName());
+            properties.put("domain", domain.getClass().getSimpleName());
+            properties.put("weight", Double.toString(this.weight));
+            properties.put("focal-queue", this.focalQueueType.toString().toLowerCase());
+            this.queueTrace = new QueueTraceWriter(this.queueTraceFile, properties);
+            this.gequeue = this.queueTrace.wrapFocal(this.gequeue, 0, new FHatPrimaryKey());
+            this.cleanup = this.queueTrace.wrap(this.cleanup, 1, new FPrimaryKey());
+        }
     }
 
 
@@ -163,7 +210,7 @@ public class EES extends GenericSearchAlgorithm {
 
     @Override
     public Map<String, Class> getPossibleParameters() {
-        return null;
+        return EES.EESPossibleParameters;
     }
 
     @Override
@@ -183,6 +230,31 @@ public class EES extends GenericSearchAlgorithm {
                 this.reopen = Boolean.parseBoolean(value);
                 break;
             }
+            case "closed-list": {
+                this.closedListType = ClosedLists.parseOnHeapType(value);
+                break;
+            }
+            case "focal-queue": {
+                switch (value) {
+                    case "rbtree": {
+                        this.focalQueueType = FocalQueueType.RBTREE;
+                        break;
+                    }
+                    case "treap": {
+                        this.focalQueueType = FocalQueueType.TREAP;
+                        break;
+                    }
+                    default: {
+                        System.out.println("[ERROR] Illegal focal queue type: " + value + " (rbtree | treap)");
+                        throw new IllegalArgumentException();
+                    }
+                }
+                break;
+            }
+            case "queue-trace": {
+                this.queueTraceFile = new File(value);
+                break;
+            }
             default: {
                 throw new UnsupportedOperationException();
             }
@@ -196,7 +268,7 @@ public class EES extends GenericSearchAlgorithm {
     @Override
     public SearchResultImpl search(SearchDomain domain) {
         // Init all the queues relevant to search (destroy previous results)
-        this._initDataStructures();
+        this._initDataStructures(domain);
 
         this.domain = domain;
 
@@ -333,6 +405,10 @@ public class EES extends GenericSearchAlgorithm {
             System.out.println("[INFO] OutOfMemory EES on:"+this.domain.getClass().getSimpleName()+" generated:"+result.getGenerated());
         }
         result.stopTimer();
+        if (this.queueTrace != null) {
+            this.queueTrace.close();
+            this.queueTrace = null;
+        }
 //        System.out.println("Generated:\t"+result.getGenerated());
 //        System.out.println("closed Size:\t"+this.closed.size());
 /*        System.out.println();
@@ -479,6 +555,26 @@ public class EES extends GenericSearchAlgorithm {
         }
     }
 
+    /**
+     * Extracts f^ of a node (OPEN is sorted on f^)
+     */
+    private final class FHatPrimaryKey implements DaryHeap.PrimaryKey<Node> {
+        @Override
+        public double get(final Node node) {
+            return node.fHat;
+        }
+    }
+
+    /**
+     * Extracts f of a node (cleanup is sorted on f)
+     */
+    private final class FPrimaryKey implements DaryHeap.PrimaryKey<Node> {
+        @Override
+        public double get(final Node node) {
+            return node.f;
+        }
+    }
+
     public Node createNode(SearchState state, Node parent, SearchState parentState, Operator op, final Operator pop){
         return new Node(state, parent, parentState, op, pop);
     }
@@ -607,8 +703,8 @@ public class EES extends GenericSearchAlgorithm {
          * @param pop The reverse operator (which will cause to generation of the parent node)
          */
         private Node(SearchState state, Node parent, SearchState parentState, Operator op, final Operator pop) {
-            // The size of the key is 2
-            super(2);
+            // The size of the key is 3
+            super(3);
             this.packed = domain.pack(state);
             this.op = op;
             this.pop = pop;
@@ -33,6 +33,9 @@ public class PTS extends GenericSearchAlgorithm {
     protected double maxCost;
     // Whether reopening is allowed
     private boolean reopen;
+    // Whether OPEN is a KeyedHeap (ties of the potential are broken by a higher g and then by the insertion order)
+    // or a BinHeap ordered by the potential only (the default)
+    private boolean keyedOpen;
 
     // Defines the available types of reruning the search if searching with NR failed
     private enum RERUN_TYPES {
@@ -47,6 +50,9 @@ public class PTS extends GenericSearchAlgorithm {
     // The type of re-runing to apply if the search failed to run with NR (no solution of the required cost was found)
     private RERUN_TYPES rerun;
 
+    // The arity of OPEN, when it is a KeyedHeap
+    private static final int KEYED_HEAP_ARITY = 4;
+
     private static final Map<String, Class> PTSPossibleParameters;
 
     // Declare the parameters that can be tunes before running the search
@@ -56,6 +62,7 @@ public class PTS extends GenericSearchAlgorithm {
         PTS.PTSPossibleParameters.put("max-cost", Double.class);
         PTS.PTSPossibleParameters.put("reopen", Boolean.class);
         PTS.PTSPossibleParameters.put("rerun-type-if-not-found", String.class);
+        PTS.PTSPossibleParameters.put("open-list", String.class);
     }
 
     public PTS() {
@@ -63,6 +70,7 @@ public class PTS extends GenericSearchAlgorithm {
         this.maxCost = Double.MAX_VALUE;
         this.reopen = true;
         this.rerun = RERUN_TYPES.NO_RERUN;
+        this.keyedOpen = false;
     }
 
     @Override
@@ -79,7 +87,11 @@ public class PTS extends GenericSearchAlgorithm {
      */
     private void _initDataStructures(boolean clearOpen, boolean clearIncons, boolean clearClosed) {
         if (clearOpen) {
-            this.open = new BinHeap<>(new PTS.NodeComparator(), 0);
+            if (this.keyedOpen) {
+                this.open = new KeyedHeap<>(new PTS.NodeKeys(), 0, PTS.KEYED_HEAP_ARITY);
+            } else {
+                this.open = new BinHeap<>(new PTS.NodeComparator(), 0);
+            }
         }
         if (clearIncons) {
             this.incons = new HashMap<>();
@@ -131,6 +143,23 @@ public class PTS extends GenericSearchAlgorithm {
                 }
                 break;
             }
+            case "open-list": {
+                switch (value) {
+                    case "keyed": {
+                        this.keyedOpen = true;
+                        break;
+                    }
+                    case "bin": {
+                        this.keyedOpen = false;
+                        break;
+                    }
+                    default: {
+                        System.out.println("[ERROR] The available open lists are 'keyed' and 'bin'");
+                        throw new IllegalArgumentException();
+                    }
+                }
+                break;
+            }
             default: {
                 System.err.println("No such parameter: " + parameterName + " (value: " + value + ")");
                 throw new UnsupportedOperationException();
@@ -483,4 +512,24 @@ public class PTS extends GenericSearchAlgorithm {
             return 0;
         }
     }
+
+    /**
+     * The keys of the nodes in OPEN (when it is a KeyedHeap): the potential (higher is first), and then g (higher is
+     * first, since a deeper node is probably closer to a goal)
+     */
+    private final class NodeKeys implements KeyedHeap.Keys<Node> {
+        @Override
+        public double getPrimary(Node node) {
+            // The potential of a node with h=0 is infinite (regardless of its g)
+            if (node.h == 0) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            return -(PTS.this.maxCost - node.g) / node.h;
+        }
+
+        @Override
+        public double getSecondary(Node node) {
+            return -node.g;
+        }
+    }
 }
@@ -36,6 +36,12 @@ public class RBFS extends GenericSearchAlgorithm {
     private SearchDomain domain;
     private Node goal;
     private double weight;
+    // Whether to change a single state in place, in case the domain supports it (see
+    // MutableSearchDomain)
+    private boolean applyInPlace;
+    // The domain and the changed state, in case the state is changed in place (null otherwise)
+    private MutableSearchDomain mutableDomain;
+    private SearchState mutableState;
 
     private List<Operator> path = new ArrayList<Operator>(3);
 
@@ -45,6 +51,7 @@ public class RBFS extends GenericSearchAlgorithm {
 
     public RBFS(double w) {
         this.weight = w;
+        this.applyInPlace = true;
     }
 
     @Override
@@ -59,7 +66,15 @@ public class RBFS extends GenericSearchAlgorithm {
 
     @Override
     public void setAdditionalParameter(String parameterName, String value) {
-        throw new UnsupportedOperationException();
+        switch (parameterName) {
+            case "apply-in-place": {
+                this.applyInPlace = Boolean.parseBoolean(value);
+                break;
+            }
+            default: {
+                throw new UnsupportedOperationException();
+            }
+        }
     }
 
     @Override
@@ -70,9 +85,20 @@ public class RBFS extends GenericSearchAlgorithm {
         result.startTimer();
 
         SearchState initialState = domain.initialState();
-        Node initialNode = new Node(initialState);
-        initialNode.fPrime = weight * initialState.getH();
-        rbfs(initialNode, Double.MAX_VALUE);
+        if (this.applyInPlace && domain instanceof MutableSearchDomain) {
+            this.mutableDomain = (MutableSearchDomain) domain;
+            // The whole search changes this state (the initial state of the domain is kept)
+            this.mutableState = domain.copy(initialState);
+            Node initialNode = new Node(null, null, null, 0, initialState.getH());
+            initialNode.fPrime = weight * initialState.getH();
+            rbfsInPlace(initialNode, Double.MAX_VALUE);
+            this.mutableDomain = null;
+            this.mutableState = null;
+        } else {
+            Node initialNode = new Node(initialState);
+            initialNode.fPrime = weight * initialState.getH();
+            rbfs(initialNode, Double.MAX_VALUE);
+        }
 
         result.stopTimer();
 
@@ -144,6 +170,70 @@ public class RBFS extends GenericSearchAlgorithm {
         return top.fPrime;
     }
 
+    /**
+     * The same as {@link #rbfs(Node, double)}, but the nodes don't store states: the state of the
+     * current node is this.mutableState, which is changed in place when the children are
+     * generated or explored (and restored afterwards)
+     */
+    private double rbfsInPlace(Node n, double u) {
+        if (goal != null) {
+            return Double.MAX_VALUE;
+        }
+
+        // goal found
+        if (mutableDomain.isGoal(mutableState)) {
+            goal = n;
+            return n.f;
+        }
+
+        // generate all successors
+        result.expanded++;
+        List<Node> succ = new ArrayList<Node>();
+        int numOps = mutableDomain.getNumOperators(mutableState);
+        for (int i = 0; i < numOps; i++) {
+            Operator op = mutableDomain.getOperator(mutableState, i);
+            if (op.equals(n.pop)) {
+                continue;
+            }
+            result.generated++;
+            // The cost and the reverse operator are computed on the parent (before it is changed)
+            double cost = mutableDomain.getOperatorCost(mutableState, op);
+            Operator pop = op.reverse(mutableState);
+            Operator undoOp = mutableDomain.apply(mutableState, op);
+            succ.add(new Node(n, op, pop, cost, mutableState.getH()));
+            mutableDomain.undo(mutableState, undoOp);
+        }
+
+        // no successors
+        if (succ.isEmpty()) {
+            return Double.MAX_VALUE;
+        }
+
+        // update f'
+        for (Node s : succ) {
+            if (n.f < n.fPrime) {
+                s.fPrime = Math.max(s.f, n.fPrime);
+            } else {
+                s.fPrime = s.f;
+            }
+        }
+
+        // explore virtual fringe
+        Collections.sort(succ);
+        Node top = succ.get(0);
+        while (getRank(top, weight) <= u && top.fPrime < Double.MAX_VALUE) {
+            double uPrime = (succ.size() == 1)
+                    ? u : Math.min(getRank(succ.get(1), weight), u);
+            Operator undoOp = mutableDomain.apply(mutableState, top.op);
+            top.fPrime = rbfsInPlace(top, uPrime);
+            mutableDomain.undo(mutableState, undoOp);
+            Collections.sort(succ);
+            top = succ.get(0);
+        }
+
+        return top.fPrime;
+    }
+
     protected double getRank(Node n, double weight) {
         return n.fPrime;
     }
@@ -163,10 +253,19 @@ public class RBFS extends GenericSearchAlgorithm {
         }
 
         private Node(SearchState state, Node parent, SearchState parentState, Operator op, Operator pop) {
-            double cost = (op != null) ? op.getCost(state, parentState) : 0;
-            this.g = (parent != null) ? parent.g + cost : cost;
-            this.f = g + (weight * state.getH());
+            this(parent, op, pop, (op != null) ? op.getCost(state, parentState) : 0, state.getH());
             this.state = domain.copy(state);
+        }
+
+        /**
+         * A constructor of a node without a state (used when the state is changed in place)
+         *
+         * @param cost The cost of the operator
+         * @param h The h value of the state of the node
+         */
+        private Node(Node parent, Operator op, Operator pop, double cost, double h) {
+            this.g = (parent != null) ? parent.g + cost : cost;
+            this.f = g + (weight * h);
             this.parent = parent;
             this.pop = pop;
             this.op = op;
@@ -23,6 +23,10 @@ public abstract class AnytimePACSearch extends AbstractAnytimeSearch {
     @Override
     public void setAdditionalParameter(String parameterName, String value) {
         switch (parameterName) {
+            case "open-reordering": {
+                super.setAdditionalParameter(parameterName, value);
+                break;
+            }
             default: {
                 logger.error("No such parameter: " + parameterName + " (value: " + value + ")");
                 throw new UnsupportedOperationException();
@@ -53,26 +57,15 @@ public abstract class AnytimePACSearch extends AbstractAnytimeSearch {
 
 
     /**
-     * If there are no more nodes with the old fmin, need to update fmin and maybe also maxfmin accordingly.
+     * The lower bound was increased, hence the PAC condition may be satisfied now
      */
     @Override
-    protected void updateFmin(){
-        // If fmin is no longer fmin, need to search for a new fmin @TODO: May improve efficiency
-        if(this.fCounter.containsKey(fmin)==false){
-            fmin=Double.MAX_VALUE;
-            for(double fInOpen : this.fCounter.keySet()){
-                if(fInOpen<fmin)
-                    fmin=fInOpen;
-            }
-            if(maxFmin<fmin) {
-                maxFmin = fmin;
-                this.totalSearchResults.getExtras().put("fmin", maxFmin);
-                if(this.pacCondition.shouldStop(this.totalSearchResults)) {
-                    this.totalSearchResults.increase(this.result);
-                    this.totalSearchResults.stopTimer();
-                    throw new PACConditionSatisfied(this.pacCondition);
-                }
-            }
+    protected void _maxFminIncreased(){
+        this.totalSearchResults.getExtras().put("fmin", maxFmin);
+        if(this.pacCondition.shouldStop(this.totalSearchResults)) {
+            this.totalSearchResults.increase(this.result);
+            this.totalSearchResults.stopTimer();
+            throw new PACConditionSatisfied(this.pacCondition);
         }
     }
 
@@ -1,10 +1,8 @@
 package org.cs4j.core.algorithms.pac;
 
-import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.collections.KeyedHeap;
 
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.List;
 
 /**
  * Created by Roni Stern on 26/02/2017.
@@ -12,6 +10,12 @@ import java.util.List;
  * An anytime PAC search that is based on APTS
  */
 public class AnytimePTS4PAC extends AnytimePACSearch {
+
+    public AnytimePTS4PAC() {
+        // The potential of the nodes depends on the incumbent solution
+        this.openReordering = OpenReordering.HEAPIFY;
+    }
+
     @Override
     protected Comparator<Node> createNodeComparator() {
         return new Comparator<Node>(){
@@ -27,23 +31,26 @@ public class AnytimePTS4PAC extends AnytimePACSearch {
                     return 1;
                 }
 
-                // Here we have a tie @TODO: What about tie-breaking?
+                // Here we have a tie (broken by the keyed open list, if used - see createNodeKeys())
                 return 0;
             }
         };
     }
 
     @Override
-    // Resort OPEN before continuing the search, because the PTS evaluation function considers the incumbent solution
-    public SearchResultImpl continueSearch() {
-        // Resort open according to the new incumbent @TODO: Study if this actually helps or not?
-        List<Node> openNodes = new ArrayList<Node>(this.open.size());
-        while(this.open.size()>0)
-            openNodes.add(this.open.poll());
-        for(Node node : openNodes)
-            this.open.add(node);
-        openNodes.clear();
-
-        return super.continueSearch();
+    protected KeyedHeap.Keys<Node> createNodeKeys() {
+        return new KeyedHeap.Keys<Node>() {
+            public double getPrimary(Node node) {
+                // The potential of a node with h=0 is infinite (regardless of its g)
+                if (node.h == 0) {
+                    return Double.NEGATIVE_INFINITY;
+                }
+                return -(AnytimePTS4PAC.this.incumbentSolution - node.g) / node.h;
+            }
+
+            public double getSecondary(Node node) {
+                return -node.g;
+            }
+        };
     }
 }
@@ -0,0 +1,524 @@
+package org.cs4j.core.algorithms.parallel;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.cs4j.core.GenericSearchAlgorithm;
+import org.cs4j.core.Operator;
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.SearchState;
+import org.cs4j.core.algorithms.auxiliary.GenericNode;
+import org.cs4j.core.collections.DaryHeap;
+import org.cs4j.core.collections.PackedElement;
+import org.cs4j.core.collections.SearchQueue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hash Distributed A* (and Weighted A*)
+ *
+ * Each worker thread owns an open list and a closed list, and the states are partitioned among the workers by a hash
+ * of their packed representation. A worker expands the nodes of its own open list (by the same order as WAstar: wF
+ * and then a higher g) and ships each generated child to the worker which owns its state. The children are collected
+ * into a buffer per destination, and the buffers are pushed in batches to lock-free mailboxes (stacks of batches) which
+ * their owners drain at once. Hence, only the owner of a state performs its duplicate detection.
+ *
+ * Since the workers don't expand the nodes in a global best-first order, a goal isn't returned when it is found:
+ * the cost of the best goal found so far (the incumbent) is shared, the nodes whose f*w isn't lower than the incumbent
+ * are pruned, and the search terminates only when all the open lists and mailboxes are empty. Then, the cost of the
+ * solution is optimal for w=1, and at most w times the optimal cost otherwise (a node of an optimal path which was
+ * pruned has C*w >= f*w >= incumbent).
+ *
+ * The termination is detected by a single counter of pending work: the number of busy workers plus the number of
+ * nodes that were pushed to mailboxes and not yet received. A worker becomes busy only by receiving nodes (in a
+ * single update of the counter), hence the counter reaches zero only when no work remains.
+ *
+ * NOTE: The domain (and its PDBs) is shared by all the workers, which relies on the thread-safety contract of
+ * SearchDomain
+ */
+public class HDAstar extends GenericSearchAlgorithm {
+    private final static Logger logger = LogManager.getLogger(HDAstar.class);
+
+    // The arity of the open list of each worker
+    private static final int OPEN_ARITY = 4;
+
+    private static final Map<String, Class> HDAstarPossibleParameters;
+
+    // Declare the parameters that can be tuned before running the search
+    static {
+        HDAstarPossibleParameters = new HashMap<>();
+        HDAstar.HDAstarPossibleParameters.put("weight", Double.class);
+        HDAstar.HDAstarPossibleParameters.put("threads", Integer.class);
+        HDAstar.HDAstarPossibleParameters.put("batch-size", Integer.class);
+        HDAstar.HDAstarPossibleParameters.put("reopen", Boolean.class);
+    }
+
+    // The domain to which the search problem belongs
+    private SearchDomain domain;
+
+    // The weight of h
+    private double weight;
+    // The number of worker threads
+    private int threadsCount;
+    // The number of nodes which are collected for a single destination before they are pushed to its mailbox (the
+    // buffers are also flushed after this number of expansions)
+    private int batchSize;
+    // Whether reopening is allowed
+    private boolean reopen;
+
+    private Worker[] workers;
+    // The number of busy workers plus the number of nodes in the mailboxes
+    private AtomicLong pending;
+    // The cost of the best goal found so far, and the goal
+    private volatile double incumbent;
+    private Node incumbentGoal;
+    // The first failure of a worker (if any)
+    private volatile Throwable failure;
+
+    public HDAstar() {
+        // Initial values (afterwards they can be set independently)
+        this.weight = 1.0;
+        this.threadsCount = Runtime.getRuntime().availableProcessors();
+        this.batchSize = 64;
+        this.reopen = true;
+    }
+
+    @Override
+    public String getName() {
+        return "hdastar";
+    }
+
+    @Override
+    public Map<String, Class> getPossibleParameters() {
+        return HDAstar.HDAstarPossibleParameters;
+    }
+
+    @Override
+    public void setAdditionalParameter(String parameterName, String value) {
+        switch (parameterName) {
+            case "weight": {
+                this.weight = Double.parseDouble(value);
+                if (this.weight < 1.0d) {
+                    logger.error("The weight of HDA* must be at least 1: " + value);
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
+            case "threads": {
+                this.threadsCount = Integer.parseInt(value);
+                if (this.threadsCount < 1) {
+                    logger.error("HDA* requires at least a single thread: " + value);
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
+            case "batch-size": {
+                this.batchSize = Integer.parseInt(value);
+                if (this.batchSize < 1) {
+                    logger.error("Illegal batch-size: " + value);
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
+            case "reopen": {
+                this.reopen = Boolean.parseBoolean(value);
+                break;
+            }
+            default: {
+                logger.error("No such parameter: " + parameterName + " (value: " + value + ")");
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+
+    /**
+     * @return The index of the worker which owns the state of the given node
+     */
+    private int _ownerOf(Node node) {
+        int hash = node.getPacked().hashCode() * 0x9E3779B9;
+        // The higher bits are better mixed
+        return (int) (((hash >>> 1) * (long) this.threadsCount) >>> 31);
+    }
+
+    /**
+     * @return Whether the given node can't lead to a solution whose cost is lower than incumbent/w
+     */
+    private boolean _isPruned(Node node) {
+        return this.weight * node.getF() >= this.incumbent;
+    }
+
+    /**
+     * Updates the incumbent if the given goal is better
+     */
+    private synchronized void _updateIncumbent(Node goal) {
+        if (goal.getG() < this.incumbent) {
+            this.incumbentGoal = goal;
+            this.incumbent = goal.getG();
+        }
+    }
+
+    @Override
+    public SearchResultImpl search(SearchDomain domain) {
+        this.domain = domain;
+        this.pending = new AtomicLong();
+        this.incumbent = Double.MAX_VALUE;
+        this.incumbentGoal = null;
+        this.failure = null;
+        this.workers = new Worker[this.threadsCount];
+        for (int i = 0; i < this.threadsCount; ++i) {
+            this.workers[i] = new Worker(i);
+        }
+
+        SearchResultImpl result = new SearchResultImpl();
+        result.startTimer();
+
+        // The initial node is received by its owner like any other node
+        Node initialNode = new Node(domain.initialState());
+        this.pending.incrementAndGet();
+        this.workers[this._ownerOf(initialNode)].mailbox.push(new Batch(new Node[]{initialNode}, 1));
+
+        Thread[] threads = new Thread[this.threadsCount];
+        for (int i = 0; i < this.threadsCount; ++i) {
+            threads[i] = new Thread(this.workers[i], "hdastar-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("Interrupted while waiting for the workers", e);
+            }
+        }
+        result.stopTimer();
+        if (this.failure != null) {
+            throw new IllegalStateException("A worker of HDA* failed", this.failure);
+        }
+
+        // Collect the counters of the workers (the result of each worker is kept as a concrete result)
+        for (Worker worker : this.workers) {
+            result.expanded += worker.result.expanded;
+            result.generated += worker.result.generated;
+            result.duplicates += worker.result.duplicates;
+            result.opupdated += worker.result.opupdated;
+            result.reopened += worker.result.reopened;
+            result.addConcreteResult(worker.result);
+        }
+        result.setExtras("threads", this.threadsCount);
+
+        if (this.incumbentGoal != null) {
+            result.addSolution(this._getSolution(this.incumbentGoal));
+        }
+        return result;
+    }
+
+    /**
+     * Reconstructs the path to the given goal (after all the workers have finished)
+     */
+    private SearchResultImpl.SolutionImpl _getSolution(Node goal) {
+        SearchResultImpl.SolutionImpl solution = new SearchResultImpl.SolutionImpl();
+        List<SearchState> statesPath = new ArrayList<>();
+        List<Operator> operatorsPath = new ArrayList<>();
+        double cost = 0;
+        SearchState currentState = this.domain.unpackLite(goal.getPacked());
+        for (Node currentNode = goal; currentNode != null; currentNode = currentNode.getParent()) {
+            SearchState parentState = null;
+            if (currentNode.getOp() != null) {
+                operatorsPath.add(currentNode.getOp());
+                parentState = this.domain.unpackLite(currentNode.getParent().getPacked());
+                cost += currentNode.getOp().getCost(currentState, parentState);
+            }
+            statesPath.add(currentState);
+            currentState = parentState;
+        }
+        solution.addStates(statesPath);
+        solution.addOperators(operatorsPath);
+        solution.setCost(cost);
+        // Make the paths to be: start -> ... -> goal
+        solution.reverseAll();
+        return solution;
+    }
+
+    /**
+     * A worker of the search: owns an open list and a closed list of a part of the states
+     */
+    private final class Worker implements Runnable {
+        private final int index;
+        private final SearchQueue<Node> open;
+        private final Map<PackedElement, Node> closed;
+        // The nodes received by this worker
+        private final Mailbox mailbox;
+        // The nodes generated by this worker, per destination (the own buffer is unused)
+        private final Node[][] outboxes;
+        private final int[] outboxSizes;
+        private final SearchResultImpl result;
+
+        private Worker(int index) {
+            this.index = index;
+            this.open = new DaryHeap<>(new NodeComparator(), 0, HDAstar.OPEN_ARITY, new WfPrimaryKey());
+            this.closed = new HashMap<>();
+            this.mailbox = new Mailbox();
+            this.outboxes = new Node[HDAstar.this.threadsCount][HDAstar.this.batchSize];
+            this.outboxSizes = new int[HDAstar.this.threadsCount];
+            this.result = new SearchResultImpl();
+        }
+
+        @Override
+        public void run() {
+            try {
+                this._run();
+            } catch (Throwable e) {
+                HDAstar.this.failure = e;
+                // Make all the other workers stop
+                HDAstar.this.pending.set(0);
+            }
+        }
+
+        private void _run() {
+            this.result.startTimer();
+            boolean busy = false;
+            int expansionsSinceFlush = 0;
+            while (HDAstar.this.failure == null) {
+                Batch received = this.mailbox.drain();
+                if (received != null) {
+                    int count = 0;
+                    for (Batch batch = received; batch != null; batch = batch.next) {
+                        count += batch.size;
+                    }
+                    // Becoming busy and removing the received nodes from the mailboxes is a single update, hence
+                    // the pending work is never zero meanwhile
+                    HDAstar.this.pending.addAndGet((busy ? 0 : 1) - count);
+                    busy = true;
+                    for (Batch batch = received; batch != null; batch = batch.next) {
+                        for (int i = 0; i < batch.size; ++i) {
+                            this._receive(batch.nodes[i]);
+                        }
+                    }
+                }
+                Node currentNode = busy ? this._pollUnpruned() : null;
+                if (currentNode == null) {
+                    if (busy) {
+                        // All the generated nodes must be sent before the worker becomes idle
+                        this._flushAll();
+                        expansionsSinceFlush = 0;
+                        busy = false;
+                        HDAstar.this.pending.decrementAndGet();
+                    }
+                    if (HDAstar.this.pending.get() == 0) {
+                        break;
+                    }
+                    Thread.yield();
+                    continue;
+                }
+                this._expand(currentNode);
+                // Don't keep nodes for the other workers too long (they might be idle)
+                if (++expansionsSinceFlush == HDAstar.this.batchSize) {
+                    this._flushAll();
+                    expansionsSinceFlush = 0;
+                }
+            }
+            this.result.stopTimer();
+        }
+
+        /**
+         * @return The next node to expand, or null if the open list doesn't contain a node which isn't pruned
+         */
+        private Node _pollUnpruned() {
+            while (true) {
+                Node node = this.open.peek();
+                // All the nodes are pruned (w*f >= wF)
+                if (node == null || node.getWf() >= HDAstar.this.incumbent) {
+                    return null;
+                }
+                this.open.poll();
+                if (!HDAstar.this._isPruned(node)) {
+                    return node;
+                }
+            }
+        }
+
+        /**
+         * Performs the duplicate detection of a node whose state is owned by this worker and adds it to the open list
+         */
+        private void _receive(Node node) {
+            if (HDAstar.this._isPruned(node)) {
+                return;
+            }
+            Node dup = this.closed.get(node.getPacked());
+            if (dup == null) {
+                this.closed.put(node.getPacked(), node);
+                this.open.add(node);
+                return;
+            }
+            ++this.result.duplicates;
+            if (dup.getG() <= node.getG()) {
+                return;
+            }
+            // Found a shorter path to the state
+            dup.copyFromDuplicateNode(node);
+            if (dup.getIndex(this.open.getKey()) != -1) {
+                ++this.result.opupdated;
+                this.open.update(dup);
+            } else if (HDAstar.this.reopen) {
+                ++this.result.reopened;
+                this.open.add(dup);
+            }
+        }
+
+        private void _expand(Node node) {
+            SearchState state = HDAstar.this.domain.unpack(node.getPacked());
+            if (HDAstar.this.domain.isGoal(state)) {
+                HDAstar.this._updateIncumbent(node);
+                return;
+            }
+            ++this.result.expanded;
+            for (int i = 0; i < HDAstar.this.domain.getNumOperators(state); ++i) {
+                Operator op = HDAstar.this.domain.getOperator(state, i);
+                // Try to avoid loops - no need to generate parent
+                if (op.equals(node.getPop())) {
+                    continue;
+                }
+                SearchState childState = HDAstar.this.domain.applyOperator(state, op);
+                Node childNode = new Node(childState, node, state, op, op.reverse(state));
+                ++this.result.generated;
+                if (HDAstar.this._isPruned(childNode)) {
+                    continue;
+                }
+                int owner = HDAstar.this._ownerOf(childNode);
+                if (owner == this.index) {
+                    this._receive(childNode);
+                } else {
+                    this.outboxes[owner][this.outboxSizes[owner]++] = childNode;
+                    if (this.outboxSizes[owner] == HDAstar.this.batchSize) {
+                        this._flush(owner);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Pushes the buffered nodes of the given destination to its mailbox
+         */
+        private void _flush(int destination) {
+            int size = this.outboxSizes[destination];
+            if (size == 0) {
+                return;
+            }
+            // The nodes are counted before the destination can receive them
+            HDAstar.this.pending.addAndGet(size);
+            HDAstar.this.workers[destination].mailbox.push(new Batch(this.outboxes[destination], size));
+            this.outboxes[destination] = new Node[HDAstar.this.batchSize];
+            this.outboxSizes[destination] = 0;
+        }
+
+        private void _flushAll() {
+            for (int destination = 0; destination < this.outboxes.length; ++destination) {
+                this._flush(destination);
+            }
+        }
+    }
+
+    /**
+     * A batch of nodes in a mailbox
+     */
+    private static final class Batch {
+        private final Node[] nodes;
+        private final int size;
+        private Batch next;
+
+        private Batch(Node[] nodes, int size) {
+            this.nodes = nodes;
+            this.size = size;
+        }
+    }
+
+    /**
+     * A lock-free mailbox of a worker: a stack of batches which any worker can push, and which the owner drains at
+     * once
+     */
+    private static final class Mailbox {
+        private final AtomicReference<Batch> head = new AtomicReference<>();
+
+        private void push(Batch batch) {
+            Batch current;
+            do {
+                current = this.head.get();
+                batch.next = current;
+            } while (!this.head.compareAndSet(current, batch));
+        }
+
+        /**
+         * @return All the batches of the mailbox (chained through next), or null if it is empty
+         */
+        private Batch drain() {
+            // Avoid the write if the mailbox is empty
+            if (this.head.get() == null) {
+                return null;
+            }
+            return this.head.getAndSet(null);
+        }
+    }
+
+    /**
+     * The node class
+     */
+    public final class Node extends GenericNode<Node> {
+
+        private Node(SearchState state) {
+            super(state);
+        }
+
+        private Node(SearchState state, Node parent, SearchState parentState, Operator op, Operator pop) {
+            super(state, parent, parentState, op, pop);
+        }
+
+        private double getWf() {
+            return this.g + HDAstar.this.weight * this.h;
+        }
+
+        /**
+         * The ranks follow the order of the NodeComparator: wF and then g
+         */
+        @Override
+        public double getRank(int level) {
+            return (level == 0) ? this.getWf() : this.g;
+        }
+    }
+
+    /**
+     * The nodes comparator class (the same order as of WAstar.NodeComparator)
+     */
+    private static final class NodeComparator implements Comparator<Node> {
+        @Override
+        public int compare(final Node a, final Node b) {
+            // First compare by wF (smaller is preferred), then by g (bigger is preferred)
+            double aWf = a.getWf();
+            double bWf = b.getWf();
+            if (aWf < bWf) {
+                return -1;
+            }
+            if (aWf > bWf) {
+                return 1;
+            }
+            if (a.getG() > b.getG()) {
+                return -1;
+            }
+            if (a.getG() < b.getG()) {
+                return 1;
+            }
+            return 0;
+        }
+    }
+
+    private static final class WfPrimaryKey implements DaryHeap.PrimaryKey<Node> {
+        @Override
+        public double get(Node node) {
+            return node.getWf();
+        }
+    }
+}
@@ -0,0 +1,684 @@
+package org.cs4j.core.algorithms.parallel;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.cs4j.core.AbstractableSearchDomain;
+import org.cs4j.core.Operator;
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.SearchState;
+import org.cs4j.core.StateAbstraction;
+import org.cs4j.core.algorithms.auxiliary.SearchQueueElementImpl;
+import org.cs4j.core.algorithms.weighted.GenericWAstar;
+import org.cs4j.core.algorithms.weighted.WAstar;
+import org.cs4j.core.collections.BinHeap;
+import org.cs4j.core.collections.ClosedList;
+import org.cs4j.core.collections.ClosedLists;
+import org.cs4j.core.collections.LongOpenAddressingClosedList;
+import org.cs4j.core.collections.SearchQueue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parallel Best-NBlock-First (Safe PBNF) - Weighted A* (and Anytime Weighted A*) with multiple threads
+ *
+ * The states are partitioned by an abstraction which is supplied by the domain (see AbstractableSearchDomain): each
+ * abstract state (an nblock) has its own open list and closed list. The children of the states of an nblock belong to
+ * the nblock itself or to its successors in the abstract graph (its duplicate detection scope). A thread acquires a
+ * whole nblock whose duplicate detection scope is disjoint from the scopes of all the nblocks that are held by the
+ * other threads, hence it expands nodes and performs duplicate detection without any locking. The nblocks are ordered
+ * by their best nodes (by the comparator of WAstar: wF and then a higher g) - a thread releases its nblock after at
+ * least min-expansions expansions, once a free nblock has a better node. In order to avoid livelock, an nblock of the
+ * scope whose best node is better is marked as hot: the threads whose nblocks interfere with it release them, and they
+ * can't be acquired until the hot nblock is acquired.
+ *
+ * Like HDAstar, the search terminates only when no nblock contains a node which isn't pruned, and the nodes are pruned
+ * by the cost of the best goal found so far (the incumbent): by w*f, such that the cost is at most w times the optimal
+ * cost, or in the anytime mode by f, such that the incumbent is improved until it is optimal (all the improving
+ * solutions are returned, the best one last).
+ *
+ * The nodes, the comparator and the replacement of duplicates are those of WAstar (see GenericWAstar). However, a node
+ * is never changed after it was created (a duplicate which is reached via a shorter path is replaced by the new node),
+ * hence the paths to the goals can be built after the workers are done without racing with them.
+ *
+ * NOTE: The domain is shared by all the threads, which relies on the thread-safety contract of SearchDomain
+ */
+public class PBNF extends WAstar {
+    private final static Logger logger = LogManager.getLogger(PBNF.class);
+
+    private static final Map<String, Class> PBNFPossibleParameters;
+
+    // Declare the parameters that can be tuned before running the search
+    static {
+        PBNFPossibleParameters = new HashMap<>();
+        PBNF.PBNFPossibleParameters.put("weight", Double.class);
+        PBNF.PBNFPossibleParameters.put("reopen", Boolean.class);
+        PBNF.PBNFPossibleParameters.put("max-cost", Double.class);
+        PBNF.PBNFPossibleParameters.put("threads", Integer.class);
+        PBNF.PBNFPossibleParameters.put("nblocks", Integer.class);
+        PBNF.PBNFPossibleParameters.put("min-expansions", Integer.class);
+        PBNF.PBNFPossibleParameters.put("anytime", Boolean.class);
+    }
+
+    // The expected number of states of a single nblock (the closed lists are grown if required)
+    private static final int NBLOCK_CLOSED_SIZE = 64;
+
+    // The domain to which the search problem belongs
+    private SearchDomain domain;
+
+    // The number of worker threads
+    private int threadsCount;
+    // The required number of nblocks (the domain chooses the abstraction whose number of abstract states is the
+    // closest) - 256 by default: finer abstractions (e.g., 3360 nblocks of the 15-puzzle for 1024) don't reduce the
+    // number of expansions, and the abstract graph is costlier to build and to maintain
+    private int nblocksCount;
+    // The minimum number of expansions before a thread may release its nblock - 1 by default: every expansion beyond
+    // the best node of the free nblocks may be wasted (with a single thread, 32 expanded 133,853 nodes on the 15-puzzle
+    // instance 12 rather than the 32,406 of WAstar, and 1 expanded 32,499). Larger values acquire the nblocks less
+    // frequently, which is only worthwhile if the threads contend for the NBlockGraph (see PBNFThroughputReport)
+    private int minExpansions;
+    // Whether to prune by f (and improve the incumbent until it is optimal) rather than by w*f
+    private boolean anytime;
+
+    private StateAbstraction abstraction;
+    private NBlockGraph graph;
+    private Comparator<Node> comparator;
+    // The cost of the best goal found so far, and all the goals that improved it (the best one is the last - their
+    // paths are built after the workers are done)
+    private volatile double incumbent;
+    private List<Node> incumbentGoals;
+    // The first failure of a worker (if any)
+    private volatile Throwable failure;
+
+    public PBNF() {
+        // Initial values (afterwards they can be set independently)
+        this.threadsCount = Runtime.getRuntime().availableProcessors();
+        this.nblocksCount = 256;
+        this.minExpansions = 1;
+        this.anytime = false;
+    }
+
+    @Override
+    public String getName() {
+        return "pbnf";
+    }
+
+    @Override
+    public Map<String, Class> getPossibleParameters() {
+        return PBNF.PBNFPossibleParameters;
+    }
+
+    @Override
+    public void setAdditionalParameter(String parameterName, String value) {
+        switch (parameterName) {
+            case "weight":
+            case "reopen":
+            case "max-cost": {
+                super.setAdditionalParameter(parameterName, value);
+                break;
+            }
+            case "threads": {
+                this.threadsCount = Integer.parseInt(value);
+                if (this.threadsCount < 1) {
+                    logger.error("PBNF requires at least a single thread: " + value);
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
+            case "nblocks": {
+                this.nblocksCount = Integer.parseInt(value);
+                if (this.nblocksCount < 1) {
+                    logger.error("Illegal number of nblocks: " + value);
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
+            case "min-expansions": {
+                this.minExpansions = Integer.parseInt(value);
+                if (this.minExpansions < 1) {
+                    logger.error("Illegal min-expansions: " + value);
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
+            case "anytime": {
+                this.anytime = Boolean.parseBoolean(value);
+                break;
+            }
+            default: {
+                logger.error("No such parameter: " + parameterName + " (value: " + value + ")");
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+
+    /**
+     * @return Whether the given node can't lead to a solution which should be found
+     */
+    private boolean _isPruned(Node node) {
+        if (node.getRf() >= this.maxCost) {
+            return true;
+        }
+        return (this.anytime ? node.getF() : this.weight * node.getF()) >= this.incumbent;
+    }
+
+    /**
+     * Updates the incumbent if the given goal is better
+     */
+    private synchronized void _updateIncumbent(Node goal) {
+        if (goal.getG() < this.incumbent) {
+            this.incumbentGoals.add(goal);
+            this.incumbent = goal.getG();
+        }
+    }
+
+    @Override
+    public SearchResultImpl search(SearchDomain domain) {
+        if (!(domain instanceof AbstractableSearchDomain)) {
+            logger.error("PBNF requires an abstraction of the domain (see AbstractableSearchDomain): " +
+                    domain.getClass().getSimpleName());
+            throw new UnsupportedOperationException();
+        }
+        this.domain = domain;
+        this.abstraction = ((AbstractableSearchDomain) domain).createAbstraction(this.nblocksCount);
+        this.comparator = this.getComparator();
+        this.incumbent = Double.MAX_VALUE;
+        this.incumbentGoals = new ArrayList<>();
+        this.failure = null;
+
+        SearchResultImpl result = new SearchResultImpl();
+        result.startTimer();
+
+        SearchState initialState = domain.initialState();
+        this.graph = new NBlockGraph(domain.packsIntoSingleLong());
+        this.graph.nblocks[this.abstraction.getAbstractState(initialState)].add(this.getNode(initialState));
+        this.graph.initFreeList();
+
+        Worker[] workers = new Worker[this.threadsCount];
+        Thread[] threads = new Thread[this.threadsCount];
+        for (int i = 0; i < this.threadsCount; ++i) {
+            workers[i] = new Worker();
+            threads[i] = new Thread(workers[i], "pbnf-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("Interrupted while waiting for the workers", e);
+            }
+        }
+        result.stopTimer();
+        if (this.failure != null) {
+            throw new IllegalStateException("A worker of PBNF failed", this.failure);
+        }
+
+        // Collect the counters of the workers (the result of each worker is kept as a concrete result)
+        long acquisitions = 0;
+        for (Worker worker : workers) {
+            result.expanded += worker.result.expanded;
+            result.generated += worker.result.generated;
+            result.duplicates += worker.result.duplicates;
+            result.opupdated += worker.result.opupdated;
+            result.reopened += worker.result.reopened;
+            acquisitions += worker.acquisitions;
+            result.addConcreteResult(worker.result);
+        }
+        result.setExtras("threads", this.threadsCount);
+        result.setExtras("nblocks", this.abstraction.getAbstractStatesCount());
+        result.setExtras("nblock-acquisitions", acquisitions);
+        result.setExtras("hot-nblocks", this.graph.hotCount);
+
+        // The improving solutions (the best one is the last) - the nodes are never changed, hence the path to each
+        // goal is the path by which it was found
+        int firstGoal = this.anytime ? 0 : Math.max(this.incumbentGoals.size() - 1, 0);
+        for (Node goal : this.incumbentGoals.subList(firstGoal, this.incumbentGoals.size())) {
+            result.addSolution(this.getSolution(domain, goal));
+        }
+        return result;
+    }
+
+    /**
+     * A worker of the search: repeatedly acquires a free nblock and expands its nodes
+     */
+    private final class Worker implements Runnable {
+        private final SearchResultImpl result;
+        // The number of the nblocks acquired by this worker
+        private long acquisitions;
+
+        private Worker() {
+            this.result = new SearchResultImpl();
+        }
+
+        @Override
+        public void run() {
+            try {
+                this._run();
+            } catch (Throwable e) {
+                PBNF.this.failure = e;
+                // Make all the waiting workers stop
+                PBNF.this.graph.wakeAll();
+            }
+        }
+
+        private void _run() {
+            this.result.startTimer();
+            NBlock current = null;
+            while (true) {
+                current = PBNF.this.graph.nextNBlock(current);
+                if (current == null) {
+                    break;
+                }
+                ++this.acquisitions;
+                int expansions = 0;
+                while (true) {
+                    Node node = this._pollUnpruned(current);
+                    if (node == null) {
+                        break;
+                    }
+                    this._expand(current, node);
+                    if (++expansions == PBNF.this.minExpansions) {
+                        if (PBNF.this.graph.shouldSwitch(current)) {
+                            break;
+                        }
+                        expansions = 0;
+                    }
+                }
+            }
+            this.result.stopTimer();
+        }
+
+        /**
+         * @return The next node of the given nblock to expand, or null if the nblock doesn't contain a node which isn't
+         *         pruned (the pruned nodes are removed)
+         */
+        private Node _pollUnpruned(NBlock nblock) {
+            while (!nblock.open.isEmpty()) {
+                Node node = nblock.open.poll();
+                if (!PBNF.this._isPruned(node)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Expands the given node of the given nblock (all the children belong to the duplicate detection scope of the
+         * nblock, which is held by this worker)
+         */
+        private void _expand(NBlock nblock, Node node) {
+            SearchDomain domain = PBNF.this.domain;
+            SearchState state = node.isPackedIntoLong() ?
+                    domain.unpackLong(node.getPackedLong()) :
+                    domain.unpack(node.getPacked());
+            if (domain.isGoal(state)) {
+                PBNF.this._updateIncumbent(node);
+                return;
+            }
+            ++this.result.expanded;
+            for (int i = 0; i < domain.getNumOperators(state); ++i) {
+                Operator op = domain.getOperator(state, i);
+                // Try to avoid loops - no need to generate parent
+                if (op.equals(node.getPop())) {
+                    continue;
+                }
+                SearchState childState = domain.applyOperator(state, op);
+                Node childNode = PBNF.this.getNode(childState, node, state, op, op.reverse(state));
+                ++this.result.generated;
+                if (PBNF.this._isPruned(childNode)) {
+                    continue;
+                }
+                NBlock destination = PBNF.this.graph.nblocks[PBNF.this.abstraction.getAbstractState(childState)];
+                assert nblock.isInScope(destination.index);
+                this._receive(destination, childNode);
+            }
+        }
+
+        /**
+         * Performs the duplicate detection of a node in its nblock and adds it to the open list of the nblock
+         */
+        private void _receive(NBlock nblock, Node node) {
+            Node dup = nblock.getFromClosed(node);
+            if (dup == null) {
+                nblock.add(node);
+                return;
+            }
+            ++this.result.duplicates;
+            if (dup.getG() <= node.getG() || !PBNF.this.shouldReplaceNode(PBNF.this.domain, dup, node)) {
+                return;
+            }
+            // Found a shorter path to the state: the duplicate is replaced by the new node (rather than updated in
+            // place), since its descendants may belong to nblocks that are held by other threads
+            if (dup.getIndex(nblock.open.getKey()) != -1) {
+                ++this.result.opupdated;
+                nblock.open.remove(dup);
+                nblock.add(node);
+            } else if (PBNF.this.reopen) {
+                ++this.result.reopened;
+                nblock.add(node);
+            } else {
+                nblock.putClosed(node);
+            }
+        }
+    }
+
+    /**
+     * The abstract graph of the nblocks, and the list of the free nblocks (all the functions are synchronized)
+     *
+     * The interference scope of an nblock contains all the nblocks whose duplicate detection scopes intersect its own
+     * scope. For each nblock, sigma is the number of the held nblocks that interfere with it and sigmaHot is the number
+     * of the hot nblocks that interfere with it - an nblock is free if both are zero, it isn't held and its open list
+     * isn't empty.
+     */
+    private final class NBlockGraph {
+        private final NBlock[] nblocks;
+        // The free nblocks, ordered by their best nodes
+        private final SearchQueue<NBlock> freeList;
+        // The number of the held nblocks
+        private int busyCount;
+        // Whether the search is done (no nblock is held and no nblock is free)
+        private boolean done;
+        // The number of the nblocks that were marked as hot
+        private long hotCount;
+
+        private NBlockGraph(boolean packsIntoSingleLong) {
+            StateAbstraction abstraction = PBNF.this.abstraction;
+            this.nblocks = new NBlock[abstraction.getAbstractStatesCount()];
+            for (int i = 0; i < this.nblocks.length; ++i) {
+                this.nblocks[i] = new NBlock(i, packsIntoSingleLong);
+            }
+            // The scope of each nblock contains the nblock itself
+            List<List<Integer>> predecessors = new ArrayList<>(this.nblocks.length);
+            for (int i = 0; i < this.nblocks.length; ++i) {
+                predecessors.add(new ArrayList<Integer>());
+            }
+            for (NBlock nblock : this.nblocks) {
+                boolean[] inScope = new boolean[this.nblocks.length];
+                inScope[nblock.index] = true;
+                for (int successor : abstraction.getSuccessors(nblock.index)) {
+                    inScope[successor] = true;
+                }
+                nblock.scope = NBlockGraph._indexesOf(inScope);
+                for (int member : nblock.scope) {
+                    predecessors.get(member).add(nblock.index);
+                }
+            }
+            // The interference scope: all the nblocks whose scopes contain a member of the scope
+            for (NBlock nblock : this.nblocks) {
+                boolean[] interferes = new boolean[this.nblocks.length];
+                for (int member : nblock.scope) {
+                    for (int predecessor : predecessors.get(member)) {
+                        interferes[predecessor] = true;
+                    }
+                }
+                nblock.interference = NBlockGraph._indexesOf(interferes);
+            }
+            this.freeList = new BinHeap<>(new NBlockComparator(), 0);
+        }
+
+        private static int[] _indexesOf(boolean[] set) {
+            int count = 0;
+            for (boolean contained : set) {
+                if (contained) {
+                    ++count;
+                }
+            }
+            int[] indexes = new int[count];
+            count = 0;
+            for (int i = 0; i < set.length; ++i) {
+                if (set[i]) {
+                    indexes[count++] = i;
+                }
+            }
+            return indexes;
+        }
+
+        private synchronized void initFreeList() {
+            for (NBlock nblock : this.nblocks) {
+                this._updateFree(nblock);
+            }
+        }
+
+        /**
+         * Adds the given nblock to the free list or removes it, according to its current state
+         */
+        private void _updateFree(NBlock nblock) {
+            boolean free = !nblock.held && nblock.sigma == 0 && nblock.sigmaHot == 0 && !nblock.open.isEmpty();
+            boolean inFreeList = nblock.getIndex(this.freeList.getKey()) != -1;
+            if (free && !inFreeList) {
+                this.freeList.add(nblock);
+            } else if (!free && inFreeList) {
+                this.freeList.remove(nblock);
+            }
+        }
+
+        /**
+         * Releases the given nblock (if not null) and acquires the best free nblock - waits until some nblock is free
+         *
+         * @return The acquired nblock or null if the search is done
+         */
+        private synchronized NBlock nextNBlock(NBlock released) {
+            if (released != null) {
+                this._release(released);
+            }
+            while (this.freeList.isEmpty()) {
+                if (this.busyCount == 0) {
+                    this.done = true;
+                }
+                if (this.done || PBNF.this.failure != null) {
+                    this.notifyAll();
+                    return null;
+                }
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException("Interrupted while waiting for a free nblock", e);
+                }
+            }
+            if (PBNF.this.failure != null) {
+                return null;
+            }
+            NBlock acquired = this.freeList.poll();
+            this._acquire(acquired);
+            // Acquiring a hot nblock may free other nblocks
+            if (!this.freeList.isEmpty()) {
+                this.notifyAll();
+            }
+            return acquired;
+        }
+
+        private void _acquire(NBlock nblock) {
+            nblock.held = true;
+            ++this.busyCount;
+            for (int member : nblock.interference) {
+                NBlock other = this.nblocks[member];
+                if (other.sigma++ == 0) {
+                    this._updateFree(other);
+                }
+            }
+            // The nblock is no more hot, hence the nblocks that interfere with it can be acquired again
+            if (nblock.hot) {
+                nblock.hot = false;
+                for (int member : nblock.interference) {
+                    NBlock other = this.nblocks[member];
+                    if (other != nblock && --other.sigmaHot == 0) {
+                        this._updateFree(other);
+                    }
+                }
+            }
+        }
+
+        private void _release(NBlock nblock) {
+            nblock.held = false;
+            --this.busyCount;
+            for (int member : nblock.interference) {
+                NBlock other = this.nblocks[member];
+                if (--other.sigma == 0) {
+                    this._updateFree(other);
+                }
+            }
+            this.notifyAll();
+        }
+
+        /**
+         * Decides whether the thread which holds the given nblock should release it: if a free nblock has a better node
+         * or the nblock interferes with a hot nblock - otherwise, the nblocks of its scope which have better nodes are
+         * marked as hot
+         */
+        private synchronized boolean shouldSwitch(NBlock nblock) {
+            if (nblock.open.isEmpty() || nblock.sigmaHot > 0) {
+                return true;
+            }
+            NBlock bestFree = this.freeList.peek();
+            Node best = nblock.open.peek();
+            if (bestFree != null && PBNF.this.comparator.compare(bestFree.open.peek(), best) < 0) {
+                return true;
+            }
+            // Only the holder of the nblock changes the open lists of its scope
+            for (int member : nblock.scope) {
+                NBlock other = this.nblocks[member];
+                if (other != nblock && !other.open.isEmpty() &&
+                        PBNF.this.comparator.compare(other.open.peek(), best) < 0) {
+                    this._setHot(other);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Marks the given nblock as hot, unless it is held or it interferes with another hot nblock
+         */
+        private void _setHot(NBlock nblock) {
+            if (nblock.hot || nblock.held || nblock.sigmaHot > 0) {
+                return;
+            }
+            nblock.hot = true;
+            ++this.hotCount;
+            for (int member : nblock.interference) {
+                NBlock other = this.nblocks[member];
+                if (other != nblock && other.sigmaHot++ == 0) {
+                    this._updateFree(other);
+                }
+            }
+        }
+
+        private synchronized void wakeAll() {
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * A single nblock: the open and closed lists of the states of a single abstract state
+     */
+    private final class NBlock extends SearchQueueElementImpl {
+        private final int index;
+        private final SearchQueue<Node> open;
+        private final ClosedList<Node> closed;
+        // The closed list, in case the states are packed into a single long (null otherwise)
+        private final LongOpenAddressingClosedList<Node> longClosed;
+        // The nblock and its successors (sorted)
+        private int[] scope;
+        // The nblocks whose scopes intersect the scope of this nblock (sorted, contains this nblock)
+        private int[] interference;
+
+        // The following fields are guarded by the NBlockGraph
+        private boolean held;
+        private boolean hot;
+        private int sigma;
+        private int sigmaHot;
+
+        private NBlock(int index, boolean packsIntoSingleLong) {
+            // A single key - the index in the free list
+            super(1);
+            this.index = index;
+            this.open = PBNF.this.buildHeap(GenericWAstar.HeapType.DARY, PBNF.NBLOCK_CLOSED_SIZE);
+            if (packsIntoSingleLong) {
+                this.longClosed = new LongOpenAddressingClosedList<>(PBNF.NBLOCK_CLOSED_SIZE);
+                this.closed = this.longClosed;
+            } else {
+                this.longClosed = null;
+                this.closed = ClosedLists.create(ClosedList.Type.HASH, 0);
+            }
+        }
+
+        private boolean isInScope(int other) {
+            for (int member : this.scope) {
+                if (member == other) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Node getFromClosed(Node node) {
+            if (this.longClosed != null) {
+                return this.longClosed.get(node.getPackedLong());
+            }
+            return this.closed.get(node.getPacked());
+        }
+
+        private void putClosed(Node node) {
+            if (this.longClosed != null) {
+                this.longClosed.put(node.getPackedLong(), node);
+            } else {
+                this.closed.put(node.getPacked(), node);
+            }
+        }
+
+        private void add(Node node) {
+            this.putClosed(node);
+            this.open.add(node);
+        }
+
+        // The values of an nblock in the free list are those of its best node
+
+        @Override
+        public double getF() {
+            return this.open.peek().getF();
+        }
+
+        @Override
+        public double getG() {
+            return this.open.peek().getG();
+        }
+
+        @Override
+        public double getDepth() {
+            return this.open.peek().getDepth();
+        }
+
+        @Override
+        public double getH() {
+            return this.open.peek().getH();
+        }
+
+        @Override
+        public double getD() {
+            return this.open.peek().getD();
+        }
+
+        @Override
+        public double getHhat() {
+            return this.open.peek().getHhat();
+        }
+
+        @Override
+        public double getDhat() {
+            return this.open.peek().getDhat();
+        }
+    }
+
+    /**
+     * Orders the free nblocks by their best nodes
+     */
+    private final class NBlockComparator implements Comparator<NBlock> {
+        @Override
+        public int compare(final NBlock a, final NBlock b) {
+            return PBNF.this.comparator.compare(a.open.peek(), b.open.peek());
+        }
+    }
+}
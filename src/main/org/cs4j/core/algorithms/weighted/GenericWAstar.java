@@ -20,14 +20,32 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.cs4j.core.*;
 import org.cs4j.core.algorithms.auxiliary.GenericNode;
+import org.cs4j.core.algorithms.auxiliary.NodePool;
 import org.cs4j.core.collections.BinHeap;
+import org.cs4j.core.collections.BucketHeap;
+import org.cs4j.core.collections.ClosedList;
+import org.cs4j.core.collections.ClosedLists;
+import org.cs4j.core.collections.DaryHeap;
+import org.cs4j.core.collections.IntBinHeap;
+import org.cs4j.core.collections.LongOpenAddressingClosedList;
+import org.cs4j.core.collections.OffHeapClosedList;
 import org.cs4j.core.collections.PackedElement;
 import org.cs4j.core.collections.Pair;
+import org.cs4j.core.collections.PairingHeap;
+import org.cs4j.core.collections.QueueTraceWriter;
+import org.cs4j.core.collections.RadixHeap;
 import org.cs4j.core.collections.SearchQueue;
+import org.cs4j.core.collections.StateCache;
 
+import java.io.File;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A* Search and Weighted A* Search
@@ -42,6 +60,15 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
 
     protected abstract C getComparator();
 
+    /**
+     * @return Whether the nodes can be ordered by a BucketHeap (or a RadixHeap / DaryHeap) - i.e.
+     *         whether the order of getComparator() is the order of the ranks of the nodes (see
+     *         GenericNode.getRank())
+     */
+    protected boolean canUseBucketHeap() {
+        return false;
+    }
+
     protected abstract N getNode(SearchState s);
 
     protected abstract N getNode(SearchState state,
@@ -50,6 +77,24 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
                                  Operator op,
                                  Operator pop);
 
+    /**
+     * Creates a node whose state was already packed (e.g. for a lookup in the closed list)
+     *
+     * By default, the given packed state is ignored (and the node packs its state by itself)
+     *
+     * @param packedLong The packed state, in case the state is packed into a single long
+     * @param packed The packed state (may be null in case the state is packed into a single long)
+     */
+    protected N getNode(SearchState state,
+                        N parent,
+                        SearchState parentState,
+                        Operator op,
+                        Operator pop,
+                        long packedLong,
+                        PackedElement packed) {
+        return this.getNode(state, parent, parentState, op, pop);
+    }
+
     private final Logger logger = LogManager.getLogger(GenericWAstar.class);
 
 
@@ -64,13 +109,51 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
         GenericWAstar.WAStarPossibleParameters.put("bpmx", Boolean.class);
         GenericWAstar.WAStarPossibleParameters.put("store-best-costs", Boolean.class);
         GenericWAstar.WAStarPossibleParameters.put("use-best-costs", Boolean.class);
+        GenericWAstar.WAStarPossibleParameters.put("closed-list", String.class);
+        GenericWAstar.WAStarPossibleParameters.put("closed-list-directory", String.class);
+        GenericWAstar.WAStarPossibleParameters.put("node-pool", Boolean.class);
+        GenericWAstar.WAStarPossibleParameters.put("state-cache", Integer.class);
+        GenericWAstar.WAStarPossibleParameters.put("early-duplicate-detection", Boolean.class);
+        GenericWAstar.WAStarPossibleParameters.put("open-list", String.class);
+        GenericWAstar.WAStarPossibleParameters.put("queue-trace", String.class);
+        GenericWAstar.WAStarPossibleParameters.put("batch-size", Integer.class);
+        GenericWAstar.WAStarPossibleParameters.put("batch-threads", Integer.class);
     }
 
     // Open list (frontier)
     protected SearchQueue<N> open;
     // private BinHeapF<LazyAstarNode> openF;
     // Closed list (seen states)
-    protected Map<PackedElement, N> closed;
+    protected ClosedList<N> closed;
+    // The implementation of the closed list (tree | hash | open-addressing) - if not set, it is
+    // chosen according to the searched domain
+    protected ClosedList.Type closedListType;
+    // The closed list, in case it can be accessed by raw long keys (the states of the domain are
+    // packed into a single long) - null otherwise
+    protected LongOpenAddressingClosedList<N> longClosed;
+    // The closed list, in case it is stored off-heap (null otherwise)
+    protected OffHeapClosedList<N> offHeapClosed;
+    // The directory of the file of the file-backed closed list (null for the default temporary
+    // directory)
+    protected File closedListDirectory;
+
+    // Whether the nodes should be stored in a NodePool (int handles instead of node objects - the
+    // open list is always a binary heap, see _searchNodePool)
+    protected boolean useNodePool;
+    // The pool of the last search (in case the node pool was used)
+    protected NodePool nodePool;
+
+    // The maximum number of the generated states that are kept unpacked until their nodes are
+    // selected for expansion (0 means that each selected node is unpacked)
+    protected int stateCacheCapacity;
+    // The cache of the last search (null if no cache is used)
+    protected StateCache<SearchState> stateCache;
+
+    // The file to which the operations on the open list are recorded (null if they aren't
+    // recorded - see QueueTraceWriter)
+    protected File queueTraceFile;
+    // The recorder of the current search (null if the operations aren't recorded)
+    private QueueTraceWriter queueTrace;
 
     // Used for K-Goal Search:
     // Shortest path between two states - recorded between searches:
@@ -79,10 +162,14 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
     // TODO:
     //public Map<PackedElement, Map<PackedElement, Double>> bestCosts;
 
-    // TODO ...
+    // The type of the open list (null means that it is chosen according to the searched domain -
+    // see _chooseHeapType)
     protected HeapType heapType;
 
-    public enum HeapType {BIN, BUCKET}
+    public enum HeapType {BIN, BUCKET, RADIX, DARY, PAIRING}
+
+    // The number of children of each node of a d-ary heap
+    private static final int DARY_HEAP_ARITY = 4;
 
     // For weighted A*
     protected double weight;
@@ -93,6 +180,20 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
 
     protected boolean useBPMX;
 
+    // Whether the children are looked up in the closed list before their nodes are created (see
+    // _expandWithEarlyDuplicateDetection)
+    protected boolean earlyDuplicateDetection;
+
+    // Whether the operators are identified by their ids in the current search (the reverse operator
+    // of each node is stored as a short - see SearchDomain.hasOperatorIds())
+    protected boolean useOperatorIds;
+
+    // The number of the best nodes that are selected together, such that their children are
+    // generated in parallel (1 means strict best-first order - see _searchBatched)
+    protected int batchSize;
+    // The number of the threads that generate the children of a batch
+    protected int batchThreads;
+
     // TODO : BestCosts ...
     //private boolean storeBestCosts;
     //private boolean useBestCosts;
@@ -101,10 +202,21 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
 
     //protected SearchResultImpl result;
 
-    public Map<PackedElement, N> getClosed() {
+    /**
+     * @return The closed list of the last search (null if it was stored off-heap - it is released
+     *         when the search ends)
+     */
+    public ClosedList<N> getClosed() {
         return this.closed;
     }
 
+    /**
+     * @return The nodes of the last search, in case it used a node pool (null otherwise)
+     */
+    public NodePool getNodePool() {
+        return this.nodePool;
+    }
+
     /**
      * Sets the default values for the relevant fields of the algorithm
      */
@@ -115,6 +227,12 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
         this.maxCost = Double.MAX_VALUE;
         this.useBPMX = false;
         this.FR = Integer.MAX_VALUE;
+        this.closedListType = null;
+        this.useNodePool = false;
+        this.stateCacheCapacity = 0;
+        this.earlyDuplicateDetection = true;
+        this.batchSize = 1;
+        this.batchThreads = Runtime.getRuntime().availableProcessors();
 
         //this.storeBestCosts = false;
         //this.useBestCosts = false;
@@ -125,7 +243,8 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
     /**
      * A constructor
      *
-     * @param heapType the type of heap to use (BIN | BUCKET)
+     * @param heapType the type of heap to use (BIN | BUCKET | RADIX | DARY | PAIRING, or null in
+     *                 order to choose it according to the searched domain)
      */
     protected GenericWAstar(HeapType heapType) {
         this.heapType = heapType;
@@ -133,10 +252,11 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
     }
 
     /**
-     * A default constructor of the class (weight of 1.0, binary heap and AR)
+     * A default constructor of the class (weight of 1.0, the heap is chosen according to the
+     * searched domain and AR)
      */
     public GenericWAstar() {
-        this(HeapType.BIN);
+        this(null);
     }
 
     @Override
@@ -157,7 +277,17 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
         SearchQueue<N> heap = null;
         switch (heapType) {
             case BUCKET:
-                // heap = new BucketHeap<>(size, QID);
+                heap = new BucketHeap<>(size, 0);
+                break;
+            case RADIX:
+                heap = new RadixHeap<>(0);
+                break;
+            case DARY:
+                heap = new DaryHeap<>(this.getComparator(), 0, GenericWAstar.DARY_HEAP_ARITY,
+                        new RankPrimaryKey<N>());
+                break;
+            case PAIRING:
+                heap = new PairingHeap<>(this.getComparator(), 0, new RankPrimaryKey<N>());
                 break;
             case BIN:
                 heap = new BinHeap<>(this.getComparator(), 0);
@@ -166,12 +296,132 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
         return heap;
     }
 
+    /**
+     * Chooses the type of the open list:
+     * - A bucket heap can be used only if the wF values of the nodes are integral - i.e. if both
+     *   the costs and the heuristic of the domain are integral and the weight is an integer
+     * - Otherwise, a radix heap is used if the f values of the expanded nodes never decrease - i.e.
+     *   for A* with a consistent heuristic (the costs may be real numbers)
+     * - Otherwise, a binary heap is used
+     * - A d-ary heap and a pairing heap are never chosen automatically (they must be requested by
+     *   the open-list parameter): they break the ties differently than the binary heap, hence the
+     *   expanded and generated counts of the search would change (a pairing heap pays off only when
+     *   many nodes in OPEN are updated - e.g. with an inconsistent heuristic and reopening)
+     *
+     * @param domain The searched domain
+     *
+     * @return The chosen type
+     */
+    private HeapType _chooseHeapType(SearchDomain domain) {
+        boolean integralRanks = this.canUseBucketHeap() &&
+                domain.hasIntegralCosts() &&
+                this.weight == Math.rint(this.weight);
+        boolean monotoneRanks = this.canUseBucketHeap() &&
+                domain.isCurrentHeuristicConsistent() &&
+                this.weight == 1.0;
+        if (this.heapType == null) {
+            if (integralRanks) {
+                return HeapType.BUCKET;
+            }
+            return monotoneRanks ? HeapType.RADIX : HeapType.BIN;
+        }
+        if (this.heapType == HeapType.BUCKET && !integralRanks) {
+            this.logger.error("A bucket heap requires integral costs and an integral weight");
+            throw new IllegalArgumentException();
+        }
+        // The order of a radix heap is exact in any case (but it is efficient only for monotone
+        // ranks)
+        if ((this.heapType == HeapType.RADIX || this.heapType == HeapType.DARY ||
+                this.heapType == HeapType.PAIRING) &&
+                !this.canUseBucketHeap()) {
+            this.logger.error("A {} heap requires the nodes to be ordered by their ranks", this.heapType);
+            throw new IllegalArgumentException();
+        }
+        return this.heapType;
+    }
+
     protected void _initDataStructures(SearchDomain domain) {
-        this.open = new BinHeap<>(this.getComparator(), 0);
+        // (Initial size is 100)
+        HeapType heapType = this._chooseHeapType(domain);
+        this.open = this.buildHeap(heapType, 100);
+        if (this.queueTraceFile != null) {
+            Map<String, String> properties = new HashMap<>();
+            properties.put("algorithm", this.getName());
+            properties.put("domain", domain.getClass().getSimpleName());
+            properties.put("weight", Double.toString(this.weight));
+            properties.put("open-list", heapType.toString().toLowerCase());
+            this.queueTrace = new QueueTraceWriter(this.queueTraceFile, properties);
+            this.open = this.queueTrace.wrap(this.open, 0, new RankPrimaryKey<N>());
+        }
         // this.openF = new BinHeapF<>(1,domain);
-        // this.open = buildHeap(heapType, 100);
-        this.closed = new TreeMap<>();
-        // this.closed = new HashMap<>();
+        ClosedList.Type closedListType = this.closedListType;
+        if (closedListType == null) {
+            // Single long states can be stored without any allocation
+            closedListType = domain.packsIntoSingleLong() ?
+                    ClosedList.Type.OPEN_ADDRESSING :
+                    ClosedList.Type.TREE;
+        }
+        int longsCount = domain.initialState().pack().getLongsCount();
+        // Release the file of the previous search (if exists)
+        this._releaseOffHeapClosed();
+        this.longClosed = null;
+        if (closedListType == ClosedList.Type.OFF_HEAP) {
+            this.offHeapClosed = new OffHeapClosedList<>(longsCount, new OffHeapNodeCodec(domain));
+            this.closed = this.offHeapClosed;
+        } else if (closedListType == ClosedList.Type.FILE_BACKED) {
+            this.offHeapClosed = new OffHeapClosedList<>(longsCount, new OffHeapNodeCodec(domain),
+                    this.closedListDirectory);
+            this.closed = this.offHeapClosed;
+        } else {
+            this.closed = ClosedLists.create(closedListType, longsCount);
+            if (domain.packsIntoSingleLong() && this.closed instanceof LongOpenAddressingClosedList) {
+                this.longClosed = (LongOpenAddressingClosedList<N>) this.closed;
+            }
+        }
+        this.useOperatorIds = domain.hasOperatorIds() &&
+                domain.getOperatorIdsCount() <= Short.MAX_VALUE;
+        this._initStateCache(domain);
+    }
+
+    private void _initStateCache(SearchDomain domain) {
+        this.stateCache = (this.stateCacheCapacity > 0) ?
+                new StateCache<SearchState>(this.stateCacheCapacity, domain.packsIntoSingleLong()) :
+                null;
+    }
+
+    /**
+     * Keeps the state of the given node (which was just added to the open list) unpacked, in case
+     * a state cache is used
+     */
+    protected void _cacheState(N node, SearchState state) {
+        if (this.stateCache != null) {
+            if (node.isPackedIntoLong()) {
+                this.stateCache.put(node.getPackedLong(), state);
+            } else {
+                this.stateCache.put(node.getPacked(), state);
+            }
+        }
+    }
+
+    /**
+     * Completes the recording of the operations on the open list (if they were recorded)
+     */
+    private void _closeQueueTrace() {
+        if (this.queueTrace != null) {
+            this.queueTrace.close();
+            this.queueTrace = null;
+        }
+    }
+
+    /**
+     * Adds the statistics of the state cache (if used) to the result of the search
+     */
+    private void _addStateCacheStatistics(SearchResultImpl result) {
+        if (this.stateCache != null) {
+            result.setExtras("state-cache-hits", this.stateCache.getHits());
+            result.setExtras("state-cache-misses", this.stateCache.getMisses());
+            result.setExtras("state-cache-evictions", this.stateCache.getEvictions());
+        }
     }
 
     private boolean assureCorrectInitialization() {
@@ -246,7 +496,8 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
                 currentParentPacked = domain.unpackLite(currentNode.getParent().getPacked());
                 cost += currentNode.getOp().getCost(currentPacked, currentParentPacked);
             }
-            statesPath.add(domain.unpackLite(currentNode.getPacked()));
+            // currentPacked is the state of the current node (unpacked once per node)
+            statesPath.add(currentPacked);
         }
 
         ///////////////////////////////////////////////////////////////////////////////////////////
@@ -298,68 +549,103 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
         return toReturn;
     }
 
+    /**
+     * NOTE: The node-pool mode has no nodes, hence it tests the states by the domain (algorithms
+     *       that override this function can't use it - see supportsNodePool())
+     */
     protected boolean isGoal(SearchDomain domain,
                              N node,
                              SearchState state) {
         return domain.isGoal(state);
     }
 
+    /**
+     * The node-pool mode has no nodes (hence no isGoal override or other node hook is called), and
+     * it orders the nodes by comparePooledNodes(NodePool, int, int)
+     *
+     * NOTE: Algorithms that support the node-pool mode must override this function and
+     *       comparePooledNodes (and their sub classes that override isGoal must return false)
+     *
+     * @return Whether the algorithm can search in the node-pool mode
+     */
+    protected boolean supportsNodePool() {
+        return false;
+    }
+
+    /**
+     * Compares two nodes which are stored in a node pool (must be consistent with the comparator
+     * of the nodes - see getComparator())
+     *
+     * NOTE: Algorithms that support the node-pool mode must override this function
+     */
+    protected int comparePooledNodes(NodePool pool, int a, int b) {
+        this.logger.error("{} doesn't support the node pool", this.getName());
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public SearchResultImpl search(SearchDomain domain) {
+        this.nodePool = null;
+        if (this.useNodePool) {
+            if (this.queueTraceFile != null) {
+                this.logger.error("The open list of the node pool can't be recorded");
+                throw new UnsupportedOperationException();
+            }
+            if (this.batchSize > 1) {
+                this.logger.error("The nodes of the node pool can't be expanded in batches");
+                throw new UnsupportedOperationException();
+            }
+            return this._search(domain, new PooledNodeStore(domain));
+        }
         // Initialize all the data structures required for the search
         this._initDataStructures(domain);
         this.assureCorrectInitialization();
         //System.out.println("store: " + this.storeBestCosts + "; use: " + this.useBestCosts);
+        try {
+            NodeStore store;
+            if (this.batchSize > 1) {
+                store = new BatchedNodeStore();
+            } else if (this.offHeapClosed != null) {
+                store = new OffHeapNodeStore();
+            } else {
+                store = new ClosedListNodeStore();
+            }
+            return this._search(domain, store);
+        } finally {
+            // The solutions were already rebuilt from the records of the off-heap closed list (if
+            // used)
+            this._releaseOffHeapClosed();
+        }
+    }
 
+    /**
+     * The search loop, which is shared by all the modes of the search (the nodes are stored,
+     * selected and expanded by the given store)
+     */
+    private SearchResultImpl _search(SearchDomain domain, NodeStore store) {
         SearchResultImpl result = new SearchResultImpl();
 
         result.startTimer();
 
         // Let's instantiate the initial state and add its node to the open list
-        SearchState currentState = this.generateInitialNode(domain);
-        PackedElement initialPacked = currentState.pack();
+        store.addInitialNode(domain);
 
         try {
             // Loop over the frontier
-            while (!this.open.isEmpty() &&
+            while (!store.isEmpty() &&
                     result.getGenerated() < domain.maxGeneratedSize() &&
                     result.checkMinTimeOut()) {
-                // Take the first state (still don't remove it)
-                // LazyAstarNode currentNode = this.open.poll();
-                N currentNode = _selectNode();
-
-                ///////////////////////////////////////////////////////////////
-
-                /*
-                if (this.storeBestCosts) {
-                    // Store best cost if required
-                    Map<PackedElement, Double> found =
-                            this.bestCosts.computeIfAbsent(currentNode.getPacked(),
-                                    k -> new TreeMap<>());
-                    // Store the perfect heuristic (even if a previous value is
-                    // stored)
-                    //System.out.println("Stored: " +
-                    //        domain.unpack(currentNode.packed).dumpStateShort() + " " +
-                    //        domain.unpack(initialPacked).dumpStateShort());
-                    found.put(initialPacked, currentNode.getG());
-                }
-                */
-
-                ///////////////////////////////////////////////////////////////
-
-                // Prune
-                if (currentNode.getRf() >= this.maxCost) {
+                // Take the first node out of the open list (null means that it is skipped)
+                SearchState currentState = store.selectNode(domain);
+                if (currentState == null) {
                     continue;
                 }
 
-                // Extract the state from the packed value of the node
-                currentState = domain.unpack(currentNode.getPacked());
-
                 //System.out.println(currentState.dumpStateShort());
                 // Check for goal condition
-                if (this.isGoal(domain, currentNode, currentState)) {
+                if (store.isGoal(domain, currentState)) {
                     // If a goal was found: update the solution
-                    SearchResultImpl.Solution sol = this.getSolution(domain, currentNode);
+                    SearchResultImpl.Solution sol = store.getSolution(domain);
                     result.addSolution(sol);
                     logger.error("EXPANDEEEEEEEEEEEEEEEEEEEEEEEEEEEEEEEEED: " + result
                             .getExpanded());
@@ -369,170 +655,1052 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
                     }
                 }
 
-                List<Pair<SearchState, N>> children = new ArrayList<>();
-
                 // Expand the current node
                 ++result.expanded;
-                // Stores parent h-cost (from path-max)
-                double bestHValue = 0.0d;
-                // First, let's generate all the children
-                // Go over all the possible operators and apply them
-                for (int i = 0; i < domain.getNumOperators(currentState); ++i) {
-                    Operator op = domain.getOperator(currentState, i);
+                store.expand(domain, currentState, result);
+            }
+        } catch (OutOfMemoryError e) {
+            this.logger.error("WAstar OutOfMemory :-( {}", e);
+            this.logger.error("OutOfMemory WAstar on: {}, generated: {}",
+                    domain.getClass().getSimpleName(), result.getGenerated());
+        } finally {
+            store.close();
+        }
+
+        store.addExtras(result);
+        this._addStateCacheStatistics(result);
+        this._closeQueueTrace();
+        result.stopTimer();
+//        System.out.println("Generated:\t"+result.getGenerated());
+//        System.out.println("closed Size:\t"+this.closed.size());
+//        result.printArrCpuTimeMillis();
+
+        return result;
+    }
+
+    /**
+     * Merges a generated child into the open and closed lists (exactly as by the regular
+     * expansion)
+     *
+     * @return The node that was added to the open list or updated there (null if none)
+     */
+    private N _mergeChild(SearchDomain domain, SearchState childState, N childNode,
+                          SearchResultImpl result) {
+        // Prune
+        if (childNode.getRf() >= this.maxCost) {
+            return null;
+        }
+        return this._mergeChild(domain, childState, childNode, this._getFromClosed(childNode), result);
+    }
+
+    /**
+     * Merges a generated child (which wasn't pruned) into the open and closed lists
+     *
+     * @param dupChildNode The previous copy of the child in the closed list (null if the child is
+     *                     new)
+     *
+     * @return The node that was added to the open list or updated there (null if none)
+     */
+    private N _mergeChild(SearchDomain domain, SearchState childState, N childNode, N dupChildNode,
+                          SearchResultImpl result) {
+        // The node is new (hasn't been reached yet)
+        if (dupChildNode == null) {
+            this._addNode(childNode);
+            this._cacheState(childNode, childState);
+            return childNode;
+        }
+        // Count the duplicates
+        ++result.duplicates;
+        // Found a shorter path to the node
+        if (dupChildNode.getG() <= childNode.getG() ||
+                !this.shouldReplaceNode(domain, dupChildNode, childNode)) {
+            return null;
+        }
+        // Update the duplicate with the new values - we reached it via a shorter path
+        dupChildNode.copyFromDuplicateNode(childNode);
+        N inOpen = dupChildNode;
+        // if dupChildNode is in open, update it there too
+        if (dupChildNode.getIndex(this.open.getKey()) != -1) {
+            ++result.opupdated;
+            this.open.update(dupChildNode);
+        }
+        // Otherwise, consider to reopen dupChildNode
+        else if (this.reopen) {
+            ++result.reopened;
+            this._addNode(dupChildNode);
+            this._cacheState(dupChildNode, childState);
+        } else {
+            inOpen = null;
+        }
+        // in any case, update closed to be bestChild
+        this.updateClosed(dupChildNode);
+        return inOpen;
+    }
+
+    /**
+     * The source of the children of the expanded nodes: generates the children of a state one by
+     * one (the child of the operator that leads back to the parent of the state isn't generated)
+     *
+     * A child can also be looked up in the closed list by its packed state and g value before its
+     * node is created: a duplicate which was already reached via a path that isn't longer can then
+     * be dropped without allocating a node and without computing its h value (if the states of the
+     * domain compute h lazily, e.g. GridPathFinding and DockyardRobot). The other children are
+     * treated exactly as by the regular expansion, hence the search is identical.
+     */
+    private final class ChildGenerator {
+        private final boolean useOperatorIds;
+        private SearchDomain domain;
+        private SearchState state;
+        // The operator that leads back to the parent of the state
+        private int popId;
+        private Operator pop;
+        private int operatorsCount;
+        private int nextOperatorIndex;
+        // The last generated child (and the reverse operator if the operator ids are used)
+        private int operatorIndex;
+        private Operator op;
+        private int childPopId;
+        private SearchState childState;
+        // The packed state of the last child and its previous copy in the closed list (if it was
+        // looked up)
+        private boolean lookedUp;
+        private long childPackedLong;
+        private PackedElement childPacked;
+        private N dupChildNode;
+
+        private ChildGenerator(boolean useOperatorIds) {
+            this.useOperatorIds = useOperatorIds;
+        }
+
+        /**
+         * Starts the generation of the children of the given state
+         *
+         * @param popId The id of the operator that leads back to the parent of the state (used if
+         *              the operator ids are used)
+         * @param pop   The operator that leads back to the parent of the state (used otherwise)
+         */
+        private void reset(SearchDomain domain, SearchState state, int popId, Operator pop) {
+            this.domain = domain;
+            this.state = state;
+            this.popId = popId;
+            this.pop = pop;
+            this.operatorsCount = domain.getNumOperators(state);
+            this.nextOperatorIndex = 0;
+        }
+
+        /**
+         * Generates the next child of the state
+         *
+         * @return Whether a child was generated (false if all the children were generated)
+         */
+        private boolean next() {
+            while (this.nextOperatorIndex < this.operatorsCount) {
+                int i = this.nextOperatorIndex++;
+                if (this.useOperatorIds) {
+                    int opId = this.domain.getOperatorId(this.state, i);
                     // Try to avoid loops - no need to generate parent
-                    if (op.equals(currentNode.getPop())) {
+                    if (opId == this.popId) {
                         continue;
                     }
-                    SearchState childState =
-                            domain.applyOperator(currentState, op);
-
-                    ////////////////////////////////////////////////////////////
-                    // Update the H value of the state if required
-                    ////////////////////////////////////////////////////////////
-
-                    // First we need to check if there is a single goal that
-                    // should be found during the current search
-
-                    // domain.countValidStates(). getFirstValidState()
-                    // check(currentstate, goal).cost == perfect heuristic
-                    // hImprovable
-                    N childNode = this.getNode(childState, currentNode,
-                            currentState, op, op.reverse(currentState));
-
-                    /*
-                    if (this.useBestCosts) {
-                        if (this.bestCosts.get(childNode.getPacked()) != null) {
-                            //double previous = childNode.getH();
-                            if (domain.improveStateHValue(childState,
-                                    this)) {
-                                childNode.setH(childState.getH());
-                                logger.info("Value improved: was {}, now {}",
-                                        previous, childNode.getH());
-                            }
-                        }
-                    }
-                    */
-
-                    ////////////////////////////////////////////////////////////
-
-                    // Here we actually generated a new state
-                    ++result.generated;
-/*                    if(result.getGenerated() % 1000 == 0){
-                        DecimalFormat formatter = new DecimalFormat("#,###");
-//                        System.out.println("[INFO] WA Generated:" + formatter.format(result
-.getGenerated()) + "\tTime:"+passed);
-                        System.out.print("\r[INFO] WA Generated:" + formatter.format(result
-                        .getGenerated()));
-
-                    }*/
-                    // Perform only if BPMX is required
-                    if (this.useBPMX) {
-                        bestHValue = Math.max(bestHValue, childNode.getH() - op.getCost(childState,
-                                currentState));
+                    this.op = this.domain.getOperatorById(opId);
+                    this.childState = this.domain.applyOperator(this.state, opId);
+                    this.childPopId = this.domain.getReverseOperatorId(this.state, opId);
+                } else {
+                    this.op = this.domain.getOperator(this.state, i);
+                    // Try to avoid loops - no need to generate parent
+                    if (this.op.equals(this.pop)) {
+                        continue;
                     }
-                    children.add(new Pair<>(childState, childNode));
+                    this.childState = this.domain.applyOperator(this.state, this.op);
+                    this.childPopId = SearchDomain.NO_OPERATOR_ID;
                 }
+                this.operatorIndex = i;
+                this.lookedUp = false;
+                return true;
+            }
+            return false;
+        }
 
-                // Update the H Value of the parent in case of BPMX
-                if (this.useBPMX) {
-                    currentNode.setH(Math.max(currentNode.getH(), bestHValue));
-                    // Prune
-                    if (currentNode.getRf() >= this.maxCost) {
-                        continue;
-                    }
+        /**
+         * @return The operator that leads from the last child back to the state (null if the
+         *         operator ids are used)
+         */
+        private Operator getChildPop() {
+            return this.useOperatorIds ? null : this.op.reverse(this.state);
+        }
+
+        /**
+         * Looks up the last child in the closed list, before its node is created
+         *
+         * @param parent The node of the state
+         *
+         * @return Whether the child should be created - false if it is a duplicate which was
+         *         already reached via a path that isn't longer
+         */
+        private boolean lookUp(N parent) {
+            double childG = parent.getG() + this.op.getCost(this.childState, this.state);
+            this.childPackedLong = 0;
+            this.childPacked = null;
+            if (this.childState.packsIntoSingleLong()) {
+                this.childPackedLong = this.childState.packLong();
+                if (GenericWAstar.this.longClosed != null) {
+                    this.dupChildNode = GenericWAstar.this.longClosed.get(this.childPackedLong);
+                } else {
+                    this.childPacked = new PackedElement(this.childPackedLong);
+                    this.dupChildNode = GenericWAstar.this.closed.get(this.childPacked);
                 }
+            } else {
+                this.childPacked = this.childState.pack();
+                this.dupChildNode = GenericWAstar.this.closed.get(this.childPacked);
+            }
+            this.lookedUp = true;
+            return this.dupChildNode == null || this.dupChildNode.getG() > childG;
+        }
 
-                // Go over all the possible operators and apply them
-                for (Pair<SearchState, N> currentChild : children) {
-                    SearchState childState = currentChild.getKey();
-                    N childNode = currentChild.getValue();
-                    double edgeCost = childNode.getOp().getCost(childState, currentState);
+        /**
+         * @return The node of the last child (which reuses its packed state if it was looked up)
+         */
+        private N createNode(N parent) {
+            N childNode = this.lookedUp ?
+                    GenericWAstar.this.getNode(this.childState, parent, this.state, this.op,
+                            this.getChildPop(), this.childPackedLong, this.childPacked) :
+                    GenericWAstar.this.getNode(this.childState, parent, this.state, this.op,
+                            this.getChildPop());
+            if (this.useOperatorIds) {
+                childNode.setPopId(this.childPopId);
+            }
+            return childNode;
+        }
+    }
 
-                    // Prune
-                    if (childNode.getRf() >= this.maxCost) {
+    /**
+     * The nodes of a search: adds the initial node, selects the nodes for expansion and expands
+     * them (see _search) - the node which was selected last is the current node
+     */
+    private abstract class NodeStore {
+
+        abstract void addInitialNode(SearchDomain domain);
+
+        /**
+         * @return Whether there are no more nodes to select
+         */
+        abstract boolean isEmpty();
+
+        /**
+         * Takes the first node out of the open list and makes it the current node
+         *
+         * @return The state of the node (null if the node is skipped - e.g. pruned)
+         */
+        abstract SearchState selectNode(SearchDomain domain);
+
+        abstract boolean isGoal(SearchDomain domain, SearchState currentState);
+
+        /**
+         * @return The path to the current node
+         */
+        abstract SearchResultImpl.Solution getSolution(SearchDomain domain);
+
+        /**
+         * Generates the children of the current node and merges them into the open and closed lists
+         */
+        abstract void expand(SearchDomain domain, SearchState currentState, SearchResultImpl result);
+
+        /**
+         * Adds the statistics of the store (if any) to the result of the search
+         */
+        void addExtras(SearchResultImpl result) {
+        }
+
+        /**
+         * Releases the resources of the store (called when the search ends, in any case)
+         */
+        void close() {
+        }
+    }
+
+    /**
+     * The regular store: the nodes are stored in the open and closed lists of the algorithm
+     */
+    private class ClosedListNodeStore extends NodeStore {
+        // BPMX requires the h values of all the children, and the pruning by max-cost requires the
+        // h value of each child before it is looked up in the closed list
+        final boolean earlyDuplicateDetection = GenericWAstar.this.earlyDuplicateDetection &&
+                !GenericWAstar.this.useBPMX && GenericWAstar.this.maxCost == Double.MAX_VALUE;
+        private final ChildGenerator children = new ChildGenerator(GenericWAstar.this.useOperatorIds);
+        N current;
+
+        @Override
+        void addInitialNode(SearchDomain domain) {
+            GenericWAstar.this.generateInitialNode(domain);
+        }
+
+        @Override
+        boolean isEmpty() {
+            return GenericWAstar.this.open.isEmpty();
+        }
+
+        @Override
+        SearchState selectNode(SearchDomain domain) {
+            // LazyAstarNode currentNode = this.open.poll();
+            N currentNode = GenericWAstar.this._selectNode();
+
+            /*
+            if (this.storeBestCosts) {
+                // Store best cost if required
+                Map<PackedElement, Double> found =
+                        this.bestCosts.computeIfAbsent(currentNode.getPacked(),
+                                k -> new TreeMap<>());
+                // Store the perfect heuristic (even if a previous value is
+                // stored)
+                found.put(initialPacked, currentNode.getG());
+            }
+            */
+
+            // Prune
+            if (currentNode.getRf() >= GenericWAstar.this.maxCost) {
+                return null;
+            }
+            this.current = currentNode;
+            // Extract the state from the packed value of the node
+            return GenericWAstar.this._unpack(domain, currentNode);
+        }
+
+        @Override
+        boolean isGoal(SearchDomain domain, SearchState currentState) {
+            return GenericWAstar.this.isGoal(domain, this.current, currentState);
+        }
+
+        @Override
+        SearchResultImpl.Solution getSolution(SearchDomain domain) {
+            return GenericWAstar.this.getSolution(domain, this.current);
+        }
+
+        @Override
+        void expand(SearchDomain domain, SearchState currentState, SearchResultImpl result) {
+            if (GenericWAstar.this.useBPMX) {
+                this._expandWithBPMX(domain, currentState, result);
+                return;
+            }
+            N currentNode = this.current;
+            this.children.reset(domain, currentState, currentNode.getPopId(), currentNode.getPop());
+            while (this.children.next()) {
+                // Here we actually generated a new state
+                ++result.generated;
+                N childNode;
+                if (this.earlyDuplicateDetection) {
+                    // The most common case of a duplicate: a shorter path to the node hasn't been
+                    // found
+                    if (!this.children.lookUp(currentNode)) {
+                        ++result.duplicates;
                         continue;
                     }
-                    // Treat duplicates
-                    boolean contains = true;
-                    // Get the previous copy of this node (and extract it)
-                    N dupChildNode = this.closed.get(childNode.getPacked());
-                    if (dupChildNode == null) {
-                        contains = false;
+                    childNode = this.children.createNode(currentNode);
+                    // Prune
+                    if (childNode.getRf() < GenericWAstar.this.maxCost) {
+                        GenericWAstar.this._mergeChild(domain, this.children.childState, childNode,
+                                this.children.dupChildNode, result);
                     }
-                    // contains = this.closed.containsKey(childNode.packed);
-                    if (contains) {
-                        // Count the duplicates
-                        ++result.duplicates;
+                } else {
+                    childNode = this.children.createNode(currentNode);
+                    GenericWAstar.this._mergeChild(domain, this.children.childState, childNode, result);
+                }
+            }
+        }
 
-                        /*
-                        if (this.useBestCosts) {
-                            dupChildNode.setH(childNode.getH());
-                        }
-                        */
+        /**
+         * Expands the current node with BPMX: the h values of all the children are required in
+         * order to update the h value of the node before the children are merged, and the h values
+         * are propagated to the children (and to their previous copies)
+         */
+        private void _expandWithBPMX(SearchDomain domain, SearchState currentState, SearchResultImpl result) {
+            N currentNode = this.current;
+            List<Pair<SearchState, N>> children = new ArrayList<>();
+            // Stores parent h-cost (from path-max)
+            double bestHValue = 0.0d;
+            // First, let's generate all the children
+            this.children.reset(domain, currentState, currentNode.getPopId(), currentNode.getPop());
+            while (this.children.next()) {
+                N childNode = this.children.createNode(currentNode);
+                SearchState childState = this.children.childState;
 
-                        // Propagate the H value to child (in case of BPMX)
-                        if (this.useBPMX) {
-                            dupChildNode.setH(Math.max(dupChildNode.getH(),
-                                    currentNode.getH() - edgeCost));
+                /*
+                if (this.useBestCosts) {
+                    if (this.bestCosts.get(childNode.getPacked()) != null) {
+                        //double previous = childNode.getH();
+                        if (domain.improveStateHValue(childState,
+                                this)) {
+                            childNode.setH(childState.getH());
+                            logger.info("Value improved: was {}, now {}",
+                                    previous, childNode.getH());
                         }
+                    }
+                }
+                */
 
-                        // Found a shorter path to the node
-                        if (dupChildNode.getG() > childNode.getG()) {
-                            // In case the node should be actually replaced in the closed list
-                            if (shouldReplaceNode(domain, dupChildNode, childNode)) {
-                                // In any case update the duplicate with the new values - we reached
-                                // it via a shorter path
-                                dupChildNode.copyFromDuplicateNode(childNode);
-
-                                // if dupChildNode is in open, update it there too
-                                if (dupChildNode.getIndex(this.open.getKey()) != -1) {
-                                    ++result.opupdated;
-                                    this.open.update(dupChildNode);
-                                    // this.openF.updateF(dupChildNode, dupF);
-                                }
-                                // Otherwise, consider to reopen dupChildNode
-                                else {
-                                    // Return to OPEN list only if reopening is allowed
-                                    if (this.reopen) {
-                                        ++result.reopened;
-                                        this._addNode(dupChildNode);
-                                    }
-                                }
-                                // in any case, update closed to be bestChild
-                                this.updateClosed(dupChildNode.getPacked(), dupChildNode);
-                            }
-                        } else {
-                            // A shorter path has not been found, but let's update the node in
-                            // open if its h increased
-                            if (this.useBPMX) {
-                                if (dupChildNode.getIndex(this.open.getKey()) != -1) {
-                                    this.open.update(dupChildNode);
-                                }
-                            }
-                        }
-                        // Otherwise, the node is new (hasn't been reached yet)
-                    } else {
-                        // Propagate the H value to child (in case of BPMX)
-                        if (this.useBPMX) {
-                            childNode.setH(Math.max(childNode.getH(),
-                                    currentNode.getH() - edgeCost));
-                        }
-                        this._addNode(childNode);
+                // Here we actually generated a new state
+                ++result.generated;
+                bestHValue = Math.max(bestHValue, childNode.getH() - childNode.getOp().getCost(childState,
+                        currentState));
+                children.add(new Pair<>(childState, childNode));
+            }
+
+            // Update the H Value of the parent
+            currentNode.setH(Math.max(currentNode.getH(), bestHValue));
+            // Prune
+            if (currentNode.getRf() >= GenericWAstar.this.maxCost) {
+                return;
+            }
+
+            for (Pair<SearchState, N> currentChild : children) {
+                SearchState childState = currentChild.getKey();
+                N childNode = currentChild.getValue();
+                double edgeCost = childNode.getOp().getCost(childState, currentState);
+
+                // Prune
+                if (childNode.getRf() >= GenericWAstar.this.maxCost) {
+                    continue;
+                }
+                // Get the previous copy of this node (and extract it)
+                N dupChildNode = GenericWAstar.this._getFromClosed(childNode);
+                // Propagate the H value to child
+                if (dupChildNode == null) {
+                    childNode.setH(Math.max(childNode.getH(), currentNode.getH() - edgeCost));
+                } else {
+                    dupChildNode.setH(Math.max(dupChildNode.getH(), currentNode.getH() - edgeCost));
+                    // A shorter path has not been found, but let's update the node in open if its h
+                    // increased
+                    if (dupChildNode.getG() <= childNode.getG() &&
+                            dupChildNode.getIndex(GenericWAstar.this.open.getKey()) != -1) {
+                        GenericWAstar.this.open.update(dupChildNode);
                     }
                 }
+                GenericWAstar.this._mergeChild(domain, childState, childNode, dupChildNode, result);
             }
-        } catch (OutOfMemoryError e) {
-            this.logger.error("WAstar OutOfMemory :-( {}", e);
-            this.logger.error("OutOfMemory WAstar on: {}, generated: {}",
-                    domain.getClass().getSimpleName(), result.getGenerated());
         }
+    }
 
-        result.stopTimer();
-//        System.out.println("Generated:\t"+result.getGenerated());
-//        System.out.println("closed Size:\t"+this.closed.size());
-//        result.printArrCpuTimeMillis();
+    /**
+     * The store which is used when the nodes are expanded in batches (k-best-first): the
+     * batch-size best nodes are removed from the open list, the children of all of them are
+     * generated (and their h values are computed) in parallel by batch-threads threads, and then
+     * the children are merged into the open and closed lists by the main thread (in the order of
+     * the batch, exactly as by the regular expansion).
+     *
+     * Only the first node of a batch is the best node in the open list, since the children of the
+     * preceding nodes of the batch might be better than the rest of its nodes. Hence a goal is
+     * accepted only if it is the first node of a batch (otherwise, it is returned to the open list
+     * and the batch is ended), such that the cost of the solution is still bounded by the weight.
+     * The drift from the strict best-first order is reported: the number of the nodes of the
+     * batches that were expanded although a better child of a preceding node of their batch
+     * existed, and the maximal difference between their f values.
+     *
+     * NOTE: The domain is shared by the threads, which relies on the thread-safety contract of
+     *       SearchDomain (BPMX and the off-heap closed list aren't supported in this mode)
+     */
+    private final class BatchedNodeStore extends ClosedListNodeStore {
+        private final C comparator = GenericWAstar.this.getComparator();
+        // A single thread generates the children by itself
+        private final ExecutorService executor;
+        private final List<BatchExpansion> batch = new ArrayList<>(GenericWAstar.this.batchSize);
+        // The index of the next node of the batch
+        private int nextInBatch;
+        private BatchExpansion currentExpansion;
+        // The best child of the preceding nodes of the batch (in order to measure the drift from
+        // the best-first order)
+        private N bestChild;
+        private long batchesCount;
+        private long outOfOrderCount;
+        private double maxFDrift;
+
+        private BatchedNodeStore() {
+            if (GenericWAstar.this.useBPMX || GenericWAstar.this.offHeapClosed != null) {
+                GenericWAstar.this.logger.error("BPMX and the off-heap closed list can't be used with batches");
+                throw new UnsupportedOperationException();
+            }
+            this.executor = (GenericWAstar.this.batchThreads > 1) ?
+                    Executors.newFixedThreadPool(GenericWAstar.this.batchThreads) :
+                    null;
+        }
 
-        return result;
+        @Override
+        boolean isEmpty() {
+            return this.nextInBatch == this.batch.size() && GenericWAstar.this.open.isEmpty();
+        }
+
+        @Override
+        SearchState selectNode(SearchDomain domain) {
+            if (this.nextInBatch == this.batch.size()) {
+                // The first node of the next batch (the rest of the nodes are selected when it is
+                // expanded, since the search might stop at it)
+                this.batch.clear();
+                this.nextInBatch = 0;
+                this._selectBatch(domain, 1);
+                if (this.batch.isEmpty()) {
+                    return null;
+                }
+            }
+            this.currentExpansion = this.batch.get(this.nextInBatch++);
+            this.current = this.currentExpansion.node;
+            return this.currentExpansion.state;
+        }
+
+        /**
+         * Adds nodes to the batch, until it contains the given number of nodes
+         */
+        private void _selectBatch(SearchDomain domain, int size) {
+            while (this.batch.size() < size && !GenericWAstar.this.open.isEmpty()) {
+                N currentNode = GenericWAstar.this._selectNode();
+                // Prune
+                if (currentNode.getRf() >= GenericWAstar.this.maxCost) {
+                    continue;
+                }
+                SearchState currentState = GenericWAstar.this._unpack(domain, currentNode);
+                // A better goal might be a child of a preceding node of the batch
+                if (!this.batch.isEmpty() && GenericWAstar.this.isGoal(domain, currentNode, currentState)) {
+                    GenericWAstar.this.open.add(currentNode);
+                    GenericWAstar.this._cacheState(currentNode, currentState);
+                    break;
+                }
+                this.batch.add(new BatchExpansion(domain, currentNode, currentState,
+                        this.earlyDuplicateDetection));
+            }
+        }
+
+        /**
+         * Only the first node of a batch can be a goal (see _selectBatch)
+         */
+        @Override
+        boolean isGoal(SearchDomain domain, SearchState currentState) {
+            return this.nextInBatch == 1 && super.isGoal(domain, currentState);
+        }
+
+        @Override
+        void expand(SearchDomain domain, SearchState currentState, SearchResultImpl result) {
+            // Select the rest of the nodes of the batch and generate the children of all of them
+            if (this.nextInBatch == 1) {
+                this._selectBatch(domain, GenericWAstar.this.batchSize);
+                this._generateBatch();
+                ++this.batchesCount;
+                this.bestChild = null;
+            }
+            N currentNode = this.current;
+            if (this.bestChild != null && this.comparator.compare(this.bestChild, currentNode) < 0) {
+                ++this.outOfOrderCount;
+                this.maxFDrift = Math.max(this.maxFDrift, currentNode.getF() - this.bestChild.getF());
+            }
+            result.generated += this.currentExpansion.generated;
+            result.duplicates += this.currentExpansion.duplicates;
+            for (Pair<SearchState, N> currentChild : this.currentExpansion.children) {
+                N added = GenericWAstar.this._mergeChild(domain, currentChild.getKey(),
+                        currentChild.getValue(), result);
+                if (added != null && (this.bestChild == null || this.comparator.compare(added, this.bestChild) < 0)) {
+                    this.bestChild = added;
+                }
+            }
+        }
+
+        private void _generateBatch() {
+            try {
+                if (this.executor == null || this.batch.size() == 1) {
+                    for (BatchExpansion expansion : this.batch) {
+                        expansion.call();
+                    }
+                } else {
+                    for (Future<BatchExpansion> future : this.executor.invokeAll(this.batch)) {
+                        future.get();
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("Interrupted while generating the children of a batch", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to generate the children of a batch", e.getCause());
+            }
+        }
+
+        @Override
+        void addExtras(SearchResultImpl result) {
+            result.setExtras("batch-size", GenericWAstar.this.batchSize);
+            result.setExtras("batch-threads", GenericWAstar.this.batchThreads);
+            result.setExtras("batches", this.batchesCount);
+            result.setExtras("batch-out-of-order", this.outOfOrderCount);
+            result.setExtras("batch-max-f-drift", this.maxFDrift);
+        }
+
+        @Override
+        void close() {
+            if (this.executor != null) {
+                this.executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * The generation of the children of a single node of a batch (performed by one of the threads
+     * of the batch - only reads the open and closed lists)
+     */
+    private final class BatchExpansion implements Callable<BatchExpansion> {
+        private final SearchDomain domain;
+        private final N node;
+        private final SearchState state;
+        private final boolean earlyDuplicateDetection;
+        // The generated children (without the dropped duplicates)
+        private final List<Pair<SearchState, N>> children;
+        private int generated;
+        private int duplicates;
+
+        private BatchExpansion(SearchDomain domain, N node, SearchState state,
+                               boolean earlyDuplicateDetection) {
+            this.domain = domain;
+            this.node = node;
+            this.state = state;
+            this.earlyDuplicateDetection = earlyDuplicateDetection;
+            this.children = new ArrayList<>();
+        }
+
+        @Override
+        public BatchExpansion call() {
+            // The closed list isn't changed while the children are generated, hence the duplicates
+            // that weren't improved may be dropped
+            ChildGenerator children = new ChildGenerator(GenericWAstar.this.useOperatorIds);
+            children.reset(this.domain, this.state, this.node.getPopId(), this.node.getPop());
+            while (children.next()) {
+                ++this.generated;
+                // A shorter path to the node hasn't been found (the h value isn't required)
+                if (this.earlyDuplicateDetection && !children.lookUp(this.node)) {
+                    ++this.duplicates;
+                    continue;
+                }
+                this.children.add(new Pair<>(children.childState, children.createNode(this.node)));
+            }
+            return this;
+        }
+    }
+
+    /**
+     * The store which is used when the closed list is stored off-heap
+     *
+     * The search tree (g values, parents and operators) is stored only in the records of the
+     * closed list, while the open list contains the nodes that weren't expanded yet (without
+     * references to their parents, so the expanded nodes can be garbage collected). Since the
+     * nodes in the open list can't be reached from the closed list, a state that is reached via a
+     * shorter path is added to the open list again and its previous copy is skipped when it is
+     * selected (its g value is higher than the stored one).
+     *
+     * NOTE: BPMX isn't supported in this mode, and since the h value of a state doesn't depend on
+     *       the path, shorter paths are always preferred (shouldReplaceNode isn't consulted)
+     */
+    private final class OffHeapNodeStore extends NodeStore {
+        private final OffHeapClosedList<N> closed = GenericWAstar.this.offHeapClosed;
+        private final ChildGenerator children = new ChildGenerator(GenericWAstar.this.useOperatorIds);
+        private N current;
+        // The id of the record of the current node
+        private int currentId;
+
+        private OffHeapNodeStore() {
+            if (GenericWAstar.this.useBPMX) {
+                GenericWAstar.this.logger.error("BPMX can't be used with an off-heap closed list");
+                throw new UnsupportedOperationException();
+            }
+        }
+
+        @Override
+        void addInitialNode(SearchDomain domain) {
+            SearchState initialState = domain.initialState();
+            System.out.println("Initial state : " + initialState.dumpStateShort());
+            N initialNode = GenericWAstar.this.getNode(initialState);
+            GenericWAstar.this._insertOffHeap(initialNode, OffHeapClosedList.NO_PARENT,
+                    OffHeapClosedList.NO_OPERATOR);
+            GenericWAstar.this.open.add(initialNode);
+        }
+
+        @Override
+        boolean isEmpty() {
+            return GenericWAstar.this.open.isEmpty();
+        }
+
+        @Override
+        SearchState selectNode(SearchDomain domain) {
+            N currentNode = GenericWAstar.this._selectNode();
+            // Prune
+            if (currentNode.getRf() >= GenericWAstar.this.maxCost) {
+                return null;
+            }
+            int currentId = GenericWAstar.this._findOffHeap(currentNode);
+            // The state was reached later via a shorter path (and that copy was added to open)
+            if (currentNode.getG() > this.closed.getG(currentId)) {
+                return null;
+            }
+            this.closed.setExpanded(currentId, true);
+            this.current = currentNode;
+            this.currentId = currentId;
+            return GenericWAstar.this._unpack(domain, currentNode);
+        }
+
+        @Override
+        boolean isGoal(SearchDomain domain, SearchState currentState) {
+            return GenericWAstar.this.isGoal(domain, this.current, currentState);
+        }
+
+        @Override
+        SearchResultImpl.Solution getSolution(SearchDomain domain) {
+            return GenericWAstar.this._getOffHeapSolution(domain, this.currentId);
+        }
+
+        @Override
+        void expand(SearchDomain domain, SearchState currentState, SearchResultImpl result) {
+            this.children.reset(domain, currentState, this.current.getPopId(), this.current.getPop());
+            while (this.children.next()) {
+                N childNode = this.children.createNode(this.current);
+                SearchState childState = this.children.childState;
+                int i = this.children.operatorIndex;
+                // The path to the node is stored in the closed list
+                childNode.detachParent();
+                ++result.generated;
+
+                // Prune
+                if (childNode.getRf() >= GenericWAstar.this.maxCost) {
+                    continue;
+                }
+                int dupId = GenericWAstar.this._findOffHeap(childNode);
+                if (dupId == -1) {
+                    GenericWAstar.this._insertOffHeap(childNode, this.currentId, i);
+                    GenericWAstar.this.open.add(childNode);
+                    GenericWAstar.this._cacheState(childNode, childState);
+                    continue;
+                }
+                // Count the duplicates
+                ++result.duplicates;
+                // Found a shorter path to the node
+                if (this.closed.getG(dupId) > childNode.getG()) {
+                    this.closed.update(dupId, childNode.getG(), this.currentId, i);
+                    if (!this.closed.isExpanded(dupId)) {
+                        // The node is still in open (the previous copy will be skipped)
+                        ++result.opupdated;
+                        GenericWAstar.this.open.add(childNode);
+                        GenericWAstar.this._cacheState(childNode, childState);
+                    } else if (GenericWAstar.this.reopen) {
+                        ++result.reopened;
+                        this.closed.setExpanded(dupId, false);
+                        GenericWAstar.this.open.add(childNode);
+                        GenericWAstar.this._cacheState(childNode, childState);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The store which is used in the node-pool mode: the nodes are int handles into the primitive
+     * arrays of a NodePool (which also serves as the closed list) and the open list is a binary
+     * heap of these handles, so no object is allocated per generated node
+     *
+     * The search performs exactly the same operations as the regular one with a binary heap
+     * (open-list=bin), hence the expanded and generated counts are identical to that search - the
+     * automatically chosen open list (e.g. a BucketHeap for integral costs) breaks the ties
+     * differently (BPMX isn't supported in this mode, and since the h value of a state doesn't
+     * depend on the path, shorter paths are always preferred)
+     */
+    private final class PooledNodeStore extends NodeStore {
+        private final SearchState initialState;
+        private final NodePool pool;
+        private final IntBinHeap open;
+        private final boolean singleLong;
+        private final StateCache<SearchState> stateCache;
+        // The operators of the pool are stored as indexes (the operator ids aren't used)
+        private final ChildGenerator children = new ChildGenerator(false);
+        // The handle of the current node
+        private int current;
+
+        private PooledNodeStore(SearchDomain domain) {
+            if (GenericWAstar.this.useBPMX) {
+                GenericWAstar.this.logger.error("BPMX can't be used with the node pool");
+                throw new UnsupportedOperationException();
+            }
+            if (!GenericWAstar.this.supportsNodePool()) {
+                GenericWAstar.this.logger.error("{} doesn't support the node pool", GenericWAstar.this.getName());
+                throw new UnsupportedOperationException();
+            }
+            if (GenericWAstar.this.heapType != null && GenericWAstar.this.heapType != HeapType.BIN) {
+                GenericWAstar.this.logger.error("The open list of the node pool is a binary heap (not {})",
+                        GenericWAstar.this.heapType);
+                throw new UnsupportedOperationException();
+            }
+            this.initialState = domain.initialState();
+            this.pool = new NodePool(this.initialState.pack().getLongsCount());
+            this.singleLong = this.pool.isSingleLong() && domain.packsIntoSingleLong();
+            this.pool.setComparator(new NodePool.HandleComparator() {
+                @Override
+                public int compare(NodePool pool, int a, int b) {
+                    return GenericWAstar.this.comparePooledNodes(pool, a, b);
+                }
+            });
+            this.open = new IntBinHeap(this.pool);
+            GenericWAstar.this.nodePool = this.pool;
+            GenericWAstar.this.closed = null;
+            GenericWAstar.this.longClosed = null;
+            GenericWAstar.this._initStateCache(domain);
+            this.stateCache = GenericWAstar.this.stateCache;
+        }
+
+        @Override
+        void addInitialNode(SearchDomain domain) {
+            System.out.println("Initial state : " + this.initialState.dumpStateShort());
+            this.open.add(this.singleLong ?
+                    this.pool.add(this.initialState.packLong(), 0, this.initialState.getH(),
+                            NodePool.NO_PARENT, NodePool.NO_OPERATOR, null) :
+                    this.pool.add(this.initialState.pack(), 0, this.initialState.getH(),
+                            NodePool.NO_PARENT, NodePool.NO_OPERATOR, null));
+        }
+
+        @Override
+        boolean isEmpty() {
+            return this.open.isEmpty();
+        }
+
+        @Override
+        SearchState selectNode(SearchDomain domain) {
+            int current = this.open.poll();
+            // Prune
+            if (this.pool.getG(current) + this.pool.getH(current) >= GenericWAstar.this.maxCost) {
+                return null;
+            }
+            this.current = current;
+            SearchState currentState = null;
+            if (this.stateCache != null) {
+                currentState = this.singleLong ?
+                        this.stateCache.take(this.pool.getPackedLong(current)) :
+                        this.stateCache.take(this.pool.getPacked(current));
+            }
+            if (currentState == null) {
+                currentState = this.singleLong ?
+                        domain.unpackLong(this.pool.getPackedLong(current)) :
+                        domain.unpack(this.pool.getPacked(current));
+            }
+            return currentState;
+        }
+
+        @Override
+        boolean isGoal(SearchDomain domain, SearchState currentState) {
+            return domain.isGoal(currentState);
+        }
+
+        @Override
+        SearchResultImpl.Solution getSolution(SearchDomain domain) {
+            return GenericWAstar.this._getPooledSolution(domain, this.pool, this.current);
+        }
+
+        @Override
+        void expand(SearchDomain domain, SearchState currentState, SearchResultImpl result) {
+            NodePool pool = this.pool;
+            int current = this.current;
+            double currentG = pool.getG(current);
+            this.children.reset(domain, currentState, SearchDomain.NO_OPERATOR_ID, pool.getPop(current));
+            while (this.children.next()) {
+                SearchState childState = this.children.childState;
+                int i = this.children.operatorIndex;
+                double childG = currentG + this.children.op.getCost(childState, currentState);
+                double childH = childState.getH();
+                Operator childPop = this.children.getChildPop();
+                ++result.generated;
+
+                // Prune
+                if (childG + childH >= GenericWAstar.this.maxCost) {
+                    continue;
+                }
+                long childPackedLong = 0;
+                PackedElement childPacked = null;
+                int dup;
+                if (this.singleLong) {
+                    childPackedLong = childState.packLong();
+                    dup = pool.find(childPackedLong);
+                } else {
+                    childPacked = childState.pack();
+                    dup = pool.find(childPacked);
+                }
+                if (dup == -1) {
+                    this.open.add(this.singleLong ?
+                            pool.add(childPackedLong, childG, childH, current, i, childPop) :
+                            pool.add(childPacked, childG, childH, current, i, childPop));
+                    this._cacheState(childPackedLong, childPacked, childState);
+                    continue;
+                }
+                // Count the duplicates
+                ++result.duplicates;
+                // Found a shorter path to the node
+                if (pool.getG(dup) > childG) {
+                    pool.setPath(dup, childG, current, i, childPop);
+                    // if the duplicate is in open, update it there too
+                    if (pool.getIndex(dup) != -1) {
+                        ++result.opupdated;
+                        this.open.update(dup);
+                    } else if (GenericWAstar.this.reopen) {
+                        ++result.reopened;
+                        this.open.add(dup);
+                        this._cacheState(childPackedLong, childPacked, childState);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Keeps the state of a node which was just added to the open list unpacked, in case a state
+         * cache is used
+         */
+        private void _cacheState(long packedLong, PackedElement packed, SearchState state) {
+            if (this.stateCache != null) {
+                if (this.singleLong) {
+                    this.stateCache.put(packedLong, state);
+                } else {
+                    this.stateCache.put(packed, state);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstructs the path to the given goal from the nodes of the pool
+     *
+     * @param goal The handle of the goal
+     */
+    private SearchResultImpl.SolutionImpl _getPooledSolution(SearchDomain domain, NodePool pool, int goal) {
+        SearchResultImpl.SolutionImpl solution = new SearchResultImpl.SolutionImpl();
+        double cost = 0;
+        List<SearchState> statesPath = new ArrayList<>();
+        List<Operator> operatorsPath = new ArrayList<>();
+        SearchState currentState = domain.unpackLite(pool.getPacked(goal));
+        for (int current = goal; current != NodePool.NO_PARENT; ) {
+            statesPath.add(currentState);
+            int parent = pool.getParent(current);
+            if (parent != NodePool.NO_PARENT) {
+                SearchState parentState = domain.unpackLite(pool.getPacked(parent));
+                Operator op = domain.getOperator(parentState, pool.getOperator(current));
+                operatorsPath.add(op);
+                cost += op.getCost(currentState, parentState);
+                currentState = parentState;
+            }
+            current = parent;
+        }
+        solution.addStates(statesPath);
+        solution.addOperators(operatorsPath);
+        solution.setCost(cost);
+        // Make the paths: start -> ... -> goal
+        solution.reverseAll();
+        return solution;
+    }
+
+    /**
+     * Closes the off-heap closed list (if exists) and deletes its backing file - the direct buffers
+     * and the mapped regions are released when they are garbage collected
+     */
+    private void _releaseOffHeapClosed() {
+        if (this.offHeapClosed != null) {
+            this.offHeapClosed.close();
+            if (this.closed == this.offHeapClosed) {
+                this.closed = null;
+            }
+            this.offHeapClosed = null;
+        }
+    }
+
+    private int _findOffHeap(N node) {
+        if (node.isPackedIntoLong()) {
+            return this.offHeapClosed.find(node.getPackedLong());
+        }
+        return this.offHeapClosed.find(node.getPacked());
+    }
+
+    private int _insertOffHeap(N node, int parentId, int operatorIndex) {
+        if (node.isPackedIntoLong()) {
+            return this.offHeapClosed.insert(node.getPackedLong(), node.getG(), parentId, operatorIndex);
+        }
+        return this.offHeapClosed.insert(node.getPacked(), node.getG(), parentId, operatorIndex);
+    }
+
+    /**
+     * Reconstructs the path to the given goal from the records of the off-heap closed list
+     *
+     * @param goalId The id of the record of the goal
+     */
+    private SearchResultImpl.SolutionImpl _getOffHeapSolution(SearchDomain domain, int goalId) {
+        SearchResultImpl.SolutionImpl solution = new SearchResultImpl.SolutionImpl();
+        double cost = 0;
+        List<SearchState> statesPath = new ArrayList<>();
+        List<Operator> operatorsPath = new ArrayList<>();
+        SearchState currentState = domain.unpackLite(this.offHeapClosed.getPacked(goalId));
+        for (int currentId = goalId; currentId != OffHeapClosedList.NO_PARENT; ) {
+            statesPath.add(currentState);
+            int parentId = this.offHeapClosed.getParentId(currentId);
+            if (parentId != OffHeapClosedList.NO_PARENT) {
+                SearchState parentState = domain.unpackLite(this.offHeapClosed.getPacked(parentId));
+                Operator op = domain.getOperator(parentState,
+                        this.offHeapClosed.getOperatorIndex(currentId));
+                operatorsPath.add(op);
+                cost += op.getCost(currentState, parentState);
+                currentState = parentState;
+            }
+            currentId = parentId;
+        }
+        solution.addStates(statesPath);
+        solution.addOperators(operatorsPath);
+        solution.setCost(cost);
+        // Make the paths: start -> ... -> goal
+        solution.reverseAll();
+        return solution;
+    }
+
+    /**
+     * The primary key of the nodes in a d-ary heap (the rank of the node at level 0 - see
+     * canUseBucketHeap())
+     */
+    private static final class RankPrimaryKey<N extends GenericNode<N>> implements DaryHeap.PrimaryKey<N> {
+
+        @Override
+        public double get(N node) {
+            return node.getRank(0);
+        }
+    }
+
+    /**
+     * Converts the nodes to the records of the off-heap closed list and back (the created nodes
+     * have no parents, since the paths are stored in the list itself)
+     */
+    private class OffHeapNodeCodec implements OffHeapClosedList.Codec<N> {
+
+        private final SearchDomain domain;
+
+        private OffHeapNodeCodec(SearchDomain domain) {
+            this.domain = domain;
+        }
+
+        @Override
+        public double getG(N element) {
+            return element.getG();
+        }
+
+        @Override
+        public PackedElement getParentPacked(N element) {
+            return (element.getParent() == null) ? null : element.getParent().getPacked();
+        }
+
+        @Override
+        public int getOperatorIndex(N element) {
+            if (element.getParent() != null && element.getOp() != null) {
+                SearchState parentState = this.domain.unpack(element.getParent().getPacked());
+                for (int i = 0; i < this.domain.getNumOperators(parentState); ++i) {
+                    if (element.getOp().equals(this.domain.getOperator(parentState, i))) {
+                        return i;
+                    }
+                }
+            }
+            return OffHeapClosedList.NO_OPERATOR;
+        }
+
+        @Override
+        public N decode(PackedElement packed, double g, PackedElement parentPacked, int operatorIndex) {
+            N node = GenericWAstar.this.getNode(this.domain.unpack(packed));
+            node.setG(g);
+            return node;
+        }
     }
 
     /**
@@ -556,9 +1724,48 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
         this.open.add(toAdd);
 //        this.openF.add(toAdd);
         // The nodes are ordered in the closed list by their packed values
-        this.updateClosed(toAdd.getPacked(), toAdd);
+        this.updateClosed(toAdd);
     }
 
+    /**
+     * Extracts the state of the given node (if possible, without allocating a PackedElement)
+     */
+    protected SearchState _unpack(SearchDomain domain, N node) {
+        if (node.isPackedIntoLong()) {
+            if (this.stateCache != null) {
+                SearchState cached = this.stateCache.take(node.getPackedLong());
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            return domain.unpackLong(node.getPackedLong());
+        }
+        if (this.stateCache != null) {
+            SearchState cached = this.stateCache.take(node.getPacked());
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return domain.unpack(node.getPacked());
+    }
+
+    /**
+     * @return The node stored in the closed list for the state of the given node (or null)
+     */
+    protected N _getFromClosed(N node) {
+        if (this.longClosed != null) {
+            return this.longClosed.get(node.getPackedLong());
+        }
+        return this.closed.get(node.getPacked());
+    }
+
+    protected void updateClosed(N node) {
+        if (this.longClosed != null) {
+            this.longClosed.put(node.getPackedLong(), node);
+        } else {
+            this.updateClosed(node.getPacked(), node);
+        }
+    }
 
     protected void updateClosed(PackedElement packed, N node) {
         this.closed.put(packed, node);
@@ -631,6 +1838,87 @@ public abstract class GenericWAstar<N extends GenericNode<N>, C extends Comparat
                 this.FR = Integer.parseInt(value);
                 break;
             }
+            case "closed-list": {
+                this.closedListType = ClosedLists.parseType(value);
+                break;
+            }
+            case "open-list": {
+                switch (value) {
+                    case "bin": {
+                        this.heapType = HeapType.BIN;
+                        break;
+                    }
+                    case "bucket": {
+                        this.heapType = HeapType.BUCKET;
+                        break;
+                    }
+                    case "radix": {
+                        this.heapType = HeapType.RADIX;
+                        break;
+                    }
+                    case "dary": {
+                        this.heapType = HeapType.DARY;
+                        break;
+                    }
+                    case "pairing": {
+                        this.heapType = HeapType.PAIRING;
+                        break;
+                    }
+                    case "auto": {
+                        this.heapType = null;
+                        break;
+                    }
+                    default: {
+                        this.logger.error("Illegal open list type: {} (bin | bucket | radix | dary | pairing | auto)", value);
+                        throw new IllegalArgumentException();
+                    }
+                }
+                break;
+            }
+            case "node-pool": {
+                this.useNodePool = Boolean.parseBoolean(value);
+                break;
+            }
+            case "early-duplicate-detection": {
+                this.earlyDuplicateDetection = Boolean.parseBoolean(value);
+                break;
+            }
+            case "state-cache": {
+                this.stateCacheCapacity = Integer.parseInt(value);
+                if (this.stateCacheCapacity < 0) {
+                    this.logger.error("The capacity of the state cache must be >= 0");
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
+            case "closed-list-directory": {
+                this.closedListDirectory = new File(value);
+                if (!this.closedListDirectory.isDirectory()) {
+                    this.logger.error("The directory of the closed list doesn't exist: {}", value);
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
+            case "queue-trace": {
+                this.queueTraceFile = new File(value);
+                break;
+            }
+            case "batch-size": {
+                this.batchSize = Integer.parseInt(value);
+                if (this.batchSize < 1) {
+                    this.logger.error("The size of a batch must be >= 1");
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
+            case "batch-threads": {
+                this.batchThreads = Integer.parseInt(value);
+                if (this.batchThreads < 1) {
+                    this.logger.error("The number of the threads of a batch must be >= 1");
+                    throw new IllegalArgumentException();
+                }
+                break;
+            }
             default: {
                 throw new UnsupportedOperationException();
             }
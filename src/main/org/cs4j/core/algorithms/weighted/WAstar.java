@@ -5,6 +5,8 @@ import org.cs4j.core.SearchDomain;
 import org.cs4j.core.SearchResultImpl;
 import org.cs4j.core.SearchState;
 import org.cs4j.core.algorithms.auxiliary.GenericNode;
+import org.cs4j.core.algorithms.auxiliary.NodePool;
+import org.cs4j.core.collections.PackedElement;
 
 import java.util.Comparator;
 
@@ -13,7 +15,7 @@ public class WAstar extends GenericWAstar<WAstar.Node, WAstar.NodeComparator> {
     public class Node extends GenericNode<Node> {
 
         private double getWf() {
-            return this.g + WAstar.this.weight * this.h;
+            return WAstar.this._getWf(this.g, this.h);
         }
 
         public Node(SearchState state) {
@@ -27,6 +29,24 @@ public class WAstar extends GenericWAstar<WAstar.Node, WAstar.NodeComparator> {
                     Operator pop) {
             super(state, parent, parentState, op, pop);
         }
+
+        public Node(SearchState state,
+                    Node parent,
+                    SearchState parentState,
+                    Operator op,
+                    Operator pop,
+                    long packedLong,
+                    PackedElement packed) {
+            super(state, parent, parentState, op, pop, packedLong, packed);
+        }
+
+        /**
+         * The ranks follow the order of the NodeComparator: wF and then g
+         */
+        @Override
+        public double getRank(int level) {
+            return (level == 0) ? this.getWf() : this.g;
+        }
     }
 
 
@@ -35,6 +55,11 @@ public class WAstar extends GenericWAstar<WAstar.Node, WAstar.NodeComparator> {
         return new WAstar.NodeComparator();
     }
 
+    @Override
+    protected boolean canUseBucketHeap() {
+        return true;
+    }
+
     @Override
     protected Node getNode(SearchState state) {
         return new Node(state);
@@ -49,6 +74,53 @@ public class WAstar extends GenericWAstar<WAstar.Node, WAstar.NodeComparator> {
         return new Node(state, parent, parentState, op, pop);
     }
 
+    @Override
+    protected Node getNode(SearchState state,
+                           Node parent,
+                           SearchState parentState,
+                           Operator op,
+                           Operator pop,
+                           long packedLong,
+                           PackedElement packed) {
+        return new Node(state, parent, parentState, op, pop, packedLong, packed);
+    }
+
+    @Override
+    protected boolean supportsNodePool() {
+        return true;
+    }
+
+    @Override
+    protected int comparePooledNodes(NodePool pool, int a, int b) {
+        return this._compare(pool.getG(a), pool.getH(a), pool.getG(b), pool.getH(b));
+    }
+
+    private double _getWf(double g, double h) {
+        return g + this.weight * h;
+    }
+
+    /**
+     * The order of the nodes (of both NodeComparator and comparePooledNodes): first by wF (smaller
+     * is preferred), then by g (bigger is preferred)
+     */
+    private int _compare(double aG, double aH, double bG, double bH) {
+        double aWf = this._getWf(aG, aH);
+        double bWf = this._getWf(bG, bH);
+        if (aWf < bWf) {
+            return -1;
+        }
+        if (aWf > bWf) {
+            return 1;
+        }
+        if (aG > bG) {
+            return -1;
+        }
+        if (aG < bG) {
+            return 1;
+        }
+        return 0;
+    }
+
     protected boolean shouldStop(SearchResultImpl result) {
         return result.solutionsCount() == 1;
     }
@@ -77,20 +149,7 @@ public class WAstar extends GenericWAstar<WAstar.Node, WAstar.NodeComparator> {
 
         @Override
         public int compare(final Node a, final Node b) {
-            // First compare by wF (smaller is preferred), then by g (bigger is preferred)
-            if (a.getWf() < b.getWf()) {
-                return -1;
-            }
-            if (a.getWf() > b.getWf()) {
-                return 1;
-            }
-            if (a.getG() > b.getG()) {
-                return -1;
-            }
-            if (a.getG() < b.getG()) {
-                return 1;
-            }
-            return 0;
+            return WAstar.this._compare(a.getG(), a.getH(), b.getG(), b.getH());
         }
     }
 }
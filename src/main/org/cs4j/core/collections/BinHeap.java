@@ -99,6 +99,18 @@ public class BinHeap<E extends SearchQueueElement> implements SearchQueue<E> {
 	public void clear() {
 		this.heap.clear();
 	}
+
+    /**
+     * The function restores the heap property after the order of (possibly) all the elements was
+     * changed (e.g. the comparator depends on a value which was changed): the heap is rebuilt
+     * bottom-up, in linear time
+     */
+	public void reorder() {
+	    // The leaves are heaps, hence push down all the other elements, from the last one to the root
+		for (int i = this.parent(this.heap.size() - 1); i >= 0; --i) {
+			this.pushDown(i);
+		}
+	}
     
     /**
      * The function updates the given element (according to its index)
@@ -17,7 +17,7 @@
 package org.cs4j.core.collections;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 import org.cs4j.core.collections.BucketHeap.BucketHeapElement;
 
@@ -25,6 +25,16 @@ import org.cs4j.core.collections.BucketHeap.BucketHeapElement;
  * An implementation of a bucket heap where elements are aware of their
  * location (index) in the heap.
  *
+ * The heap is two-level: the elements are stored in buckets according to their (integral) rank at
+ * level 0 and inside each bucket in bins according to their (integral) rank at level 1. The element
+ * with the minimal rank at level 0 is polled first, and among them - the element with the maximal
+ * rank at level 1 (the last added element of the bin is polled first). E.g. for A* - the rank at
+ * level 0 is f and the rank at level 1 is g.
+ *
+ * All the operations take O(1) time (amortized, with an additional scan over empty buckets and
+ * bins): an element which is removed or updated is left in its bin and is skipped when it is
+ * reached (the index of the element at the heap tells its current location).
+ *
  * @author Matthew Hatem & Vitali Sepetnitsky
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
@@ -32,8 +42,9 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
     
     // Number of elements in the heap
     private int fill;
-    // Number of buckets in the heap
+    // Initial number of buckets in the heap (and of bins in each bucket)
     private int size;
+    // No bucket below min contains an element
     private int min = Integer.MAX_VALUE;
     private Bucket[] buckets;
     private int key;
@@ -41,13 +52,13 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
     /**
      * Constructor of the heap
      *
-     * @param size Number of buckets to create
+     * @param size Initial number of buckets to create (the buckets are extended if required)
      * @param key The index at the single heap element, that allows accessing a single element
      */
     public BucketHeap(int size, int key) {
-        this.size = size;
+        this.size = Math.max(size, 1);
         // Create an array of buckets
-        this.buckets = new Bucket[size];
+        this.buckets = new Bucket[this.size];
         this.key = key;
     }
   
@@ -55,38 +66,70 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
     public int getKey() {
         return this.key;
     }
-  
+
     /**
-     * The function inserts the given element to the heap and assures the heap property is still
-     * true after the insertion
-     *
-     * @param e The element to insert
-    */
-    @Override
-    public void add(E e) {
-        int p0 = (int)e.getRank(0);
+     * Returns the rank of the given element at the given level, as an index of a bucket (or a bin)
+     */
+    private static int _rank(BucketHeapElement e, int level) {
+        int rank = (int) e.getRank(level);
+        if (rank < 0) {
+            throw new IllegalArgumentException("Negative rank: " + e.getRank(level));
+        }
+        return rank;
+    }
+
+    /**
+     * Places the given element at the bucket p0 (and the bin p1 of the bucket)
+     */
+    private void _push(E e, int p0, int p1) {
         // Update the minimal element of the heap
         if (p0 < this.min) {
             this.min = p0;
         }
+        if (p0 >= this.buckets.length) {
+            this.buckets = Arrays.copyOf(this.buckets, Math.max(p0 + 1, this.buckets.length * 2));
+        }
         // Get the relevant bucket, according to the rank of the element
         Bucket<E> bucket = this.buckets[p0];
         // Create a new bucket if required
         if (bucket == null) {
-            // The size of each bucket is equal to the number of elements in the bucket
-            bucket = new Bucket<>(this.buckets.length, this.key);
+            bucket = new Bucket<>(this.size, this.key);
             // Insert the bucket to the array
             this.buckets[p0] = bucket;
         }
-        // Update the index of the element to correspond to its rank
+        // Update the indexes of the element to correspond to its ranks
         e.setIndex(this.key, p0);
-
-        // Get the rank of the element, at level 1
-        int p1 = (int)e.getRank(1);
+        e.setSecondaryIndex(this.key, p1);
         // Insert the element to the bucket, according to the relevant rank
         bucket.push(e, p1);
-        // Update the secondary index of the element according to its rank at the first level
-        e.setSecondaryIndex(this.key, p1);
+    }
+
+    /**
+     * @return The first bucket which contains an element (null if the heap is empty)
+     */
+    private Bucket<E> _minBucket() {
+        if (this.fill == 0) {
+            return null;
+        }
+        // Find the first non-empty bucket
+        for (; this.min < this.buckets.length; ++this.min) {
+            Bucket<E> bucket = this.buckets[this.min];
+            if (bucket != null && bucket.peek(this.min) != null) {
+                return bucket;
+            }
+        }
+        throw new IllegalStateException("The heap contains " + this.fill + " elements, but none was found");
+    }
+
+    /**
+     * The function inserts the given element to the heap and assures the heap property is still
+     * true after the insertion
+     *
+     * @param e The element to insert
+    */
+    @Override
+    public void add(E e) {
+        this._push(e, BucketHeap._rank(e, 0), BucketHeap._rank(e, 1));
         // Increase the number of elements
         ++this.fill;
     }
@@ -94,30 +137,22 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
     /**
      * The function removes the first element of the heap and returns it
      *
-     * @return The first element of the heap
+     * @return The first element of the heap (null if the heap is empty)
      */
     @Override
     public E poll() {
-        // Find the first non-empty bucket
-        for (; this.min < this.buckets.length; ++this.min) {
-            // Find the first non-empty bucket
-            Bucket minBucket = this.buckets[this.min];
-            // Break if the bucket was found
-            if (minBucket != null && !minBucket.isEmpty()) {
-                break;
-            }
+        Bucket<E> minBucket = this._minBucket();
+        if (minBucket == null) {
+            return null;
         }
         // Decrease the number of elements in the heap
-        --fill;
-
-        // Get the found bucket
-        Bucket<E> minBucket = this.buckets[this.min];
+        --this.fill;
         // Take the first element of the bucket
         E e = minBucket.pop();
         // Clean the indexes of the taken element (make the element un-aware of its
         // place in the heap)
-        e.setIndex(key, -1);
-        e.setSecondaryIndex(key, -1);
+        e.setIndex(this.key, -1);
+        e.setSecondaryIndex(this.key, -1);
         return e;
     }
 
@@ -125,44 +160,33 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
      * The function takes the first element of the heap and returns it
      * (without removing) the element
      *
-     * @return The first element of the heap
+     * @return The first element of the heap (null if the heap is empty)
      */
     @Override
     public E peek() {
-  	    int min = this.min;
-  	    // Find the first non-empty bucket
-        for (; min < this.buckets.length; ++min) {
-            Bucket minBucket = this.buckets[min];
-            if (minBucket != null && !minBucket.isEmpty()) {
-                break;
-            }
-        }
-        // Take the bucket
-        Bucket<E> minBucket = this.buckets[min];
-        // Return the fist element of the bucket
-        return minBucket.peek();
+        Bucket<E> minBucket = this._minBucket();
+        return (minBucket == null) ? null : minBucket.peek(this.min);
     }
 
     /**
-     * The function updates the given element in the heap (replaces it)
+     * The function updates the location of the given element in the heap, after its ranks were
+     * changed (the previous copy of the element is skipped when it is reached)
      *
-     * @param e The element to replace
+     * @param e The element to update
      */
-	@Override
-    // Update h
-	public void update(E e) {
-	    // Get the location of the element (the relevant bucket)
-		int p0 = e.getIndex(this.key);
-		// Assure the returned bucket is valid
-		if (p0 > this.buckets.length - 1 || p0 < 0) {
-            throw new IllegalArgumentException();
+    @Override
+    public void update(E e) {
+        // Get the location of the element (the relevant bucket)
+        if (e.getIndex(this.key) < 0) {
+            throw new IllegalArgumentException("The element isn't in the heap");
+        }
+        int p0 = BucketHeap._rank(e, 0);
+        int p1 = BucketHeap._rank(e, 1);
+        // Move the element only if its location was changed
+        if (p0 != e.getIndex(this.key) || p1 != e.getSecondaryIndex(this.key)) {
+            this._push(e, p0, p1);
         }
-        // Take the bucket from the buckets list
-		Bucket<E> b = this.buckets[p0];
-		// Remove the element and add the updated one
-		b.remove(e);
-		this.add(e);
-	}
+    }
 
     /**
      * The function removes the given element from the heap and returns it
@@ -171,39 +195,37 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
      *
      * @return The removed element
      */
-	@Override
-	public E remove(E e) {
-	    // Get the bucket in which the given element is located
-		int p0 = e.getIndex(this.key);
-		// Assure the bucket index is valid
-		if (p0 > this.buckets.length - 1 || p0 < 0) {
-            throw new IllegalArgumentException();
+    @Override
+    public E remove(E e) {
+        // Assure the element is in the heap
+        if (e.getIndex(this.key) < 0) {
+            throw new IllegalArgumentException("The element isn't in the heap");
         }
-        // Take the bucket
-		Bucket<E> b = this.buckets[p0];
-		// Remove the element from the bucket
-		b.remove(e);
-		// Return the element
-		return e;
-	}
+        // The element will be skipped when it is reached in its bin
+        e.setIndex(this.key, -1);
+        e.setSecondaryIndex(this.key, -1);
+        --this.fill;
+        // Return the element
+        return e;
+    }
 
     /**
      * The function clears the heap
      */
-	@Override
-	public void clear() {
-		this.fill = 0;
-		this.min = Integer.MAX_VALUE;
-		// Re-create the buckets list
-		this.buckets = new Bucket[this.size];
-	}
+    @Override
+    public void clear() {
+        this.fill = 0;
+        this.min = Integer.MAX_VALUE;
+        // Re-create the buckets list
+        this.buckets = new Bucket[this.size];
+    }
 
     /**
      * @return Whether the heap is empty
      */
     @Override
     public boolean isEmpty() {
-        return fill == 0;
+        return this.fill == 0;
     }
 
     /**
@@ -211,7 +233,7 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
      */
     @Override
     public int size() {
-      	return this.fill;
+        return this.fill;
     }
 
     /**
@@ -221,7 +243,9 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
      * @param <E> The type of elements stored in the heap
      */
     private static final class Bucket<E extends BucketHeapElement> {
+        // Number of the stored elements (including the elements which were removed from the heap)
         private int fill;
+        // No bin above max contains an element
         private int max;
         // A single bucket contains an array of arrays
         private ArrayList[] bins;
@@ -230,7 +254,7 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
         /**
          * The constructor of the class - creates a single bucket
          *
-         * @param size The size of the bucket (corresponds to the size of the heap)
+         * @param size The initial number of bins in the bucket (the bins are extended if required)
          * @param key The key which allows accessing the rank of each element
          */
         private Bucket(int size, int key) {
@@ -245,6 +269,9 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
          * @param er The rank of the element
          */
         private void push(E e, int er) {
+            if (er >= this.bins.length) {
+                this.bins = Arrays.copyOf(this.bins, Math.max(er + 1, this.bins.length * 2));
+            }
             // Update the maximum rank of elements stored in the heap
             if (er > this.max) {
                 this.max = er;
@@ -253,7 +280,7 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
             ArrayList<E> binEr = this.bins[er];
             // If there is no list corresponding to the given rank, create it
             if (binEr == null) {
-                binEr = new ArrayList<>(10000);
+                binEr = new ArrayList<>();
                 this.bins[er] = binEr;
             }
             // Add the element to the created list
@@ -263,80 +290,47 @@ public final class BucketHeap<E extends BucketHeapElement> implements SearchQueu
         }
 
         /**
-         * Remove the element with the maximum rank from the current bucket and
-         * return it
+         * Return the element with the highest rank (without removing it) - the elements which
+         * aren't located at this bucket anymore are removed on the way
          *
-         * @return The removed element
+         * @param p0 The index of the bucket in the heap
+         *
+         * @return The found element (null if the bucket doesn't contain any element)
          */
-        private E pop() {
-            // Find the bin the maximum rank
-            for ( ; max > 0; max--) {
+        private E peek(int p0) {
+            while (this.fill > 0) {
+                // Take the maximum index of a bin, which contains at least one element
+                for (; this.bins[this.max] == null || this.bins[this.max].isEmpty(); --this.max);
                 ArrayList<E> maxBin = this.bins[this.max];
-                if (maxBin != null && !maxBin.isEmpty()) {
-                    break;
+                // Get the last non-empty index of the bin
+                int last = maxBin.size() - 1;
+                E e = maxBin.get(last);
+                // Return the element only if it is still located at this bin
+                if (e.getIndex(this.key) == p0 && e.getSecondaryIndex(this.key) == this.max) {
+                    return e;
                 }
+                maxBin.remove(last);
+                --this.fill;
             }
-            // Get the found bin
-            ArrayList<E> maxBin = this.bins[this.max];
-            // Find the last non-empty index of the bin
-            int last = maxBin.size() - 1;
-            // Take the last element and remove it from the bin
-            E n = maxBin.get(last);
-            maxBin.remove(last);
-            // Update the total number of elements in the bin
-            --fill;
-            // Return the found element
-            return n;
+            return null;
         }
 
         /**
-         * Return the element with the highest rank (without removing it)
+         * Remove the element with the maximum rank from the current bucket and
+         * return it
          *
-         * @return The found element
-         */
-        private E peek() {
-            int max = this.max;
-            // Take the maximum index of a bin, which contains at least one element
-            for ( ; max > 0; max--) {
-                ArrayList<E> maxBin = this.bins[max];
-                if (maxBin != null && !maxBin.isEmpty()) {
-                    break;
-                }
-            }
-            // Get the relevant bin
-            ArrayList<E> maxBin = this.bins[max];
-            // Get the last non-empty index of the bin
-            int last = maxBin.size() - 1;
-            // Return the element stored at the found index (without removing it!)
-            return maxBin.get(last);
-        }
-
-        /**
-         * Removes the given element from the heap
+         * NOTE: Should be called only after peek returned an element
          *
-         * @param e The element to remove
-         */
-        private void remove(E e) {
-            // Find the bin in which the element is stored
-            int p1 = e.getSecondaryIndex(key);
-            if (p1 > this.bins.length - 1 || p1 < 0) {
-                throw new IllegalArgumentException();
-            }
-            // Take the relevant list
-            List<E> list = this.bins[p1];
-            // Try to remove the element from the found list
-            if (!list.remove(e)) {
-                throw new IllegalArgumentException();
-            }
-            // Update the total number of elements in the bucket
-            --fill;
-        }
-
-        /**
-         * @return Whether the bucket contains at least a single element
+         * @return The removed element
          */
-        private boolean isEmpty() {
-            return fill == 0;
+        private E pop() {
+            ArrayList<E> maxBin = this.bins[this.max];
+            // Take the last element and remove it from the bin
+            E e = maxBin.remove(maxBin.size() - 1);
+            // Update the total number of elements in the bin
+            --this.fill;
+            // Return the found element
+            return e;
         }
     }
 
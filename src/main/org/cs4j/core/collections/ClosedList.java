@@ -0,0 +1,86 @@
+package org.cs4j.core.collections;
+
+/**
+ * The closed list interface - maps packed states to the nodes that represent them
+ *
+ * The interface contains only the operations that are actually required by the search algorithms
+ * (duplicate detection, update and iteration over all the seen nodes), such that it can be
+ * implemented by structures which are more compact than the general java.util.Map
+ *
+ * @param <E> The type of the nodes stored in the list
+ */
+public interface ClosedList<E> {
+
+    /**
+     * The available implementations of the closed list
+     */
+    enum Type {
+        // java.util.TreeMap (ordered by PackedElement.compareTo)
+        TREE,
+        // java.util.HashMap (relies on PackedElement.hashCode)
+        HASH,
+        // Primitive open-addressing hash table (the packed longs are stored inline)
+        OPEN_ADDRESSING,
+        // Fixed-width records in direct buffers (see OffHeapClosedList)
+        OFF_HEAP,
+        // Fixed-width records in a memory-mapped temporary file (see OffHeapClosedList)
+        FILE_BACKED
+    }
+
+    /**
+     * Returns the node mapped to the given packed state
+     *
+     * @param packed The packed state to look for
+     *
+     * @return The found node or null if the state wasn't seen yet
+     */
+    E get(PackedElement packed);
+
+    /**
+     * Maps the given packed state to the given node (replaces the previous mapping if exists)
+     *
+     * @param packed The packed state
+     * @param element The node to store (can't be null)
+     *
+     * @return The previous node mapped to the state or null if there was no such node
+     */
+    E put(PackedElement packed, E element);
+
+    /**
+     * Removes the mapping of the given packed state
+     *
+     * @param packed The packed state to remove
+     *
+     * @return The removed node or null if there was no such node
+     */
+    E remove(PackedElement packed);
+
+    /**
+     * @param packed The packed state to look for
+     *
+     * @return Whether the given state is contained in the list
+     */
+    boolean containsKey(PackedElement packed);
+
+    /**
+     * @return The number of states stored in the list
+     */
+    int size();
+
+    /**
+     * @return Whether the list contains no states
+     */
+    boolean isEmpty();
+
+    /**
+     * Removes all the states from the list
+     */
+    void clear();
+
+    /**
+     * NOTE: The order of the iteration is implementation specific
+     *
+     * @return All the nodes stored in the list
+     */
+    Iterable<E> values();
+}
@@ -0,0 +1,97 @@
+package org.cs4j.core.collections;
+
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * Creation of closed lists (allows the algorithms to choose the closed list by a parameter)
+ */
+public final class ClosedLists {
+
+    private ClosedLists() { }
+
+    /**
+     * Parses the name of the closed list type, as given to setAdditionalParameter
+     *
+     * @param name One of: tree | hash | open-addressing | off-heap | file-backed
+     *
+     * @return The parsed type
+     */
+    public static ClosedList.Type parseType(String name) {
+        switch (name) {
+            case "tree": {
+                return ClosedList.Type.TREE;
+            }
+            case "hash": {
+                return ClosedList.Type.HASH;
+            }
+            case "open-addressing": {
+                return ClosedList.Type.OPEN_ADDRESSING;
+            }
+            case "off-heap": {
+                return ClosedList.Type.OFF_HEAP;
+            }
+            case "file-backed": {
+                return ClosedList.Type.FILE_BACKED;
+            }
+            default: {
+                System.err.println("Illegal closed list type: " + name);
+                throw new IllegalArgumentException();
+            }
+        }
+    }
+
+    /**
+     * Parses the name of the closed list type, for algorithms whose nodes can't be stored off-heap
+     * (only GenericWAstar converts its nodes to the records of OffHeapClosedList)
+     *
+     * @param name One of: tree | hash | open-addressing
+     *
+     * @return The parsed type
+     */
+    public static ClosedList.Type parseOnHeapType(String name) {
+        ClosedList.Type type = ClosedLists.parseType(name);
+        if (type == ClosedList.Type.OFF_HEAP || type == ClosedList.Type.FILE_BACKED) {
+            System.err.println("The closed list can't be stored off-heap: " + name +
+                    " (tree | hash | open-addressing)");
+            throw new IllegalArgumentException();
+        }
+        return type;
+    }
+
+    /**
+     * Creates a closed list according to the required type
+     *
+     * @param type Type of the required closed list
+     * @param longsCount The number of longs in each packed state of the searched domain (the
+     *                   open-addressing list has a special version for the single long case)
+     * @param <E> The type of the nodes stored in the list
+     *
+     * @return The created closed list
+     */
+    public static <E> ClosedList<E> create(ClosedList.Type type, int longsCount) {
+        switch (type) {
+            case TREE: {
+                return new MapClosedList<>(new TreeMap<PackedElement, E>());
+            }
+            case HASH: {
+                return new MapClosedList<>(new HashMap<PackedElement, E>());
+            }
+            case OPEN_ADDRESSING: {
+                if (longsCount == 1) {
+                    return new LongOpenAddressingClosedList<>();
+                }
+                return new PackedOpenAddressingClosedList<>(longsCount);
+            }
+            case OFF_HEAP:
+            case FILE_BACKED: {
+                // The nodes must be converted to records (see OffHeapClosedList.Codec)
+                throw new IllegalArgumentException("The " + type + " closed list can't be created " +
+                        "without a codec of the nodes");
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown closed list type: " + type);
+            }
+        }
+    }
+}
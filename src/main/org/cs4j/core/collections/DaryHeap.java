@@ -0,0 +1,243 @@
+package org.cs4j.core.collections;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * An implementation of a d-ary heap where elements are aware of their location (index) in the
+ * heap (like BinHeap).
+ *
+ * The primary keys of the elements (e.g. f) are stored in an array which is parallel to the array
+ * of the elements, hence the sift operations compare the keys in contiguous memory and access the
+ * elements themselves (via the comparator) only in case of equal keys. A higher arity means a
+ * shallower tree (with more comparisons per level, between adjacent keys).
+ *
+ * NOTE: The comparator must order the elements by their primary keys first (smaller is first),
+ * and then break the ties
+ *
+ * @param <E> The type of the elements
+ */
+public final class DaryHeap<E extends SearchQueueElement> implements SearchQueue<E> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int arity;
+    private final Comparator<E> cmp;
+    private final PrimaryKey<E> primaryKey;
+    private final int key;
+
+    private Object[] elements;
+    private double[] keys;
+    private int size;
+
+    /**
+     * Constructor of the heap
+     *
+     * @param cmp Comparator that allows comparison of the heap elements with equal primary keys
+     * @param key The index at the single heap element, that allows accessing a single element
+     * @param arity The number of children of each node of the heap (at least 2)
+     * @param primaryKey Extracts the primary key of an element
+     */
+    public DaryHeap(Comparator<E> cmp, int key, int arity, PrimaryKey<E> primaryKey) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("The arity of the heap must be at least 2");
+        }
+        this.arity = arity;
+        this.cmp = cmp;
+        this.primaryKey = primaryKey;
+        this.key = key;
+        this.elements = new Object[DaryHeap.INITIAL_CAPACITY];
+        this.keys = new double[DaryHeap.INITIAL_CAPACITY];
+    }
+
+    @Override
+    public int getKey() {
+        return this.key;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E _elementAt(int i) {
+        return (E) this.elements[i];
+    }
+
+    /**
+     * @return Whether the element at i should be polled before the given element (with the given
+     *         primary key)
+     */
+    private boolean _isBefore(int i, double eKey, E e) {
+        double iKey = this.keys[i];
+        if (iKey != eKey) {
+            return iKey < eKey;
+        }
+        return this.cmp.compare(this._elementAt(i), e) < 0;
+    }
+
+    /**
+     * Places the given element at i
+     */
+    private void _set(int i, E e, double eKey) {
+        this.elements[i] = e;
+        this.keys[i] = eKey;
+        e.setIndex(this.key, i);
+    }
+
+    /**
+     * Moves the element at i up, until the heap property stops to be broken
+     *
+     * @return The new index of the element
+     */
+    private int _siftUp(int i) {
+        E e = this._elementAt(i);
+        double eKey = this.keys[i];
+        while (i > 0) {
+            int parent = (i - 1) / this.arity;
+            // Stop if the parent isn't after the element
+            if (!this._isBeforeElement(eKey, e, parent)) {
+                break;
+            }
+            this._set(i, this._elementAt(parent), this.keys[parent]);
+            i = parent;
+        }
+        this._set(i, e, eKey);
+        return i;
+    }
+
+    /**
+     * @return Whether the given element (with the given primary key) should be polled before the
+     *         element at i
+     */
+    private boolean _isBeforeElement(double eKey, E e, int i) {
+        double iKey = this.keys[i];
+        if (eKey != iKey) {
+            return eKey < iKey;
+        }
+        return this.cmp.compare(e, this._elementAt(i)) < 0;
+    }
+
+    /**
+     * Moves the element at i down, until the heap property stops to be broken
+     */
+    private void _siftDown(int i) {
+        E e = this._elementAt(i);
+        double eKey = this.keys[i];
+        while (true) {
+            int first = i * this.arity + 1;
+            if (first >= this.size) {
+                break;
+            }
+            int last = Math.min(first + this.arity, this.size);
+            // Find the child which should be polled first (the keys of the children are adjacent)
+            int best = first;
+            for (int child = first + 1; child < last; ++child) {
+                if (this._isBefore(child, this.keys[best], this._elementAt(best))) {
+                    best = child;
+                }
+            }
+            if (!this._isBefore(best, eKey, e)) {
+                break;
+            }
+            this._set(i, this._elementAt(best), this.keys[best]);
+            i = best;
+        }
+        this._set(i, e, eKey);
+    }
+
+    @Override
+    public void add(E e) {
+        if (this.size == this.elements.length) {
+            this.elements = Arrays.copyOf(this.elements, this.size * 2);
+            this.keys = Arrays.copyOf(this.keys, this.size * 2);
+        }
+        this._set(this.size, e, this.primaryKey.get(e));
+        this._siftUp(this.size++);
+    }
+
+    @Override
+    public E poll() {
+        if (this.size == 0) {
+            return null;
+        }
+        E toReturn = this._elementAt(0);
+        this._removeAt(0);
+        return toReturn;
+    }
+
+    @Override
+    public E peek() {
+        if (this.size == 0) {
+            return null;
+        }
+        return this._elementAt(0);
+    }
+
+    /**
+     * The function updates the location of the given element, after its keys were changed
+     *
+     * @param e The element to update
+     */
+    @Override
+    public void update(E e) {
+        int i = e.getIndex(this.key);
+        if (i < 0 || i >= this.size || this.elements[i] != e) {
+            throw new IllegalArgumentException();
+        }
+        this.keys[i] = this.primaryKey.get(e);
+        this._siftDown(this._siftUp(i));
+    }
+
+    @Override
+    public E remove(E e) {
+        int i = e.getIndex(this.key);
+        if (i < 0 || i >= this.size || this.elements[i] != e) {
+            throw new IllegalArgumentException();
+        }
+        this._removeAt(i);
+        return e;
+    }
+
+    /**
+     * Removes the element at i (the last element of the heap fills its place)
+     */
+    private void _removeAt(int i) {
+        this._elementAt(i).setIndex(this.key, -1);
+        int last = --this.size;
+        if (i != last) {
+            this._set(i, this._elementAt(last), this.keys[last]);
+            this.elements[last] = null;
+            this._siftDown(this._siftUp(i));
+        } else {
+            this.elements[last] = null;
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.elements, 0, this.size, null);
+        this.size = 0;
+    }
+
+    /**
+     * Extracts the primary key of an element of the heap
+     *
+     * @param <E> The type of the elements
+     */
+    public interface PrimaryKey<E> {
+
+        /**
+         * @param e The element
+         *
+         * @return The primary key of the element (smaller keys are polled first)
+         */
+        double get(E e);
+    }
+}
@@ -0,0 +1,69 @@
+package org.cs4j.core.collections;
+
+/**
+ * A data structure for open and focal lists: OPEN is ordered by f^ and FOCAL contains the elements
+ * of OPEN whose f^ is within a factor of the best f^ in OPEN (see EES)
+ *
+ * @param <E> Type of data to save in the lists
+ */
+public interface FocalQueue<E extends SearchQueueElement> {
+
+    boolean isEmpty();
+
+    /**
+     * Add to queue
+     *
+     * @param e The element to add
+     * @param oldBest The old element which was the 'best' one in the queue
+     */
+    void add(E e, E oldBest);
+
+    /**
+     * Updates FOCAL after the best element of OPEN was changed
+     *
+     * @param oldBest The previous best element of OPEN (null if there was no previous one)
+     * @param newBest The current best element of OPEN
+     * @param fHatChange Negative if f^ of the best element went down, positive if it went up, and
+     *                   0 if it wasn't changed
+     */
+    void updateFocal(E oldBest, E newBest, int fHatChange);
+
+    /**
+     * Removes an element from OPEN and also from FOCAL
+     *
+     * @param e The element to remove
+     */
+    void remove(E e);
+
+    /**
+     * Polling an element from OPEN
+     *
+     * NOTE: Removes the element from FOCAL!
+     *
+     * @return The extracted element
+     */
+    E pollOpen();
+
+    /**
+     * Polling an element from FOCAL
+     *
+     * NOTE: Removes the element from OPEN!
+     *
+     * @return The extracted element
+     */
+    E pollFocal();
+
+    /**
+     * Peeks an element from OPEN (without removing it)
+     *
+     * @return The extracted element
+     */
+    E peekOpen();
+
+    /**
+     * Peeks an element from FOCAL (without removing it)
+     *
+     * @return The extracted element
+     */
+    E peekFocal();
+}
@@ -8,7 +8,7 @@ import java.util.Comparator;
  * @param <E> Type of data to save in the list
  */
 //public class GEQueue<E extends RBTreeElement<E, E> & MinHeapable> {
-public class GEQueue<E extends SearchQueueElement & RBTreeElement<E, E>> {
+public class GEQueue<E extends SearchQueueElement & RBTreeElement<E, E>> implements FocalQueue<E> {
     private RBTree<E, E> open;
     private BinHeap<E> focal;
     private int id;
@@ -48,6 +48,7 @@ public class GEQueue<E extends SearchQueueElement & RBTreeElement<E, E>> {
         this.open = new RBTree<>(openComparator, geComparator);
     }
 
+    @Override
     public boolean isEmpty() {
         return this.open.peek() == null;
     }
@@ -58,6 +59,7 @@ public class GEQueue<E extends SearchQueueElement & RBTreeElement<E, E>> {
      * @param e The element to add
      * @param oldBest The old element which was the 'best' one in the queue
      */
+    @Override
     public void add(E e, E oldBest) {
         assert e.getNode() == null;
         this.open.insert(e, e);
@@ -68,6 +70,7 @@ public class GEQueue<E extends SearchQueueElement & RBTreeElement<E, E>> {
         assert e.getNode() != null;
     }
 
+    @Override
     public void updateFocal(E oldBest, E newBest, int fHatChange) {
         assert newBest != null;
         assert newBest.getNode() != null;
@@ -113,6 +116,7 @@ public class GEQueue<E extends SearchQueueElement & RBTreeElement<E, E>> {
      *
      * @param e The node to remove
      */
+    @Override
     public void remove(E e) {
         assert e.getNode() != null;
         this.open.delete(e);
@@ -128,6 +132,7 @@ public class GEQueue<E extends SearchQueueElement & RBTreeElement<E, E>> {
      *
      * @return The extracted node
      */
+    @Override
     public E pollOpen() {
         E e = this.open.poll();
         if (e != null && e.getIndex(id) != -1) {
@@ -143,6 +148,7 @@ public class GEQueue<E extends SearchQueueElement & RBTreeElement<E, E>> {
      *
      * @return The extracted node
      */
+    @Override
     public E pollFocal() {
         E e = this.focal.poll();
         if (e != null) {
@@ -157,6 +163,7 @@ public class GEQueue<E extends SearchQueueElement & RBTreeElement<E, E>> {
      *
      * @return The extracted node
      */
+    @Override
     public E peekOpen() {
         return this.open.peek();
     }
@@ -166,6 +173,7 @@ public class GEQueue<E extends SearchQueueElement & RBTreeElement<E, E>> {
      *
      * @return The extracted node
      */
+    @Override
     public E peekFocal() {
         return this.focal.peek();
     }
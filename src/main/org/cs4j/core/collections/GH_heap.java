@@ -6,25 +6,51 @@ import java.util.*;
 
 /**
  * Created by Daniel on 08/01/2016.
+ *
+ * The open list of DP: the elements are grouped into buckets of elements with equal g and h values
+ * (or depth and d values, when useD is true), and the buckets are ordered by their potential
+ * (bigger is first) - (w * fmin - g) / h, or g + w * h for the WA priority. The elements of each
+ * bucket are kept in the order of their addition.
+ *
+ * The f values (and the depth + d values) of the elements are counted in sorted primitive
+ * multisets, hence fmin (and dmin) is updated in O(1) when its last element is removed. Whenever
+ * fmin changes, the potentials of all the buckets change: the buckets are re-ordered lazily (in
+ * linear time, via heapify) only when the first bucket is required again. When the list is
+ * focalized, the buckets which are out of FOCAL are kept in a heap which is ordered by f, hence
+ * only the buckets which enter FOCAL when fmin increases are touched.
+ *
+ * NOTE: The first bucket (the bucket of the element which is returned by peek) is replaced only
+ * when a better bucket is added or when a bucket which isn't after it becomes empty - a change of
+ * fmin doesn't replace it (and it is compared to the added buckets by the potential it had when it
+ * became the first bucket, unless it became the first bucket when it was created). This keeps the
+ * expansion order of DP unchanged.
  */
 public class GH_heap<E extends SearchQueueElement> implements SearchQueue<E> {
 
+    private static final double FOCAL_PRECISION = Math.pow(10, -13);
+
     private final int key;
-    private double IsFocalizedPrecision = Math.pow(10,-13);
-    private boolean debug = false;
-    private HashMap<Double, Double> countF = new HashMap<>();
-    private HashMap<Double, Double> countD = new HashMap<>();
-    //    private BinHeap<E> heap;
-    private TreeMap<gh_node,ArrayList<E>> tree;
-    private TreeMap<gh_node,ArrayList<E>> outOfFocalTree;
-    private TreeMap<gh_node,ArrayList<E>> treeF;
-        private double fmin;
+    private SortedDoubleMultiset countF = new SortedDoubleMultiset();
+    private SortedDoubleMultiset countD = new SortedDoubleMultiset();
+    // The buckets (both in FOCAL and out of FOCAL), by their keys
+    private HashMap<Bucket, Bucket> buckets = new HashMap<>();
+    private BucketQueue focal;
+    private BucketQueue outOfFocal;
+    // For FR: the elements grouped by their f and h values
+    private HashMap<Bucket, Bucket> bucketsF;
+    private BucketQueue queueF;
+    // Empty buckets which can be reused
+    private ArrayList<Bucket> emptyBuckets = new ArrayList<>();
+    // A bucket which is used for searching the bucket of an element
+    private Bucket probe = new Bucket();
+    private double fmin;
     private double dmin;
     private boolean isOptimal;
     private double w;
-    private gh_node bestNode;
-    private ArrayList<E> bestList;
-    private Comparator<gh_node> comparator;
+    // The first bucket, and whether it is compared by its current potential (or by bestPotential)
+    private Bucket best;
+    private boolean bestIsCurrent;
+    private double bestPotential;
     private int GH_heapSize;
     private SearchResultImpl result;
 
@@ -36,18 +62,20 @@ public class GH_heap<E extends SearchQueueElement> implements SearchQueue<E> {
     public GH_heap(double w, int key, double fmin, double dmin, SearchResultImpl result, boolean useFR, boolean useD, boolean isFocalized, boolean useWApriority) {
         this.w = w;
         this.key = key;
-        this.comparator = new ghNodeComparator();
-        this.tree = new TreeMap<>(this.comparator);
+        this.focal = new BucketQueue(new PotentialComparator());
         this.fmin = fmin;
         this.dmin = dmin;
-        this.result =result;
+        this.result = result;
         this.useFR = useFR;
         this.useD = useD;
         this.isFocalized = isFocalized;
         this.useWApriority = useWApriority;
 
-        if(useFR) this.treeF = new TreeMap<>(new Fcomparator());
-        if(isFocalized) this.outOfFocalTree = new TreeMap<>(this.comparator);
+        if (useFR) {
+            this.bucketsF = new HashMap<>();
+            this.queueF = new BucketQueue(new FComparator());
+        }
+        if (isFocalized) this.outOfFocal = new BucketQueue(new FComparator());
     }
 
     public void setOptimal(double fmin){
@@ -55,137 +83,213 @@ public class GH_heap<E extends SearchQueueElement> implements SearchQueue<E> {
     }
 
     public double getFmin(){
-//        testHat();
         return fmin;
     }
 
     public double getFminCount(){
-        double counter = countF.get(fmin);
+        double counter = countF.count(fmin);
         if(counter == 0){
             System.out.println("[INFO GH_heap] getFminCount == 0");
         }
         return counter;
     }
 
-    public void add(E e) {
-//    testHat();
-        if(debug) debugNode(e,"add");
-//        if(result.generated % 10000 == 0) System.out.print("\rgenerated(add):"+result.generated);
+    /**
+     * @return The potential of the given bucket, according to the current fmin and dmin
+     */
+    private double _potential(Bucket bucket) {
+        // (The estimator is 0 iff h or d is 0)
+        if (bucket.estimator == 0) {
+            return Double.MAX_VALUE;
+        }
+        if (this.useD) {
+            if (this.useWApriority) return bucket.cost + bucket.estimator * this.w;
+            else                    return (this.w * this.dmin - bucket.cost) / bucket.estimator;
+        }
+        if (this.useWApriority) return bucket.cost + bucket.estimator * this.w;
+        else                    return (this.w * this.fmin - bucket.cost) / bucket.estimator;
+    }
+
+    private boolean _isInFocal(double f) {
+        return !this.isFocalized || f + GH_heap.FOCAL_PRECISION <= this.w * this.fmin;
+    }
+
+    /**
+     * Sets the key of the given bucket to the key of the given element
+     */
+    private void _setKey(Bucket bucket, E e) {
+        bucket.f = e.getF();
+        bucket.g = e.getG();
+        bucket.h = e.getH();
+        if (bucket.h == 0 || e.getD() == 0) {
+            bucket.cost = 0;
+            bucket.estimator = 0;
+        } else if (this.useD) {
+            bucket.cost = e.getDepth();
+            bucket.estimator = e.getD();
+        } else {
+            bucket.cost = bucket.g;
+            bucket.estimator = bucket.h;
+        }
+    }
+
+    /**
+     * Sets the key of the given bucket to the f and h values of the given element (FR buckets)
+     */
+    private void _setKeyF(Bucket bucket, E e) {
+        bucket.f = e.getF();
+        bucket.h = e.getH();
+        bucket.g = 0;
+        bucket.cost = 0;
+        bucket.estimator = 0;
+    }
+
+    /**
+     * @return A new bucket with the key of the probe
+     */
+    private Bucket _newBucket() {
+        Bucket bucket = this.emptyBuckets.isEmpty() ?
+                new Bucket() :
+                this.emptyBuckets.remove(this.emptyBuckets.size() - 1);
+        bucket.f = this.probe.f;
+        bucket.g = this.probe.g;
+        bucket.h = this.probe.h;
+        bucket.cost = this.probe.cost;
+        bucket.estimator = this.probe.estimator;
+        return bucket;
+    }
+
+    /**
+     * Compares buckets like the order of FOCAL (smaller is first), where the potentials of the
+     * buckets are given
+     */
+    private int _compare(double aPotential, Bucket a, double bPotential, Bucket b) {
+        // First compare by potential (bigger is preferred), then by cost (smaller is preferred), then by the
+        // estimator (smaller is preferred)
+        if (aPotential > bPotential) return -1;
+        if (aPotential < bPotential) return 1;
+
+        if (a.cost < b.cost) return -1;
+        if (a.cost > b.cost) return 1;
+
+        if (a.estimator < b.estimator) return -1;
+        if (a.estimator > b.estimator) return 1;
+
+        if (a.f < b.f) return -1;
+        if (a.f > b.f) return 1;
+
+        if (a.h < b.h) return -1;
+        if (a.h > b.h) return 1;
+
+        if (a.g < b.g) return -1;
+        if (a.g > b.g) return 1;
+
+        return 0;
+    }
+
+    /**
+     * Compares the given bucket (by its current potential) to the first bucket
+     */
+    private int _compareToBest(Bucket bucket) {
+        double bestPotential = this.bestIsCurrent ? this._potential(this.best) : this.bestPotential;
+        return this._compare(this._potential(bucket), bucket, bestPotential, this.best);
+    }
+
+    /**
+     * @return The bucket which is first in FOCAL (null if FOCAL is empty)
+     */
+    private Bucket _firstInFocal() {
+        if (!this.focal.ordered) {
+            for (Bucket bucket : this.focal.heap) {
+                bucket.potential = this._potential(bucket);
+            }
+            this.focal.heapify();
+        }
+        return this.focal.peek();
+    }
 
+    /**
+     * Called when fmin or dmin changes: moves the buckets which entered FOCAL, and marks FOCAL for
+     * re-ordering if the potentials have changed
+     *
+     * @param fminChanged Whether fmin has changed (otherwise dmin has changed)
+     */
+    private void _reorder(boolean fminChanged) {
+        if (!this.useWApriority && (this.useD != fminChanged)) {
+            this.focal.ordered = false;
+        }
+        if (this.isFocalized && fminChanged) {
+            while (!this.outOfFocal.isEmpty() && this._isInFocal(this.outOfFocal.peek().f)) {
+                Bucket bucket = this.outOfFocal.peek();
+                this.outOfFocal.remove(bucket);
+                bucket.inFocal = true;
+                bucket.potential = this._potential(bucket);
+                this.focal.add(bucket);
+            }
+        }
+    }
+
+    public void add(E e) {
         count_add(e);
-        gh_node node = new gh_node(e);
-        TreeMap<gh_node,ArrayList<E>> treeOfNode = (node.inTree ? tree : outOfFocalTree);
-/*        if(!node.inTree){
-            System.out.println("[INFO] add LazyAstarNode not in Focal!");
-        }*/
-
-        ArrayList<E> list;
-
-        if(treeOfNode.containsKey(node)){
-            list = treeOfNode.get(node);
-        }
-        else{
-            list = new ArrayList<>();
-        }
-        e.setIndex(this.key,list.size());
-        list.add(e);
-        treeOfNode.put(node,list);
-
-        if(useFR) {
-            ArrayList<E> listF;
-            if (treeF.containsKey(node)) {
-                listF = treeF.get(node);
-            } else {
-                listF = new ArrayList<>();
+
+        this._setKey(this.probe, e);
+        Bucket bucket = this.buckets.get(this.probe);
+        boolean isNew = (bucket == null);
+        if (isNew) {
+            bucket = this._newBucket();
+            bucket.inFocal = this._isInFocal(bucket.f);
+            bucket.potential = this._potential(bucket);
+            this.buckets.put(bucket, bucket);
+            (bucket.inFocal ? this.focal : this.outOfFocal).add(bucket);
+        }
+        e.setIndex(this.key, bucket.elements.size());
+        bucket.elements.add(e);
+
+        if (useFR) {
+            this._setKeyF(this.probe, e);
+            Bucket bucketF = this.bucketsF.get(this.probe);
+            if (bucketF == null) {
+                bucketF = this._newBucket();
+                this.bucketsF.put(bucketF, bucketF);
+                this.queueF.add(bucketF);
             }
-            listF.add(e);
-            treeF.put(node, listF);
+            bucketF.elements.add(e);
         }
 
-        if(node.inTree) {
-            if (this.bestNode != null) {
-                if (this.comparator.compare(bestNode, node) > 0) {
-                    if(debug) debugNode(e,"add2");
-                    bestNode = node;
-                    bestList = list;
-                }
-            } else {
-                if(debug) debugNode(e,"add3");
-                bestNode = node;
-                bestList = list;
+        if (bucket.inFocal) {
+            if (this.best == null || this._compareToBest(bucket) < 0) {
+                this.best = bucket;
+                this.bestIsCurrent = isNew;
+                this.bestPotential = this._potential(bucket);
             }
         }
-//    testHat();
     }
 
     private void count_add(E e) {
-        double f = e.getF();
         GH_heapSize++;
-        if(countF.containsKey(f))
-            countF.put(f,countF.get(f)+1);
-        else {
-            countF.put(f, 1.0);
-/*            if(!isOptimal) {//fmin might change/decrease
-//                if(fmin == 0.0) fmin = f;
-*//*                if (tree.size()+outOfFocalTree.size() == 0) {//tree is empty
-                    fmin = f;
-                }
-                if (fmin > f+ IsFocalizedPrecision) {//might occur due to rounding of f;
-                    throw new IllegalArgumentException("[ERROR] fmin:"+fmin+" > f:"+f+", IsFocalizedPrecision:"+ IsFocalizedPrecision +" heuristic might be inconsistent OR adding doubles round error");
-                }*//*
-            }*/
-        }
-        if(useD) {
-            double fd = e.getD() + e.getDepth();
-            if (countD.containsKey(fd))
-                countD.put(fd, countD.get(fd) + 1);
-            else {
-                countD.put(fd, 1.0);
-//                if(dmin == 0.0) dmin = fd;
-/*                if (!isOptimal) {//fmin might change/decrease
-                    if (tree.size() + outOfFocalTree.size() == 0) {//tree is empty
-                        dmin = fd;
-                    }
-                    if (dmin - fd > 0) {//might occur due to rounding of d??? - this should never happen;
-                        throw new IllegalArgumentException("[ERROR] dmin>d");
-                    }
-                }*/
-            }
+        countF.add(e.getF());
+        if (useD) {
+            countD.add(e.getD() + e.getDepth());
         }
     }
 
     @Override
     public E poll() {
-        E e = bestList.get(0);
-        return remove(e);
+        E e = this.peek();
+        return (e == null) ? null : remove(e);
     }
 
     @Override
     public E peek() {
-        if(bestList == null){
-            System.out.println("GH_heap peek error");
-            System.out.println(fmin);
-            System.out.println(countF);
-            System.out.println(countD);
+        if (this.best == null) {
+            return null;
         }
-        if(bestList.get(0) == null){
-            System.out.println("GH_heap peek error");
-        }
-        E e = bestList.get(0);
-        if(debug) debugNode(e,"peek");
-        if(e.getF() > w*fmin){
-/*            System.out.println(e);
-            System.out.println("\u001B[32m"+"[INFO] This LazyAstarNode is out of focal"+ "\u001B[0m");*/
-        }
-        return e;
+        return this.best.elements.peekFirst();
     }
 
     public E peekF() {
         if(!useFR) throw new IllegalArgumentException("[ERROR] peekF can only be used when useFR = true");
-        gh_node bestF = treeF.firstKey();
-        ArrayList<E> listF = treeF.get(bestF);
-        E e = listF.get(0);
-        return e;
+        return this.queueF.peek().elements.peekFirst();
     }
 
     @Override
@@ -195,70 +299,7 @@ public class GH_heap<E extends SearchQueueElement> implements SearchQueue<E> {
 
     @Override
     public boolean isEmpty() {
-        if(isFocalized) return tree.isEmpty() && outOfFocalTree.isEmpty();
-        else return tree.isEmpty();
-    }
-
-    public void updateF(E oldNode, E newNode) {
-//        test();
-/*        gh_node oldPos = new gh_node(oldG,oldH);
-        ArrayList<E> oldList = tree.get(oldPos);
-        E toRemove = null;
-        for (E e:oldList) {
-            if(NodePackedComparator.compare(updatedNode,e)==0){
-                toRemove = e;
-            }
-        }
-        if(toRemove != null){
-            remove(toRemove);
-        }
-        else{
-            System.out.println("can not remove");
-        }
-        add(updatedNode);*/
-//        test();
-
-    }
-
-
-
-    private void reorder(){
-//        int buckets = tree.size();//for paper debug
-//        int nodes = 0;//for paper debug
-        TreeMap<gh_node, ArrayList<E>> tempTree = new TreeMap<>(comparator);
-
-        for (Iterator<Map.Entry<gh_node, ArrayList<E>>> it = tree.entrySet().iterator(); it.hasNext(); ) {
-            Map.Entry<gh_node, ArrayList<E>> entry = it.next();
-            gh_node node = entry.getKey();
-            ArrayList<E> list = entry.getValue();
-//            nodes +=list.size();
-            it.remove();
-            node.calcPotential();
-            tempTree.put(node, list);
-        }
-
-        if (isFocalized) {
-            TreeMap<gh_node, ArrayList<E>> tempOutOfFocalTreeTree = new TreeMap<>(comparator);
-            for (Iterator<Map.Entry<gh_node, ArrayList<E>>> it = outOfFocalTree.entrySet().iterator(); it.hasNext(); ) {
-                Map.Entry<gh_node, ArrayList<E>> entry = it.next();
-                gh_node node = entry.getKey();
-                ArrayList<E> list = entry.getValue();
-                it.remove();
-                if (debug) debugNode(node, "reorder");
-                node.calcPotential();
-                if (debug) debugNode(node, "reorder1");
-                if (node.inTree)
-                    tempTree.put(node, list);
-                else
-                    tempOutOfFocalTreeTree.put(node, list);
-            }
-            outOfFocalTree = tempOutOfFocalTreeTree;
-        }
-        tree = tempTree;
-        if (bestNode == null) {
-            bestNode = tree.firstKey();
-            bestList = tree.get(bestNode);
-        }
+        return GH_heapSize == 0;
     }
 
     @Override
@@ -270,77 +311,61 @@ public class GH_heap<E extends SearchQueueElement> implements SearchQueue<E> {
     public void clear() {
         countF.clear();
         countD.clear();
-        tree.clear();
-        outOfFocalTree.clear();
-        bestNode = null;
-        bestList.clear();
+        buckets.clear();
+        focal.clear();
+        if (isFocalized) outOfFocal.clear();
+        if (useFR) {
+            bucketsF.clear();
+            queueF.clear();
+        }
+        emptyBuckets.clear();
+        best = null;
+        GH_heapSize = 0;
+    }
+
+    /**
+     * Removes the given (non-empty) bucket from the given map and queue, and keeps it for reuse
+     */
+    private void _removeBucket(HashMap<Bucket, Bucket> map, BucketQueue queue, Bucket bucket) {
+        map.remove(bucket);
+        queue.remove(bucket);
+        this.emptyBuckets.add(bucket);
     }
 
     @Override
     public E remove(E e) {
-//        testHat();
-        if(debug) debugNode(e,"remove");
-        gh_node node = new gh_node(e);
-        TreeMap<gh_node,ArrayList<E>> treeOfNode = (node.inTree ? tree : outOfFocalTree);
-        ArrayList<E> list = treeOfNode.get(node);
-
-/*        if(!node.inTree){
-            System.out.println("[INFO] remove LazyAstarNode not in Focal!");
-        }*/
-
-        if(list == null) {
-            TreeMap<gh_node,ArrayList<E>> treeOfNode2 = (!node.inTree ? tree : outOfFocalTree);
-            ArrayList<E> list2 = treeOfNode2.get(node);
-            if(list2 == null){
-                System.out.println("\u001B[31m"+"[WARNING] This LazyAstarNode is in NO list"+ "\u001B[0m");
-            }
-            else{
-                System.out.println("\u001B[31m"+"[WARNING] This LazyAstarNode is in the WRONG list"+ "\u001B[0m");
-            }
-            System.out.println("\ne:"+e);
-            System.out.println("tree size:"+treeOfNode.size());
-        }
-        if(list.isEmpty())
-            System.out.println("\u001B[31m"+"[WARNING] list is empty, can not remove"+ "\u001B[0m");
-        list.remove(e);
-        e.setIndex(this.key,-1);
-
-        if(list.isEmpty()){
-            treeOfNode.remove(node);
-            if(this.comparator.compare(node,bestNode) <= 0 && node.inTree){
-                if(tree.isEmpty()){
-                    if(debug) debugNode(e,"remove2");
-                    bestNode = null;
-                    bestList = null;
-//                    System.out.println("[WARNING] Tree is empty");
-                }
-                else {
-                    if(debug) debugNode(e,"remove3");
-                    bestNode = tree.firstKey();
-                    bestList = tree.get(bestNode);
-                    if(debug) debugNode(e,"remove4");
-                }
+        this._setKey(this.probe, e);
+        Bucket bucket = this.buckets.get(this.probe);
+        if (bucket == null || !bucket.elements.remove(e)) {
+            throw new IllegalArgumentException("The element isn't in the heap: " + e);
+        }
+        e.setIndex(this.key, -1);
+
+        if (bucket.elements.isEmpty()) {
+            boolean replaceBest = bucket == this.best ||
+                    (bucket.inFocal && this.best != null && this._compareToBest(bucket) <= 0);
+            this._removeBucket(this.buckets, (bucket.inFocal ? this.focal : this.outOfFocal), bucket);
+            if (replaceBest) {
+                this.best = this._firstInFocal();
+                this.bestIsCurrent = true;
             }
         }
-        else{
-            treeOfNode.put(node,list);
-        }
 
-        if(useFR) {
-            ArrayList<E> listF = treeF.get(node);
-            if (listF.isEmpty())
-                System.out.println("\u001B[31m" + "[WARNING] listF is empty, can not remove" + "\u001B[0m");
-            listF.remove(e);
-            if (listF.isEmpty())
-                treeF.remove(node);
+        if (useFR) {
+            this._setKeyF(this.probe, e);
+            Bucket bucketF = this.bucketsF.get(this.probe);
+            bucketF.elements.remove(e);
+            if (bucketF.elements.isEmpty()) {
+                this._removeBucket(this.bucketsF, this.queueF, bucketF);
+            }
         }
 
         count_remove(e);
-        if(bestNode == null) {
+        if (this.best == null && GH_heapSize > 0) {
             System.out.println("[WARNING] bestNode == null");
-            reorder();
+            this.best = this._firstInFocal();
+            this.bestIsCurrent = true;
         }
-//        testHat();
         return e;
     }
 
@@ -348,69 +373,26 @@ public class GH_heap<E extends SearchQueueElement> implements SearchQueue<E> {
         double f = e.getF();
         double fd = e.getD()+e.getDepth();
         GH_heapSize--;
-        if(!countF.containsKey(f)){
-            countF.put(f,0.0);
-        }
-        countF.put(f,countF.get(f)-1);
-        if(countF.get(f)==0){
-            countF.remove(f);
-            if(!isOptimal) {
-                //fmin might increase, if the heuristic is consistent fmin should not decrease
-                if (f <= fmin && (tree.size()> 0 || outOfFocalTree.size() > 0)) {//find next lowest
-                    double prevFmin = fmin;
-                    fmin = Integer.MAX_VALUE;
-                    Iterator it = countF.entrySet().iterator();
-                    while (it.hasNext()) {
-                        Map.Entry pair = (Map.Entry) it.next();
-                        double key = (double) pair.getKey();
-                        if (fmin >= key) {
-                            fmin = key;
-                        }
-                    }
-                    // for cases where the heuristic is admissible but not consistent
-                    if(prevFmin > fmin){
-//                        System.out.print("\r[INFO GH_heap] heuristic is not consistent: prevFmin = "+prevFmin+" > fmin = "+fmin+" , inconsistency:"+(prevFmin-fmin));
-                        fmin = prevFmin;
-                    }
-                    else {
-                        reorder();
-//                        System.out.print("\r[INFO GH_heap] new fmin = "+fmin);
-                    }
-                }
-                else{
-                    if(debug) debugNode(e,"count_remove");
+        if (countF.remove(f) == 0 && !isOptimal) {
+            //fmin might increase, if the heuristic is consistent fmin should not decrease
+            if (f <= fmin && GH_heapSize > 0) {//find next lowest
+                double prevFmin = fmin;
+                // for cases where the heuristic is admissible but not consistent
+                if (prevFmin <= countF.min()) {
+                    fmin = countF.min();
+                    this._reorder(true);
                 }
             }
         }
-        if(useD) {
-            if (!countD.containsKey(fd)) {
-                countD.put(fd, 0.0);
-            }
-            countD.put(fd, countD.get(fd) - 1);
-            if (countD.get(fd) == 0) {
-                countD.remove(fd);
-                if (!isOptimal) {
-                    //dmin might increase, if the heuristic is consistent dmin should not decrease
-                    if (fd <= dmin && (tree.size()> 0 || outOfFocalTree.size() > 0)) {//find next lowest
-                        double prevDmin = dmin;
-                        dmin = Integer.MAX_VALUE;
-                        Iterator it = countD.entrySet().iterator();
-                        while (it.hasNext()) {
-                            Map.Entry pair = (Map.Entry) it.next();
-                            double key = (double) pair.getKey();
-                            if (dmin >= key) {
-                                dmin = key;
-                            }
-                        }
-                        // for cases where the heuristic is admissible but not consistent
-                        if(prevDmin > dmin){
-//                            System.out.print("\r[INFO GH_heap] heuristic is not consistent: prevDmin = "+prevDmin+" > dmin = "+dmin+" , inconsistency:"+(prevDmin-dmin));
-                            dmin = prevDmin;
-                        }
-                        else {
-                            reorder();
-//                            System.out.print("\r[INFO GH_heap] new dmin = "+dmin);
-                        }
+        if (useD) {
+            if (countD.remove(fd) == 0 && !isOptimal) {
+                //dmin might increase, if the heuristic is consistent dmin should not decrease
+                if (fd <= dmin && GH_heapSize > 0) {//find next lowest
+                    double prevDmin = dmin;
+                    // for cases where the heuristic is admissible but not consistent
+                    if (prevDmin <= countD.min()) {
+                        dmin = countD.min();
+                        this._reorder(false);
                     }
                 }
             }
@@ -422,254 +404,177 @@ public class GH_heap<E extends SearchQueueElement> implements SearchQueue<E> {
         return this.key;
     }
 
-    public void testHat(){
-/*        for(Iterator<Map.Entry<gh_node,ArrayList<E>>> it = tree.entrySet().iterator(); it.hasNext();){
-            Map.Entry<gh_node,ArrayList<E>> entry = it.next();
-            ArrayList<E> list = entry.getValue();
-            for(int i=list.size()-1 ; i>=0 ; i--){
-                double Val = list.get(i).getF();
-                if(Val < fmin){
-                    System.out.println("test Failed! Val < fmin");
-                }
-                countF.put(Val,countF.get(Val)-1);
-                if(countF.get(Val)<0){
-                    System.out.println("test failed! countF.get("+Val+")<0");
-                }
-            }
-        }
-
-        for(Iterator<Map.Entry<gh_node,ArrayList<E>>> it = tree.entrySet().iterator(); it.hasNext();){
-            Map.Entry<gh_node,ArrayList<E>> entry = it.next();
-            ArrayList<E> list = entry.getValue();
-            for(int i=list.size()-1 ; i>=0 ; i--){
-                double Val = list.get(i).getF();
-                if(Val < fmin){
-                    System.out.println("test Failed! Val < fmin");
-                }
-                countF.put(Val,countF.get(Val)+list.size());
-            }
-        }*/
-    }
-
-    private void debugNode(E e, String from){
-        gh_node node = new gh_node(e);
-        debugNode(node,from);
-    }
-    private void debugNode(gh_node node, String from){
-        if(from == "count_remove"){
-            if(fmin == 455.27838751346) {
-                //check that fmin is still OK
-                double found_fmin = Integer.MAX_VALUE;
-                Iterator it = countF.entrySet().iterator();
-                while (it.hasNext()) {
-                    Map.Entry pair = (Map.Entry) it.next();
-                    double key = (double) pair.getKey();
-                    if (found_fmin >= key) {
-                        found_fmin = key;
-                    }
-                }
-                // there is a problem with fmin
-                if (found_fmin > fmin) {
-                    System.out.print("\r[ERROR GH_heap] check the fmin counter. fmin="+fmin+", found_fmin="+found_fmin);
-                }
-            }
-        }
-
-/*        if(node.f + IsFocalizedPrecision < fmin){
-            System.out.println("++++++++++++++++++++++");
-            System.out.println("[INFO] fmin decreased:"+from);
-            System.out.println(fmin);
-            System.out.println(node.f);
-            System.out.println(result.generated);
-            System.out.println("++++++++++++++++++++++");
-        }*/
-/*        if((node.d == 8.0 && node.g == 6.0)
-                || (node.d == 8.0 && node.h == 6.0))
-        {
-            System.out.println("++++++++++++++++++++++");
-            System.out.println("[INFO] "+from+":");
-            System.out.println(node);
-            System.out.println(fmin);
-            System.out.println(result.generated);
-            System.out.println("++++++++++++++++++++++");
-        }*/
-
-/*        if(bestNode != null && bestNode.inTree == false && bestList != null){
-            System.out.println("++++++++++++++++++++++");
-            System.out.println("[INFO] Best node not in Tree, from:"+from);
-            System.out.println(bestNode);
-            System.out.println(fmin);
-            System.out.println(bestNode.f-w*fmin);
-            System.out.println(result.generated);
-            System.out.println("++++++++++++++++++++++");
-        }*/
-
-        String whatWentWrong = "";
-//        if(bestList == null) whatWentWrong+="bestList == null,";
-//        if(bestNode == null) whatWentWrong+="bestNode == null,";
-//        if(tree.isEmpty()) whatWentWrong+="tree.isEmpty(),";
-//        if(outOfFocalTree.isEmpty()) whatWentWrong+="outOfFocalTree.isEmpty(),";
-        if(whatWentWrong != ""){
-            System.out.println("++++++++++++++++++++++");
-            System.out.println("SOMETHING WENT WRONG WITH THIS NODE");
-            System.out.println("What went wrong?:"+whatWentWrong);
-            System.out.println("[INFO] "+from+":");
-            System.out.println(node);
-            System.out.println(result.generated);
-            System.out.println("++++++++++++++++++++++");
-        }
-    }
+    /**
+     * A bucket of elements with equal keys
+     *
+     * The potential of a bucket depends only on its cost and estimator, but f, h and g are part of
+     * the key as well: whether the bucket is in FOCAL depends on f (when useD is true the cost and
+     * the estimator are the depth and d), the buckets whose h or d is 0 all have cost and estimator
+     * 0, the FR buckets are keyed by f and h only, and FOCAL breaks ties by f, h and g (see
+     * _compare)
+     */
+    private final class Bucket {
+        // The key
+        double cost;
+        double estimator;
+        double f;
+        double h;
+        double g;
 
-    private void test(){
-        for(Iterator<Map.Entry<gh_node,ArrayList<E>>> it = tree.entrySet().iterator(); it.hasNext();){
-            Map.Entry<gh_node,ArrayList<E>> entry = it.next();
-            ArrayList<E> list = entry.getValue();
-            double Val = list.get(0).getF();
-            if(Val < fmin){
-                System.out.println("test Failed! Val < fmin:tree");
-            }
-            countF.put(Val,countF.get(Val)-list.size());
-            if(countF.get(Val)<0){
-                System.out.println("test failed! countF.get("+Val+")<0");
-            }
-        }
+        // The potential at the last time FOCAL was ordered
+        double potential;
+        boolean inFocal;
+        ArrayDeque<E> elements = new ArrayDeque<>(4);
+        int heapIndex = -1;
 
-        if(isFocalized) {
-            for (Iterator<Map.Entry<gh_node, ArrayList<E>>> it = outOfFocalTree.entrySet().iterator(); it.hasNext(); ) {
-                Map.Entry<gh_node, ArrayList<E>> entry = it.next();
-                ArrayList<E> list = entry.getValue();
-                double Val = list.get(0).getF();
-                if (Val < fmin) {
-                    System.out.println("test Failed! Val < fmin:outOfFocalTree");
-                }
-                countF.put(Val, countF.get(Val) - list.size());
-                if (countF.get(Val) < 0) {
-                    System.out.println("test failed! countF.get(" + Val + ")<0 : outOfFocalTree");
-                }
-            }
+        @Override
+        public int hashCode() {
+            // (+ 0.0 makes -0.0 equal to 0.0)
+            long bits = Double.doubleToLongBits(this.cost + 0.0);
+            bits = 31 * bits + Double.doubleToLongBits(this.estimator + 0.0);
+            bits = 31 * bits + Double.doubleToLongBits(this.f + 0.0);
+            bits = 31 * bits + Double.doubleToLongBits(this.h + 0.0);
+            bits = 31 * bits + Double.doubleToLongBits(this.g + 0.0);
+            return (int) (bits ^ (bits >>> 32));
         }
 
-        for(Iterator<Map.Entry<gh_node,ArrayList<E>>> it = tree.entrySet().iterator(); it.hasNext();){
-            Map.Entry<gh_node,ArrayList<E>> entry = it.next();
-            ArrayList<E> list = entry.getValue();
-            double Val = list.get(0).getF();
-            if(Val < fmin){
-                System.out.println("test Failed! Val < fmin");
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GH_heap.Bucket)) {
+                return false;
             }
-            countF.put(Val,countF.get(Val)+list.size());
+            GH_heap<?>.Bucket other = (GH_heap<?>.Bucket) o;
+            return this.cost == other.cost && this.estimator == other.estimator &&
+                    this.f == other.f && this.h == other.h && this.g == other.g;
         }
-    }
-
-
-    private final class gh_node{
-        double g;
-        double h;
-        double potential;
-
-        double depth;
-        double hHat;
-        double d;
-        double dHat;
-
-        double f;
-
-        boolean inTree = true;
-        double cost;
-        double estimator;
 
         @Override
         public String toString() {
-            return "gh_node{" +
+            return "Bucket{" +
                     "g=" + g +
                     ", h=" + h +
-                    ", depth=" + depth +
-                    ", d=" + d +
                     ", f=" + f +
-                    ", inTree=" + inTree +
+                    ", cost=" + cost +
+                    ", estimator=" + estimator +
+                    ", inFocal=" + inFocal +
                     ", potential=" + potential +
-                    ", hHat=" + hHat +
-                    ", dHat=" + dHat +
+                    ", size=" + elements.size() +
                     '}';
         }
+    }
 
-        public gh_node(E e) {
-            this.f = e.getF();
+    /**
+     * A binary heap of buckets, which can be left unordered (until heapify is called)
+     */
+    private final class BucketQueue {
+        private final Comparator<Bucket> cmp;
+        private final ArrayList<Bucket> heap = new ArrayList<>();
+        private boolean ordered = true;
 
-            this.g = e.getG();
-            this.h = e.getH();
-            this.depth = e.getDepth();
-            this.hHat = e.getHhat();
-            this.d = e.getD();
-            this.dHat = e.getDhat();
+        private BucketQueue(Comparator<Bucket> cmp) {
+            this.cmp = cmp;
+        }
 
-            calcPotential();
+        private boolean isEmpty() {
+            return this.heap.isEmpty();
         }
 
-        public void calcPotential(){
+        private Bucket peek() {
+            return this.heap.isEmpty() ? null : this.heap.get(0);
+        }
 
-            if(isFocalized) inTree = (this.f+ IsFocalizedPrecision <= w*fmin ? true : false);
+        private void _set(int index, Bucket bucket) {
+            this.heap.set(index, bucket);
+            bucket.heapIndex = index;
+        }
 
-            if(this.h == 0 || this.d == 0){
-                this.potential = Double.MAX_VALUE;
+        private void _siftUp(int index) {
+            Bucket bucket = this.heap.get(index);
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                Bucket parentBucket = this.heap.get(parent);
+                if (this.cmp.compare(bucket, parentBucket) >= 0) {
+                    break;
+                }
+                this._set(index, parentBucket);
+                index = parent;
             }
-            else{
-                if(useD){
-                    if(useWApriority)   this.potential = this.depth + this.d * w;
-                    else                this.potential = (w*dmin-this.depth)/this.d;
-                    this.cost = this.depth;
-                    this.estimator = this.d;
+            this._set(index, bucket);
+        }
+
+        private void _siftDown(int index) {
+            Bucket bucket = this.heap.get(index);
+            int size = this.heap.size();
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && this.cmp.compare(this.heap.get(child + 1), this.heap.get(child)) < 0) {
+                    ++child;
                 }
-                else{
-                    if(useWApriority)   this.potential = this.g + this.h * w;
-                    else                this.potential = (w*fmin-this.g)/this.h;
-                    this.cost = this.g;
-                    this.estimator = this.h;
+                Bucket childBucket = this.heap.get(child);
+                if (this.cmp.compare(childBucket, bucket) >= 0) {
+                    break;
                 }
+                this._set(index, childBucket);
+                index = child;
+            }
+            this._set(index, bucket);
+        }
+
+        private void add(Bucket bucket) {
+            bucket.heapIndex = this.heap.size();
+            this.heap.add(bucket);
+            if (this.ordered) {
+                this._siftUp(bucket.heapIndex);
             }
         }
 
+        private void remove(Bucket bucket) {
+            int index = bucket.heapIndex;
+            Bucket last = this.heap.remove(this.heap.size() - 1);
+            if (last != bucket) {
+                this._set(index, last);
+                if (this.ordered) {
+                    this._siftUp(index);
+                    this._siftDown(last.heapIndex);
+                }
+            }
+            bucket.heapIndex = -1;
+        }
+
+        private void heapify() {
+            for (int i = this.heap.size() / 2 - 1; i >= 0; --i) {
+                this._siftDown(i);
+            }
+            this.ordered = true;
+        }
+
+        private void clear() {
+            this.heap.clear();
+            this.ordered = true;
+        }
     }
 
     /**
-     * The nodes comparator class
+     * Orders the buckets of FOCAL by their potentials
      */
-    protected final class ghNodeComparator implements Comparator<gh_node> {
+    private final class PotentialComparator implements Comparator<Bucket> {
 
         @Override
-        public int compare(final gh_node a, final gh_node b) {
-            // First compare by potential (bigger is preferred), then by f (smaller is preferred), then by g (smaller is preferred)
-            if (a.potential > b.potential) return -1;
-            if (a.potential < b.potential) return 1;
-
-            if (a.cost < b.cost) return -1;
-            if (a.cost > b.cost) return 1;
-
-            if (a.estimator < b.estimator) return -1;
-            if (a.estimator > b.estimator) return 1;
-
-            // From here on it is a tiebreak for cases where we have focal and non-focal nodes
-            if (a.f < b.f) return -1;
-            if (a.f > b.f) return 1;
-
-            if (a.h < b.h) return -1;
-            if (a.h > b.h) return 1;
-
-            if (a.g < b.g) return -1;
-            if (a.g > b.g) return 1;
-
-            if (a.inTree != b.inTree) return 1;
-
-            return 0;
+        public int compare(final Bucket a, final Bucket b) {
+            return GH_heap.this._compare(a.potential, a, b.potential, b);
         }
     }
 
     /**
-     * The nodes comparator class based of F value
+     * Orders the buckets by their f values (and then by their h values)
      */
-    protected final class Fcomparator implements Comparator<gh_node> {
+    private final class FComparator implements Comparator<Bucket> {
 
         @Override
-        public int compare(final gh_node a, final gh_node b) {
+        public int compare(final Bucket a, final Bucket b) {
             if (a.f < b.f) return -1;
             if (a.f > b.f) return 1;
 
@@ -679,5 +584,4 @@ public class GH_heap<E extends SearchQueueElement> implements SearchQueue<E> {
             return 0;
         }
     }
-
 }
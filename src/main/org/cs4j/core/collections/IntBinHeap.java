@@ -0,0 +1,193 @@
+package org.cs4j.core.collections;
+
+import java.util.Arrays;
+
+/**
+ * A binary heap of int handles (e.g. handles of nodes that are stored in parallel primitive
+ * arrays), where the elements are aware of their location (index) in the heap
+ *
+ * The order of the elements and their indexes are maintained by the given {@link Elements}, such
+ * that no object is allocated per element. The operations are performed exactly as in
+ * {@link BinHeap} (the same comparisons and swaps), hence both heaps break ties in the same way.
+ */
+public class IntBinHeap {
+
+    /**
+     * Gives access to the data of the handles that are stored in the heap
+     */
+    public interface Elements {
+
+        /**
+         * @return Negative number if element a is smaller than element b, positive number if it
+         *         is bigger and 0 if they are equal
+         */
+        int compare(int a, int b);
+
+        /**
+         * @return The index of the element in the heap (-1 if the element isn't in the heap)
+         */
+        int getIndex(int element);
+
+        void setIndex(int element, int index);
+    }
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final Elements elements;
+    private int[] heap;
+    private int size;
+
+    /**
+     * Constructor of the heap
+     *
+     * @param elements Allows comparison of the heap elements and access to their indexes
+     */
+    public IntBinHeap(Elements elements) {
+        this.elements = elements;
+        this.heap = new int[IntBinHeap.DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The element at root (or -1 if the heap is empty)
+     */
+    public int peek() {
+        if (this.size == 0) {
+            return -1;
+        }
+        return this.heap[0];
+    }
+
+    /**
+     * Removes the element at root
+     *
+     * @return The removed element (or -1 if the heap is empty)
+     */
+    public int poll() {
+        if (this.size == 0) {
+            return -1;
+        }
+        return this.removeElementAt(0);
+    }
+
+    /**
+     * The function inserts the given element to the heap and assures the heap property is still
+     * true after the insertion
+     *
+     * @param e The element to insert
+     */
+    public void add(int e) {
+        if (this.size == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.heap.length << 1);
+        }
+        this.heap[this.size] = e;
+        this.elements.setIndex(e, this.size);
+        ++this.size;
+        this.pullUp(this.size - 1);
+    }
+
+    /**
+     * The function updates the location of the given element (after its key was changed)
+     *
+     * @param e The element to update
+     */
+    public void update(int e) {
+        int i = this.elements.getIndex(e);
+        if (i < 0 || i > this.size - 1) {
+            throw new IllegalArgumentException();
+        }
+        i = this.pullUp(i);
+        this.pushDown(i);
+    }
+
+    /**
+     * The function removes the given element from the heap
+     *
+     * @param e The element to remove
+     */
+    public void remove(int e) {
+        this.removeElementAt(this.elements.getIndex(e));
+    }
+
+    public void clear() {
+        for (int i = 0; i < this.size; ++i) {
+            this.elements.setIndex(this.heap[i], -1);
+        }
+        this.size = 0;
+    }
+
+    private int removeElementAt(int i) {
+        int toReturn = this.heap[i];
+        this.elements.setIndex(toReturn, -1);
+        // Move the last element to i
+        if (this.size - 1 != i) {
+            this.heap[i] = this.heap[this.size - 1];
+            this.elements.setIndex(this.heap[i], i);
+        }
+        --this.size;
+        // Ensure that the heap property wasn't broken
+        if (i < this.size) {
+            this.pullUp(i);
+            this.pushDown(i);
+        }
+        return toReturn;
+    }
+
+    /**
+     * Moves the element located at index i up of the heap, until the heap property stops to be
+     * broken
+     *
+     * @return The final index of the element
+     */
+    private int pullUp(int i) {
+        while (i != 0) {
+            int p = (i - 1) / 2;
+            if (this.elements.compare(this.heap[i], this.heap[p]) >= 0) {
+                break;
+            }
+            this.swap(i, p);
+            i = p;
+        }
+        return i;
+    }
+
+    /**
+     * Moves the element located at index i down of the heap, until the heap property stops to be
+     * broken
+     */
+    private void pushDown(int i) {
+        while (true) {
+            int l = 2 * i + 1;
+            int r = 2 * i + 2;
+            int sml = i;
+            if (l < this.size && this.elements.compare(this.heap[l], this.heap[i]) < 0) {
+                sml = l;
+            }
+            if (r < this.size && this.elements.compare(this.heap[r], this.heap[sml]) < 0) {
+                sml = r;
+            }
+            if (sml == i) {
+                return;
+            }
+            this.swap(i, sml);
+            i = sml;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int iE = this.heap[i];
+        int jE = this.heap[j];
+        this.heap[i] = jE;
+        this.elements.setIndex(jE, i);
+        this.heap[j] = iE;
+        this.elements.setIndex(iE, j);
+    }
+}
@@ -0,0 +1,317 @@
+package org.cs4j.core.collections;
+
+import java.util.Arrays;
+
+/**
+ * An implementation of a d-ary heap where elements are aware of their location (index) in the
+ * heap (like BinHeap), and which is ordered by keys that are stored inline rather than by a
+ * comparator.
+ *
+ * Each element has three keys, which are stored in arrays that are parallel to the array of the
+ * elements: a primary key and a secondary key (computed once by the given Keys, when the element
+ * is added or updated), and a tertiary key which is the insertion order - ties of the first two
+ * keys are broken in favor of the element which was added (or updated) last. Hence, the sift
+ * operations perform only primitive comparisons and never access the elements themselves.
+ *
+ * Since the keys are computed only on add and update, the heap isn't affected if the values the
+ * keys depend on (e.g. the incumbent solution of an anytime search) change. In this case,
+ * reorder() should be called in order to recompute the keys.
+ *
+ * @param <E> The type of the elements
+ */
+public final class KeyedHeap<E extends SearchQueueElement> implements SearchQueue<E> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int arity;
+    private final Keys<E> keys;
+    private final int key;
+
+    private Object[] elements;
+    private double[] primary;
+    private double[] secondary;
+    private long[] order;
+    private int size;
+    // The insertion order of the next added (or updated) element
+    private long nextOrder;
+
+    /**
+     * Constructor of the heap
+     *
+     * @param keys Computes the primary and secondary keys of an element
+     * @param key The index at the single heap element, that allows accessing a single element
+     * @param arity The number of children of each node of the heap (at least 2)
+     */
+    public KeyedHeap(Keys<E> keys, int key, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("The arity of the heap must be at least 2");
+        }
+        this.arity = arity;
+        this.keys = keys;
+        this.key = key;
+        this.elements = new Object[KeyedHeap.INITIAL_CAPACITY];
+        this.primary = new double[KeyedHeap.INITIAL_CAPACITY];
+        this.secondary = new double[KeyedHeap.INITIAL_CAPACITY];
+        this.order = new long[KeyedHeap.INITIAL_CAPACITY];
+    }
+
+    @Override
+    public int getKey() {
+        return this.key;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E _elementAt(int i) {
+        return (E) this.elements[i];
+    }
+
+    /**
+     * @return Whether an element with the given keys should be polled before the element at i
+     */
+    private boolean _isBefore(double ePrimary, double eSecondary, long eOrder, int i) {
+        double iPrimary = this.primary[i];
+        if (ePrimary != iPrimary) {
+            return ePrimary < iPrimary;
+        }
+        double iSecondary = this.secondary[i];
+        if (eSecondary != iSecondary) {
+            return eSecondary < iSecondary;
+        }
+        return eOrder > this.order[i];
+    }
+
+    /**
+     * @return Whether the element at i should be polled before an element with the given keys
+     */
+    private boolean _isBefore(int i, double ePrimary, double eSecondary, long eOrder) {
+        double iPrimary = this.primary[i];
+        if (iPrimary != ePrimary) {
+            return iPrimary < ePrimary;
+        }
+        double iSecondary = this.secondary[i];
+        if (iSecondary != eSecondary) {
+            return iSecondary < eSecondary;
+        }
+        return this.order[i] > eOrder;
+    }
+
+    /**
+     * Places the given element (with the given keys) at i
+     */
+    private void _set(int i, Object e, double ePrimary, double eSecondary, long eOrder) {
+        this.elements[i] = e;
+        this.primary[i] = ePrimary;
+        this.secondary[i] = eSecondary;
+        this.order[i] = eOrder;
+        ((SearchQueueElement) e).setIndex(this.key, i);
+    }
+
+    /**
+     * Moves the element at j to i
+     */
+    private void _move(int j, int i) {
+        this._set(i, this.elements[j], this.primary[j], this.secondary[j], this.order[j]);
+    }
+
+    /**
+     * Computes the keys of the element at i
+     */
+    private void _computeKeys(int i) {
+        E e = this._elementAt(i);
+        this.primary[i] = KeyedHeap._checkKey(this.keys.getPrimary(e));
+        this.secondary[i] = KeyedHeap._checkKey(this.keys.getSecondary(e));
+    }
+
+    /**
+     * NaN isn't ordered, hence it would break the heap property silently
+     */
+    private static double _checkKey(double key) {
+        if (Double.isNaN(key)) {
+            throw new IllegalArgumentException("The key of an element can't be NaN");
+        }
+        return key;
+    }
+
+    /**
+     * Moves the element at i up, until the heap property stops to be broken
+     *
+     * @return The new index of the element
+     */
+    private int _siftUp(int i) {
+        Object e = this.elements[i];
+        double ePrimary = this.primary[i];
+        double eSecondary = this.secondary[i];
+        long eOrder = this.order[i];
+        while (i > 0) {
+            int parent = (i - 1) / this.arity;
+            if (!this._isBefore(ePrimary, eSecondary, eOrder, parent)) {
+                break;
+            }
+            this._move(parent, i);
+            i = parent;
+        }
+        this._set(i, e, ePrimary, eSecondary, eOrder);
+        return i;
+    }
+
+    /**
+     * Moves the element at i down, until the heap property stops to be broken
+     */
+    private void _siftDown(int i) {
+        Object e = this.elements[i];
+        double ePrimary = this.primary[i];
+        double eSecondary = this.secondary[i];
+        long eOrder = this.order[i];
+        while (true) {
+            int first = i * this.arity + 1;
+            if (first >= this.size) {
+                break;
+            }
+            int last = Math.min(first + this.arity, this.size);
+            // Find the child which should be polled first (the keys of the children are adjacent)
+            int best = first;
+            for (int child = first + 1; child < last; ++child) {
+                if (this._isBefore(this.primary[child], this.secondary[child], this.order[child], best)) {
+                    best = child;
+                }
+            }
+            if (!this._isBefore(best, ePrimary, eSecondary, eOrder)) {
+                break;
+            }
+            this._move(best, i);
+            i = best;
+        }
+        this._set(i, e, ePrimary, eSecondary, eOrder);
+    }
+
+    @Override
+    public void add(E e) {
+        if (this.size == this.elements.length) {
+            int capacity = this.size * 2;
+            this.elements = Arrays.copyOf(this.elements, capacity);
+            this.primary = Arrays.copyOf(this.primary, capacity);
+            this.secondary = Arrays.copyOf(this.secondary, capacity);
+            this.order = Arrays.copyOf(this.order, capacity);
+        }
+        int i = this.size++;
+        this.elements[i] = e;
+        this._computeKeys(i);
+        this.order[i] = this.nextOrder++;
+        this._siftUp(i);
+    }
+
+    @Override
+    public E poll() {
+        if (this.size == 0) {
+            return null;
+        }
+        E toReturn = this._elementAt(0);
+        this._removeAt(0);
+        return toReturn;
+    }
+
+    @Override
+    public E peek() {
+        if (this.size == 0) {
+            return null;
+        }
+        return this._elementAt(0);
+    }
+
+    /**
+     * The function recomputes the keys of the given element and updates its location
+     *
+     * @param e The element to update
+     */
+    @Override
+    public void update(E e) {
+        int i = this._indexOf(e);
+        this._computeKeys(i);
+        this.order[i] = this.nextOrder++;
+        this._siftDown(this._siftUp(i));
+    }
+
+    @Override
+    public E remove(E e) {
+        this._removeAt(this._indexOf(e));
+        return e;
+    }
+
+    /**
+     * @return The index of the given element in the heap
+     */
+    private int _indexOf(E e) {
+        int i = e.getIndex(this.key);
+        if (i < 0 || i >= this.size || this.elements[i] != e) {
+            throw new IllegalArgumentException();
+        }
+        return i;
+    }
+
+    /**
+     * Removes the element at i (the last element of the heap fills its place)
+     */
+    private void _removeAt(int i) {
+        this._elementAt(i).setIndex(this.key, -1);
+        int last = --this.size;
+        if (i != last) {
+            this._move(last, i);
+            this.elements[last] = null;
+            this._siftDown(this._siftUp(i));
+        } else {
+            this.elements[last] = null;
+        }
+    }
+
+    /**
+     * The function recomputes the keys of all the elements, and rebuilds the heap bottom-up - O(n)
+     * (the insertion order of the elements is kept)
+     */
+    public void reorder() {
+        for (int i = 0; i < this.size; ++i) {
+            this._computeKeys(i);
+        }
+        // The leaves are heaps, hence push down all the other elements, from the last one to the root
+        for (int i = (this.size - 2) / this.arity; i >= 0; --i) {
+            this._siftDown(i);
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.elements, 0, this.size, null);
+        this.size = 0;
+    }
+
+    /**
+     * Computes the keys of an element of the heap (smaller keys are polled first)
+     *
+     * @param <E> The type of the elements
+     */
+    public interface Keys<E> {
+
+        /**
+         * @param e The element
+         *
+         * @return The primary key of the element
+         */
+        double getPrimary(E e);
+
+        /**
+         * @param e The element
+         *
+         * @return The secondary key of the element (breaks ties of the primary key)
+         */
+        double getSecondary(E e);
+    }
+}
@@ -0,0 +1,217 @@
+package org.cs4j.core.collections;
+
+import java.util.Arrays;
+
+/**
+ * A closed list for domains whose states are packed into a single long
+ *
+ * The keys are stored inline in a primitive long array and collisions are resolved by linear
+ * probing, so a lookup requires no allocations and no calls to PackedElement.compareTo (in
+ * contrast to TreeMap) or to PackedElement.equals (in contrast to HashMap)
+ *
+ * NOTE: Removal uses backward-shift deletion, hence no tombstones are required
+ *
+ * @param <E> The type of the nodes stored in the list
+ */
+public class LongOpenAddressingClosedList<E> implements ClosedList<E> {
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double LOAD_FACTOR = 0.75d;
+
+    // The packed states
+    private long[] keys;
+    // The nodes (null marks an empty slot)
+    private Object[] values;
+    // Number of the stored states
+    private int size;
+    // capacity - 1 (the capacity is always a power of 2)
+    private int mask;
+    // The table is doubled when the size exceeds this value
+    private int resizeThreshold;
+
+    /**
+     * A default constructor of the class
+     */
+    public LongOpenAddressingClosedList() {
+        this(LongOpenAddressingClosedList.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * The constructor of the class
+     *
+     * @param expectedSize The expected number of states (the table is grown if required)
+     */
+    public LongOpenAddressingClosedList(int expectedSize) {
+        this._allocate(LongOpenAddressingClosedList.capacityFor(expectedSize));
+    }
+
+    /**
+     * Computes the smallest power of 2 which can hold the given number of elements, without
+     * exceeding the load factor
+     *
+     * @param expectedSize The number of elements to hold
+     *
+     * @return The calculated capacity
+     */
+    static int capacityFor(int expectedSize) {
+        long required = (long) Math.ceil(Math.max(expectedSize, 2) / LongOpenAddressingClosedList.LOAD_FACTOR);
+        if (required > LongOpenAddressingClosedList.MAX_CAPACITY) {
+            return LongOpenAddressingClosedList.MAX_CAPACITY;
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private void _allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * LongOpenAddressingClosedList.LOAD_FACTOR);
+    }
+
+    /**
+     * @param key The key to look for
+     * @param hash The hash of the key (see PackedElement.hash)
+     *
+     * @return The slot which contains the key or the empty slot in which the key should be placed
+     */
+    private int _findSlot(long key, int hash) {
+        int slot = hash & this.mask;
+        while (this.values[slot] != null && this.keys[slot] != key) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the capacity of the table and re-inserts all the stored states
+     */
+    private void _grow() {
+        if (this.keys.length == LongOpenAddressingClosedList.MAX_CAPACITY) {
+            throw new OutOfMemoryError("Closed list reached its maximum capacity");
+        }
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this._allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldValues[i] != null) {
+                int slot = this._findSlot(oldKeys[i], PackedElement.hash(oldKeys[i]));
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static long _keyOf(PackedElement packed) {
+        if (packed.getLongsCount() != 1) {
+            throw new IllegalArgumentException("Only states packed into a single long are supported " +
+                    "(got " + packed.getLongsCount() + " longs)");
+        }
+        return packed.getFirst();
+    }
+
+    @SuppressWarnings("unchecked")
+    private E _get(long key, int hash) {
+        return (E) this.values[this._findSlot(key, hash)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private E _put(long key, int hash, E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Null nodes can't be stored in the closed list");
+        }
+        int slot = this._findSlot(key, hash);
+        E previous = (E) this.values[slot];
+        this.keys[slot] = key;
+        this.values[slot] = element;
+        if (previous == null && ++this.size > this.resizeThreshold) {
+            this._grow();
+        }
+        return previous;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E _remove(long key, int hash) {
+        int hole = this._findSlot(key, hash);
+        E toReturn = (E) this.values[hole];
+        if (toReturn == null) {
+            return null;
+        }
+        // Move back any following element whose probe sequence passes through the hole
+        for (int next = (hole + 1) & this.mask; this.values[next] != null; next = (next + 1) & this.mask) {
+            int ideal = PackedElement.hash(this.keys[next]) & this.mask;
+            if (((next - ideal) & this.mask) >= ((next - hole) & this.mask)) {
+                this.keys[hole] = this.keys[next];
+                this.values[hole] = this.values[next];
+                hole = next;
+            }
+        }
+        this.values[hole] = null;
+        --this.size;
+        return toReturn;
+    }
+
+    /**
+     * @see ClosedList#get(PackedElement)
+     */
+    public E get(long key) {
+        return this._get(key, PackedElement.hash(key));
+    }
+
+    /**
+     * @see ClosedList#put(PackedElement, Object)
+     */
+    public E put(long key, E element) {
+        return this._put(key, PackedElement.hash(key), element);
+    }
+
+    /**
+     * @see ClosedList#remove(PackedElement)
+     */
+    public E remove(long key) {
+        return this._remove(key, PackedElement.hash(key));
+    }
+
+    // The hash code of the packed element is cached, so there is no need to re-calculate it
+
+    @Override
+    public E get(PackedElement packed) {
+        return this._get(LongOpenAddressingClosedList._keyOf(packed), packed.hashCode());
+    }
+
+    @Override
+    public E put(PackedElement packed, E element) {
+        return this._put(LongOpenAddressingClosedList._keyOf(packed), packed.hashCode(), element);
+    }
+
+    @Override
+    public E remove(PackedElement packed) {
+        return this._remove(LongOpenAddressingClosedList._keyOf(packed), packed.hashCode());
+    }
+
+    @Override
+    public boolean containsKey(PackedElement packed) {
+        return this.get(packed) != null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    @Override
+    public Iterable<E> values() {
+        return new OpenAddressingValues<>(this.values);
+    }
+}
@@ -0,0 +1,62 @@
+package org.cs4j.core.collections;
+
+import java.util.Map;
+
+/**
+ * A closed list which is backed by a general java.util.Map (e.g. TreeMap or HashMap)
+ *
+ * @param <E> The type of the nodes stored in the list
+ */
+public class MapClosedList<E> implements ClosedList<E> {
+
+    private final Map<PackedElement, E> map;
+
+    /**
+     * The constructor of the class
+     *
+     * @param map The (empty) map to store the states in
+     */
+    public MapClosedList(Map<PackedElement, E> map) {
+        this.map = map;
+    }
+
+    @Override
+    public E get(PackedElement packed) {
+        return this.map.get(packed);
+    }
+
+    @Override
+    public E put(PackedElement packed, E element) {
+        return this.map.put(packed, element);
+    }
+
+    @Override
+    public E remove(PackedElement packed) {
+        return this.map.remove(packed);
+    }
+
+    @Override
+    public boolean containsKey(PackedElement packed) {
+        return this.map.containsKey(packed);
+    }
+
+    @Override
+    public int size() {
+        return this.map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.map.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        this.map.clear();
+    }
+
+    @Override
+    public Iterable<E> values() {
+        return this.map.values();
+    }
+}
@@ -0,0 +1,564 @@
+package org.cs4j.core.collections;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A closed list which is stored outside of the Java heap, such that the number of the stored
+ * states isn't bounded by the heap size (and the stored states aren't scanned by the GC)
+ *
+ * Each state is stored as a fixed-width record: the packed longs, the g value, the id of the
+ * record of the parent and the index of the operator which generated the state from its parent.
+ * The records are appended to a sequence of buffers and are never moved, hence the id of a record
+ * can be used as a reference to it (in particular, the search tree can be reconstructed from the
+ * records only). The records are found by an open-addressing hash table (which is also stored
+ * off-heap) that maps the packed states to the ids of their records.
+ *
+ * The buffers are either direct buffers or regions of a memory-mapped temporary file (file-backed
+ * mode) - in the latter case the operating system pages the records out to the disk when the RAM
+ * is exhausted, so a search which is larger than the RAM becomes slower instead of crashing.
+ *
+ * Since the nodes themselves are not stored, the operations of the ClosedList interface convert
+ * the nodes to records and back by the given {@link Codec} (get() returns a new node which is
+ * created from the record and not the instance that was put). Algorithms which are aware of the
+ * records should use the primitive operations (find/insert/update and the getters of the record
+ * fields) instead.
+ *
+ * NOTE: remove() only unlinks the record from the hash table (the space of the record isn't
+ *       reused until clear() is called)
+ *
+ * @param <E> The type of the nodes stored in the list
+ */
+public class OffHeapClosedList<E> implements ClosedList<E>, Closeable {
+
+    /**
+     * Converts the nodes to the fields of the records and back
+     *
+     * @param <E> The type of the nodes
+     */
+    public interface Codec<E> {
+
+        double getG(E element);
+
+        /**
+         * @return The packed state of the parent of the node (or null if there is no parent)
+         */
+        PackedElement getParentPacked(E element);
+
+        /**
+         * @return The index of the operator that generated the node from its parent (or
+         *         {@link OffHeapClosedList#NO_OPERATOR})
+         */
+        int getOperatorIndex(E element);
+
+        /**
+         * Creates a node from the fields of its record
+         *
+         * @param packed The packed state
+         * @param g The stored g value
+         * @param parentPacked The packed state of the parent (or null if there is no parent)
+         * @param operatorIndex The index of the operator that generated the state from its parent
+         *
+         * @return The created node
+         */
+        E decode(PackedElement packed, double g, PackedElement parentPacked, int operatorIndex);
+    }
+
+    public static final int NO_PARENT = -1;
+    public static final int NO_OPERATOR = -1;
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double LOAD_FACTOR = 0.75d;
+
+    // Each buffer of the records contains 2^16 records
+    private static final int RECORDS_SEGMENT_SHIFT = 16;
+    private static final int RECORDS_SEGMENT_MASK = (1 << OffHeapClosedList.RECORDS_SEGMENT_SHIFT) - 1;
+    // Each buffer of the hash table contains (at most) 2^20 slots (4MB)
+    private static final int INDEX_SEGMENT_SHIFT = 20;
+    private static final int INDEX_SEGMENT_MASK = (1 << OffHeapClosedList.INDEX_SEGMENT_SHIFT) - 1;
+
+    private static final int FLAG_EXPANDED = 1;
+    private static final int FLAG_REMOVED = 2;
+
+    private final int longsCount;
+    private final Codec<E> codec;
+    private final OffHeapMemory memory;
+
+    // The layout of a record: [packed longs][g (double)][parent id (int)][operator (int)][flags (int)]
+    private final int gOffset;
+    private final int parentOffset;
+    private final int operatorOffset;
+    private final int flagsOffset;
+    private final int recordSize;
+
+    // The records (allocated on demand)
+    private ByteBuffer[] records;
+    private int recordsCount;
+
+    // The hash table: each slot contains the id of a record + 1 (0 marks an empty slot)
+    private ByteBuffer[] index;
+    // Number of the stored states
+    private int size;
+    // capacity - 1 (the capacity is always a power of 2)
+    private int mask;
+    // The table is doubled when the size exceeds this value
+    private int resizeThreshold;
+
+    // Used for reading the packed states of the records (avoids allocations while re-hashing)
+    private final long[] keyBuffer;
+
+    /**
+     * Creates a closed list which is stored in direct buffers
+     *
+     * @param longsCount The number of longs that each packed state contains
+     * @param codec Converts the nodes to records and back
+     */
+    public OffHeapClosedList(int longsCount, Codec<E> codec) {
+        this(longsCount, codec, new OffHeapMemory());
+    }
+
+    /**
+     * Creates a closed list which is stored in a memory-mapped temporary file
+     *
+     * @param longsCount The number of longs that each packed state contains
+     * @param codec Converts the nodes to records and back
+     * @param directory The directory in which the file is created (null for the default
+     *                  temporary-file directory)
+     */
+    public OffHeapClosedList(int longsCount, Codec<E> codec, File directory) {
+        this(longsCount, codec, new OffHeapMemory(directory));
+    }
+
+    private OffHeapClosedList(int longsCount, Codec<E> codec, OffHeapMemory memory) {
+        if (longsCount <= 0) {
+            throw new IllegalArgumentException("The number of longs must be positive");
+        }
+        this.longsCount = longsCount;
+        this.codec = codec;
+        this.memory = memory;
+        this.gOffset = longsCount * 8;
+        this.parentOffset = this.gOffset + 8;
+        this.operatorOffset = this.parentOffset + 4;
+        this.flagsOffset = this.operatorOffset + 4;
+        this.recordSize = this.flagsOffset + 4;
+        this.keyBuffer = new long[longsCount];
+        this.records = new ByteBuffer[1];
+        this._allocateIndex(LongOpenAddressingClosedList.capacityFor(OffHeapClosedList.DEFAULT_CAPACITY));
+    }
+
+    /*******************************************************************************************************************
+     * Private methods
+     ******************************************************************************************************************/
+
+    private void _allocateIndex(int capacity) {
+        int slotsPerSegment = Math.min(capacity, 1 << OffHeapClosedList.INDEX_SEGMENT_SHIFT);
+        this.index = new ByteBuffer[capacity / slotsPerSegment];
+        for (int i = 0; i < this.index.length; ++i) {
+            this.index[i] = this.memory.allocate(slotsPerSegment << 2);
+        }
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * OffHeapClosedList.LOAD_FACTOR);
+    }
+
+    /**
+     * @return The content of the given slot of the hash table (id of a record + 1 or 0)
+     */
+    private int _getSlot(int slot) {
+        return this.index[slot >>> OffHeapClosedList.INDEX_SEGMENT_SHIFT].getInt(
+                (slot & OffHeapClosedList.INDEX_SEGMENT_MASK) << 2);
+    }
+
+    private void _setSlot(int slot, int value) {
+        this.index[slot >>> OffHeapClosedList.INDEX_SEGMENT_SHIFT].putInt(
+                (slot & OffHeapClosedList.INDEX_SEGMENT_MASK) << 2, value);
+    }
+
+    private ByteBuffer _segmentOf(int id) {
+        return this.records[id >>> OffHeapClosedList.RECORDS_SEGMENT_SHIFT];
+    }
+
+    private int _offsetOf(int id) {
+        return (id & OffHeapClosedList.RECORDS_SEGMENT_MASK) * this.recordSize;
+    }
+
+    /**
+     * Reads the packed state of the given record into the key buffer
+     */
+    private long[] _readKey(int id) {
+        ByteBuffer segment = this._segmentOf(id);
+        int offset = this._offsetOf(id);
+        for (int i = 0; i < this.longsCount; ++i) {
+            this.keyBuffer[i] = segment.getLong(offset + (i << 3));
+        }
+        return this.keyBuffer;
+    }
+
+    private boolean _keyEquals(int id, long[] key) {
+        ByteBuffer segment = this._segmentOf(id);
+        int offset = this._offsetOf(id);
+        for (int i = 0; i < this.longsCount; ++i) {
+            if (segment.getLong(offset + (i << 3)) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The slot which contains the id of the record of the given state or the empty slot
+     *         in which the id should be placed
+     */
+    private int _findSlot(long[] key, int hash) {
+        int slot = hash & this.mask;
+        int value;
+        while ((value = this._getSlot(slot)) != 0 && !this._keyEquals(value - 1, key)) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @see #_findSlot(long[], int)
+     */
+    private int _findSlot(long key, int hash) {
+        int slot = hash & this.mask;
+        int value;
+        while ((value = this._getSlot(slot)) != 0 &&
+                this._segmentOf(value - 1).getLong(this._offsetOf(value - 1)) != key) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the capacity of the hash table and re-inserts the ids of all the stored records
+     */
+    private void _grow() {
+        if (this.mask + 1 == OffHeapClosedList.MAX_CAPACITY) {
+            throw new OutOfMemoryError("Closed list reached its maximum capacity");
+        }
+        ByteBuffer[] oldIndex = this.index;
+        int oldCapacity = this.mask + 1;
+        int oldSlotsPerSegment = Math.min(oldCapacity, 1 << OffHeapClosedList.INDEX_SEGMENT_SHIFT);
+        this._allocateIndex(oldCapacity << 1);
+        for (ByteBuffer segment : oldIndex) {
+            for (int i = 0; i < oldSlotsPerSegment; ++i) {
+                int value = segment.getInt(i << 2);
+                if (value != 0) {
+                    int slot = PackedElement.hash(this._readKey(value - 1)) & this.mask;
+                    while (this._getSlot(slot) != 0) {
+                        slot = (slot + 1) & this.mask;
+                    }
+                    this._setSlot(slot, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Allocates a new record (the content of the record must be written by the caller)
+     *
+     * @return The id of the allocated record
+     */
+    private int _newRecord() {
+        if (this.recordsCount == Integer.MAX_VALUE) {
+            throw new OutOfMemoryError("Closed list reached its maximum number of records");
+        }
+        int id = this.recordsCount++;
+        int segment = id >>> OffHeapClosedList.RECORDS_SEGMENT_SHIFT;
+        if (segment == this.records.length) {
+            this.records = Arrays.copyOf(this.records, this.records.length << 1);
+        }
+        if (this.records[segment] == null) {
+            this.records[segment] = this.memory.allocate(this.recordSize << OffHeapClosedList.RECORDS_SEGMENT_SHIFT);
+        }
+        return id;
+    }
+
+    /**
+     * Writes a new record and places its id in the given (empty) slot
+     */
+    private int _insertAt(int slot, long[] key, long singleKey, double g, int parentId, int operatorIndex) {
+        int id = this._newRecord();
+        ByteBuffer segment = this._segmentOf(id);
+        int offset = this._offsetOf(id);
+        if (key == null) {
+            segment.putLong(offset, singleKey);
+        } else {
+            for (int i = 0; i < this.longsCount; ++i) {
+                segment.putLong(offset + (i << 3), key[i]);
+            }
+        }
+        segment.putInt(offset + this.flagsOffset, 0);
+        this.update(id, g, parentId, operatorIndex);
+        this._setSlot(slot, id + 1);
+        if (++this.size > this.resizeThreshold) {
+            this._grow();
+        }
+        return id;
+    }
+
+    private long[] _keyOf(PackedElement packed) {
+        if (packed.getLongsCount() != this.longsCount) {
+            throw new IllegalArgumentException("Expected states packed into " + this.longsCount +
+                    " longs (got " + packed.getLongsCount() + ")");
+        }
+        return packed.getInternal();
+    }
+
+    private void _assertSingleLong() {
+        if (this.longsCount != 1) {
+            throw new IllegalArgumentException("The states are packed into " + this.longsCount + " longs");
+        }
+    }
+
+    private int _getFlags(int id) {
+        return this._segmentOf(id).getInt(this._offsetOf(id) + this.flagsOffset);
+    }
+
+    private void _setFlags(int id, int flags) {
+        this._segmentOf(id).putInt(this._offsetOf(id) + this.flagsOffset, flags);
+    }
+
+    private E _decode(int id) {
+        int parentId = this.getParentId(id);
+        return this.codec.decode(this.getPacked(id), this.getG(id),
+                (parentId == OffHeapClosedList.NO_PARENT) ? null : this.getPacked(parentId),
+                this.getOperatorIndex(id));
+    }
+
+    /*******************************************************************************************************************
+     * Operations on records
+     ******************************************************************************************************************/
+
+    /**
+     * @param packed The packed state to look for
+     *
+     * @return The id of the record of the state or -1 if the state wasn't stored
+     */
+    public int find(PackedElement packed) {
+        return this._getSlot(this._findSlot(this._keyOf(packed), packed.hashCode())) - 1;
+    }
+
+    /**
+     * A version of {@link #find(PackedElement)} for states which are packed into a single long
+     */
+    public int find(long packed) {
+        this._assertSingleLong();
+        return this._getSlot(this._findSlot(packed, PackedElement.hash(packed))) - 1;
+    }
+
+    /**
+     * Stores a new state
+     *
+     * @param packed The packed state (mustn't be stored already)
+     * @param g The g value of the state
+     * @param parentId The id of the record of the parent (or {@link #NO_PARENT})
+     * @param operatorIndex The index of the operator that generated the state from its parent
+     *
+     * @return The id of the created record
+     */
+    public int insert(PackedElement packed, double g, int parentId, int operatorIndex) {
+        long[] key = this._keyOf(packed);
+        int slot = this._findSlot(key, packed.hashCode());
+        if (this._getSlot(slot) != 0) {
+            throw new IllegalArgumentException("The state is already stored");
+        }
+        return this._insertAt(slot, key, 0, g, parentId, operatorIndex);
+    }
+
+    /**
+     * A version of {@link #insert(PackedElement, double, int, int)} for states which are packed
+     * into a single long
+     */
+    public int insert(long packed, double g, int parentId, int operatorIndex) {
+        this._assertSingleLong();
+        int slot = this._findSlot(packed, PackedElement.hash(packed));
+        if (this._getSlot(slot) != 0) {
+            throw new IllegalArgumentException("The state is already stored");
+        }
+        return this._insertAt(slot, null, packed, g, parentId, operatorIndex);
+    }
+
+    /**
+     * Updates the fields of a stored state (e.g. when the state is reached via a shorter path)
+     */
+    public void update(int id, double g, int parentId, int operatorIndex) {
+        ByteBuffer segment = this._segmentOf(id);
+        int offset = this._offsetOf(id);
+        segment.putDouble(offset + this.gOffset, g);
+        segment.putInt(offset + this.parentOffset, parentId);
+        segment.putInt(offset + this.operatorOffset, operatorIndex);
+    }
+
+    public PackedElement getPacked(int id) {
+        return new PackedElement(Arrays.copyOf(this._readKey(id), this.longsCount));
+    }
+
+    public double getG(int id) {
+        return this._segmentOf(id).getDouble(this._offsetOf(id) + this.gOffset);
+    }
+
+    public int getParentId(int id) {
+        return this._segmentOf(id).getInt(this._offsetOf(id) + this.parentOffset);
+    }
+
+    public int getOperatorIndex(int id) {
+        return this._segmentOf(id).getInt(this._offsetOf(id) + this.operatorOffset);
+    }
+
+    /**
+     * @return Whether the state was marked as expanded (see {@link #setExpanded(int, boolean)})
+     */
+    public boolean isExpanded(int id) {
+        return (this._getFlags(id) & OffHeapClosedList.FLAG_EXPANDED) != 0;
+    }
+
+    /**
+     * Marks whether the state was expanded (allows to distinguish between the states that are
+     * still in the open list and the closed ones, without storing the nodes)
+     */
+    public void setExpanded(int id, boolean expanded) {
+        int flags = this._getFlags(id);
+        this._setFlags(id, expanded ?
+                flags | OffHeapClosedList.FLAG_EXPANDED :
+                flags & ~OffHeapClosedList.FLAG_EXPANDED);
+    }
+
+    /**
+     * @return Whether the records are stored in a memory-mapped file
+     */
+    public boolean isFileBacked() {
+        return this.memory.isFileBacked();
+    }
+
+    /*******************************************************************************************************************
+     * ClosedList interface
+     ******************************************************************************************************************/
+
+    @Override
+    public E get(PackedElement packed) {
+        int id = this.find(packed);
+        return (id == -1) ? null : this._decode(id);
+    }
+
+    @Override
+    public E put(PackedElement packed, E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Null nodes can't be stored in the closed list");
+        }
+        PackedElement parentPacked = this.codec.getParentPacked(element);
+        int parentId = (parentPacked == null) ? OffHeapClosedList.NO_PARENT : this.find(parentPacked);
+        int id = this.find(packed);
+        if (id == -1) {
+            this.insert(packed, this.codec.getG(element), parentId, this.codec.getOperatorIndex(element));
+            return null;
+        }
+        E previous = this._decode(id);
+        this.update(id, this.codec.getG(element), parentId, this.codec.getOperatorIndex(element));
+        return previous;
+    }
+
+    @Override
+    public E remove(PackedElement packed) {
+        int hole = this._findSlot(this._keyOf(packed), packed.hashCode());
+        int value = this._getSlot(hole);
+        if (value == 0) {
+            return null;
+        }
+        E toReturn = this._decode(value - 1);
+        this._setFlags(value - 1, this._getFlags(value - 1) | OffHeapClosedList.FLAG_REMOVED);
+        // Move back any following id whose probe sequence passes through the hole
+        for (int next = (hole + 1) & this.mask; (value = this._getSlot(next)) != 0; next = (next + 1) & this.mask) {
+            int ideal = PackedElement.hash(this._readKey(value - 1)) & this.mask;
+            if (((next - ideal) & this.mask) >= ((next - hole) & this.mask)) {
+                this._setSlot(hole, value);
+                hole = next;
+            }
+        }
+        this._setSlot(hole, 0);
+        --this.size;
+        return toReturn;
+    }
+
+    @Override
+    public boolean containsKey(PackedElement packed) {
+        return this.find(packed) != -1;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes all the states (the allocated buffers are reused)
+     */
+    @Override
+    public void clear() {
+        for (ByteBuffer segment : this.index) {
+            for (int i = 0; i < segment.capacity(); i += 8) {
+                segment.putLong(i, 0L);
+            }
+        }
+        this.recordsCount = 0;
+        this.size = 0;
+    }
+
+    /**
+     * NOTE: The nodes are created from the records (in the order of their insertion)
+     */
+    @Override
+    public Iterable<E> values() {
+        return new Iterable<E>() {
+            @Override
+            public Iterator<E> iterator() {
+                return new Iterator<E>() {
+                    // The id of the next record to return
+                    private int id = this.advance(0);
+
+                    private int advance(int from) {
+                        while (from < OffHeapClosedList.this.recordsCount &&
+                                (OffHeapClosedList.this._getFlags(from) & OffHeapClosedList.FLAG_REMOVED) != 0) {
+                            ++from;
+                        }
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.id < OffHeapClosedList.this.recordsCount;
+                    }
+
+                    @Override
+                    public E next() {
+                        if (!this.hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        E toReturn = OffHeapClosedList.this._decode(this.id);
+                        this.id = this.advance(this.id + 1);
+                        return toReturn;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Releases the backing file (if exists) - the list can't be used after it is closed
+     */
+    @Override
+    public void close() {
+        this.memory.close();
+    }
+}
@@ -0,0 +1,101 @@
+package org.cs4j.core.collections;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Allocates the buffers of the off-heap collections
+ *
+ * The buffers are either direct buffers (outside of the Java heap, but still in RAM) or regions of
+ * a memory-mapped temporary file (the operating system pages them out to the disk when the RAM is
+ * exhausted)
+ *
+ * NOTE: Regions of a mapped file can't be released before the file is closed, hence buffers that
+ *       were replaced (e.g. when a table grows) still occupy the file until close() is called
+ */
+final class OffHeapMemory implements Closeable {
+
+    // The backing file (null if direct buffers are used)
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    // The number of bytes of the file which were already mapped
+    private long mappedLength;
+
+    /**
+     * Creates an allocator of direct buffers
+     */
+    OffHeapMemory() {
+        this.file = null;
+        this.randomAccessFile = null;
+        this.channel = null;
+    }
+
+    /**
+     * Creates an allocator of buffers which are mapped to a temporary file
+     *
+     * @param directory The directory in which the file is created (null for the default
+     *                  temporary-file directory)
+     */
+    OffHeapMemory(File directory) {
+        try {
+            this.file = File.createTempFile("closed-list", ".bin", directory);
+            // In case the list isn't closed (close() deletes the file)
+            this.file.deleteOnExit();
+            this.randomAccessFile = new RandomAccessFile(this.file, "rw");
+            this.channel = this.randomAccessFile.getChannel();
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't create the backing file of the closed list", e);
+        }
+    }
+
+    /**
+     * @return Whether the buffers are mapped to a file
+     */
+    boolean isFileBacked() {
+        return this.channel != null;
+    }
+
+    /**
+     * Allocates a new buffer (initially filled with zeros)
+     *
+     * @param bytes The size of the buffer
+     *
+     * @return The allocated buffer
+     */
+    ByteBuffer allocate(int bytes) {
+        ByteBuffer toReturn;
+        if (this.channel == null) {
+            toReturn = ByteBuffer.allocateDirect(bytes);
+        } else {
+            try {
+                // Mapping beyond the end of the file extends it
+                toReturn = this.channel.map(FileChannel.MapMode.READ_WRITE, this.mappedLength, bytes);
+            } catch (IOException e) {
+                throw new IllegalStateException("Can't map " + bytes + " bytes of " + this.file, e);
+            }
+            this.mappedLength += bytes;
+        }
+        return toReturn.order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public void close() {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+                this.randomAccessFile.close();
+            } catch (IOException e) {
+                System.err.println("[ERROR] Closing " + this.file + " failed: " + e.getMessage());
+            }
+            if (!this.file.delete()) {
+                System.err.println("[WARNING] " + this.file + " wasn't deleted");
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.cs4j.core.collections;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the occupied slots of an open-addressing table (empty slots hold null)
+ *
+ * @param <E> The type of the stored values
+ */
+class OpenAddressingValues<E> implements Iterable<E> {
+
+    private final Object[] values;
+
+    /**
+     * @param values The values array of the table (null marks an empty slot)
+     */
+    OpenAddressingValues(Object[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            // The next slot to check
+            private int slot = this.advance(0);
+
+            private int advance(int from) {
+                while (from < OpenAddressingValues.this.values.length &&
+                        OpenAddressingValues.this.values[from] == null) {
+                    ++from;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.slot < OpenAddressingValues.this.values.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                E toReturn = (E) OpenAddressingValues.this.values[this.slot];
+                this.slot = this.advance(this.slot + 1);
+                return toReturn;
+            }
+        };
+    }
+}
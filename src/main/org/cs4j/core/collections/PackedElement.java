@@ -8,20 +8,82 @@ import java.util.Arrays;
  */
 public class PackedElement implements Comparable{
     
-    private long[] internal;
+    private final long[] internal;
+    // The packed longs never change, so the hash is calculated once, at construction
+    private final int hash;
 
     public PackedElement(long internal) {
         this.internal = new long[]{internal};
+        this.hash = PackedElement.hash(this.internal);
     }
 
     public PackedElement(long[] internal) {
         this.internal = new long[internal.length];
         System.arraycopy(internal, 0, this.internal, 0,
                 internal.length);
+        this.hash = PackedElement.hash(this.internal);
     }
 
     public PackedElement(PackedElement toCopy) {
         this.internal = Arrays.copyOf(toCopy.getInternal(), toCopy.getLongsCount());
+        this.hash = toCopy.hash;
+    }
+
+    /**
+     * Spreads the bits of the given long (the 64-bit finalizer of MurmurHash3)
+     *
+     * The packings of the domains (tiles, pancakes, grid locations) are dense in few bit ranges,
+     * so every bit of the input must affect every bit of the result
+     *
+     * @param value The value to mix
+     *
+     * @return The mixed value
+     */
+    public static long mix64(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Calculates the hash of a single packed long (the result is equal to the hash code of a
+     * PackedElement that holds only this long)
+     *
+     * @param value The packed long
+     *
+     * @return The calculated hash
+     */
+    public static int hash(long value) {
+        long result = PackedElement.mix64(value);
+        return (int) (result ^ (result >>> 32));
+    }
+
+    /**
+     * Calculates the hash of the given packed longs (the result is equal to the hash code of a
+     * PackedElement that holds these longs)
+     *
+     * @param longs The packed longs
+     *
+     * @return The calculated hash
+     */
+    public static int hash(long[] longs) {
+        return PackedElement.hash(longs, 0, longs.length);
+    }
+
+    /**
+     * Calculates the hash of packed longs which are stored in some range of the given array
+     *
+     * @see #hash(long[])
+     */
+    public static int hash(long[] longs, int offset, int length) {
+        long result = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            result = PackedElement.mix64(result ^ longs[i]);
+        }
+        return (int) (result ^ (result >>> 32));
     }
 
     public long[] getInternal() {
@@ -56,21 +118,15 @@ public class PackedElement implements Comparable{
 
     @Override
     public int hashCode() {
-        int result = 0;
-        // Allow overflow
-        for (long current : this.internal) {
-            result += current;
-        }
-        return result;
+        return this.hash;
     }
 
     @Override
     public boolean equals(Object object) {
-        // TODO: We can implement it efficiently in case the sum of the longs
-        // TODO: is stored at the creation of the element
         try {
             PackedElement other = (PackedElement)object;
-            if (other.internal.length != this.internal.length) {
+            // Different hashes imply different elements (no need to compare the longs)
+            if (other.hash != this.hash || other.internal.length != this.internal.length) {
                 return false;
             }
             for (int i = 0; i < this.internal.length; ++i) {
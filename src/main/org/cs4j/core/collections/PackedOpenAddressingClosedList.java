@@ -0,0 +1,205 @@
+package org.cs4j.core.collections;
+
+import java.util.Arrays;
+
+/**
+ * A closed list for domains whose states are packed into a fixed number of longs (more than one)
+ *
+ * This is the multi-long variant of {@link LongOpenAddressingClosedList}: the longs of each state
+ * are stored inline in a single primitive array (stride = number of longs per state) and
+ * collisions are resolved by linear probing
+ *
+ * @param <E> The type of the nodes stored in the list
+ */
+public class PackedOpenAddressingClosedList<E> implements ClosedList<E> {
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double LOAD_FACTOR = 0.75d;
+
+    // Number of longs required to pack a single state
+    private final int longsCount;
+    // The packed states (longsCount longs per slot)
+    private long[] keys;
+    // The nodes (null marks an empty slot)
+    private Object[] values;
+    // Number of the stored states
+    private int size;
+    // capacity - 1 (the capacity is always a power of 2)
+    private int mask;
+    // The table is doubled when the size exceeds this value
+    private int resizeThreshold;
+
+    /**
+     * The constructor of the class
+     *
+     * @param longsCount The number of longs that each packed state contains
+     */
+    public PackedOpenAddressingClosedList(int longsCount) {
+        this(longsCount, PackedOpenAddressingClosedList.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * The constructor of the class
+     *
+     * @param longsCount The number of longs that each packed state contains
+     * @param expectedSize The expected number of states (the table is grown if required)
+     */
+    public PackedOpenAddressingClosedList(int longsCount, int expectedSize) {
+        if (longsCount <= 0) {
+            throw new IllegalArgumentException("The number of longs must be positive");
+        }
+        this.longsCount = longsCount;
+        this._allocate(LongOpenAddressingClosedList.capacityFor(expectedSize));
+    }
+
+    private void _allocate(int capacity) {
+        this.keys = new long[capacity * this.longsCount];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * PackedOpenAddressingClosedList.LOAD_FACTOR);
+    }
+
+    /**
+     * Hashes the longs of a single state, stored in the given array from the given offset
+     */
+    private int _hash(long[] longs, int offset) {
+        return PackedElement.hash(longs, offset, this.longsCount);
+    }
+
+    /**
+     * @return Whether the state stored at the given slot equals to the given packed longs
+     */
+    private boolean _keyEquals(int slot, long[] packed) {
+        int offset = slot * this.longsCount;
+        for (int i = 0; i < this.longsCount; ++i) {
+            if (this.keys[offset + i] != packed[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param packed The packed state to look for
+     *
+     * @return The slot which contains the state or the empty slot in which the state should be
+     *         placed
+     */
+    private int _findSlot(PackedElement packed) {
+        long[] key = this._keyOf(packed);
+        // The hash code of the packed element is cached and equals to the hash of its longs
+        int slot = packed.hashCode() & this.mask;
+        while (this.values[slot] != null && !this._keyEquals(slot, key)) {
+            slot = (slot + 1) & this.mask;
+        }
+        return slot;
+    }
+
+    private void _moveSlot(int from, int to) {
+        System.arraycopy(this.keys, from * this.longsCount, this.keys, to * this.longsCount,
+                this.longsCount);
+        this.values[to] = this.values[from];
+    }
+
+    /**
+     * Doubles the capacity of the table and re-inserts all the stored states
+     */
+    private void _grow() {
+        if (this.values.length == PackedOpenAddressingClosedList.MAX_CAPACITY) {
+            throw new OutOfMemoryError("Closed list reached its maximum capacity");
+        }
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this._allocate(oldValues.length << 1);
+        for (int i = 0; i < oldValues.length; ++i) {
+            if (oldValues[i] != null) {
+                int slot = this._hash(oldKeys, i * this.longsCount) & this.mask;
+                while (this.values[slot] != null) {
+                    slot = (slot + 1) & this.mask;
+                }
+                System.arraycopy(oldKeys, i * this.longsCount, this.keys, slot * this.longsCount,
+                        this.longsCount);
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private long[] _keyOf(PackedElement packed) {
+        if (packed.getLongsCount() != this.longsCount) {
+            throw new IllegalArgumentException("Expected states packed into " + this.longsCount +
+                    " longs (got " + packed.getLongsCount() + ")");
+        }
+        return packed.getInternal();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(PackedElement packed) {
+        return (E) this.values[this._findSlot(packed)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E put(PackedElement packed, E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Null nodes can't be stored in the closed list");
+        }
+        int slot = this._findSlot(packed);
+        E previous = (E) this.values[slot];
+        System.arraycopy(packed.getInternal(), 0, this.keys, slot * this.longsCount, this.longsCount);
+        this.values[slot] = element;
+        if (previous == null && ++this.size > this.resizeThreshold) {
+            this._grow();
+        }
+        return previous;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(PackedElement packed) {
+        int hole = this._findSlot(packed);
+        E toReturn = (E) this.values[hole];
+        if (toReturn == null) {
+            return null;
+        }
+        // Move back any following element whose probe sequence passes through the hole
+        // (backward-shift deletion - no tombstones are required)
+        for (int next = (hole + 1) & this.mask; this.values[next] != null; next = (next + 1) & this.mask) {
+            int ideal = this._hash(this.keys, next * this.longsCount) & this.mask;
+            if (((next - ideal) & this.mask) >= ((next - hole) & this.mask)) {
+                this._moveSlot(next, hole);
+                hole = next;
+            }
+        }
+        this.values[hole] = null;
+        --this.size;
+        return toReturn;
+    }
+
+    @Override
+    public boolean containsKey(PackedElement packed) {
+        return this.get(packed) != null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    @Override
+    public Iterable<E> values() {
+        return new OpenAddressingValues<>(this.values);
+    }
+}
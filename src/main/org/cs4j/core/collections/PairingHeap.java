@@ -0,0 +1,297 @@
+package org.cs4j.core.collections;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * An implementation of a pairing heap where elements are aware of their location (index) in the
+ * heap (like BinHeap).
+ *
+ * The nodes of the heap are stored in parallel arrays (the element, its primary key, its first
+ * child, its next sibling and its previous sibling - or parent, for the first child), and the
+ * slots of the removed elements are recycled, hence no object is allocated per element.
+ *
+ * Adding an element and decreasing its key (an update of an element whose primary key decreased,
+ * e.g. when a shorter path to a node in OPEN is found) are O(1): the subtree of the element is
+ * cut and linked with the root. Polling and removing an element are O(log n) amortized. An update
+ * which doesn't decrease the primary key (e.g. BPMX increased h) removes the element and adds it
+ * back.
+ *
+ * NOTE: The comparator must order the elements by their primary keys first (smaller is first),
+ * and then break the ties
+ *
+ * @param <E> The type of the elements
+ */
+public final class PairingHeap<E extends SearchQueueElement> implements SearchQueue<E> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NIL = -1;
+
+    private final Comparator<E> cmp;
+    private final DaryHeap.PrimaryKey<E> primaryKey;
+    private final int key;
+
+    private Object[] elements;
+    private double[] keys;
+    private int[] child;
+    private int[] sibling;
+    // The previous sibling, or the parent of the first child
+    private int[] prev;
+
+    private int root;
+    // The free slots are chained through sibling
+    private int free;
+    private int used;
+    private int size;
+
+    /**
+     * Constructor of the heap
+     *
+     * @param cmp Comparator that allows comparison of the heap elements with equal primary keys
+     * @param key The index at the single heap element, that allows accessing a single element
+     * @param primaryKey Extracts the primary key of an element
+     */
+    public PairingHeap(Comparator<E> cmp, int key, DaryHeap.PrimaryKey<E> primaryKey) {
+        this.cmp = cmp;
+        this.primaryKey = primaryKey;
+        this.key = key;
+        this.elements = new Object[PairingHeap.INITIAL_CAPACITY];
+        this.keys = new double[PairingHeap.INITIAL_CAPACITY];
+        this.child = new int[PairingHeap.INITIAL_CAPACITY];
+        this.sibling = new int[PairingHeap.INITIAL_CAPACITY];
+        this.prev = new int[PairingHeap.INITIAL_CAPACITY];
+        this.root = PairingHeap.NIL;
+        this.free = PairingHeap.NIL;
+    }
+
+    @Override
+    public int getKey() {
+        return this.key;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E _elementAt(int i) {
+        return (E) this.elements[i];
+    }
+
+    /**
+     * @return Whether the element at i should be polled before the element at j
+     */
+    private boolean _isBefore(int i, int j) {
+        double iKey = this.keys[i];
+        double jKey = this.keys[j];
+        if (iKey != jKey) {
+            return iKey < jKey;
+        }
+        return this.cmp.compare(this._elementAt(i), this._elementAt(j)) < 0;
+    }
+
+    /**
+     * @return The slot of the given element in the heap
+     */
+    private int _slotOf(E e) {
+        int i = e.getIndex(this.key);
+        if (i < 0 || i >= this.used || this.elements[i] != e) {
+            throw new IllegalArgumentException();
+        }
+        return i;
+    }
+
+    /**
+     * Links two trees: the root which should be polled later becomes the first child of the other
+     * one
+     *
+     * @return The root of the linked tree (its siblings aren't set)
+     */
+    private int _link(int a, int b) {
+        if (this._isBefore(b, a)) {
+            int temp = a;
+            a = b;
+            b = temp;
+        }
+        int first = this.child[a];
+        this.sibling[b] = first;
+        if (first != PairingHeap.NIL) {
+            this.prev[first] = b;
+        }
+        this.prev[b] = a;
+        this.child[a] = b;
+        return a;
+    }
+
+    /**
+     * Makes the given tree to be the heap (or a part of it, if the heap isn't empty)
+     */
+    private void _meld(int t) {
+        if (t == PairingHeap.NIL) {
+            return;
+        }
+        this.root = (this.root == PairingHeap.NIL) ? t : this._link(this.root, t);
+        this.prev[this.root] = PairingHeap.NIL;
+        this.sibling[this.root] = PairingHeap.NIL;
+    }
+
+    /**
+     * Links the given list of siblings to a single tree (two passes: the pairs are linked from left
+     * to right, and then the results are linked from right to left)
+     *
+     * @return The root of the tree (its siblings aren't set)
+     */
+    private int _mergePairs(int first) {
+        // The linked pairs are chained in reverse order through sibling
+        int pairs = PairingHeap.NIL;
+        while (first != PairingHeap.NIL) {
+            int a = first;
+            int b = this.sibling[a];
+            if (b == PairingHeap.NIL) {
+                this.sibling[a] = pairs;
+                pairs = a;
+                break;
+            }
+            first = this.sibling[b];
+            int linked = this._link(a, b);
+            this.sibling[linked] = pairs;
+            pairs = linked;
+        }
+        int result = PairingHeap.NIL;
+        while (pairs != PairingHeap.NIL) {
+            int next = this.sibling[pairs];
+            result = (result == PairingHeap.NIL) ? pairs : this._link(pairs, result);
+            pairs = next;
+        }
+        return result;
+    }
+
+    /**
+     * Cuts the subtree of the element at i (which isn't the root) from its parent
+     */
+    private void _cut(int i) {
+        int p = this.prev[i];
+        int next = this.sibling[i];
+        if (this.child[p] == i) {
+            this.child[p] = next;
+        } else {
+            this.sibling[p] = next;
+        }
+        if (next != PairingHeap.NIL) {
+            this.prev[next] = p;
+        }
+        this.prev[i] = PairingHeap.NIL;
+        this.sibling[i] = PairingHeap.NIL;
+    }
+
+    /**
+     * Detaches the element at i from the heap (its children are merged back to the heap)
+     */
+    private void _detach(int i) {
+        int children = this._mergePairs(this.child[i]);
+        this.child[i] = PairingHeap.NIL;
+        if (i == this.root) {
+            this.root = PairingHeap.NIL;
+        } else {
+            this._cut(i);
+        }
+        this._meld(children);
+    }
+
+    @Override
+    public void add(E e) {
+        int i = this.free;
+        if (i != PairingHeap.NIL) {
+            this.free = this.sibling[i];
+        } else {
+            if (this.used == this.elements.length) {
+                int capacity = this.used * 2;
+                this.elements = Arrays.copyOf(this.elements, capacity);
+                this.keys = Arrays.copyOf(this.keys, capacity);
+                this.child = Arrays.copyOf(this.child, capacity);
+                this.sibling = Arrays.copyOf(this.sibling, capacity);
+                this.prev = Arrays.copyOf(this.prev, capacity);
+            }
+            i = this.used++;
+        }
+        this.elements[i] = e;
+        this.keys[i] = this.primaryKey.get(e);
+        this.child[i] = PairingHeap.NIL;
+        e.setIndex(this.key, i);
+        ++this.size;
+        this._meld(i);
+    }
+
+    @Override
+    public E poll() {
+        if (this.size == 0) {
+            return null;
+        }
+        E toReturn = this._elementAt(this.root);
+        this._removeAt(this.root);
+        return toReturn;
+    }
+
+    @Override
+    public E peek() {
+        if (this.size == 0) {
+            return null;
+        }
+        return this._elementAt(this.root);
+    }
+
+    /**
+     * The function updates the location of the given element, after its keys were changed
+     *
+     * @param e The element to update
+     */
+    @Override
+    public void update(E e) {
+        int i = this._slotOf(e);
+        double oldKey = this.keys[i];
+        this.keys[i] = this.primaryKey.get(e);
+        if (this.keys[i] < oldKey) {
+            // Decrease-key: the subtree of the element is still ordered, hence only its place changes
+            if (i != this.root) {
+                this._cut(i);
+                this._meld(i);
+            }
+        } else {
+            this._detach(i);
+            this._meld(i);
+        }
+    }
+
+    @Override
+    public E remove(E e) {
+        this._removeAt(this._slotOf(e));
+        return e;
+    }
+
+    /**
+     * Removes the element at i (and frees its slot)
+     */
+    private void _removeAt(int i) {
+        this._detach(i);
+        this._elementAt(i).setIndex(this.key, -1);
+        this.elements[i] = null;
+        this.sibling[i] = this.free;
+        this.free = i;
+        --this.size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.elements, 0, this.used, null);
+        this.root = PairingHeap.NIL;
+        this.free = PairingHeap.NIL;
+        this.used = 0;
+        this.size = 0;
+    }
+}
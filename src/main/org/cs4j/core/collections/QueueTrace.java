@@ -0,0 +1,536 @@
+package org.cs4j.core.collections;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A trace of the operations on the queues of a search, which was recorded by QueueTraceWriter
+ * (see there for the format), and can be replayed on any SearchQueue (or FocalQueue)
+ * implementation - without running the search.
+ *
+ * The trace may contain the operations of several queues (channels): a replay drives a single
+ * queue by the operations of a single channel, but the keys of the elements are changed by the
+ * records of all the channels (as in the recorded search).
+ *
+ * The replayed elements contain only their recorded keys, hence the replayed queue may poll the
+ * elements in a different order than the recorded search (if their ties aren't broken the same
+ * way) - in this case an element which is added again while it is still in the queue is updated
+ * instead (and an element that is updated after it was polled is added, an element which was
+ * already polled isn't removed)
+ */
+public final class QueueTrace {
+
+    static final int MAGIC = 0x43535154;
+    static final int VERSION = 1;
+    static final int CHANNELS_COUNT = 16;
+
+    // The indexes of the keys of an element
+    public static final int F = 0;
+    public static final int G = 1;
+    public static final int DEPTH = 2;
+    public static final int H = 3;
+    public static final int D = 4;
+    public static final int HHAT = 5;
+    public static final int DHAT = 6;
+    // The primary key of the element in the recorded queue (e.g. the rank of a WA* node)
+    public static final int PRIMARY = 7;
+    static final int KEYS_COUNT = 8;
+
+    // The indexes of the replayed elements (in the queues which are driven by the replay)
+    public static final int ELEMENT_INDEXES_COUNT = 2;
+
+    /**
+     * The recorded operations (the code of an operation in the trace is its ordinal)
+     */
+    public enum Operation {
+        // SearchQueue operations
+        ADD, POLL, UPDATE, REMOVE,
+        // FocalQueue operations
+        FOCAL_ADD, POLL_OPEN, POLL_FOCAL, FOCAL_REMOVE, UPDATE_FOCAL
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final int NO_ROW = -1;
+
+    private final Map<String, String> properties;
+
+    // Per operation: its code (channel and operation, like in the file), its element (-1 for
+    // null), the other element (the previous best element of FOCAL_ADD and UPDATE_FOCAL), and the
+    // row of the keys of the element after the operation (or the change of f^ in UPDATE_FOCAL)
+    private byte[] codes = new byte[1024];
+    private int[] ids = new int[1024];
+    private int[] others = new int[1024];
+    private int[] rows = new int[1024];
+    private int size;
+
+    private double[] keys = new double[1024 * QueueTrace.KEYS_COUNT];
+    private int rowsCount;
+
+    private int elementsCount;
+    private int[] counts = new int[QueueTrace.CHANNELS_COUNT * QueueTrace.OPERATIONS.length];
+
+    private QueueTrace(Map<String, String> properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * An element of a replayed queue (its rank at level 0 is its primary key, and its rank at level
+     * 1 is its g value - like the ranks of a WA* node)
+     */
+    public static final class Element implements BucketHeap.BucketHeapElement, RBTreeElement<Element, Element> {
+        private final int id;
+        private final int[] indexes = new int[QueueTrace.ELEMENT_INDEXES_COUNT];
+        private final int[] secondaryIndexes = new int[QueueTrace.ELEMENT_INDEXES_COUNT];
+        private final double[] keys = new double[QueueTrace.KEYS_COUNT];
+        private RBTreeNode<Element, Element> node;
+        // Whether the element is in the replayed queue
+        private boolean queued;
+
+        private Element(int id) {
+            this.id = id;
+            Arrays.fill(this.indexes, -1);
+            Arrays.fill(this.secondaryIndexes, -1);
+        }
+
+        /**
+         * @return The id of the element (the elements are numbered by their first appearance in
+         *         the trace)
+         */
+        public int getId() {
+            return this.id;
+        }
+
+        /**
+         * @param key The index of the key (e.g. QueueTrace.PRIMARY)
+         *
+         * @return The value of the key
+         */
+        public double getKey(int key) {
+            return this.keys[key];
+        }
+
+        public double getPrimaryKey() {
+            return this.keys[QueueTrace.PRIMARY];
+        }
+
+        @Override
+        public void setIndex(int key, int index) {
+            this.indexes[key] = index;
+        }
+
+        @Override
+        public int getIndex(int key) {
+            return this.indexes[key];
+        }
+
+        @Override
+        public void setSecondaryIndex(int key, int index) {
+            this.secondaryIndexes[key] = index;
+        }
+
+        @Override
+        public int getSecondaryIndex(int key) {
+            return this.secondaryIndexes[key];
+        }
+
+        @Override
+        public double getRank(int level) {
+            return (level == 0) ? this.keys[QueueTrace.PRIMARY] : this.keys[QueueTrace.G];
+        }
+
+        @Override
+        public double getF() {
+            return this.keys[QueueTrace.F];
+        }
+
+        @Override
+        public double getG() {
+            return this.keys[QueueTrace.G];
+        }
+
+        @Override
+        public double getDepth() {
+            return this.keys[QueueTrace.DEPTH];
+        }
+
+        @Override
+        public double getH() {
+            return this.keys[QueueTrace.H];
+        }
+
+        @Override
+        public double getD() {
+            return this.keys[QueueTrace.D];
+        }
+
+        @Override
+        public double getHhat() {
+            return this.keys[QueueTrace.HHAT];
+        }
+
+        @Override
+        public double getDhat() {
+            return this.keys[QueueTrace.DHAT];
+        }
+
+        @Override
+        public RBTreeNode<Element, Element> getNode() {
+            return this.node;
+        }
+
+        @Override
+        public void setNode(RBTreeNode<Element, Element> node) {
+            this.node = node;
+        }
+    }
+
+    /**
+     * Extracts the recorded primary key of an element
+     */
+    public static final class PrimaryKey implements DaryHeap.PrimaryKey<Element> {
+        @Override
+        public double get(Element e) {
+            return e.keys[QueueTrace.PRIMARY];
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Reading
+     ******************************************************************************************************************/
+
+    /**
+     * Reads a trace file
+     *
+     * @param file The file to read
+     *
+     * @return The read trace
+     */
+    public static QueueTrace read(File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            return QueueTrace.read(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't read the trace " + file, e);
+        }
+    }
+
+    /**
+     * Reads a trace from the given stream (until its end)
+     *
+     * @param in The stream to read
+     *
+     * @return The read trace
+     */
+    public static QueueTrace read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (data.readInt() != QueueTrace.MAGIC) {
+            throw new IllegalStateException("Not a queue trace");
+        }
+        int version = data.readInt();
+        if (version != QueueTrace.VERSION) {
+            throw new IllegalStateException("Unsupported version of a queue trace: " + version);
+        }
+        Map<String, String> properties = new HashMap<>();
+        for (int i = data.readInt(); i > 0; --i) {
+            String name = data.readUTF();
+            properties.put(name, data.readUTF());
+        }
+        QueueTrace trace = new QueueTrace(properties);
+        // The current keys of the elements
+        double[] current = new double[1024 * QueueTrace.KEYS_COUNT];
+        while (true) {
+            int code = data.read();
+            if (code == -1) {
+                break;
+            }
+            Operation operation = QueueTrace.OPERATIONS[code & 0x0F];
+            int id = QueueTrace._readId(data);
+            int other = -1;
+            int row = QueueTrace.NO_ROW;
+            trace.elementsCount = Math.max(trace.elementsCount, id + 1);
+            if (trace.elementsCount * QueueTrace.KEYS_COUNT > current.length) {
+                current = Arrays.copyOf(current,
+                        Math.max(current.length * 2, trace.elementsCount * QueueTrace.KEYS_COUNT));
+            }
+            switch (operation) {
+                case ADD:
+                case UPDATE:
+                case FOCAL_ADD: {
+                    int mask = data.readUnsignedByte();
+                    int floatMask = data.readUnsignedByte();
+                    int offset = id * QueueTrace.KEYS_COUNT;
+                    for (int k = 0; k < QueueTrace.KEYS_COUNT; ++k) {
+                        if ((floatMask & (1 << k)) != 0) {
+                            current[offset + k] = data.readFloat();
+                        } else if ((mask & (1 << k)) != 0) {
+                            current[offset + k] = data.readDouble();
+                        }
+                    }
+                    row = trace._addRow(current, offset);
+                    if (operation == Operation.FOCAL_ADD) {
+                        other = QueueTrace._readId(data);
+                        trace.elementsCount = Math.max(trace.elementsCount, other + 1);
+                    }
+                    break;
+                }
+                case UPDATE_FOCAL: {
+                    other = QueueTrace._readId(data);
+                    trace.elementsCount = Math.max(trace.elementsCount, other + 1);
+                    // The change of f^ (stored in the rows)
+                    row = data.readByte();
+                    break;
+                }
+                default: {
+                    break;
+                }
+            }
+            trace._addOperation((byte) code, id, other, row);
+        }
+        return trace;
+    }
+
+    /**
+     * Reads an id (a variable length integer, where 0 stands for null)
+     *
+     * @return The read id (-1 for null)
+     */
+    private static int _readId(DataInputStream data) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = data.read();
+            if (b == -1) {
+                throw new EOFException("Truncated queue trace");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value - 1;
+            }
+        }
+    }
+
+    private int _addRow(double[] source, int offset) {
+        if ((this.rowsCount + 1) * QueueTrace.KEYS_COUNT > this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.keys.length * 2);
+        }
+        System.arraycopy(source, offset, this.keys, this.rowsCount * QueueTrace.KEYS_COUNT,
+                QueueTrace.KEYS_COUNT);
+        return this.rowsCount++;
+    }
+
+    private void _addOperation(byte code, int id, int other, int row) {
+        if (this.size == this.codes.length) {
+            int capacity = this.size * 2;
+            this.codes = Arrays.copyOf(this.codes, capacity);
+            this.ids = Arrays.copyOf(this.ids, capacity);
+            this.others = Arrays.copyOf(this.others, capacity);
+            this.rows = Arrays.copyOf(this.rows, capacity);
+        }
+        this.codes[this.size] = code;
+        this.ids[this.size] = id;
+        this.others[this.size] = other;
+        this.rows[this.size] = row;
+        ++this.size;
+        ++this.counts[(code >>> 4) * QueueTrace.OPERATIONS.length + (code & 0x0F)];
+    }
+
+    /*******************************************************************************************************************
+     * Information
+     ******************************************************************************************************************/
+
+    /**
+     * @param name The name of the property (e.g. "algorithm")
+     *
+     * @return The value of the property, as recorded with the trace (null if it wasn't recorded)
+     */
+    public String getProperty(String name) {
+        return this.properties.get(name);
+    }
+
+    /**
+     * @return The number of the recorded operations (in all the channels)
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The number of the distinct elements in the trace
+     */
+    public int getElementsCount() {
+        return this.elementsCount;
+    }
+
+    /**
+     * @param channel The channel of the operations
+     * @param operation The type of the operations
+     *
+     * @return The number of the recorded operations of the given type in the given channel
+     */
+    public int getCount(int channel, Operation operation) {
+        return this.counts[channel * QueueTrace.OPERATIONS.length + operation.ordinal()];
+    }
+
+    /**
+     * @param channel The channel of the operations
+     *
+     * @return The number of the recorded operations in the given channel
+     */
+    public int getCount(int channel) {
+        int count = 0;
+        for (Operation operation : QueueTrace.OPERATIONS) {
+            count += this.getCount(channel, operation);
+        }
+        return count;
+    }
+
+    /*******************************************************************************************************************
+     * Replay
+     ******************************************************************************************************************/
+
+    private Element[] _createElements() {
+        Element[] elements = new Element[this.elementsCount];
+        for (int i = 0; i < elements.length; ++i) {
+            elements[i] = new Element(i);
+        }
+        return elements;
+    }
+
+    /**
+     * Sets the keys of the element of the i'th operation (if it has keys)
+     */
+    private void _setKeys(int i, Element[] elements, Operation operation) {
+        if (operation == Operation.ADD || operation == Operation.UPDATE || operation == Operation.FOCAL_ADD) {
+            System.arraycopy(this.keys, this.rows[i] * QueueTrace.KEYS_COUNT,
+                    elements[this.ids[i]].keys, 0, QueueTrace.KEYS_COUNT);
+        }
+    }
+
+    /**
+     * Replays the operations of the given channel on the given queue (its elements should be
+     * indexed by 0 or 1)
+     *
+     * @param channel The channel of the replayed operations
+     * @param queue The queue to drive (initially empty)
+     *
+     * @return The sum of the primary keys of the polled and removed elements (in order to prevent
+     *         the JIT from removing the operations)
+     */
+    public double replay(int channel, SearchQueue<Element> queue) {
+        Element[] elements = this._createElements();
+        double sum = 0;
+        for (int i = 0; i < this.size; ++i) {
+            int code = this.codes[i];
+            Operation operation = QueueTrace.OPERATIONS[code & 0x0F];
+            this._setKeys(i, elements, operation);
+            if ((code >>> 4) != channel) {
+                continue;
+            }
+            switch (operation) {
+                case ADD:
+                case UPDATE: {
+                    Element e = elements[this.ids[i]];
+                    if (e.queued) {
+                        queue.update(e);
+                    } else {
+                        queue.add(e);
+                        e.queued = true;
+                    }
+                    break;
+                }
+                case POLL: {
+                    Element polled = queue.poll();
+                    if (polled != null) {
+                        polled.queued = false;
+                        sum += polled.getPrimaryKey();
+                    }
+                    break;
+                }
+                case REMOVE: {
+                    Element e = elements[this.ids[i]];
+                    if (e.queued) {
+                        queue.remove(e);
+                        e.queued = false;
+                        sum += e.getPrimaryKey();
+                    }
+                    break;
+                }
+                default: {
+                    throw new IllegalArgumentException("Channel " + channel + " isn't a SearchQueue");
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Replays the operations of the given channel on the given focal queue (its elements should be
+     * indexed by 0 or 1)
+     *
+     * @param channel The channel of the replayed operations
+     * @param queue The queue to drive (initially empty)
+     *
+     * @return The sum of the primary keys of the polled and removed elements (in order to prevent
+     *         the JIT from removing the operations)
+     */
+    public double replay(int channel, FocalQueue<Element> queue) {
+        Element[] elements = this._createElements();
+        double sum = 0;
+        for (int i = 0; i < this.size; ++i) {
+            int code = this.codes[i];
+            Operation operation = QueueTrace.OPERATIONS[code & 0x0F];
+            this._setKeys(i, elements, operation);
+            if ((code >>> 4) != channel) {
+                continue;
+            }
+            switch (operation) {
+                case FOCAL_ADD: {
+                    Element e = elements[this.ids[i]];
+                    if (e.queued) {
+                        queue.remove(e);
+                    }
+                    queue.add(e, elements[this.others[i]]);
+                    e.queued = true;
+                    break;
+                }
+                case POLL_OPEN:
+                case POLL_FOCAL: {
+                    Element polled = (operation == Operation.POLL_OPEN) ? queue.pollOpen() : queue.pollFocal();
+                    if (polled != null) {
+                        polled.queued = false;
+                        sum += polled.getPrimaryKey();
+                    }
+                    break;
+                }
+                case FOCAL_REMOVE: {
+                    Element e = elements[this.ids[i]];
+                    if (e.queued) {
+                        queue.remove(e);
+                        e.queued = false;
+                        sum += e.getPrimaryKey();
+                    }
+                    break;
+                }
+                case UPDATE_FOCAL: {
+                    // The best element may be different in the replay
+                    Element newBest = queue.peekOpen();
+                    if (newBest != null) {
+                        queue.updateFocal((this.others[i] == -1) ? null : elements[this.others[i]],
+                                newBest, this.rows[i]);
+                    }
+                    break;
+                }
+                default: {
+                    throw new IllegalArgumentException("Channel " + channel + " isn't a FocalQueue");
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,395 @@
+package org.cs4j.core.collections;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Records the operations on the queues of a search into a compact binary trace, which can be
+ * replayed later on other queue implementations (see QueueTrace). The queues are either wrapped
+ * (see wrap and wrapFocal), or their operations are reported directly (see add, poll, update and
+ * remove).
+ *
+ * The format of the trace (the numbers are written by DataOutputStream):
+ * - The header: the magic number, the version, the number of the properties of the trace and the
+ *   properties (pairs of UTF strings)
+ * - A record per operation: its code (the channel of the queue in the high 4 bits, and the ordinal
+ *   of QueueTrace.Operation in the low 4 bits), followed by the id of the element (id + 1 as a
+ *   variable length integer, where 0 stands for null)
+ * - The records of ADD, UPDATE and FOCAL_ADD contain a mask of the keys of the element which were
+ *   changed since the previous record of the element (see QueueTrace.F etc.), a mask of the changed
+ *   keys which are exactly representable as floats (e.g. integer costs), and the changed keys (as
+ *   floats or doubles, respectively). FOCAL_ADD is followed by the id of the previous best
+ *   element, and UPDATE_FOCAL by the id of the previous best element and the change of f^ (a byte)
+ *
+ * The elements are numbered by their first appearance in the trace.
+ */
+public final class QueueTraceWriter implements Closeable {
+
+    private final DataOutputStream out;
+    private final String name;
+    private final Map<Object, Integer> elementIds = new IdentityHashMap<>();
+    // The last recorded keys of the elements
+    private double[] keys = new double[1024 * QueueTrace.KEYS_COUNT];
+    private final double[] current = new double[QueueTrace.KEYS_COUNT];
+
+    /**
+     * Creates a writer of a trace file
+     *
+     * @param file The file to write (overwritten if exists)
+     * @param properties The properties of the trace (e.g. the recorded algorithm and its
+     *                   parameters)
+     */
+    public QueueTraceWriter(File file, Map<String, String> properties) {
+        this(QueueTraceWriter._open(file), file.getPath(), properties);
+    }
+
+    /**
+     * Creates a writer of a trace
+     *
+     * @param out The stream to write the trace to (closed by close())
+     * @param properties The properties of the trace (e.g. the recorded algorithm and its
+     *                   parameters)
+     */
+    public QueueTraceWriter(OutputStream out, Map<String, String> properties) {
+        this(out, "the queue trace", properties);
+    }
+
+    private QueueTraceWriter(OutputStream out, String name, Map<String, String> properties) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.name = name;
+        try {
+            this.out.writeInt(QueueTrace.MAGIC);
+            this.out.writeInt(QueueTrace.VERSION);
+            this.out.writeInt(properties.size());
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                this.out.writeUTF(property.getKey());
+                this.out.writeUTF(property.getValue());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't write " + this.name, e);
+        }
+    }
+
+    private static OutputStream _open(File file) {
+        try {
+            return new FileOutputStream(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't create the trace file " + file, e);
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Recording
+     ******************************************************************************************************************/
+
+    private void _writeId(Object e) throws IOException {
+        int value = 0;
+        if (e != null) {
+            Integer id = this.elementIds.get(e);
+            if (id == null) {
+                id = this.elementIds.size();
+                this.elementIds.put(e, id);
+            }
+            value = id + 1;
+        }
+        while ((value & ~0x7F) != 0) {
+            this.out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.out.writeByte(value);
+    }
+
+    /**
+     * Writes the keys of the element which were changed since its previous record
+     */
+    private void _writeKeys(SearchQueueElement e, double primary) throws IOException {
+        int offset = this.elementIds.get(e) * QueueTrace.KEYS_COUNT;
+        if (offset + QueueTrace.KEYS_COUNT > this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, Math.max(this.keys.length * 2, offset + QueueTrace.KEYS_COUNT));
+        }
+        this.current[QueueTrace.F] = e.getF();
+        this.current[QueueTrace.G] = e.getG();
+        this.current[QueueTrace.DEPTH] = e.getDepth();
+        this.current[QueueTrace.H] = e.getH();
+        this.current[QueueTrace.D] = e.getD();
+        this.current[QueueTrace.HHAT] = e.getHhat();
+        this.current[QueueTrace.DHAT] = e.getDhat();
+        this.current[QueueTrace.PRIMARY] = primary;
+        int mask = 0;
+        int floatMask = 0;
+        for (int k = 0; k < QueueTrace.KEYS_COUNT; ++k) {
+            // (Compares the bits - NaN is equal to itself)
+            if (Double.doubleToLongBits(this.current[k]) != Double.doubleToLongBits(this.keys[offset + k])) {
+                mask |= 1 << k;
+                if ((double) (float) this.current[k] == this.current[k]) {
+                    floatMask |= 1 << k;
+                }
+            }
+        }
+        this.out.writeByte(mask);
+        this.out.writeByte(floatMask);
+        for (int k = 0; k < QueueTrace.KEYS_COUNT; ++k) {
+            if ((floatMask & (1 << k)) != 0) {
+                this.out.writeFloat((float) this.current[k]);
+            } else if ((mask & (1 << k)) != 0) {
+                this.out.writeDouble(this.current[k]);
+            }
+            this.keys[offset + k] = this.current[k];
+        }
+    }
+
+    private void _writeCode(int channel, QueueTrace.Operation operation) throws IOException {
+        this.out.writeByte((channel << 4) | operation.ordinal());
+    }
+
+    private void _record(int channel, QueueTrace.Operation operation, SearchQueueElement e, double primary) {
+        try {
+            this._writeCode(channel, operation);
+            this._writeId(e);
+            if (operation == QueueTrace.Operation.ADD || operation == QueueTrace.Operation.UPDATE) {
+                this._writeKeys(e, primary);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Can't write " + this.name, ex);
+        }
+    }
+
+    private static void _checkChannel(int channel) {
+        if (channel < 0 || channel >= QueueTrace.CHANNELS_COUNT) {
+            throw new IllegalArgumentException("The channel must be in [0, " + QueueTrace.CHANNELS_COUNT + ")");
+        }
+    }
+
+    /**
+     * Records an addition of an element to a queue (its f value is recorded as its primary key)
+     */
+    public void add(int channel, SearchQueueElement e) {
+        this._record(channel, QueueTrace.Operation.ADD, e, e.getF());
+    }
+
+    /**
+     * Records an update of an element in a queue (its f value is recorded as its primary key)
+     */
+    public void update(int channel, SearchQueueElement e) {
+        this._record(channel, QueueTrace.Operation.UPDATE, e, e.getF());
+    }
+
+    /**
+     * Records a poll of an element from a queue
+     *
+     * @param polled The polled element (null if the queue was empty)
+     */
+    public void poll(int channel, SearchQueueElement polled) {
+        this._record(channel, QueueTrace.Operation.POLL, polled, 0);
+    }
+
+    /**
+     * Records a removal of an element from a queue
+     */
+    public void remove(int channel, SearchQueueElement e) {
+        this._record(channel, QueueTrace.Operation.REMOVE, e, 0);
+    }
+
+    /**
+     * Wraps the given queue, such that the operations that are applied on it are recorded
+     *
+     * @param queue The queue to wrap
+     * @param channel The channel of the operations of the queue in the trace (0-15)
+     * @param primaryKey Extracts the primary key of an element (the key by which the queue is
+     *                   ordered)
+     *
+     * @return The wrapping queue
+     */
+    public <E extends SearchQueueElement> SearchQueue<E> wrap(SearchQueue<E> queue,
+                                                           int channel,
+                                                           DaryHeap.PrimaryKey<E> primaryKey) {
+        QueueTraceWriter._checkChannel(channel);
+        return new RecordingQueue<>(queue, channel, primaryKey);
+    }
+
+    /**
+     * Wraps the given focal queue, such that the operations that are applied on it are recorded
+     *
+     * @param queue The queue to wrap
+     * @param channel The channel of the operations of the queue in the trace (0-15)
+     * @param primaryKey Extracts the primary key of an element (f^ in EES)
+     *
+     * @return The wrapping queue
+     */
+    public <E extends SearchQueueElement> FocalQueue<E> wrapFocal(FocalQueue<E> queue,
+                                                               int channel,
+                                                               DaryHeap.PrimaryKey<E> primaryKey) {
+        QueueTraceWriter._checkChannel(channel);
+        return new RecordingFocalQueue<>(queue, channel, primaryKey);
+    }
+
+    /**
+     * Flushes and closes the trace
+     */
+    @Override
+    public void close() {
+        try {
+            this.out.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't write " + this.name, e);
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Recording queues
+     ******************************************************************************************************************/
+
+    private final class RecordingQueue<E extends SearchQueueElement> implements SearchQueue<E> {
+        private final SearchQueue<E> queue;
+        private final int channel;
+        private final DaryHeap.PrimaryKey<E> primaryKey;
+
+        private RecordingQueue(SearchQueue<E> queue, int channel, DaryHeap.PrimaryKey<E> primaryKey) {
+            this.queue = queue;
+            this.channel = channel;
+            this.primaryKey = primaryKey;
+        }
+
+        @Override
+        public void add(E element) {
+            QueueTraceWriter.this._record(this.channel, QueueTrace.Operation.ADD, element,
+                    this.primaryKey.get(element));
+            this.queue.add(element);
+        }
+
+        @Override
+        public E poll() {
+            E polled = this.queue.poll();
+            QueueTraceWriter.this.poll(this.channel, polled);
+            return polled;
+        }
+
+        @Override
+        public E peek() {
+            return this.queue.peek();
+        }
+
+        @Override
+        public void update(E e) {
+            QueueTraceWriter.this._record(this.channel, QueueTrace.Operation.UPDATE, e,
+                    this.primaryKey.get(e));
+            this.queue.update(e);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.queue.isEmpty();
+        }
+
+        @Override
+        public int size() {
+            return this.queue.size();
+        }
+
+        @Override
+        public void clear() {
+            this.queue.clear();
+        }
+
+        @Override
+        public E remove(E e) {
+            QueueTraceWriter.this.remove(this.channel, e);
+            return this.queue.remove(e);
+        }
+
+        @Override
+        public int getKey() {
+            return this.queue.getKey();
+        }
+    }
+
+    private final class RecordingFocalQueue<E extends SearchQueueElement> implements FocalQueue<E> {
+        private final FocalQueue<E> queue;
+        private final int channel;
+        private final DaryHeap.PrimaryKey<E> primaryKey;
+
+        private RecordingFocalQueue(FocalQueue<E> queue, int channel, DaryHeap.PrimaryKey<E> primaryKey) {
+            this.queue = queue;
+            this.channel = channel;
+            this.primaryKey = primaryKey;
+        }
+
+        private void _record(QueueTrace.Operation operation, E e) {
+            try {
+                QueueTraceWriter.this._writeCode(this.channel, operation);
+                QueueTraceWriter.this._writeId(e);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Can't write " + QueueTraceWriter.this.name, ex);
+            }
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return this.queue.isEmpty();
+        }
+
+        @Override
+        public void add(E e, E oldBest) {
+            try {
+                QueueTraceWriter.this._writeCode(this.channel, QueueTrace.Operation.FOCAL_ADD);
+                QueueTraceWriter.this._writeId(e);
+                QueueTraceWriter.this._writeKeys(e, this.primaryKey.get(e));
+                QueueTraceWriter.this._writeId(oldBest);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Can't write " + QueueTraceWriter.this.name, ex);
+            }
+            this.queue.add(e, oldBest);
+        }
+
+        @Override
+        public void updateFocal(E oldBest, E newBest, int fHatChange) {
+            try {
+                QueueTraceWriter.this._writeCode(this.channel, QueueTrace.Operation.UPDATE_FOCAL);
+                QueueTraceWriter.this._writeId(newBest);
+                QueueTraceWriter.this._writeId(oldBest);
+                QueueTraceWriter.this.out.writeByte(Integer.signum(fHatChange));
+            } catch (IOException ex) {
+                throw new IllegalStateException("Can't write " + QueueTraceWriter.this.name, ex);
+            }
+            this.queue.updateFocal(oldBest, newBest, fHatChange);
+        }
+
+        @Override
+        public void remove(E e) {
+            this._record(QueueTrace.Operation.FOCAL_REMOVE, e);
+            this.queue.remove(e);
+        }
+
+        @Override
+        public E pollOpen() {
+            E polled = this.queue.pollOpen();
+            this._record(QueueTrace.Operation.POLL_OPEN, polled);
+            return polled;
+        }
+
+        @Override
+        public E pollFocal() {
+            E polled = this.queue.pollFocal();
+            this._record(QueueTrace.Operation.POLL_FOCAL, polled);
+            return polled;
+        }
+
+        @Override
+        public E peekOpen() {
+            return this.queue.peekOpen();
+        }
+
+        @Override
+        public E peekFocal() {
+            return this.queue.peekFocal();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package org.cs4j.core.collections;
+
+import java.util.ArrayList;
+
+import org.cs4j.core.collections.BucketHeap.BucketHeapElement;
+
+/**
+ * A radix heap (monotone priority queue) where elements are aware of their location (index) in
+ * the heap.
+ *
+ * The element with the minimal rank at level 0 is polled first, and among them - the element with
+ * the maximal rank at level 1 (like BucketHeap, but the ranks may be real numbers). The ranks at
+ * level 0 must be non-negative: they are ordered exactly, via the bits of their double
+ * representation (which are ordered like the non-negative doubles themselves), hence no
+ * quantization is required.
+ *
+ * The heap is efficient if the polled ranks never decrease (e.g. the f values of A* with a
+ * consistent heuristic): bucket i (1 <= i <= 64) contains the elements whose highest bit that
+ * differs from the last polled rank is bit i - 1, and each element moves to lower buckets at most
+ * 64 times. Bucket 0 contains the elements whose rank is equal to the last polled rank - it is a
+ * binary heap, which also orders the elements by their ranks at level 1. An element whose rank is
+ * smaller than the last polled rank (which can't be added to a real radix heap) is added to bucket
+ * 0 as well, hence the order of the heap is exact in any case.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public final class RadixHeap<E extends BucketHeapElement> implements SearchQueue<E> {
+
+    // A bucket for equal ranks and a bucket for each bit of a long
+    private static final int BUCKETS_COUNT = 65;
+
+    // Number of elements in the heap
+    private int fill;
+    // The bits of the last polled rank
+    private long last;
+    // Bucket 0 is a binary heap, the other buckets are unordered
+    private ArrayList[] buckets;
+    private int key;
+
+    /**
+     * Constructor of the heap
+     *
+     * @param key The index at the single heap element, that allows accessing a single element
+     */
+    public RadixHeap(int key) {
+        this.buckets = new ArrayList[RadixHeap.BUCKETS_COUNT];
+        for (int i = 0; i < RadixHeap.BUCKETS_COUNT; ++i) {
+            this.buckets[i] = new ArrayList<>();
+        }
+        this.key = key;
+    }
+
+    @Override
+    public int getKey() {
+        return this.key;
+    }
+
+    /**
+     * @return The bits of the rank of the given element at level 0 (ordered like the rank)
+     */
+    private static long _bits(BucketHeapElement e) {
+        double rank = e.getRank(0);
+        if (!(rank >= 0)) {
+            throw new IllegalArgumentException("Negative rank: " + rank);
+        }
+        // (Avoid the bits of -0.0)
+        return Double.doubleToLongBits(rank + 0.0);
+    }
+
+    /**
+     * @return The index of the bucket of the given bits of a rank
+     */
+    private int _bucketIndex(long bits) {
+        return (bits <= this.last) ? 0 : 64 - Long.numberOfLeadingZeros(bits ^ this.last);
+    }
+
+    /**
+     * @return Whether a should be polled before b (bucket 0 order)
+     */
+    private static boolean _isBefore(BucketHeapElement a, BucketHeapElement b) {
+        double aRank = a.getRank(0);
+        double bRank = b.getRank(0);
+        if (aRank != bRank) {
+            return aRank < bRank;
+        }
+        return a.getRank(1) > b.getRank(1);
+    }
+
+    private void _set(ArrayList<E> heap, int index, E e) {
+        heap.set(index, e);
+        e.setIndex(this.key, index);
+    }
+
+    private void _siftUp(ArrayList<E> heap, int index) {
+        E e = heap.get(index);
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            E parentElement = heap.get(parent);
+            if (!RadixHeap._isBefore(e, parentElement)) {
+                break;
+            }
+            this._set(heap, index, parentElement);
+            index = parent;
+        }
+        this._set(heap, index, e);
+    }
+
+    private void _siftDown(ArrayList<E> heap, int index) {
+        E e = heap.get(index);
+        int size = heap.size();
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && RadixHeap._isBefore(heap.get(child + 1), heap.get(child))) {
+                ++child;
+            }
+            E childElement = heap.get(child);
+            if (!RadixHeap._isBefore(childElement, e)) {
+                break;
+            }
+            this._set(heap, index, childElement);
+            index = child;
+        }
+        this._set(heap, index, e);
+    }
+
+    /**
+     * Places the given element in the bucket which corresponds to its rank
+     */
+    private void _place(E e, long bits) {
+        int bucketIndex = this._bucketIndex(bits);
+        ArrayList<E> bucket = this.buckets[bucketIndex];
+        e.setSecondaryIndex(this.key, bucketIndex);
+        bucket.add(e);
+        if (bucketIndex == 0) {
+            this._siftUp(bucket, bucket.size() - 1);
+        } else {
+            e.setIndex(this.key, bucket.size() - 1);
+        }
+    }
+
+    /**
+     * Takes the given element out of its bucket (without changing the number of elements)
+     */
+    private void _takeOut(E e) {
+        int bucketIndex = e.getSecondaryIndex(this.key);
+        int index = e.getIndex(this.key);
+        if (bucketIndex < 0 || index < 0) {
+            throw new IllegalArgumentException("The element isn't in the heap");
+        }
+        ArrayList<E> bucket = this.buckets[bucketIndex];
+        E lastElement = bucket.remove(bucket.size() - 1);
+        if (lastElement != e) {
+            // Fill the hole with the last element of the bucket
+            if (bucketIndex == 0) {
+                this._set(bucket, index, lastElement);
+                this._siftUp(bucket, index);
+                this._siftDown(bucket, lastElement.getIndex(this.key));
+            } else {
+                bucket.set(index, lastElement);
+                lastElement.setIndex(this.key, index);
+            }
+        }
+        e.setIndex(this.key, -1);
+        e.setSecondaryIndex(this.key, -1);
+    }
+
+    /**
+     * Fills bucket 0 (if it is empty): the minimal rank of the first non-empty bucket becomes the
+     * last rank, and the elements of that bucket are moved to lower buckets
+     *
+     * @return Bucket 0
+     */
+    private ArrayList<E> _firstBucket() {
+        ArrayList<E> first = this.buckets[0];
+        if (!first.isEmpty()) {
+            return first;
+        }
+        int bucketIndex = 1;
+        while (this.buckets[bucketIndex].isEmpty()) {
+            ++bucketIndex;
+        }
+        ArrayList<E> bucket = this.buckets[bucketIndex];
+        long min = Long.MAX_VALUE;
+        for (E e : bucket) {
+            min = Math.min(min, RadixHeap._bits(e));
+        }
+        this.last = min;
+        // All the elements move to lower buckets (at least a single element moves to bucket 0)
+        for (E e : bucket) {
+            this._place(e, RadixHeap._bits(e));
+        }
+        bucket.clear();
+        return first;
+    }
+
+    @Override
+    public void add(E e) {
+        this._place(e, RadixHeap._bits(e));
+        ++this.fill;
+    }
+
+    /**
+     * The function removes the first element of the heap and returns it
+     *
+     * @return The first element of the heap (null if the heap is empty)
+     */
+    @Override
+    public E poll() {
+        if (this.fill == 0) {
+            return null;
+        }
+        E e = this._firstBucket().get(0);
+        this._takeOut(e);
+        --this.fill;
+        return e;
+    }
+
+    /**
+     * @return The first element of the heap (null if the heap is empty)
+     */
+    @Override
+    public E peek() {
+        if (this.fill == 0) {
+            return null;
+        }
+        return this._firstBucket().get(0);
+    }
+
+    /**
+     * The function updates the location of the given element in the heap, after its ranks were
+     * changed
+     *
+     * @param e The element to update
+     */
+    @Override
+    public void update(E e) {
+        this._takeOut(e);
+        this._place(e, RadixHeap._bits(e));
+    }
+
+    @Override
+    public E remove(E e) {
+        this._takeOut(e);
+        --this.fill;
+        return e;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < RadixHeap.BUCKETS_COUNT; ++i) {
+            this.buckets[i] = new ArrayList<>();
+        }
+        this.fill = 0;
+        this.last = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.fill == 0;
+    }
+
+    @Override
+    public int size() {
+        return this.fill;
+    }
+}
@@ -0,0 +1,172 @@
+package org.cs4j.core.collections;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A multiset of doubles, which is kept sorted in primitive arrays: the distinct values are stored
+ * in ascending order, each one with its number of occurrences (e.g. the f values of an open list).
+ *
+ * The minimal value is available in O(1), and adding or removing an occurrence of an existing
+ * value is a binary search. A new distinct value shifts the values which are bigger than it, and
+ * removing the last occurrence of a value shifts the values which are bigger than it as well -
+ * unless it is the minimal value: the values are stored from an offset, hence the minimal value is
+ * removed (and a new minimal value is added) without shifting. In search, most of the new values
+ * are close to the maximal value and most of the values which are emptied are the minimal value,
+ * hence the shifts are short.
+ *
+ * NOTE: The values are compared like Double.equals (e.g. -0.0 and 0.0 are different values)
+ */
+public final class SortedDoubleMultiset {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // The distinct values (in [first, end)) and their number of occurrences
+    private double[] values;
+    private int[] counts;
+    private int first;
+    private int end;
+    // The total number of occurrences
+    private int size;
+
+    public SortedDoubleMultiset() {
+        this.values = new double[SortedDoubleMultiset.INITIAL_CAPACITY];
+        this.counts = new int[SortedDoubleMultiset.INITIAL_CAPACITY];
+    }
+
+    /**
+     * @return The index of the given value (or (-(insertion point) - 1) if it isn't in the multiset)
+     */
+    private int _find(double value) {
+        return Arrays.binarySearch(this.values, this.first, this.end, value);
+    }
+
+    /**
+     * Makes room for another value at the end of the arrays (moves the values to the beginning of
+     * the arrays, or grows them)
+     */
+    private void _ensureCapacity() {
+        if (this.end < this.values.length) {
+            return;
+        }
+        int distinct = this.end - this.first;
+        if (this.first > 0 && distinct < this.values.length / 2) {
+            System.arraycopy(this.values, this.first, this.values, 0, distinct);
+            System.arraycopy(this.counts, this.first, this.counts, 0, distinct);
+        } else {
+            double[] values = new double[this.values.length * 2];
+            int[] counts = new int[this.counts.length * 2];
+            System.arraycopy(this.values, this.first, values, 0, distinct);
+            System.arraycopy(this.counts, this.first, counts, 0, distinct);
+            this.values = values;
+            this.counts = counts;
+        }
+        this.first = 0;
+        this.end = distinct;
+    }
+
+    /**
+     * Adds an occurrence of the given value
+     *
+     * @param value The value to add
+     *
+     * @return The number of occurrences of the value (after adding it)
+     */
+    public int add(double value) {
+        ++this.size;
+        int index = this._find(value);
+        if (index >= 0) {
+            return ++this.counts[index];
+        }
+        index = -index - 1;
+        if (index == this.first && this.first > 0) {
+            // A new minimal value
+            --this.first;
+            --index;
+        } else {
+            int offset = index - this.first;
+            this._ensureCapacity();
+            index = this.first + offset;
+            System.arraycopy(this.values, index, this.values, index + 1, this.end - index);
+            System.arraycopy(this.counts, index, this.counts, index + 1, this.end - index);
+            ++this.end;
+        }
+        this.values[index] = value;
+        this.counts[index] = 1;
+        return 1;
+    }
+
+    /**
+     * Removes an occurrence of the given value
+     *
+     * @param value The value to remove
+     *
+     * @return The number of occurrences of the value which are left
+     */
+    public int remove(double value) {
+        int index = this._find(value);
+        if (index < 0) {
+            throw new IllegalArgumentException("The value isn't in the multiset: " + value);
+        }
+        --this.size;
+        int left = --this.counts[index];
+        if (left == 0) {
+            if (index == this.first) {
+                ++this.first;
+            } else {
+                System.arraycopy(this.values, index + 1, this.values, index, this.end - index - 1);
+                System.arraycopy(this.counts, index + 1, this.counts, index, this.end - index - 1);
+                --this.end;
+            }
+            if (this.first == this.end) {
+                this.first = 0;
+                this.end = 0;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * @param value The value to count
+     *
+     * @return The number of occurrences of the value
+     */
+    public int count(double value) {
+        int index = this._find(value);
+        return (index >= 0) ? this.counts[index] : 0;
+    }
+
+    /**
+     * @return The minimal value of the multiset
+     */
+    public double min() {
+        if (this.size == 0) {
+            throw new NoSuchElementException();
+        }
+        return this.values[this.first];
+    }
+
+    /**
+     * @return The number of distinct values
+     */
+    public int distinctSize() {
+        return this.end - this.first;
+    }
+
+    /**
+     * @return The total number of occurrences
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.first = 0;
+        this.end = 0;
+        this.size = 0;
+    }
+}
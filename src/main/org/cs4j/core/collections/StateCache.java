@@ -0,0 +1,141 @@
+package org.cs4j.core.collections;
+
+/**
+ * A bounded cache of unpacked states, keyed by their packed values
+ *
+ * The cache is direct-mapped: each packed state has a single slot (chosen by its hash), and a new
+ * state evicts the state which occupies its slot. Hence, the cache never grows and an access
+ * requires no allocations. A state is removed from the cache when it is taken, so that the cache
+ * doesn't keep states which are no longer required.
+ *
+ * @param <S> The type of the cached states
+ */
+public class StateCache<S> {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    // The packed states, in case they are packed into a single long
+    private final long[] longKeys;
+    // The packed states, otherwise
+    private final PackedElement[] keys;
+    // The states (null marks an empty slot)
+    private final Object[] states;
+    // capacity - 1 (the capacity is always a power of 2)
+    private final int mask;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * The constructor of the class
+     *
+     * @param capacity The maximum number of cached states (rounded up to a power of 2)
+     * @param singleLong Whether the states are packed into a single long
+     */
+    public StateCache(int capacity, boolean singleLong) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        capacity = (capacity >= StateCache.MAX_CAPACITY) ?
+                StateCache.MAX_CAPACITY :
+                Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.longKeys = singleLong ? new long[capacity] : null;
+        this.keys = singleLong ? null : new PackedElement[capacity];
+        this.states = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private S _take(int slot, boolean found) {
+        if (!found) {
+            ++this.misses;
+            return null;
+        }
+        ++this.hits;
+        S state = (S) this.states[slot];
+        this.states[slot] = null;
+        if (this.keys != null) {
+            this.keys[slot] = null;
+        }
+        return state;
+    }
+
+    /**
+     * Caches the given state (evicts the state that is cached in the same slot, or replaces
+     * a previous copy of the same state)
+     *
+     * @param packed The packed value of the state
+     * @param state The state to cache
+     */
+    public void put(PackedElement packed, S state) {
+        int slot = packed.hashCode() & this.mask;
+        if (this.states[slot] != null && !packed.equals(this.keys[slot])) {
+            ++this.evictions;
+        }
+        this.keys[slot] = packed;
+        this.states[slot] = state;
+    }
+
+    /**
+     * A version of {@link #put(PackedElement, Object)} for states which are packed into a single
+     * long
+     */
+    public void put(long packed, S state) {
+        int slot = PackedElement.hash(packed) & this.mask;
+        if (this.states[slot] != null && this.longKeys[slot] != packed) {
+            ++this.evictions;
+        }
+        this.longKeys[slot] = packed;
+        this.states[slot] = state;
+    }
+
+    /**
+     * Takes the state with the given packed value out of the cache
+     *
+     * @param packed The packed value of the state
+     *
+     * @return The cached state (or null if the state isn't cached)
+     */
+    public S take(PackedElement packed) {
+        int slot = packed.hashCode() & this.mask;
+        return this._take(slot, this.states[slot] != null && packed.equals(this.keys[slot]));
+    }
+
+    /**
+     * A version of {@link #take(PackedElement)} for states which are packed into a single long
+     */
+    public S take(long packed) {
+        int slot = PackedElement.hash(packed) & this.mask;
+        return this._take(slot, this.states[slot] != null && this.longKeys[slot] == packed);
+    }
+
+    /**
+     * @return The number of the states that were found in the cache
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return The number of the states that weren't found in the cache
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return The number of the states that were evicted before they were taken
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * @return The ratio of the found states out of all the states that were looked for
+     */
+    public double getHitRate() {
+        long accesses = this.hits + this.misses;
+        return (accesses == 0) ? 0 : this.hits / (double) accesses;
+    }
+}
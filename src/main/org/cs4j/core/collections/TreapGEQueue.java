@@ -0,0 +1,412 @@
+package org.cs4j.core.collections;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A data structure for open and focal lists (like GEQueue), where OPEN is a treap whose nodes are
+ * stored in primitive arrays: the slots of the elements are recycled, hence no tree node is
+ * allocated per insertion, and the f^ values of the elements are stored in an array, hence the
+ * tree is searched (and FOCAL is updated) by comparing primitive keys - the comparator is called
+ * only in order to break ties of f^.
+ *
+ * When f^ of the best element changes, the range of OPEN which enters (or leaves) FOCAL is found by
+ * its f^ bounds, and its elements are added to (removed from) FOCAL in the order of OPEN.
+ *
+ * The order of OPEN and the sequence of operations on FOCAL are the same as those of GEQueue (the
+ * last inserted element is the first among equal elements), hence the search is the same as with
+ * GEQueue.
+ *
+ * NOTE: The comparator of OPEN must order the elements by f^ first (smaller is first), and then
+ * break the ties
+ *
+ * @param <E> Type of data to save in the lists
+ */
+public final class TreapGEQueue<E extends SearchQueueElement> implements FocalQueue<E> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NIL = -1;
+
+    private final Comparator<E> openComparator;
+    private final DaryHeap.PrimaryKey<E> fHat;
+    private final double weight;
+    private final int openId;
+    private final BinHeap<E> focal;
+    private final int focalId;
+
+    // The nodes of the treap: the element, its f^ and its insertion number (for breaking ties),
+    // the priority of the node and its children
+    private Object[] elements;
+    private double[] keys;
+    private long[] insertions;
+    private int[] priorities;
+    private int[] left;
+    private int[] right;
+
+    private int root;
+    // The first element of OPEN
+    private int min;
+    // The free slots are chained through left
+    private int free;
+    private int used;
+    private int size;
+
+    private long insertionsCount;
+    private int seed;
+
+    // The results of _split
+    private int splitBefore;
+    private int splitAfter;
+
+    /**
+     * The constructor of the class
+     *
+     * @param openComparator The comparator of OPEN
+     * @param focalComparator The comparator of FOCAL
+     * @param fHat Extracts f^ of an element
+     * @param weight An element is in FOCAL if its f^ is at most weight * (the best f^ in OPEN)
+     * @param focalId The index of the element in FOCAL
+     * @param openId The index of the element in OPEN
+     */
+    public TreapGEQueue(Comparator<E> openComparator,
+                        Comparator<E> focalComparator,
+                        DaryHeap.PrimaryKey<E> fHat,
+                        double weight,
+                        int focalId,
+                        int openId) {
+        this.openComparator = openComparator;
+        this.fHat = fHat;
+        this.weight = weight;
+        this.openId = openId;
+        this.focal = new BinHeap<>(focalComparator, focalId);
+        this.focalId = focalId;
+        this.elements = new Object[TreapGEQueue.INITIAL_CAPACITY];
+        this.keys = new double[TreapGEQueue.INITIAL_CAPACITY];
+        this.insertions = new long[TreapGEQueue.INITIAL_CAPACITY];
+        this.priorities = new int[TreapGEQueue.INITIAL_CAPACITY];
+        this.left = new int[TreapGEQueue.INITIAL_CAPACITY];
+        this.right = new int[TreapGEQueue.INITIAL_CAPACITY];
+        this.root = TreapGEQueue.NIL;
+        this.min = TreapGEQueue.NIL;
+        this.free = TreapGEQueue.NIL;
+        this.seed = 0x2545F491;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E _elementAt(int i) {
+        return (E) this.elements[i];
+    }
+
+    /**
+     * @return A pseudo-random priority (xorshift, hence the treap is the same in all the runs)
+     */
+    private int _nextPriority() {
+        this.seed ^= this.seed << 13;
+        this.seed ^= this.seed >>> 17;
+        this.seed ^= this.seed << 5;
+        return this.seed;
+    }
+
+    /**
+     * @return Negative number if the element at i is before the element at j in OPEN, and positive
+     *         number otherwise
+     */
+    private int _compare(int i, int j) {
+        double iKey = this.keys[i];
+        double jKey = this.keys[j];
+        if (iKey != jKey) {
+            return (iKey < jKey) ? -1 : 1;
+        }
+        int result = this.openComparator.compare(this._elementAt(i), this._elementAt(j));
+        if (result != 0) {
+            return result;
+        }
+        // The last inserted element is the first among equal elements
+        return Long.compare(this.insertions[j], this.insertions[i]);
+    }
+
+    /**
+     * @return A free slot for a new element
+     */
+    private int _allocate() {
+        int i = this.free;
+        if (i != TreapGEQueue.NIL) {
+            this.free = this.left[i];
+            return i;
+        }
+        if (this.used == this.elements.length) {
+            int capacity = this.used * 2;
+            this.elements = Arrays.copyOf(this.elements, capacity);
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.insertions = Arrays.copyOf(this.insertions, capacity);
+            this.priorities = Arrays.copyOf(this.priorities, capacity);
+            this.left = Arrays.copyOf(this.left, capacity);
+            this.right = Arrays.copyOf(this.right, capacity);
+        }
+        return this.used++;
+    }
+
+    /**
+     * Frees the slot of the given element
+     */
+    private void _release(int i, E e) {
+        e.setIndex(this.openId, -1);
+        this.elements[i] = null;
+        this.left[i] = this.free;
+        this.free = i;
+        --this.size;
+    }
+
+    /**
+     * @return The slot of the given element in OPEN
+     */
+    private int _slotOf(E e) {
+        int i = e.getIndex(this.openId);
+        if (i < 0 || i >= this.used || this.elements[i] != e) {
+            throw new IllegalArgumentException();
+        }
+        return i;
+    }
+
+    /**
+     * Splits the subtree t to the elements which are before the element at x (splitBefore) and the
+     * elements which are after it (splitAfter)
+     */
+    private void _split(int t, int x) {
+        if (t == TreapGEQueue.NIL) {
+            this.splitBefore = TreapGEQueue.NIL;
+            this.splitAfter = TreapGEQueue.NIL;
+        } else if (this._compare(t, x) < 0) {
+            this._split(this.right[t], x);
+            this.right[t] = this.splitBefore;
+            this.splitBefore = t;
+        } else {
+            this._split(this.left[t], x);
+            this.left[t] = this.splitAfter;
+            this.splitAfter = t;
+        }
+    }
+
+    /**
+     * Merges two subtrees, where all the elements of the first one are before the elements of the
+     * second one
+     *
+     * @return The root of the merged subtree
+     */
+    private int _merge(int a, int b) {
+        if (a == TreapGEQueue.NIL) {
+            return b;
+        } else if (b == TreapGEQueue.NIL) {
+            return a;
+        } else if (this.priorities[a] > this.priorities[b]) {
+            this.right[a] = this._merge(this.right[a], b);
+            return a;
+        }
+        this.left[b] = this._merge(a, this.left[b]);
+        return b;
+    }
+
+    /**
+     * Replaces the child 'child' of the given parent (or the root if there is no parent)
+     */
+    private void _replaceChild(int parent, int child, int newChild) {
+        if (parent == TreapGEQueue.NIL) {
+            this.root = newChild;
+        } else if (this.left[parent] == child) {
+            this.left[parent] = newChild;
+        } else {
+            this.right[parent] = newChild;
+        }
+    }
+
+    /**
+     * Inserts the element at x to the treap
+     */
+    private void _insert(int x) {
+        // Go down until the node whose priority is lower than the priority of x
+        int parent = TreapGEQueue.NIL;
+        boolean isLeft = false;
+        int t = this.root;
+        while (t != TreapGEQueue.NIL && this.priorities[t] >= this.priorities[x]) {
+            parent = t;
+            isLeft = this._compare(x, t) < 0;
+            t = isLeft ? this.left[t] : this.right[t];
+        }
+        // x replaces this node, and its subtree is split around x
+        this._split(t, x);
+        this.left[x] = this.splitBefore;
+        this.right[x] = this.splitAfter;
+        if (parent == TreapGEQueue.NIL) {
+            this.root = x;
+        } else if (isLeft) {
+            this.left[parent] = x;
+        } else {
+            this.right[parent] = x;
+        }
+        if (this.min == TreapGEQueue.NIL || this._compare(x, this.min) < 0) {
+            this.min = x;
+        }
+    }
+
+    /**
+     * Deletes the element at x from the treap
+     */
+    private void _delete(int x) {
+        int parent = TreapGEQueue.NIL;
+        int t = this.root;
+        if (x == this.min) {
+            // The first element has no left child
+            while (t != x) {
+                parent = t;
+                t = this.left[t];
+            }
+            this._replaceChild(parent, x, this.right[x]);
+            // The next element is the first one in the right subtree, or the parent
+            if (this.right[x] != TreapGEQueue.NIL) {
+                for (t = this.right[x]; this.left[t] != TreapGEQueue.NIL; t = this.left[t]) {}
+                this.min = t;
+            } else {
+                this.min = parent;
+            }
+        } else {
+            while (t != x) {
+                parent = t;
+                t = (this._compare(x, t) < 0) ? this.left[t] : this.right[t];
+            }
+            this._replaceChild(parent, x, this._merge(this.left[x], this.right[x]));
+        }
+    }
+
+    /**
+     * Adds to FOCAL the elements of the subtree t whose f^ is in (lower, upper], in the order of OPEN
+     * (unless they are already there)
+     */
+    private void _addToFocal(int t, double lower, double upper) {
+        while (t != TreapGEQueue.NIL) {
+            if (this.keys[t] > lower) {
+                this._addToFocal(this.left[t], lower, upper);
+                if (this.keys[t] > upper) {
+                    return;
+                }
+                E e = this._elementAt(t);
+                if (e.getIndex(this.focalId) == -1) {
+                    this.focal.add(e);
+                }
+            }
+            t = this.right[t];
+        }
+    }
+
+    /**
+     * Removes from FOCAL the elements of the subtree t whose f^ is in (lower, upper], in the order of
+     * OPEN
+     */
+    private void _removeFromFocal(int t, double lower, double upper) {
+        while (t != TreapGEQueue.NIL) {
+            if (this.keys[t] > lower) {
+                this._removeFromFocal(this.left[t], lower, upper);
+                if (this.keys[t] > upper) {
+                    return;
+                }
+                E e = this._elementAt(t);
+                if (e.getIndex(this.focalId) != -1) {
+                    this.focal.remove(e);
+                }
+            }
+            t = this.right[t];
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return The number of elements in OPEN
+     */
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void add(E e, E oldBest) {
+        int x = this._allocate();
+        double key = this.fHat.get(e);
+        this.elements[x] = e;
+        this.keys[x] = key;
+        this.insertions[x] = this.insertionsCount++;
+        this.priorities[x] = this._nextPriority();
+        e.setIndex(this.openId, x);
+        ++this.size;
+        this._insert(x);
+        // assumes oldBest is still valid
+        if (key <= this.weight * this.fHat.get(oldBest)) {
+            this.focal.add(e);
+        }
+    }
+
+    @Override
+    public void updateFocal(E oldBest, E newBest, int fHatChange) {
+        // did best f^ change?
+        if (oldBest == null || fHatChange != 0) {
+            // did best f^ go down?
+            if (oldBest != null && fHatChange < 0) {
+                this._removeFromFocal(this.root,
+                        this.weight * this.fHat.get(newBest),
+                        this.weight * this.fHat.get(oldBest));
+            // then best f^ when up
+            } else if (oldBest == null || oldBest.getIndex(this.openId) == -1) {
+                this._addToFocal(this.root,
+                        (oldBest == null) ? Double.NEGATIVE_INFINITY : this.weight * this.fHat.get(oldBest),
+                        this.weight * this.fHat.get(newBest));
+            }
+        }
+    }
+
+    @Override
+    public void remove(E e) {
+        int x = this._slotOf(e);
+        this._delete(x);
+        this._release(x, e);
+        if (e.getIndex(this.focalId) != -1) {
+            this.focal.remove(e);
+        }
+    }
+
+    @Override
+    public E pollOpen() {
+        if (this.min == TreapGEQueue.NIL) {
+            return null;
+        }
+        int x = this.min;
+        E e = this._elementAt(x);
+        this._delete(x);
+        this._release(x, e);
+        if (e.getIndex(this.focalId) != -1) {
+            this.focal.remove(e);
+        }
+        return e;
+    }
+
+    @Override
+    public E pollFocal() {
+        E e = this.focal.poll();
+        if (e != null) {
+            int x = this._slotOf(e);
+            this._delete(x);
+            this._release(x, e);
+        }
+        return e;
+    }
+
+    @Override
+    public E peekOpen() {
+        return (this.min == TreapGEQueue.NIL) ? null : this._elementAt(this.min);
+    }
+
+    @Override
+    public E peekFocal() {
+        return this.focal.peek();
+    }
+}
@@ -29,6 +29,7 @@ import java.io.InputStreamReader;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.atomic.LongAdder;
 
 /*
  * DockyardRobot domain
@@ -53,6 +54,10 @@ public class DockyardRobot extends SingleGoalSearchDomain {
     private int robotLocationBitsCount;
     private int positionsBitsCount;
 
+    // The number of times the heuristic was computed (for profiling) - a LongAdder, since the heuristic may be computed
+    // by several threads concurrently
+    private final LongAdder heuristicEvaluations = new LongAdder();
+
     //LoadCost is the cost of loading and unloading the robot.
     //private static final double LoadCost = 0.01;
     //private static final double LoadCost = 0.01d;
@@ -360,6 +365,13 @@ public class DockyardRobot extends SingleGoalSearchDomain {
         return -1;
     }
 
+    /**
+     * @return The number of times the heuristic was computed so far
+     */
+    public long getHeuristicEvaluations() {
+        return this.heuristicEvaluations.sum();
+    }
+
     @Override
     public int maxGeneratedSize() {
         return 6000000;
@@ -415,6 +427,16 @@ public class DockyardRobot extends SingleGoalSearchDomain {
      */
     @Override
     public PackedElement pack(SearchState s) {
+        return new PackedElement(this.packLong(s));
+    }
+
+    @Override
+    public boolean packsIntoSingleLong() {
+        return true;
+    }
+
+    @Override
+    public long packLong(SearchState s) {
         DRobotState state = (DRobotState)s;
         // Current index
         int cur = 0;
@@ -484,7 +506,7 @@ public class DockyardRobot extends SingleGoalSearchDomain {
             }
         */
 
-        return new PackedElement(packed);
+        return packed;
     }
 
     public SearchState unpackLite(PackedElement packed) {
@@ -593,8 +615,13 @@ public class DockyardRobot extends SingleGoalSearchDomain {
     @Override
     public DRobotState unpack(PackedElement packed) {
         assert packed.getLongsCount() == 1;
+        return this.unpackLong(packed.getFirst());
+    }
+
+    @Override
+    public DRobotState unpackLong(long packed) {
         DRobotState dst = new DRobotState();
-        unpack(packed.getFirst(), dst);
+        unpack(packed, dst);
         return dst;
     }
 
@@ -685,6 +712,7 @@ public class DockyardRobot extends SingleGoalSearchDomain {
      * @return A pair of the calculated values in a form of an array
      */
     private double[] hd(DRobotState state) {
+        this.heuristicEvaluations.increment();
         double h = 0;
         double d = 0;
 
@@ -1022,9 +1050,9 @@ public class DockyardRobot extends SingleGoalSearchDomain {
         //dumpState(s);
         //dumpState(drs);
 
-        double p[] = this.hd(drs);
-        drs.h = p[0];
-        drs.d = p[1];
+        // The h and d values are computed only if required (see DRobotState.getH()), so that no
+        // heuristic is computed for duplicates which are dropped by the search
+        drs.h = drs.d = -1;
 
         // PathMax
         /*
@@ -1541,11 +1569,11 @@ public class DockyardRobot extends SingleGoalSearchDomain {
         sb.append("********************************\n");
         // h
         sb.append("h: ");
-        sb.append(state.h);
+        sb.append(state.getH());
         sb.append("\n");
         // d
         sb.append("d: ");
-        sb.append(state.d);
+        sb.append(state.getD());
         sb.append("\n");
         // Location of the robot
         sb.append("robot location: ");
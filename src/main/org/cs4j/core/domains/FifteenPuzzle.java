@@ -17,10 +17,13 @@
 package org.cs4j.core.domains;
 
 import com.carrotsearch.hppc.LongByteHashMap;
+import org.cs4j.core.AbstractableSearchDomain;
+import org.cs4j.core.MutableSearchDomain;
 import org.cs4j.core.Operator;
 import org.cs4j.core.SearchDomain;
 import org.cs4j.core.SearchState;
 import org.cs4j.core.SingleGoalSearchDomain;
+import org.cs4j.core.StateAbstraction;
 import org.cs4j.core.collections.PackedElement;
 import java.io.BufferedReader;
 import java.io.DataInputStream;
@@ -39,7 +42,8 @@ import java.util.TreeMap;
  *
  * @author Matthew Hatem
  */
-public final class FifteenPuzzle extends SingleGoalSearchDomain {
+public final class FifteenPuzzle extends SingleGoalSearchDomain
+        implements MutableSearchDomain, AbstractableSearchDomain {
 
     private final int width = 4;
     private final int height = 4;
@@ -60,6 +64,8 @@ public final class FifteenPuzzle extends SingleGoalSearchDomain {
     private int operatorsNextTiles[][] = new int[tilesNumber][4];
     // The possible operators (each one is represented by the REACHED tile)
     private Operator possibleOperators[] = new Operator[this.tilesNumber];
+    // The maximum number of tiles (besides the blank) whose positions define an abstract state
+    private static final int MAX_ABSTRACTION_TILES = 3;
 
     public enum COST_FUNCTION {
         UNIT,
@@ -286,6 +292,14 @@ public final class FifteenPuzzle extends SingleGoalSearchDomain {
         return (this.heuristicType == HeuristicType.MD);
     }
 
+    /**
+     * Both the costs and the heuristic values are sums of tile costs
+     */
+    @Override
+    public boolean hasIntegralCosts() {
+        return Utils.allIntegral(this.tileCosts);
+    }
+
     @Override
     public void setOptimalSolutionCost(double cost) { }
 
@@ -671,14 +685,207 @@ public final class FifteenPuzzle extends SingleGoalSearchDomain {
     */
 
 
+    /**
+     * The id of an operator is the position of the blank after applying it (which is also the
+     * index of the operator in the possible operators array)
+     */
+    @Override
+    public boolean hasOperatorIds() {
+        return true;
+    }
+
+    @Override
+    public int getOperatorIdsCount() {
+        return this.possibleOperators.length;
+    }
+
+    @Override
+    public int getOperatorId(SearchState s, int index) {
+        return this.operatorsNextTiles[((TileState) s).blank][index];
+    }
+
+    @Override
+    public Operator getOperatorById(int id) {
+        return this.possibleOperators[id];
+    }
+
+    @Override
+    public int getReverseOperatorId(SearchState s, int id) {
+        // The reverse operator moves the blank back to its current position
+        return ((TileState) s).blank;
+    }
+
     @Override
     public SearchState applyOperator(SearchState s, Operator op) {
+        return this.applyOperator(s, ((FifteenPuzzleOperator) op).value);
+    }
+
+    @Override
+    public SearchState applyOperator(SearchState s, int id) {
         TileState ts = (TileState) copy(s);
-        FifteenPuzzleOperator fop = (FifteenPuzzleOperator) op;
+        this._apply(ts, id);
+        return ts;
+    }
+
+    @Override
+    public double getOperatorCost(SearchState s, Operator op) {
+        return this._getTileCost(((TileState) s).tiles[((FifteenPuzzleOperator) op).value]);
+    }
+
+    @Override
+    public Operator apply(SearchState s, Operator op) {
+        TileState ts = (TileState) s;
+        // The operator that moves the blank back to its current position
+        Operator undoOp = this.possibleOperators[ts.blank];
+        this._apply(ts, ((FifteenPuzzleOperator) op).value);
+        return undoOp;
+    }
+
+    /**
+     * Moving the blank back restores the tiles, and also h and d, since they are updated by the
+     * opposite deltas
+     */
+    @Override
+    public void undo(SearchState s, Operator undoOp) {
+        this._apply((TileState) s, ((FifteenPuzzleOperator) undoOp).value);
+    }
+
+    /**
+     * The abstract state is defined by the positions of the blank and of the first tiles - the
+     * number of the tiles (0 - 3, i.e. 16, 240, 3360 or 43680 abstract states) is chosen such that
+     * the number of the abstract states is the closest to the required one (on a logarithmic scale)
+     */
+    @Override
+    public StateAbstraction createAbstraction(int abstractStatesCount) {
+        if (abstractStatesCount < 1) {
+            System.out.println("[ERROR] The number of abstract states must be positive: " + abstractStatesCount);
+            throw new IllegalArgumentException();
+        }
+        int tilesCount = 0;
+        double bestDistance = Double.MAX_VALUE;
+        long count = this.tilesNumber;
+        for (int tiles = 0; tiles <= FifteenPuzzle.MAX_ABSTRACTION_TILES; ++tiles) {
+            double distance = Math.abs(Math.log(count) - Math.log(abstractStatesCount));
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                tilesCount = tiles;
+            }
+            count *= this.tilesNumber - tiles - 1;
+        }
+        return new TilesAbstraction(tilesCount);
+    }
+
+    /**
+     * An abstraction which maps each state to the positions of the blank and of the tiles 1 .. k
+     * (the rest of the tiles are ignored) - the successors of an abstract state are given by
+     * moving the blank, which swaps it with a tracked tile if the tile is located at the new
+     * position of the blank
+     */
+    private final class TilesAbstraction implements StateAbstraction {
+        // The number of the tracked tiles (besides the blank)
+        private final int tilesCount;
+        // Maps the positions of the blank and of the tracked tiles (each one is a base-16 digit, the
+        // blank is the most significant one) to the index of the abstract state (-1 if the positions
+        // aren't distinct)
+        private final int[] indexes;
+        private final int[][] successors;
+
+        private TilesAbstraction(int tilesCount) {
+            int tilesNumber = FifteenPuzzle.this.tilesNumber;
+            this.tilesCount = tilesCount;
+            int positionsCount = (int) Math.pow(tilesNumber, tilesCount + 1);
+            this.indexes = new int[positionsCount];
+            int[] encodedStates = new int[positionsCount];
+            int abstractStatesCount = 0;
+            int[] positions = new int[tilesCount + 1];
+            for (int encoded = 0; encoded < positionsCount; ++encoded) {
+                this._decode(encoded, positions);
+                this.indexes[encoded] = -1;
+                if (this._areDistinct(positions)) {
+                    encodedStates[abstractStatesCount] = encoded;
+                    this.indexes[encoded] = abstractStatesCount++;
+                }
+            }
+            this.successors = new int[abstractStatesCount][];
+            for (int i = 0; i < abstractStatesCount; ++i) {
+                this._decode(encodedStates[i], positions);
+                int blank = positions[0];
+                int operatorsCount = FifteenPuzzle.this.operatorsCount[blank];
+                this.successors[i] = new int[operatorsCount];
+                for (int j = 0; j < operatorsCount; ++j) {
+                    int nextBlank = FifteenPuzzle.this.operatorsNextTiles[blank][j];
+                    int encoded = nextBlank;
+                    for (int t = 1; t <= tilesCount; ++t) {
+                        // The tile which is located at the new position of the blank is moved to its old position
+                        encoded = encoded * tilesNumber + ((positions[t] == nextBlank) ? blank : positions[t]);
+                    }
+                    this.successors[i][j] = this.indexes[encoded];
+                }
+            }
+        }
+
+        /**
+         * Decodes the given positions (the blank is at index 0)
+         */
+        private void _decode(int encoded, int[] positions) {
+            for (int t = this.tilesCount; t >= 0; --t) {
+                positions[t] = encoded % FifteenPuzzle.this.tilesNumber;
+                encoded /= FifteenPuzzle.this.tilesNumber;
+            }
+        }
+
+        private boolean _areDistinct(int[] positions) {
+            for (int i = 0; i < positions.length; ++i) {
+                for (int j = i + 1; j < positions.length; ++j) {
+                    if (positions[i] == positions[j]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int getAbstractStatesCount() {
+            return this.successors.length;
+        }
+
+        /**
+         * NOTE: The positions of the tiles aren't maintained by the states if MD is used, hence the
+         *       tiles are scanned
+         */
+        @Override
+        public int getAbstractState(SearchState state) {
+            TileState ts = (TileState) state;
+            int tilesNumber = FifteenPuzzle.this.tilesNumber;
+            int encoded = ts.blank;
+            for (int t = 1; t <= this.tilesCount; ++t) {
+                int position = 0;
+                while (ts.tiles[position] != t) {
+                    ++position;
+                }
+                encoded = encoded * tilesNumber + position;
+            }
+            return this.indexes[encoded];
+        }
+
+        @Override
+        public int[] getSuccessors(int abstractState) {
+            return this.successors[abstractState];
+        }
+    }
+
+    /**
+     * Moves the blank of the given state to the given position (in place)
+     *
+     * @param ts The state to change
+     * @param id The id of the operator (the future position of the blank)
+     */
+    private void _apply(TileState ts, int id) {
         // Get the updated position of the blank
-        int futureBlankPosition = fop.value;
+        int futureBlankPosition = id;
         // Get the tile that is currently located at a position that will be converted to blank in the next step
-        int currentTileAtFutureBlankPosition = ts.tiles[fop.value];
+        int currentTileAtFutureBlankPosition = ts.tiles[id];
         // Move that tile to the current position of blank
         ts.tiles[ts.blank] = currentTileAtFutureBlankPosition;
         // Update the h and d according to the result deltas
@@ -697,11 +904,20 @@ public final class FifteenPuzzle extends SingleGoalSearchDomain {
             ts.h = computedHD[0];
             ts.d = computedHD[1];
         }
-        return ts;
+    }
+
+    @Override
+    public boolean packsIntoSingleLong() {
+        return true;
     }
 
     @Override
     public PackedElement pack(SearchState s) {
+        return new PackedElement(this.packLong(s));
+    }
+
+    @Override
+    public long packLong(SearchState s) {
         TileState ts = (TileState) s;
         long result = 0;
         // TODO: Sounds that the value of blank is unnecessary
@@ -712,7 +928,7 @@ public final class FifteenPuzzle extends SingleGoalSearchDomain {
         for (int i = 0; i < this.tilesNumber; ++i) {
             result = (result << 4) | ts.tiles[i];
         }
-        return new PackedElement(result);
+        return result;
     }
 
     /**
@@ -752,7 +968,11 @@ public final class FifteenPuzzle extends SingleGoalSearchDomain {
     @Override
     public SearchState unpack(PackedElement packed) {
         assert packed.getLongsCount() == 1;
-        long firstPacked = packed.getFirst();
+        return this.unpackLong(packed.getFirst());
+    }
+
+    @Override
+    public SearchState unpackLong(long firstPacked) {
         TileState ts = new TileState();
         ts.blank = -1;
         // Start from end and go to start
@@ -1,8 +1,11 @@
 package org.cs4j.core.domains;
 
+import org.cs4j.core.AbstractableSearchDomain;
 import org.cs4j.core.MultipleGoalsSearchDomain;
+import org.cs4j.core.MutableSearchDomain;
 import org.cs4j.core.Operator;
 import org.cs4j.core.SearchState;
+import org.cs4j.core.StateAbstraction;
 import org.cs4j.core.collections.PackedElement;
 import org.cs4j.core.collections.Pair;
 import org.cs4j.core.collections.PairInt;
@@ -11,6 +14,7 @@ import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Represents some grid (not a full problem!!!, only the grid!!!
@@ -21,7 +25,8 @@ import java.util.*;
  * Note: The grid is 1-based
  * </p>
  */
-public class GridPathFinding extends MultipleGoalsSearchDomain {
+public class GridPathFinding extends MultipleGoalsSearchDomain
+        implements MutableSearchDomain, AbstractableSearchDomain {
     private static final int NUM_MOVES = 4;
 
     public static final char OBSTACLE_MARKER = '@';
@@ -92,11 +97,19 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
 
     private Map<Integer, Map<Integer, Double>> distancesFromPivots;
 
+    // The interned operators (the id of each operator is its type)
+    private GridPathFindingOperator[] possibleOperators;
     private GridPathFindingOperator[] reverseOperators;
+    // For each operator id, the id of its reverse operator
+    private int[] reverseOperatorIds;
 
     // The cost of the optimal solution
     private double optimalSolutionCost;
 
+    // The number of times the heuristic was computed (for profiling) - a LongAdder, since the heuristic may be computed
+    // by several threads concurrently
+    private final LongAdder heuristicEvaluations = new LongAdder();
+
     public String getInputFileName() {
         return this.inputFileName;
     }
@@ -304,9 +317,14 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
      * NOTE: This function is called only once (by the constructor)
      */
     private void _initializeReverseOperatorsArray() {
+        this.possibleOperators = new GridPathFindingOperator[GridPathFinding.NUM_MOVES];
+        for (int i = 0; i < this.possibleOperators.length; ++i) {
+            this.possibleOperators[i] = new GridPathFindingOperator(i);
+        }
         // 8 is the maximum count of Vacuum Robot operators
         // (4 for regular moves and more 4 for diagonals)
         this.reverseOperators = new GridPathFindingOperator[8];
+        this.reverseOperatorIds = new int[this.map.possibleMovesCount];
         int reversedMovesCount = 0;
         // Go over all the possible moves
         for (int i = 0; i < this.map.possibleMovesCount; i++) {
@@ -318,7 +336,8 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
                     continue;
                 }
                 // Define operator j to be reverse of operator i
-                this.reverseOperators[i] = new GridPathFindingOperator(j);
+                this.reverseOperators[i] = this.possibleOperators[j];
+                this.reverseOperatorIds[i] = j;
                 // Count the number of found 'reverse pairs'
                 ++reversedMovesCount;
                 break;
@@ -748,7 +767,9 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
 
         this.heavy = other.heavy;
         this.agentLocationBitMask = other.agentLocationBitMask;
+        this.possibleOperators = other.possibleOperators;
         this.reverseOperators = other.reverseOperators;
+        this.reverseOperatorIds = other.reverseOperatorIds;
 
         this.heuristicType = other.heuristicType;
         this.pivotsCount = other.pivotsCount;
@@ -857,6 +878,7 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
      * @return The computed value
      */
     private double[] computeHD(GridPathFindingState s) {
+        this.heuristicEvaluations.increment();
         assert this.validGoalsCount() == 1;
         if (this.validGoalsCount() > 1) {
             //this.logger.error("PROBLEMATICCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCCC");
@@ -976,6 +998,15 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
                 (this.heuristicType != HeuristicType.RANDOM_DH_MD);
     }
 
+    /**
+     * All the operators cost 1 and the heuristic values are distances (besides the average of
+     * DH and MD)
+     */
+    @Override
+    public boolean hasIntegralCosts() {
+        return this.heuristicType != HeuristicType.DH_MD_AVERAGE_MD_IF_DH_IS_0;
+    }
+
     @Override
     public void setOptimalSolutionCost(double cost) {
         this.optimalSolutionCost = cost;
@@ -986,6 +1017,13 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
         return this.optimalSolutionCost;
     }
 
+    /**
+     * @return The number of times the heuristic was computed so far
+     */
+    public long getHeuristicEvaluations() {
+        return this.heuristicEvaluations.sum();
+    }
+
     @Override
     public int maxGeneratedSize() {
     	return Integer.MAX_VALUE;
@@ -1530,7 +1568,7 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
         // Go over all the possible moves
         for (int i = 0; i < GridPathFinding.NUM_MOVES; ++i) {
             if (this._isValidMove(state.agentLocation, this.map.possibleMoves[i])) {
-                possibleOperators.add(new GridPathFindingOperator(i));
+                possibleOperators.add(this.possibleOperators[i]);
             }
         }
         // Finally, create the possible operators array
@@ -1555,6 +1593,38 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
         return grs.ops[index];
     }
 
+    /**
+     * The id of an operator is its type (the index of the move)
+     */
+    @Override
+    public boolean hasOperatorIds() {
+        return true;
+    }
+
+    @Override
+    public int getOperatorIdsCount() {
+        return this.possibleOperators.length;
+    }
+
+    @Override
+    public int getOperatorId(SearchState state, int index) {
+        GridPathFindingState grs = (GridPathFindingState)state;
+        if (grs.ops == null) {
+            this._initOps(grs);
+        }
+        return grs.ops[index].type;
+    }
+
+    @Override
+    public Operator getOperatorById(int id) {
+        return this.possibleOperators[id];
+    }
+
+    @Override
+    public int getReverseOperatorId(SearchState state, int id) {
+        return this.reverseOperatorIds[id];
+    }
+
     @Override
     public SearchState copy(SearchState state) {
         return new GridPathFindingState((GridPathFindingState)state);
@@ -1568,11 +1638,21 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
      */
     @Override
     public PackedElement pack(SearchState s) {
+        return new PackedElement(this.packLong(s));
+    }
+
+    @Override
+    public boolean packsIntoSingleLong() {
+        return true;
+    }
+
+    @Override
+    public long packLong(SearchState s) {
         GridPathFindingState state = (GridPathFindingState)s;
         long packed = 0L;
         // pack the location of the agent
         packed |= state.agentLocation & this.agentLocationBitMask;
-        return new PackedElement(packed);
+        return packed;
     }
 
     /**
@@ -1611,8 +1691,13 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
     @Override
     public GridPathFindingState unpack(PackedElement packed) {
         assert packed.getLongsCount() == 1;
+        return this.unpackLong(packed.getFirst());
+    }
+
+    @Override
+    public GridPathFindingState unpackLong(long packed) {
         GridPathFindingState dst = new GridPathFindingState();
-        this.unpack(packed.getFirst(), dst, true);
+        this.unpack(packed, dst, true);
         return dst;
     }
 
@@ -1635,30 +1720,140 @@ public class GridPathFinding extends MultipleGoalsSearchDomain {
      */
     @Override
     public SearchState applyOperator(SearchState state, Operator op) {
+        return this.applyOperator(state, ((GridPathFindingOperator)op).type);
+    }
+
+    @Override
+    public SearchState applyOperator(SearchState state, int id) {
         GridPathFindingState s = (GridPathFindingState)state;
         GridPathFindingState grs = (GridPathFindingState)copy(s);
-        GridPathFindingOperator o = (GridPathFindingOperator)op;
 
+        this._move(grs, id);
+        grs.depth++;
+        // The h and d values are computed only if required (see GridPathFindingState.getH()), so
+        // that no heuristic is computed for duplicates which are dropped by the search
+        grs.h = grs.d = -1;
+        grs.parent = s;
+
+        //dumpState(s);
+        //dumpState(vrs);
+        return grs;
+    }
+
+    @Override
+    public double getOperatorCost(SearchState state, Operator op) {
+        // Like GridPathFindingOperator.getCost()
+        return 1.0d;
+    }
+
+    @Override
+    public Operator apply(SearchState state, Operator op) {
+        GridPathFindingState grs = (GridPathFindingState)state;
+        int type = ((GridPathFindingOperator)op).type;
+        this._move(grs, type);
+        grs.depth++;
+        this._updateHD(grs);
+        return this.reverseOperators[type];
+    }
+
+    @Override
+    public void undo(SearchState state, Operator undoOp) {
+        GridPathFindingState grs = (GridPathFindingState)state;
+        this._move(grs, ((GridPathFindingOperator)undoOp).type);
+        grs.depth--;
+        this._updateHD(grs);
+    }
+
+    /**
+     * Moves the agent of the given state (in place) - h and d should be updated afterwards
+     *
+     * @param grs The state to change
+     * @param id The id of the operator (the type of the move)
+     */
+    private void _move(GridPathFindingState grs, int id) {
         grs.ops = null; // reset operators
+        grs.allHs = null;
 
         // Assure the type of the operator is actually a move
-        if (o.type < 0 || o.type > 3) {
-            System.err.println("Unknown operator type " + o.type);
+        if (id < 0 || id > 3) {
+            System.err.println("Unknown operator type " + id);
             System.exit(1);
         }
         // Update the location of the robot
-        grs.agentLocation += this.map.possibleMoves[o.type].delta;
-
-        grs.depth++;
+        grs.agentLocation += this.map.possibleMoves[id].delta;
+    }
 
+    private void _updateHD(GridPathFindingState grs) {
         double p[] = this.computeHD(grs);
         grs.h = p[0];
         grs.d = p[1];
-        grs.parent = s;
+    }
 
-        //dumpState(s);
-        //dumpState(vrs);
-        return grs;
+    /**
+     * The grid is partitioned into square blocks, whose side is chosen such that the number of the
+     * blocks is close to the required number
+     */
+    @Override
+    public StateAbstraction createAbstraction(int abstractStatesCount) {
+        if (abstractStatesCount < 1) {
+            System.out.println("[ERROR] The number of abstract states must be positive: " + abstractStatesCount);
+            throw new IllegalArgumentException();
+        }
+        int side = (int) Math.max(1, Math.round(Math.sqrt((double) this.map.mapSize / abstractStatesCount)));
+        return new BlocksAbstraction(side);
+    }
+
+    /**
+     * An abstraction which maps each location of the agent to the square block of the grid that
+     * contains it - the successors of a block are the adjacent blocks in the directions of the
+     * possible moves (since a single move never skips a block)
+     */
+    private final class BlocksAbstraction implements StateAbstraction {
+        // The side of a single block
+        private final int side;
+        private final int blocksInRow;
+        private final int[][] successors;
+
+        private BlocksAbstraction(int side) {
+            GridMap map = GridPathFinding.this.map;
+            this.side = side;
+            this.blocksInRow = (map.mapWidth + side - 1) / side;
+            int blocksInColumn = (map.mapHeight + side - 1) / side;
+            this.successors = new int[this.blocksInRow * blocksInColumn][];
+            for (int block = 0; block < this.successors.length; ++block) {
+                int x = block % this.blocksInRow;
+                int y = block / this.blocksInRow;
+                int[] blockSuccessors = new int[map.possibleMovesCount + 1];
+                int count = 0;
+                blockSuccessors[count++] = block;
+                for (int i = 0; i < map.possibleMovesCount; ++i) {
+                    int nextX = x + map.possibleMoves[i].dx;
+                    int nextY = y + map.possibleMoves[i].dy;
+                    if (nextX >= 0 && nextX < this.blocksInRow && nextY >= 0 && nextY < blocksInColumn) {
+                        blockSuccessors[count++] = nextY * this.blocksInRow + nextX;
+                    }
+                }
+                this.successors[block] = Arrays.copyOf(blockSuccessors, count);
+            }
+        }
+
+        @Override
+        public int getAbstractStatesCount() {
+            return this.successors.length;
+        }
+
+        @Override
+        public int getAbstractState(SearchState state) {
+            int location = ((GridPathFindingState) state).agentLocation;
+            int x = location % GridPathFinding.this.map.mapWidth;
+            int y = location / GridPathFinding.this.map.mapWidth;
+            return (y / this.side) * this.blocksInRow + x / this.side;
+        }
+
+        @Override
+        public int[] getSuccessors(int abstractState) {
+            return this.successors[abstractState];
+        }
     }
 
     private final class GridPathFindingOperator implements Operator {
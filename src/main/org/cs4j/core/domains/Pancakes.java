@@ -1,5 +1,6 @@
 package org.cs4j.core.domains;
 
+import org.cs4j.core.MutableSearchDomain;
 import org.cs4j.core.Operator;
 import org.cs4j.core.SearchDomain;
 import org.cs4j.core.SearchState;
@@ -16,7 +17,7 @@ import java.util.TreeMap;
  * The pancake problem is a famous search problem where the objective is to sort a sequence of
  * objects (pancakes) through a minimal number of prefix reversals (flips).
  */
-public class Pancakes extends SingleGoalSearchDomain {
+public class Pancakes extends SingleGoalSearchDomain implements MutableSearchDomain {
 
     // The parameter k for GAP-k heuristic (means that k pancakes are ignored during heuristic calculation
     // [starting from 0])
@@ -194,22 +195,49 @@ public class Pancakes extends SingleGoalSearchDomain {
     private double _countGaps(int cakes[], boolean unitCost, boolean useK) {
         double gapsCount = 0;
         for (int i = Pancakes.MIN_PANCAKE_FOR_PDB; i <= this.maxPancakeForPDB; ++i) {
-            if (this._hasGap(cakes, i, useK)) {
-                if(unitCost) gapsCount += 1.0;
-                else {
-                    int a = cakes[i];
-                    //if it is the last cake
-                    if(i + 1 == this.numCakes){
-                        gapsCount += this.tileCosts[a];
-                    }
-                    else gapsCount += Math.min(this.tileCosts[a], this.tileCosts[cakes[i + 1]]);
-                    // Each gap costs the the minimal cake+1
-                }
-            }
+            gapsCount += this._gapCost(cakes, i, unitCost, useK);
         }
         return gapsCount;
     }
 
+    /**
+     * Calculates the contribution of a single gap (between the cakes n and n+1) to the heuristic
+     *
+     * @param cakes The pancakes array
+     * @param n The pancake to check
+     * @param unitCost use wighted function or not
+     * @param useK Whether to refer to the value of k
+     *
+     * @return The cost of the gap (0 if there is no gap)
+     */
+    private double _gapCost(int cakes[], int n, boolean unitCost, boolean useK) {
+        if (!this._hasGap(cakes, n, useK)) {
+            return 0;
+        }
+        if (unitCost) {
+            return 1.0;
+        }
+        int a = cakes[n];
+        //if it is the last cake
+        if (n + 1 == this.numCakes) {
+            return this.tileCosts[a];
+        }
+        // Each gap costs the the minimal cake+1
+        return Math.min(this.tileCosts[a], this.tileCosts[cakes[n + 1]]);
+    }
+
+    /**
+     * Checks whether the gaps can be updated incrementally on a flip: a flip only reverses the
+     * order of the pairs of adjacent cakes in the flipped portion, hence only the gap below that
+     * portion can change. This holds only if all the gaps are counted (no PDB range) and only if
+     * the GAP-k heuristic isn't used (since it treats the two cakes of a pair differently)
+     */
+    private boolean _gapsAreIncremental() {
+        return this.k == 0 &&
+                Pancakes.MIN_PANCAKE_FOR_PDB == 0 &&
+                this.maxPancakeForPDB == this.numCakes - 1;
+    }
+
     /**
      * Same as the above _countGaps function, but the value of k is used
      *
@@ -241,6 +269,14 @@ public class Pancakes extends SingleGoalSearchDomain {
         return true;
     }
 
+    /**
+     * Both the costs and the heuristic values are (sums of) costs of cakes
+     */
+    @Override
+    public boolean hasIntegralCosts() {
+        return Utils.allIntegral(this.tileCosts);
+    }
+
     @Override
     public void setOptimalSolutionCost(double cost) { }
 
@@ -271,10 +307,97 @@ public class Pancakes extends SingleGoalSearchDomain {
         return this.possibleOperators[nth];
     }
 
+    /**
+     * The id of an operator is its index in the possible operators array (flips the top id + 1
+     * pancakes)
+     */
+    @Override
+    public boolean hasOperatorIds() {
+        return true;
+    }
+
+    @Override
+    public int getOperatorIdsCount() {
+        return this.possibleOperators.length;
+    }
+
+    @Override
+    public int getOperatorId(SearchState state, int nth) {
+        return nth;
+    }
+
+    @Override
+    public Operator getOperatorById(int id) {
+        return this.possibleOperators[id];
+    }
+
+    @Override
+    public int getReverseOperatorId(SearchState state, int id) {
+        // Each flip is reversed by itself
+        return id;
+    }
+
     @Override
     public SearchState applyOperator(SearchState state, Operator op) {
+        return this.applyOperator(state, ((PancakeOperator)op).value - 1);
+    }
+
+    @Override
+    public SearchState applyOperator(SearchState state, int id) {
         PancakeState pancakeState = (PancakeState)copy(state);
+        this._apply(pancakeState, id);
+        return pancakeState;
+    }
+
+    @Override
+    public double getOperatorCost(SearchState state, Operator op) {
+        PancakeState ps = (PancakeState)state;
         int pancakeOperator = ((PancakeOperator)op).value;
+        // The same as computeCost() on the child: the separated pancake is the one that will be on
+        // the top and the bottom one isn't moved by the flip
+        int separated = ps.cakes[pancakeOperator];
+        int bottom;
+        if (pancakeOperator < this.numCakes - 1) {
+            bottom = ps.cakes[pancakeOperator + 1];
+        } else {
+            bottom = ps.cakes[0];
+        }
+        return Math.max(this.tileCosts[separated], this.tileCosts[bottom]);
+    }
+
+    @Override
+    public Operator apply(SearchState state, Operator op) {
+        this._apply((PancakeState)state, ((PancakeOperator)op).value - 1);
+        // Each flip is reversed by itself
+        return op;
+    }
+
+    @Override
+    public void undo(SearchState state, Operator undoOp) {
+        this._apply((PancakeState)state, ((PancakeOperator)undoOp).value - 1);
+    }
+
+    /**
+     * Flips the top of the stack of the given state (in place) and updates the heuristic values
+     * (incrementally if possible - see _gapsAreIncremental())
+     *
+     * @param pancakeState The state to change
+     * @param id The id of the operator (flips the top id + 1 pancakes)
+     */
+    private void _apply(PancakeState pancakeState, int id) {
+        int pancakeOperator = id + 1;
+        if (this._gapsAreIncremental()) {
+            // Only the gap between the flipped portion and the rest of the stack may change
+            double hDelta = -this._gapCost(pancakeState.cakes, pancakeOperator, false, true);
+            double dDelta = -this._gapCost(pancakeState.cakes, pancakeOperator, true, true);
+            pancakeState.flipTopStackPortion(pancakeOperator);
+            hDelta += this._gapCost(pancakeState.cakes, pancakeOperator, false, true);
+            dDelta += this._gapCost(pancakeState.cakes, pancakeOperator, true, true);
+            pancakeState.h += hDelta;
+            pancakeState.d += dDelta;
+            pancakeState.dNoGaps = pancakeState.d;
+            return;
+        }
         // Flip the top of the stack
         pancakeState.flipTopStackPortion(pancakeOperator);
         pancakeState.h = this._countGaps(pancakeState.cakes, false);
@@ -285,7 +408,6 @@ public class Pancakes extends SingleGoalSearchDomain {
             // Calc d without k
             pancakeState.dNoGaps = this._countGaps(pancakeState.cakes, true, false);
         }
-        return pancakeState;
     }
 
     @Override
@@ -1,6 +1,7 @@
 package org.cs4j.core.domains;
 
 import com.carrotsearch.hppc.LongByteHashMap;
+import org.cs4j.core.MutableSearchDomain;
 import org.cs4j.core.Operator;
 import org.cs4j.core.SearchDomain;
 import org.cs4j.core.SearchState;
@@ -22,7 +23,7 @@ import java.util.Map;
  * Created by user on 17/12/2015.
  *
  */
-public class TopSpin extends SingleGoalSearchDomain {
+public class TopSpin extends SingleGoalSearchDomain implements MutableSearchDomain {
 
     private static final int INDEX_OF_PDB_INDEX = 0;
     private static final int INDEX_OF_PDB_ENTRIES_COUNT = 1;
@@ -40,8 +41,9 @@ public class TopSpin extends SingleGoalSearchDomain {
 
     private Map<Integer, SinglePDB> pdbs;
 
-    private int[] tokensForGoalCheck;
-    private int[] reflectedTokens;
+    // The scratch buffers of the heuristic calculation and of the goal check, one per thread (the PDBs are shared by
+    // all the threads - see the thread-safety contract of SearchDomain)
+    private ThreadLocal<EvaluationContext> evaluationContext;
 
     private enum HeuristicType {
         //LOCATION_BASED,
@@ -54,8 +56,6 @@ public class TopSpin extends SingleGoalSearchDomain {
 
     // The maximum available number of PDBs to deal with
     private static final int MAX_PDBS_COUNT = 100;
-    // Rerquired for calculating random heuristic
-    private double[] allHeuristicValues;
     private int actualPDBsCount;
 
     private static final Map<String, Class> TopSpinPossibleParameters;
@@ -180,8 +180,12 @@ public class TopSpin extends SingleGoalSearchDomain {
             this.possibleOperators[i] = new TopSpinOperator(i);
         }
         //this.__initShouldSkipOperatorsMatrix();
-        this.tokensForGoalCheck = new int[this.tokensNumber];
-        this.reflectedTokens = new int[this.tokensNumber];
+        this.evaluationContext = new ThreadLocal<EvaluationContext>() {
+            @Override
+            protected EvaluationContext initialValue() {
+                return new EvaluationContext();
+            }
+        };
     }
 
     /**
@@ -213,7 +217,6 @@ public class TopSpin extends SingleGoalSearchDomain {
                 this.init[i] = t;
             }
             // Initialize fields relevant for heuristic calculation
-            this.allHeuristicValues = new double[TopSpin.MAX_PDBS_COUNT];
             this.actualPDBsCount = 0;
             reader.close();
         } catch(IOException e) {
@@ -251,6 +254,14 @@ public class TopSpin extends SingleGoalSearchDomain {
         return this.heuristicType != heuristicType.RANDOM;
     }
 
+    /**
+     * All the operators cost 1 and the heuristic values are taken from PDBs of unit costs
+     */
+    @Override
+    public boolean hasIntegralCosts() {
+        return true;
+    }
+
     @Override
     public void setOptimalSolutionCost(double cost) { }
 
@@ -286,10 +297,11 @@ public class TopSpin extends SingleGoalSearchDomain {
      * @param reflectionIndex The index which is added to every token
      *
      * @param tokens The tokens to reflect (taken from the state)
+     * @param reflectedTokens The output array
      */
-    private void _calculateReflection(int reflectionIndex, int[] tokens) {
+    private void _calculateReflection(int reflectionIndex, int[] tokens, int[] reflectedTokens) {
         for (int i = 0; i < this.tokensNumber; ++i) {
-            this.reflectedTokens[i] = (tokens[i] + reflectionIndex) % this.tokensNumber;
+            reflectedTokens[i] = (tokens[i] + reflectionIndex) % this.tokensNumber;
         }
     }
 
@@ -306,16 +318,17 @@ public class TopSpin extends SingleGoalSearchDomain {
 
         double hMax = 0;
 
+        EvaluationContext context = this.evaluationContext.get();
         int index = 0;
         for (Map.Entry<Integer, SinglePDB> currentPDBEntry : this.pdbs.entrySet()) {
             SinglePDB currentPDB = currentPDBEntry.getValue();
             int zeroToken = currentPDB.getFirstTokenInPattern();
             // If the current token is a part of the pattern
             if (zeroToken >= 0) {
-                this._calculateReflection(this.tokensNumber - zeroToken, state.tokens);
+                this._calculateReflection(this.tokensNumber - zeroToken, state.tokens, context.reflectedTokens);
                 try {
-                    double currentHValue = currentPDB.getH(this.reflectedTokens);
-                    this.allHeuristicValues[index++] = currentHValue;
+                    double currentHValue = currentPDB.getH(context.reflectedTokens, context);
+                    context.allHeuristicValues[index++] = currentHValue;
                     hMax = Math.max(hMax, currentHValue);
                 } catch (InvalidKeyException e) {
                     // Bypass
@@ -330,7 +343,7 @@ public class TopSpin extends SingleGoalSearchDomain {
             }
             case RANDOM: {
                 int hIndex = Utils.sumOfArrayValues(state.tokens) % this.actualPDBsCount;
-                h = this.allHeuristicValues[hIndex];
+                h = context.allHeuristicValues[hIndex];
                 break;
             }
             default: {
@@ -381,9 +394,10 @@ public class TopSpin extends SingleGoalSearchDomain {
     @Override
     public boolean isGoal(SearchState s) {
         TopSpinState state = (TopSpinState) s;
-        this._rotateArrayToZero(state.tokens, this.tokensForGoalCheck);
+        int[] tokensForGoalCheck = this.evaluationContext.get().tokensForGoalCheck;
+        this._rotateArrayToZero(state.tokens, tokensForGoalCheck);
         for (int i = 0; i < this.tokensNumber - 1; ++i) {
-            if (this.tokensForGoalCheck[i] > this.tokensForGoalCheck[i + 1]) {
+            if (tokensForGoalCheck[i] > tokensForGoalCheck[i + 1]) {
                 return false;
             }
         }
@@ -401,36 +415,88 @@ public class TopSpin extends SingleGoalSearchDomain {
         return this.possibleOperators[nth];
     }
 
+    /**
+     * The id of an operator is the index of the first token it spins
+     */
+    @Override
+    public boolean hasOperatorIds() {
+        return true;
+    }
+
+    @Override
+    public int getOperatorIdsCount() {
+        return this.possibleOperators.length;
+    }
+
+    @Override
+    public int getOperatorId(SearchState state, int nth) {
+        return nth;
+    }
+
+    @Override
+    public Operator getOperatorById(int id) {
+        return this.possibleOperators[id];
+    }
+
+    @Override
+    public int getReverseOperatorId(SearchState state, int id) {
+        // Like TopSpinOperator.reverse(): no reverse is defined
+        return SearchDomain.NO_OPERATOR_ID;
+    }
+
     @Override
     public SearchState applyOperator(SearchState state, Operator op) {
-        TopSpinState s = (TopSpinState) state;
-        TopSpinState tss = (TopSpinState) copy(s);
-
-        TopSpinOperator o = (TopSpinOperator) op;
-        int tmp = (((TopSpin.this.spinSize - 1) + o.index) % this.tokensNumber);
-        int aVal = -1;
-        // Go over the reverse cycle
-        for (int i = 0; i <= (TopSpin.this.spinSize >> 1); ++i) {
-            int fromIndex = (o.index + i) % TopSpin.this.tokensNumber;
-            int toIndex = tmp;
-            tss.tokens[fromIndex] = s.tokens[toIndex];
-            tss.tokens[toIndex] = s.tokens[fromIndex];
-            if (tmp > TopSpin.this.tokensNumber) {
-                aVal = 1;
-                tmp = 0;
-            } else {
-                tmp += aVal;
-            }
-            if (tmp < 0) {
-                tmp = (TopSpin.this.tokensNumber - 1);
+        return this.applyOperator(state, ((TopSpinOperator) op).index);
+    }
+
+    @Override
+    public SearchState applyOperator(SearchState state, int id) {
+        TopSpinState tss = (TopSpinState) copy(state);
+        this._apply(tss, id);
+        return tss;
+    }
+
+    @Override
+    public double getOperatorCost(SearchState state, Operator op) {
+        // Like TopSpinOperator.getCost()
+        return 1.0;
+    }
+
+    @Override
+    public Operator apply(SearchState state, Operator op) {
+        this._apply((TopSpinState) state, ((TopSpinOperator) op).index);
+        // Spinning the same tokens again restores the state
+        return op;
+    }
+
+    @Override
+    public void undo(SearchState state, Operator undoOp) {
+        this._apply((TopSpinState) state, ((TopSpinOperator) undoOp).index);
+    }
+
+    /**
+     * Spins (reverses) the spinSize tokens that start at the given index (in place) and updates the
+     * heuristic values
+     *
+     * @param tss The state to change
+     * @param id The id of the operator (the index of the first spun token)
+     */
+    private void _apply(TopSpinState tss, int id) {
+        int toIndex = (((TopSpin.this.spinSize - 1) + id) % this.tokensNumber);
+        // Go over the reverse cycle (swap pairs of tokens from both of its sides)
+        for (int i = 0; i < (TopSpin.this.spinSize >> 1); ++i) {
+            int fromIndex = (id + i) % TopSpin.this.tokensNumber;
+            int tmp = tss.tokens[fromIndex];
+            tss.tokens[fromIndex] = tss.tokens[toIndex];
+            tss.tokens[toIndex] = tmp;
+            --toIndex;
+            if (toIndex < 0) {
+                toIndex = (TopSpin.this.tokensNumber - 1);
             }
         }
         double[] hd = this._computeHD(tss);
         tss.h = hd[0];
         tss.d = hd[1];
-        //s.dumpState();
-        //tss.dumpState();
-        return tss;
     }
 
     @Override
@@ -572,6 +638,33 @@ public class TopSpin extends SingleGoalSearchDomain {
         }
     }
 
+    /**
+     * The scratch buffers which are used for calculating the heuristic value of a state and for checking whether a
+     * state is a goal - each thread has its own context, such that the domain (and its PDBs) can be shared by several
+     * threads
+     */
+    private class EvaluationContext {
+        // The tokens of the checked state, rotated such that token with value 0 is at position 0
+        private int[] tokensForGoalCheck;
+        // The tokens of the state, reflected such that the first token of the pattern of the current PDB is 0
+        private int[] reflectedTokens;
+        // The values of all the PDBs (required for calculating random heuristic)
+        private double[] allHeuristicValues;
+        // A temporary array of the input state (tokens), rotates such that token with value 0 is at position 0
+        private int[] rotatedTokensForHeuristicCalculation;
+        // The positions of the tokens for a given state in order to calculate the heuristic value (recalculated for
+        // each heuristic calculation, and large enough for a pattern of all the tokens)
+        private int[] tokensPositionsForHeuristicCalculation;
+
+        private EvaluationContext() {
+            this.tokensForGoalCheck = new int[TopSpin.this.tokensNumber];
+            this.reflectedTokens = new int[TopSpin.this.tokensNumber];
+            this.allHeuristicValues = new double[TopSpin.MAX_PDBS_COUNT];
+            this.rotatedTokensForHeuristicCalculation = new int[TopSpin.this.tokensNumber];
+            this.tokensPositionsForHeuristicCalculation = new int[TopSpin.this.tokensNumber + 1];
+        }
+    }
+
     /**
      * A class that contains all the relevant information for a single PDB of the TopSpin problem
      */
@@ -591,11 +684,8 @@ public class TopSpin extends SingleGoalSearchDomain {
         // Determines for each token of the pattern, the location is it located on
         private int[] locationOfPatternInTokens;
 
-        // A temporary array of the input state (tokens), rotates such that token with value 0 is at position 0
-        private int[] rotatedTokensForHeuristicCalculation;
-        // The positions of the tokens for a given state in order to calculate the heuristic value
-        private int[] tokensPositionsForHeuristicCalculation;
-
+        // NOTE: The PDB is read once and then only read, hence it is shared by all the threads (the temporary arrays of
+        //       the heuristic calculation are taken from the EvaluationContext of the current thread)
         private LongByteHashMap pdb;
 
         /**
@@ -644,11 +734,12 @@ public class TopSpin extends SingleGoalSearchDomain {
          * the pattern which is represented by the current heuristic
          *
          * @param tokens The state (array of tokens)
+         * @param tokensPositions The output array
          */
-        private void __calculateTokensPositionsForHeuristicCalculation(int[] tokens) {
+        private void __calculateTokensPositionsForHeuristicCalculation(int[] tokens, int[] tokensPositions) {
             for (int i = 0; i < TopSpin.this.tokensNumber; ++i) {
                 if (this.tokenBelongsToPattern[tokens[i]]) {
-                    this.tokensPositionsForHeuristicCalculation[this.locationOfPatternInTokens[tokens[i]]] = i - 1;
+                    tokensPositions[this.locationOfPatternInTokens[tokens[i]]] = i - 1;
                 }
             }
         }
@@ -678,18 +769,27 @@ public class TopSpin extends SingleGoalSearchDomain {
             return previousZeroLocation;
         }
 
-        private long _getHashIndex(int[] tokens) {
+        private long _getHashIndex(int[] tokens, EvaluationContext context) {
             // First, rotate the state and get the dual representation
-            this.__rotateArray(0, tokens, this.rotatedTokensForHeuristicCalculation);
-            //System.out.println("rotated : " + Arrays.toString(this.rotatedTokensForHeuristicCalculation));
-            this.__calculateTokensPositionsForHeuristicCalculation(this.rotatedTokensForHeuristicCalculation);
+            this.__rotateArray(0, tokens, context.rotatedTokensForHeuristicCalculation);
+            //System.out.println("rotated : " + Arrays.toString(context.rotatedTokensForHeuristicCalculation));
+            this.__calculateTokensPositionsForHeuristicCalculation(context.rotatedTokensForHeuristicCalculation,
+                    context.tokensPositionsForHeuristicCalculation);
             // Calculate the hash index
-            //System.out.println(Arrays.toString(this.tokensPositionsForHeuristicCalculation));
-            return this.__getHashNIndex(this.tokensPositionsForHeuristicCalculation);
+            //System.out.println(Arrays.toString(context.tokensPositionsForHeuristicCalculation));
+            return this.__getHashNIndex(context.tokensPositionsForHeuristicCalculation);
         }
 
-        public double getH(int[] tokens) throws InvalidKeyException {
-            long index = this._getHashIndex(tokens);
+        /**
+         * @param tokens The state (array of tokens)
+         * @param context The scratch buffers of the current thread
+         *
+         * @return The value of the state in the PDB
+         *
+         * @throws InvalidKeyException If the hash index of the state isn't in the PDB
+         */
+        public double getH(int[] tokens, EvaluationContext context) throws InvalidKeyException {
+            long index = this._getHashIndex(tokens, context);
             // Assert index is valid
             if (index < 0 || index >= this.entriesCount) {
                 System.out.println("[ERROR] Invalid PDB hash index for the state " + Arrays.toString(tokens) +
@@ -736,7 +836,6 @@ public class TopSpin extends SingleGoalSearchDomain {
             assert readImmediately == true;
             this.tokenBelongsToPattern = new boolean[TopSpin.this.tokensNumber];
             this.locationOfPatternInTokens = new int[TopSpin.this.tokensNumber];
-            this.rotatedTokensForHeuristicCalculation = new int[TopSpin.this.tokensNumber];
 
             this.entriesCount = entriesCount;
             this.tokensInPattern = tokensInPattern;
@@ -760,8 +859,6 @@ public class TopSpin extends SingleGoalSearchDomain {
                         this.tokenBelongsToPattern[currentToken] = true;
                         this.locationOfPatternInTokens[currentToken] = acc++;
                     }
-                    // This array will be recalculated for each heuristic calculation
-                    this.tokensPositionsForHeuristicCalculation = new int[this.tokensInPattern.length + 1];
                 } catch (IOException e) {
                     // Delimit the percentage of read printing
                     System.out.println();
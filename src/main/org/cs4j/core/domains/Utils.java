@@ -156,6 +156,22 @@ public class Utils {
         return sum;
     }
 
+    /**
+     * Checks whether all the values of the given array are integral
+     *
+     * @param array The array whose values should be checked
+     *
+     * @return true if all the values are integral, false otherwise
+     */
+    static boolean allIntegral(double[] array) {
+        for (double val : array) {
+            if (val != Math.rint(val)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * An auxiliary function for throwing some fatal error and exit
      *
@@ -26,6 +26,10 @@ public class VacuumRobot extends SingleGoalSearchDomain {
     // 8 is the maximum count of Vacuum Robot operators
     // (4 for regular moves and more 4 for diagonals)
     private VacuumRobotOperator[] reverseOperators = new VacuumRobotOperator[8];
+    // The interned operators: the moves and SUCK (the id of each operator is its type)
+    private VacuumRobotOperator[] possibleOperators;
+    // For each operator id, the id of its reverse operator
+    private int[] reverseOperatorIds;
 
     private Vector<PairInt> dirtyLocations = new Vector<>();
     // Will be size of dirtyLocations (dirtyLocations.size())
@@ -52,8 +56,6 @@ public class VacuumRobot extends SingleGoalSearchDomain {
 
     private static final Map<String, Class> VacuumPossibleParameters;
 
-    private int[] minDirtDistance = new int[2];
-
     // Declare the parameters that can be tunes before running the search
     static
     {
@@ -92,13 +94,13 @@ public class VacuumRobot extends SingleGoalSearchDomain {
         // Add a SUCK operator if the current location of the robot is dirty
         // TODO: dirt can't be lower than 0 - it is an index of an array!
         if (dirt >= 0 && state.isDirty(dirt)) {
-            possibleOperators.add(new VacuumRobotOperator(VacuumRobotOperator.SUCK));
+            possibleOperators.add(this.possibleOperators[VacuumRobotOperator.SUCK]);
             // Otherwise, let's add all the possible moves that the robot can perform
         } else {
             // Go ovr all the possible moves
             for (int i = 0; i < VacuumRobot.NUM_MOVES; ++i) {
                 if (this._isValidMove(state.robotLocation, this.map.possibleMoves[i])) {
-                    possibleOperators.add(new VacuumRobotOperator(i));
+                    possibleOperators.add(this.possibleOperators[i]);
                 }
             }
         }
@@ -112,6 +114,11 @@ public class VacuumRobot extends SingleGoalSearchDomain {
      * NOTE: This function is called only once (by the constructor)
      */
     private void _initializeReverseOperatorsArray() {
+        this.possibleOperators = new VacuumRobotOperator[VacuumRobotOperator.SUCK + 1];
+        for (int i = 0; i < this.possibleOperators.length; ++i) {
+            this.possibleOperators[i] = new VacuumRobotOperator(i);
+        }
+        this.reverseOperatorIds = new int[this.possibleOperators.length];
         int reversedMovesCount = 0;
         // Go over all the possible moves
         for (int i = 0; i < this.map.possibleMovesCount; i++) {
@@ -123,7 +130,8 @@ public class VacuumRobot extends SingleGoalSearchDomain {
                     continue;
                 }
                 // Define operator j to be reverse of operator i
-                this.reverseOperators[i] = new VacuumRobotOperator(j);
+                this.reverseOperators[i] = this.possibleOperators[j];
+                this.reverseOperatorIds[i] = j;
                 // Count the number of found 'reverse pairs'
                 ++reversedMovesCount;
                 break;
@@ -134,6 +142,7 @@ public class VacuumRobot extends SingleGoalSearchDomain {
         // Finally, add a reverse operator for SUCK: NOP
         this.reverseOperators[VacuumRobotOperator.SUCK] =
                 new VacuumRobotOperator(VacuumRobotOperator.NOP);
+        this.reverseOperatorIds[VacuumRobotOperator.SUCK] = SearchDomain.NO_OPERATOR_ID;
     }
 
     /**
@@ -703,10 +712,9 @@ public class VacuumRobot extends SingleGoalSearchDomain {
                 minDirtyDist = currentDist;
             }
         }
-        minDirtDistance[0]=minDirtyIndex;
-        minDirtDistance[1]=minDirtyDist;
-        return minDirtDistance;
-//        return new int[]{minDirtyIndex, minDirtyDist};
+        // NOTE: A new array is returned (rather than a buffer of the domain), since the heuristic may be calculated by
+        //       several threads concurrently (see the thread-safety contract of SearchDomain)
+        return new int[]{minDirtyIndex, minDirtyDist};
     }
 
     private boolean checkDirty(boolean[] ignoreIndexes, VacuumRobotState s, int n){
@@ -1308,6 +1316,38 @@ public class VacuumRobot extends SingleGoalSearchDomain {
         return vrs.ops[index];
     }
 
+    /**
+     * The id of an operator is its type (the index of the move or SUCK)
+     */
+    @Override
+    public boolean hasOperatorIds() {
+        return true;
+    }
+
+    @Override
+    public int getOperatorIdsCount() {
+        return this.possibleOperators.length;
+    }
+
+    @Override
+    public int getOperatorId(SearchState state, int index) {
+        VacuumRobotState vrs = (VacuumRobotState)state;
+        if (vrs.ops == null) {
+            this.initOps(vrs);
+        }
+        return vrs.ops[index].type;
+    }
+
+    @Override
+    public Operator getOperatorById(int id) {
+        return this.possibleOperators[id];
+    }
+
+    @Override
+    public int getReverseOperatorId(SearchState state, int id) {
+        return this.reverseOperatorIds[id];
+    }
+
     @Override
     public SearchState copy(SearchState state) {
         return new VacuumRobotState((VacuumRobotState)state);
@@ -1441,13 +1481,17 @@ public class VacuumRobot extends SingleGoalSearchDomain {
      */
     @Override
     public SearchState applyOperator(SearchState state, Operator op) {
+        return this.applyOperator(state, ((VacuumRobotOperator)op).type);
+    }
+
+    @Override
+    public SearchState applyOperator(SearchState state, int id) {
         VacuumRobotState s = (VacuumRobotState)state;
         VacuumRobotState vrs = (VacuumRobotState)copy(s);
-        VacuumRobotOperator o = (VacuumRobotOperator)op;
 
         vrs.ops = null; // reset ops
 
-        switch (o.type) {
+        switch (id) {
             case VacuumRobotOperator.SUCK: {
                 // Get the dirty location in the dirty locations vector
                 int dirt = this.dirt[s.robotLocation];
@@ -1464,12 +1508,12 @@ public class VacuumRobot extends SingleGoalSearchDomain {
             // All other operators are MOVE
             default: {
                 // Assure the type of the operator is actually a move
-                if (o.type < 0 || o.type > 3) {
-                    System.err.println("Unknown operator type " + o.type);
+                if (id < 0 || id > 3) {
+                    System.err.println("Unknown operator type " + id);
                     System.exit(1);
                 }
                 // Update the location of the robot
-                vrs.robotLocation += this.map.possibleMoves[o.type].delta;
+                vrs.robotLocation += this.map.possibleMoves[id].delta;
             }
         }
 
@@ -0,0 +1,118 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.weighted.WAstar;
+
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Reports the number of bytes allocated on the heap by A* on the 15-puzzle instance used by
+ * TestAllBasics (korf100/12), for each type of the closed list and for the node pool
+ *
+ * Usage: AllocationReport [repetitions]
+ *
+ * With the open-addressing closed list, the states of the 15-puzzle are used as raw long keys,
+ * while the tree and hash closed lists require a PackedElement per lookup (which is the behavior
+ * of all the closed lists before single long states were supported). With the node pool, the
+ * nodes are int handles into primitive arrays instead of GenericNode objects.
+ *
+ * In addition to the allocated bytes, the report contains the heap retained by the search
+ * structures at the end of the search (measured after a GC) per stored node
+ *
+ * NOTE: The allocated bytes are taken from com.sun.management.ThreadMXBean (the search runs on the
+ * calling thread)
+ */
+public class AllocationReport {
+
+    private static final String[] CONFIGURATIONS = {"tree", "hash", "open-addressing", "node-pool"};
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    /**
+     * @return The number of bytes allocated so far by the current thread
+     */
+    private static long _allocatedBytes(com.sun.management.ThreadMXBean threads) {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return The number of bytes used in the heap after a GC (as reported by the heap memory pools
+     *         for the last collection, which is more accurate than Runtime.freeMemory())
+     */
+    private static long _usedHeap() {
+        System.gc();
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null) {
+                used += pool.getCollectionUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static WAstar _createAlgorithm(String configuration) {
+        WAstar wastar = new WAstar();
+        if (configuration.equals("node-pool")) {
+            wastar.setAdditionalParameter("node-pool", "true");
+        } else {
+            wastar.setAdditionalParameter("closed-list", configuration);
+        }
+        return wastar;
+    }
+
+    private static void _report(String domainName, SearchDomain domain, String configuration,
+                                int repetitions, com.sun.management.ThreadMXBean threads) {
+        long minAllocated = Long.MAX_VALUE;
+        // A GC doesn't always reclaim all the garbage of the previous repetition, so the minimums of
+        // the heap sizes before and after the searches are used
+        long minUsedBefore = Long.MAX_VALUE;
+        long minUsedAfter = Long.MAX_VALUE;
+        SearchResultImpl result = null;
+        int storedNodes = 0;
+        for (int i = 0; i < repetitions; ++i) {
+            WAstar wastar = AllocationReport._createAlgorithm(configuration);
+            minUsedBefore = Math.min(minUsedBefore, AllocationReport._usedHeap());
+            long before = AllocationReport._allocatedBytes(threads);
+            result = wastar.search(domain);
+            minAllocated = Math.min(minAllocated, AllocationReport._allocatedBytes(threads) - before);
+            // The algorithm still references its open and closed lists (wastar is used after the
+            // measurement, so that the JIT can't treat it as unreachable)
+            minUsedAfter = Math.min(minUsedAfter, AllocationReport._usedHeap());
+            storedNodes = (wastar.getNodePool() != null) ?
+                    wastar.getNodePool().size() :
+                    wastar.getClosed().size();
+        }
+        System.out.println(domainName + "," + configuration + "," + result.getExpanded() + "," +
+                result.getGenerated() + "," + minAllocated / (1024 * 1024) + "," +
+                String.format("%.1f", minAllocated / (double) result.getGenerated()) + "," +
+                storedNodes + "," + String.format("%.1f", (minUsedAfter - minUsedBefore) / (double) storedNodes));
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int repetitions = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("The JVM doesn't count the allocated bytes");
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        System.out.println("Domain,Configuration,Expanded,Generated,AllocatedMB,AllocatedBytesPerGenerated," +
+                "StoredNodes,RetainedBytesPerNode");
+
+        SearchDomain fifteenPuzzle = DomainsCreation.createKorf100FifteenPuzzleInstance("12");
+        for (String configuration : AllocationReport.CONFIGURATIONS) {
+            AllocationReport._report("15-puzzle-12", fifteenPuzzle, configuration, repetitions, threads);
+        }
+    }
+}
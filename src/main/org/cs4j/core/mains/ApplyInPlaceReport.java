@@ -0,0 +1,98 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchAlgorithm;
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.basic.DFS;
+import org.cs4j.core.algorithms.basic.IDAstar;
+import org.cs4j.core.algorithms.familiar.RBFS;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Compares the number of generated nodes per second of IDA*, RBFS and DFS, when a new state is
+ * created for each generated node and when a single state is changed in place (see
+ * MutableSearchDomain)
+ *
+ * Usage: ApplyInPlaceReport [repetitions]
+ *
+ * Both modes perform exactly the same search, hence the expanded and generated counts must be
+ * equal (the report fails otherwise)
+ */
+public class ApplyInPlaceReport {
+
+    private static final String[] MODES = {"false", "true"};
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static SearchAlgorithm _createAlgorithm(String algorithmName, String applyInPlace) {
+        SearchAlgorithm algorithm;
+        switch (algorithmName) {
+            case "idastar": {
+                algorithm = new IDAstar();
+                break;
+            }
+            case "rbfs": {
+                algorithm = new RBFS();
+                break;
+            }
+            case "dfs": {
+                algorithm = new DFS();
+                break;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown algorithm " + algorithmName);
+            }
+        }
+        algorithm.setAdditionalParameter("apply-in-place", applyInPlace);
+        return algorithm;
+    }
+
+    private static void _report(String domainName, SearchDomain domain, String algorithmName,
+                                int repetitions) {
+        long expected = -1;
+        for (String applyInPlace : ApplyInPlaceReport.MODES) {
+            long minTime = Long.MAX_VALUE;
+            SearchResultImpl result = null;
+            for (int i = 0; i < repetitions; ++i) {
+                SearchAlgorithm algorithm = ApplyInPlaceReport._createAlgorithm(algorithmName, applyInPlace);
+                long start = System.nanoTime();
+                result = algorithm.search(domain);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            if (expected == -1) {
+                expected = result.getGenerated();
+            } else if (expected != result.getGenerated()) {
+                throw new IllegalStateException("Different searches: " + expected + " vs. " +
+                        result.getGenerated() + " generated nodes");
+            }
+            System.out.println(domainName + "," + algorithmName + "," + applyInPlace + "," +
+                    result.getExpanded() + "," + result.getGenerated() + "," +
+                    minTime / 1000000 + "," +
+                    String.format("%.0f", result.getGenerated() / (minTime / 1.0e9)));
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int repetitions = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+
+        System.out.println("Domain,Algorithm,ApplyInPlace,Expanded,Generated,TimeMs,GeneratedPerSecond");
+
+        SearchDomain fifteenPuzzle = DomainsCreation.createKorf100FifteenPuzzleInstance("12");
+        ApplyInPlaceReport._report("15-puzzle-12", fifteenPuzzle, "idastar", repetitions);
+        ApplyInPlaceReport._report("15-puzzle-12", fifteenPuzzle, "rbfs", repetitions);
+
+        SearchDomain pancakes = DomainsCreation.createGeneratedPancakesInstance(40, "1");
+        ApplyInPlaceReport._report("40-pancakes-1", pancakes, "idastar", repetitions);
+        ApplyInPlaceReport._report("40-pancakes-1", pancakes, "rbfs", repetitions);
+
+        SearchDomain grid = DomainsCreation.createGridPathFindingInstance("brc202d.map", "1");
+        ApplyInPlaceReport._report("brc202d-1", grid, "dfs", repetitions);
+    }
+}
@@ -0,0 +1,87 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.weighted.WAstar;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Reports the speedup of WAstar with batched expansions (the children of the batch-size best nodes are generated in
+ * parallel - see the "batch-size" and "batch-threads" parameters) relative to the strict best-first WAstar, and the
+ * drift of the order of the expansions from the best-first order
+ *
+ * Usage: BatchedExpansionReport [threads] [max-batch-size] [repetitions]
+ *
+ * OutOfOrder is the number of the expanded nodes that a better child of a preceding node of their batch should have
+ * preceded, and MaxFDrift is the maximal difference between their f values and the f value of that child
+ */
+public class BatchedExpansionReport {
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static SearchResultImpl _search(SearchDomain domain, String weight, int batchSize, int threads) {
+        WAstar wastar = new WAstar();
+        wastar.setAdditionalParameter("weight", weight);
+        wastar.setAdditionalParameter("batch-size", batchSize + "");
+        wastar.setAdditionalParameter("batch-threads", threads + "");
+        return wastar.search(domain);
+    }
+
+    private static void _report(String domainName, SearchDomain domain, String weight, int threads,
+                                int maxBatchSize, int repetitions) {
+        long baselineTime = 0;
+        for (int batchSize = 1; batchSize <= maxBatchSize; batchSize *= 2) {
+            long minTime = Long.MAX_VALUE;
+            SearchResultImpl result = null;
+            for (int i = 0; i < repetitions; ++i) {
+                long start = System.nanoTime();
+                result = BatchedExpansionReport._search(domain, weight, batchSize, threads);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            if (batchSize == 1) {
+                baselineTime = minTime;
+            }
+            Object outOfOrder = result.getExtras().get("batch-out-of-order");
+            Object maxFDrift = result.getExtras().get("batch-max-f-drift");
+            long outOfOrderCount = (outOfOrder != null) ? (Long) outOfOrder : 0;
+            System.out.println(domainName + "," + weight + "," + batchSize + "," + (batchSize == 1 ? 1 : threads) +
+                    "," + result.getExpanded() + "," + result.getGenerated() + "," +
+                    result.getSolutions().get(0).getCost() + "," + minTime / 1000000 + "," +
+                    String.format("%.2f", baselineTime / (double) minTime) + "," + outOfOrderCount + "," +
+                    String.format("%.3f", outOfOrderCount / (double) result.getExpanded()) + "," +
+                    ((maxFDrift != null) ? maxFDrift : 0));
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int threads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int maxBatchSize = (args.length > 1) ? Integer.parseInt(args[1]) : 16;
+        int repetitions = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+
+        System.out.println("Domain,Weight,BatchSize,Threads,Expanded,Generated,Cost,TimeMs,Speedup,OutOfOrder," +
+                "OutOfOrderRatio,MaxFDrift");
+
+        for (String weight : new String[]{"1.0", "2.0"}) {
+            // Expensive heuristics (the generation of the children is the bottleneck)
+            for (String instance : new String[]{"1", "2"}) {
+                BatchedExpansionReport._report("vacuum-5-dirt-" + instance,
+                        DomainsCreation.createGeneratedVacuumRobotInstance(5, instance), weight, threads,
+                        maxBatchSize, repetitions);
+            }
+            BatchedExpansionReport._report("dockyard-robot-1",
+                    DomainsCreation.createGeneratedDockyardRobotInstance("1"), weight, threads, maxBatchSize,
+                    repetitions);
+            // A cheap heuristic (for comparison)
+            BatchedExpansionReport._report("15-puzzle-12",
+                    DomainsCreation.createKorf100FifteenPuzzleInstance("12"), weight, threads, maxBatchSize,
+                    repetitions);
+        }
+    }
+}
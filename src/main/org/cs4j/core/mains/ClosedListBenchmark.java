@@ -0,0 +1,113 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchAlgorithm;
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.familiar.DP;
+import org.cs4j.core.algorithms.familiar.EES;
+import org.cs4j.core.algorithms.weighted.WAstar;
+
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+
+/**
+ * Compares the implementations of the closed list (tree | hash | open-addressing) by running
+ * WA*, EES and DPS on the instances which are shipped in the input/ directory
+ *
+ * Usage: ClosedListBenchmark [repetitions]
+ *
+ * For each configuration the median wall time (of all the repetitions except the first one,
+ * which is used for warm-up) is reported, together with the expanded and generated counts (which
+ * must be identical for all the closed list types)
+ */
+public class ClosedListBenchmark {
+
+    private static final String[] CLOSED_LIST_TYPES = {"tree", "hash", "open-addressing"};
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static SearchAlgorithm _createAlgorithm(String name, double weight, String closedListType) {
+        SearchAlgorithm algorithm;
+        switch (name) {
+            case "wastar": {
+                algorithm = new WAstar();
+                break;
+            }
+            case "ees": {
+                algorithm = new EES(weight);
+                break;
+            }
+            case "dps": {
+                algorithm = new DP("DPS", false, false, false);
+                break;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown algorithm: " + name);
+            }
+        }
+        algorithm.setAdditionalParameter("weight", weight + "");
+        algorithm.setAdditionalParameter("closed-list", closedListType);
+        return algorithm;
+    }
+
+    /**
+     * Runs a single configuration and prints a CSV line that summarizes it
+     */
+    private static void _benchmark(String domainName, SearchDomain domain, String algorithmName,
+                                   double weight, int repetitions) {
+        long previousExpanded = -1;
+        for (String closedListType : ClosedListBenchmark.CLOSED_LIST_TYPES) {
+            long[] times = new long[repetitions];
+            SearchResultImpl result = null;
+            for (int i = 0; i < repetitions; ++i) {
+                System.gc();
+                SearchAlgorithm algorithm = ClosedListBenchmark._createAlgorithm(algorithmName, weight,
+                        closedListType);
+                long start = System.nanoTime();
+                result = algorithm.search(domain);
+                times[i] = (System.nanoTime() - start) / 1000000;
+            }
+            // The first run is used for warm-up only
+            long[] measured = (repetitions > 1) ? Arrays.copyOfRange(times, 1, repetitions) : times;
+            Arrays.sort(measured);
+            long median = measured[measured.length / 2];
+            System.out.println(domainName + "," + algorithmName + "," + weight + "," + closedListType + "," +
+                    result.getExpanded() + "," + result.getGenerated() + "," + median + "," +
+                    (result.getExpanded() * 1000 / Math.max(median, 1)));
+            if (previousExpanded != -1 && previousExpanded != result.getExpanded()) {
+                System.out.println("[WARNING] Expanded count differs between closed list types on " + domainName);
+            }
+            previousExpanded = result.getExpanded();
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int repetitions = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+
+        System.out.println("Domain,Algorithm,Weight,ClosedList,Expanded,Generated,WallTimeMs,ExpandedPerSecond");
+
+        SearchDomain fifteenPuzzle = DomainsCreation.createKorf100FifteenPuzzleInstance("12");
+        ClosedListBenchmark._benchmark("15-puzzle-12", fifteenPuzzle, "wastar", 1.0, repetitions);
+        ClosedListBenchmark._benchmark("15-puzzle-12", fifteenPuzzle, "ees", 2.0, repetitions);
+        ClosedListBenchmark._benchmark("15-puzzle-12", fifteenPuzzle, "dps", 1.5, repetitions);
+
+        for (String instance : new String[]{"1", "2", "3"}) {
+            SearchDomain grid = DomainsCreation.createGridPathFindingInstance("brc202d.map", instance);
+            ClosedListBenchmark._benchmark("brc202d-" + instance, grid, "wastar", 1.0, repetitions);
+            ClosedListBenchmark._benchmark("brc202d-" + instance, grid, "dps", 1.5, repetitions);
+        }
+
+        SearchDomain pancakes = DomainsCreation.createGeneratedPancakesInstance(40, "1");
+        ClosedListBenchmark._benchmark("pancakes-40-1", pancakes, "wastar", 1.0, repetitions);
+        ClosedListBenchmark._benchmark("pancakes-40-1", pancakes, "ees", 1.5, repetitions);
+
+        SearchDomain dockyardRobot = DomainsCreation.createGeneratedDockyardRobotInstance("1");
+        ClosedListBenchmark._benchmark("dockyard-robot-1", dockyardRobot, "wastar", 2.0, repetitions);
+    }
+}
@@ -168,4 +168,33 @@ public class DomainsCreation {
         InputStream is = new FileInputStream(new File("input/dockyardrobot/generated-max-edge-2-out-of-place-30/" + instance));
         return new DockyardRobot(is);
     }
+
+    /*******************************************************************************************************************
+     * Public static methods : Creation of the instances which are shipped in the input/ directory
+     ******************************************************************************************************************/
+
+    public static SearchDomain createKorf100FifteenPuzzleInstance(String instance) throws FileNotFoundException {
+        InputStream is = new FileInputStream(new File("input/fifteenpuzzle/korf100/" + instance + ".in"));
+        return new FifteenPuzzle(is);
+    }
+
+    public static SearchDomain createGeneratedPancakesInstance(int size, String instance) throws FileNotFoundException {
+        InputStream is = new FileInputStream(new File("input/pancakes/generated-" + size + "/" + instance + ".in"));
+        return new Pancakes(is);
+    }
+
+    public static SearchDomain createGridPathFindingInstance(String mapName, String instance) throws FileNotFoundException {
+        InputStream is = new FileInputStream(new File("input/GridPathFinding/" + mapName + "/" + instance + ".in"));
+        return new GridPathFinding(is);
+    }
+
+    public static SearchDomain createGeneratedVacuumRobotInstance(int dirtCount, String instance) throws FileNotFoundException {
+        InputStream is = new FileInputStream(new File("input/vacuumrobot/generated-" + dirtCount + "-dirt/" + instance + ".in"));
+        return new VacuumRobot(is);
+    }
+
+    public static SearchDomain createGeneratedDockyardRobotInstance(String instance) throws FileNotFoundException {
+        InputStream is = new FileInputStream(new File("input/dockyard-robot-max-edge-2-out-of-place-30/" + instance + ".in"));
+        return new DockyardRobot(is);
+    }
 }
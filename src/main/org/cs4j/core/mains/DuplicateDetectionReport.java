@@ -0,0 +1,88 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.weighted.WAstar;
+import org.cs4j.core.domains.DockyardRobot;
+import org.cs4j.core.domains.GridPathFinding;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Reports the number of heuristic computations per expanded node of WA*, when the children are
+ * looked up in the closed list before their nodes are created (see the "early-duplicate-detection"
+ * parameter) and when they aren't
+ *
+ * Usage: DuplicateDetectionReport [weight] [repetitions]
+ *
+ * Both modes perform exactly the same search, hence the expanded, generated and duplicates counts
+ * must be equal (the report fails otherwise)
+ */
+public class DuplicateDetectionReport {
+
+    private static final String[] MODES = {"false", "true"};
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static long _heuristicEvaluations(SearchDomain domain) {
+        if (domain instanceof GridPathFinding) {
+            return ((GridPathFinding) domain).getHeuristicEvaluations();
+        } else if (domain instanceof DockyardRobot) {
+            return ((DockyardRobot) domain).getHeuristicEvaluations();
+        }
+        throw new IllegalArgumentException("The domain doesn't count the heuristic computations");
+    }
+
+    private static void _report(String domainName, SearchDomain domain, String weight, int repetitions) {
+        String expected = null;
+        for (String mode : DuplicateDetectionReport.MODES) {
+            long minTime = Long.MAX_VALUE;
+            long evaluations = 0;
+            SearchResultImpl result = null;
+            for (int i = 0; i < repetitions; ++i) {
+                WAstar wastar = new WAstar();
+                wastar.setAdditionalParameter("weight", weight);
+                wastar.setAdditionalParameter("early-duplicate-detection", mode);
+                long before = DuplicateDetectionReport._heuristicEvaluations(domain);
+                long start = System.nanoTime();
+                result = wastar.search(domain);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+                evaluations = DuplicateDetectionReport._heuristicEvaluations(domain) - before;
+            }
+            String counts = result.getExpanded() + "," + result.getGenerated() + "," + result.getDuplicates();
+            if (expected == null) {
+                expected = counts;
+            } else if (!expected.equals(counts)) {
+                throw new IllegalStateException("Different searches: " + expected + " vs. " + counts);
+            }
+            System.out.println(domainName + "," + mode + "," + counts + "," + evaluations + "," +
+                    String.format("%.2f", evaluations / (double) result.getExpanded()) + "," +
+                    minTime / 1000000);
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        String weight = (args.length > 0) ? args[0] : "1.0";
+        int repetitions = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("Domain,EarlyDuplicateDetection,Expanded,Generated,Duplicates," +
+                "HeuristicEvaluations,EvaluationsPerExpanded,TimeMs");
+
+        for (String instance : new String[]{"1", "2", "3"}) {
+            DuplicateDetectionReport._report("brc202d-" + instance,
+                    DomainsCreation.createGridPathFindingInstance("brc202d.map", instance),
+                    weight, repetitions);
+        }
+        for (String instance : new String[]{"1", "2", "3"}) {
+            DuplicateDetectionReport._report("dockyard-" + instance,
+                    DomainsCreation.createGeneratedDockyardRobotInstance(instance),
+                    weight, repetitions);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.familiar.EES;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Compares the number of expanded nodes per second of EES, when OPEN and FOCAL are implemented by
+ * a red-black tree of objects (GEQueue) and by a treap over primitive arrays (TreapGEQueue) - see
+ * the "focal-queue" parameter
+ *
+ * Usage: FocalQueueReport [repetitions]
+ *
+ * Both implementations perform the same search, hence the expanded and generated counts must be
+ * equal (the report fails otherwise)
+ */
+public class FocalQueueReport {
+
+    private static final String[] FOCAL_QUEUES = {"rbtree", "treap"};
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static void _report(String domainName, SearchDomain domain, String weight, int repetitions) {
+        SearchResultImpl expected = null;
+        for (String focalQueue : FocalQueueReport.FOCAL_QUEUES) {
+            long minTime = Long.MAX_VALUE;
+            SearchResultImpl result = null;
+            for (int i = 0; i < repetitions; ++i) {
+                EES ees = new EES(Double.parseDouble(weight));
+                ees.setAdditionalParameter("focal-queue", focalQueue);
+                long start = System.nanoTime();
+                result = ees.search(domain);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            if (expected == null) {
+                expected = result;
+            } else if (expected.getExpanded() != result.getExpanded() ||
+                    expected.getGenerated() != result.getGenerated()) {
+                throw new IllegalStateException("Different searches: " +
+                        expected.getExpanded() + "/" + expected.getGenerated() + " vs. " +
+                        result.getExpanded() + "/" + result.getGenerated());
+            }
+            System.out.println(domainName + "," + weight + "," + focalQueue + "," +
+                    result.getExpanded() + "," + result.getGenerated() + "," +
+                    result.getSolutions().get(0).getCost() + "," +
+                    minTime / 1000000 + "," +
+                    String.format("%.0f", result.getExpanded() / (minTime / 1.0e9)));
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int repetitions = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+
+        System.out.println("Domain,Weight,FocalQueue,Expanded,Generated,Cost,TimeMs,ExpandedPerSecond");
+
+        for (String weight : new String[]{"1.5", "2.0"}) {
+            for (String instance : new String[]{"12", "3", "60"}) {
+                FocalQueueReport._report("15-puzzle-" + instance,
+                        DomainsCreation.createKorf100FifteenPuzzleInstance(instance), weight, repetitions);
+            }
+            for (String instance : new String[]{"1", "2"}) {
+                FocalQueueReport._report("brc202d-" + instance,
+                        DomainsCreation.createGridPathFindingInstance("brc202d.map", instance), weight,
+                        repetitions);
+            }
+            for (String instance : new String[]{"1", "2"}) {
+                FocalQueueReport._report("40-pancakes-" + instance,
+                        DomainsCreation.createGeneratedPancakesInstance(40, instance), weight, repetitions);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.parallel.HDAstar;
+import org.cs4j.core.algorithms.weighted.WAstar;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Reports the scaling of HDA* from a single thread to the given number of threads, relative to the single-threaded
+ * WAstar (with the same order of OPEN - a DaryHeap, hence HDA* with a single thread performs the same search)
+ *
+ * Usage: HDAstarScalingReport [max-threads] [repetitions]
+ *
+ * The report includes the search overhead (the expanded nodes relative to WAstar) and the load balance (the maximal
+ * number of nodes expanded by a single thread, relative to the average)
+ */
+public class HDAstarScalingReport {
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static void _print(String domainName, String weight, String algorithm, int threads,
+                               SearchResultImpl result, long time, long baselineTime, long baselineExpanded) {
+        // The results of the threads are the concrete results of HDA* (WAstar has none)
+        long maxThreadExpanded = result.getConcreteResults().isEmpty() ? result.getExpanded() : 0;
+        for (SearchResultImpl threadResult : result.getConcreteResults()) {
+            maxThreadExpanded = Math.max(maxThreadExpanded, threadResult.getExpanded());
+        }
+        double averageThreadExpanded = result.getExpanded() / (double) threads;
+        System.out.println(domainName + "," + weight + "," + algorithm + "," + threads + "," +
+                result.getExpanded() + "," + result.getGenerated() + "," +
+                result.getSolutions().get(0).getCost() + "," + time / 1000000 + "," +
+                String.format("%.2f", baselineTime / (double) time) + "," +
+                String.format("%.2f", result.getExpanded() / (double) baselineExpanded) + "," +
+                String.format("%.2f", maxThreadExpanded / averageThreadExpanded));
+    }
+
+    private static void _report(String domainName, SearchDomain domain, String weight, int maxThreads,
+                                int repetitions) {
+        long baselineTime = Long.MAX_VALUE;
+        SearchResultImpl baseline = null;
+        for (int i = 0; i < repetitions; ++i) {
+            WAstar wastar = new WAstar();
+            wastar.setAdditionalParameter("weight", weight);
+            wastar.setAdditionalParameter("open-list", "dary");
+            long start = System.nanoTime();
+            baseline = wastar.search(domain);
+            baselineTime = Math.min(baselineTime, System.nanoTime() - start);
+        }
+        HDAstarScalingReport._print(domainName, weight, "wastar", 1, baseline, baselineTime, baselineTime,
+                baseline.getExpanded());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long minTime = Long.MAX_VALUE;
+            SearchResultImpl result = null;
+            for (int i = 0; i < repetitions; ++i) {
+                HDAstar hdastar = new HDAstar();
+                hdastar.setAdditionalParameter("weight", weight);
+                hdastar.setAdditionalParameter("threads", threads + "");
+                long start = System.nanoTime();
+                result = hdastar.search(domain);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            HDAstarScalingReport._print(domainName, weight, "hdastar", threads, result, minTime, baselineTime,
+                    baseline.getExpanded());
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int repetitions = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+
+        System.out.println("Domain,Weight,Algorithm,Threads,Expanded,Generated,Cost,TimeMs,Speedup," +
+                "SearchOverhead,LoadImbalance");
+
+        for (String weight : new String[]{"1.0", "2.0"}) {
+            for (String instance : new String[]{"12", "55"}) {
+                HDAstarScalingReport._report("15-puzzle-" + instance,
+                        DomainsCreation.createKorf100FifteenPuzzleInstance(instance), weight, maxThreads,
+                        repetitions);
+            }
+            for (String instance : new String[]{"1", "2"}) {
+                HDAstarScalingReport._report("brc202d-" + instance,
+                        DomainsCreation.createGridPathFindingInstance("brc202d.map", instance), weight, maxThreads,
+                        repetitions);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.algorithms.weighted.WAstar;
+import org.cs4j.core.collections.BinHeap;
+import org.cs4j.core.collections.DaryHeap;
+import org.cs4j.core.collections.PairingHeap;
+import org.cs4j.core.collections.QueueTrace;
+import org.cs4j.core.collections.QueueTraceWriter;
+import org.cs4j.core.collections.SearchQueue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Compares the throughput of BinHeap, DaryHeap (with several arities) and PairingHeap on the
+ * operations of real searches: the add / poll / update / remove operations on the open list of WA*
+ * are recorded (see QueueTraceWriter), and then replayed on each heap (after a warm-up - see
+ * QueueTrace). NOTE: WA* selects its nodes by peek and remove, hence most of the removes are
+ * removes of the first element
+ *
+ * The weighted traces (with reopening) contain many updates, most of them decrease the f value of
+ * the updated node (these are O(1) in PairingHeap)
+ *
+ * Usage: HeapTraceReport [repetitions]
+ *
+ * The replayed elements contain only their ranks, and their ties are broken by the order of their
+ * creation (see QueueTrace for the handling of a different order than the recorded one). See
+ * QueueTraceReport for trace files of other algorithms and queues.
+ */
+public class HeapTraceReport {
+
+    private static final String[] HEAPS = {"bin", "dary-2", "dary-4", "dary-8", "pairing"};
+    private static final int WARM_UP_REPETITIONS = 3;
+
+    /**
+     * Orders the replayed elements like WAstar.NodeComparator (the ties are broken by the ids)
+     */
+    private static final class TraceElementComparator implements Comparator<QueueTrace.Element> {
+
+        @Override
+        public int compare(QueueTrace.Element a, QueueTrace.Element b) {
+            if (a.getPrimaryKey() != b.getPrimaryKey()) {
+                return (a.getPrimaryKey() < b.getPrimaryKey()) ? -1 : 1;
+            }
+            if (a.getG() != b.getG()) {
+                return (a.getG() > b.getG()) ? -1 : 1;
+            }
+            return Integer.compare(a.getId(), b.getId());
+        }
+    }
+
+    private static final class NodeRank implements DaryHeap.PrimaryKey<WAstar.Node> {
+
+        @Override
+        public double get(WAstar.Node node) {
+            return node.getRank(0);
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static SearchDomain _inverseFifteenPuzzle(String instance) throws FileNotFoundException {
+        SearchDomain domain = DomainsCreation.createKorf100FifteenPuzzleInstance(instance);
+        // Heavy-DD-1 (inverse costs of the tiles)
+        domain.setAdditionalParameter("cost-function", "-2");
+        return domain;
+    }
+
+    private static QueueTrace _record(SearchDomain domain, String weight) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final QueueTraceWriter writer = new QueueTraceWriter(out, new HashMap<String, String>());
+        WAstar wastar = new WAstar() {
+            @Override
+            protected SearchQueue<Node> buildHeap(HeapType heapType, int size) {
+                return writer.wrap(super.buildHeap(HeapType.BIN, size), 0, new NodeRank());
+            }
+        };
+        wastar.setAdditionalParameter("weight", weight);
+        wastar.setAdditionalParameter("open-list", "bin");
+        wastar.search(domain);
+        writer.close();
+        try {
+            return QueueTrace.read(new ByteArrayInputStream(out.toByteArray()));
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't read the recorded trace", e);
+        }
+    }
+
+    private static SearchQueue<QueueTrace.Element> _createHeap(String heapName) {
+        if (heapName.equals("bin")) {
+            return new BinHeap<>(new TraceElementComparator(), 0);
+        } else if (heapName.equals("pairing")) {
+            return new PairingHeap<>(new TraceElementComparator(), 0, new QueueTrace.PrimaryKey());
+        }
+        int arity = Integer.parseInt(heapName.substring("dary-".length()));
+        return new DaryHeap<>(new TraceElementComparator(), 0, arity, new QueueTrace.PrimaryKey());
+    }
+
+    private static void _report(String traceName, SearchDomain domain, String weight, int repetitions) {
+        QueueTrace trace = HeapTraceReport._record(domain, weight);
+        double check = 0;
+        for (String heapName : HeapTraceReport.HEAPS) {
+            for (int i = 0; i < HeapTraceReport.WARM_UP_REPETITIONS; ++i) {
+                check += trace.replay(0, HeapTraceReport._createHeap(heapName));
+            }
+            long minTime = Long.MAX_VALUE;
+            for (int i = 0; i < repetitions; ++i) {
+                SearchQueue<QueueTrace.Element> heap = HeapTraceReport._createHeap(heapName);
+                long start = System.nanoTime();
+                check += trace.replay(0, heap);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            System.out.println(traceName + "," + trace.size() + "," +
+                    trace.getCount(0, QueueTrace.Operation.ADD) + "," +
+                    trace.getCount(0, QueueTrace.Operation.POLL) + "," +
+                    trace.getCount(0, QueueTrace.Operation.UPDATE) + "," +
+                    trace.getCount(0, QueueTrace.Operation.REMOVE) + "," +
+                    heapName + "," + String.format("%.2f", minTime / 1.0e6) + "," +
+                    String.format("%.0f", trace.size() / (minTime / 1.0e9)) + "," +
+                    (check > 0 ? "ok" : "-"));
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int repetitions = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+
+        System.out.println("Trace,Operations,Adds,Polls,Updates,Removes,Heap,TimeMs,OperationsPerSecond,Check");
+
+        HeapTraceReport._report("15-puzzle-55-w1",
+                DomainsCreation.createKorf100FifteenPuzzleInstance("55"), "1.0", repetitions);
+        HeapTraceReport._report("15-puzzle-inverse-79-w1",
+                HeapTraceReport._inverseFifteenPuzzle("79"), "1.0", repetitions);
+        HeapTraceReport._report("brc202d-2-w1",
+                DomainsCreation.createGridPathFindingInstance("brc202d.map", "2"), "1.0", repetitions);
+        HeapTraceReport._report("brc202d-2-w3",
+                DomainsCreation.createGridPathFindingInstance("brc202d.map", "2"), "3.0", repetitions);
+        HeapTraceReport._report("brc202d-1-w5",
+                DomainsCreation.createGridPathFindingInstance("brc202d.map", "1"), "5.0", repetitions);
+        HeapTraceReport._report("15-puzzle-inverse-79-w2",
+                HeapTraceReport._inverseFifteenPuzzle("79"), "2.0", repetitions);
+        HeapTraceReport._report("40-pancakes-1-w1",
+                DomainsCreation.createGeneratedPancakesInstance(40, "1"), "1.0", repetitions);
+    }
+}
@@ -0,0 +1,110 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.Operator;
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchState;
+import org.cs4j.core.collections.PackedElement;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reports the number of heuristic evaluations per second, when the h and d values of a child are
+ * updated incrementally from its parent (by applyOperator) and when they are computed from scratch
+ * (by unpacking the packed child, as done for each node that is taken from the open list)
+ *
+ * Usage: HeuristicReport [steps] [repetitions]
+ *
+ * The children of the states along a random walk (with a fixed seed) are evaluated. The report
+ * fails if the incrementally computed values differ from the computed ones
+ */
+public class HeuristicReport {
+
+    private static final long SEED = 17;
+    // Allowed difference between the incremental and the computed values (non-unit costs are
+    // summed in a different order)
+    private static final double EPSILON = 1e-9;
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    /**
+     * @return The states along a random walk from the initial state of the domain
+     */
+    private static List<SearchState> _randomWalk(SearchDomain domain, int steps) {
+        Random random = new Random(HeuristicReport.SEED);
+        List<SearchState> walk = new ArrayList<>(steps);
+        SearchState state = domain.initialState();
+        for (int i = 0; i < steps; ++i) {
+            walk.add(state);
+            Operator op = domain.getOperator(state, random.nextInt(domain.getNumOperators(state)));
+            state = domain.applyOperator(state, op);
+        }
+        return walk;
+    }
+
+    private static void _report(String domainName, SearchDomain domain, int steps, int repetitions) {
+        List<SearchState> walk = HeuristicReport._randomWalk(domain, steps);
+        // The packed children (the incremental values are checked on the way)
+        List<PackedElement> packedChildren = new ArrayList<>();
+        for (SearchState state : walk) {
+            for (int i = 0; i < domain.getNumOperators(state); ++i) {
+                SearchState child = domain.applyOperator(state, domain.getOperator(state, i));
+                PackedElement packed = domain.pack(child);
+                SearchState computed = domain.unpack(packed);
+                if (Math.abs(child.getH() - computed.getH()) > HeuristicReport.EPSILON ||
+                        Math.abs(child.getD() - computed.getD()) > HeuristicReport.EPSILON) {
+                    throw new IllegalStateException("Wrong incremental values for " + domainName +
+                            ": h=" + child.getH() + ", d=" + child.getD() + " (computed h=" +
+                            computed.getH() + ", d=" + computed.getD() + ")");
+                }
+                packedChildren.add(packed);
+            }
+        }
+
+        long minIncremental = Long.MAX_VALUE;
+        long minComputed = Long.MAX_VALUE;
+        // Prevents the JIT from removing the evaluations
+        double sum = 0;
+        for (int r = 0; r < repetitions; ++r) {
+            long start = System.nanoTime();
+            for (SearchState state : walk) {
+                for (int i = 0; i < domain.getNumOperators(state); ++i) {
+                    sum += domain.applyOperator(state, domain.getOperator(state, i)).getH();
+                }
+            }
+            minIncremental = Math.min(minIncremental, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (PackedElement packed : packedChildren) {
+                sum += domain.unpack(packed).getH();
+            }
+            minComputed = Math.min(minComputed, System.nanoTime() - start);
+        }
+        System.out.println(domainName + "," + packedChildren.size() + "," +
+                String.format("%.0f", packedChildren.size() / (minIncremental / 1.0e9)) + "," +
+                String.format("%.0f", packedChildren.size() / (minComputed / 1.0e9)) + "," +
+                (sum > 0 ? "ok" : "-"));
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int steps = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+        int repetitions = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+
+        System.out.println("Domain,Evaluations,IncrementalPerSecond,ComputedPerSecond,Check");
+
+        HeuristicReport._report("15-puzzle-12",
+                DomainsCreation.createKorf100FifteenPuzzleInstance("12"), steps, repetitions);
+        HeuristicReport._report("40-pancakes-1",
+                DomainsCreation.createGeneratedPancakesInstance(40, "1"), steps, repetitions);
+        SearchDomain heavyPancakes = DomainsCreation.createGeneratedPancakesInstance(40, "1");
+        heavyPancakes.setAdditionalParameter("cost-function", "1");
+        HeuristicReport._report("40-pancakes-1-heavy", heavyPancakes, steps, repetitions);
+    }
+}
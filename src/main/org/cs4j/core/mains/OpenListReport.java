@@ -0,0 +1,102 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.weighted.WAstar;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Compares the number of expanded nodes per second of WA*, when the open list is a binary heap,
+ * a bucket heap (for integral costs) and a radix heap (for A* with a consistent heuristic) - see
+ * the "open-list" parameter
+ *
+ * Usage: OpenListReport [repetitions]
+ *
+ * The heaps break the ties between nodes with the same wF and g values differently, hence the
+ * expanded counts may differ. For A*, the costs of the solutions must be equal (the report fails
+ * otherwise)
+ */
+public class OpenListReport {
+
+    private static final String[] INTEGRAL_OPEN_LISTS = {"bin", "bucket", "radix"};
+    private static final String[] WEIGHTED_OPEN_LISTS = {"bin", "bucket"};
+    private static final String[] REAL_OPEN_LISTS = {"bin", "radix"};
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static void _report(String domainName, SearchDomain domain, String weight,
+                                String[] openLists, int repetitions) {
+        double expectedCost = -1;
+        for (String openList : openLists) {
+            long minTime = Long.MAX_VALUE;
+            SearchResultImpl result = null;
+            for (int i = 0; i < repetitions; ++i) {
+                WAstar wastar = new WAstar();
+                wastar.setAdditionalParameter("weight", weight);
+                wastar.setAdditionalParameter("open-list", openList);
+                long start = System.nanoTime();
+                result = wastar.search(domain);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            double cost = result.getSolutions().get(0).getCost();
+            if (expectedCost == -1) {
+                expectedCost = cost;
+            } else if (weight.equals("1.0") && expectedCost != cost) {
+                throw new IllegalStateException("Different costs: " + expectedCost + " vs. " + cost);
+            }
+            System.out.println(domainName + "," + weight + "," + openList + "," +
+                    result.getExpanded() + "," + result.getGenerated() + "," + cost + "," +
+                    minTime / 1000000 + "," +
+                    String.format("%.0f", result.getExpanded() / (minTime / 1.0e9)));
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int repetitions = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+
+        System.out.println("Domain,Weight,OpenList,Expanded,Generated,Cost,TimeMs,ExpandedPerSecond");
+
+        for (String weight : new String[]{"1.0", "2.0"}) {
+            String[] openLists = weight.equals("1.0") ?
+                    OpenListReport.INTEGRAL_OPEN_LISTS :
+                    OpenListReport.WEIGHTED_OPEN_LISTS;
+            for (String instance : new String[]{"12", "55", "79"}) {
+                OpenListReport._report("15-puzzle-" + instance,
+                        DomainsCreation.createKorf100FifteenPuzzleInstance(instance), weight,
+                        openLists, repetitions);
+            }
+            for (String instance : new String[]{"1", "2", "3"}) {
+                OpenListReport._report("brc202d-" + instance,
+                        DomainsCreation.createGridPathFindingInstance("brc202d.map", instance), weight,
+                        openLists, repetitions);
+            }
+            for (String instance : new String[]{"1", "2"}) {
+                OpenListReport._report("40-pancakes-" + instance,
+                        DomainsCreation.createGeneratedPancakesInstance(40, instance), weight,
+                        openLists, repetitions);
+            }
+        }
+
+        // Real-valued costs (A* only)
+        for (String instance : new String[]{"12", "79"}) {
+            SearchDomain inverse = DomainsCreation.createKorf100FifteenPuzzleInstance(instance);
+            // Heavy-DD-1 (inverse costs of the tiles)
+            inverse.setAdditionalParameter("cost-function", "-2");
+            OpenListReport._report("15-puzzle-inverse-" + instance, inverse, "1.0",
+                    OpenListReport.REAL_OPEN_LISTS, repetitions);
+        }
+        for (String instance : new String[]{"1", "2"}) {
+            SearchDomain heavy = DomainsCreation.createGeneratedPancakesInstance(16, instance);
+            heavy.setAdditionalParameter("cost-function", "0.5");
+            OpenListReport._report("16-pancakes-sqrt-" + instance, heavy, "1.0",
+                    OpenListReport.REAL_OPEN_LISTS, repetitions);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.anytime.AnytimePTS;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Compares the strategies of re-ordering OPEN when the incumbent solution of Anytime Potential
+ * Search improves (see the "open-reordering" parameter of AbstractAnytimeSearch): polling all the
+ * nodes and adding them back, and rebuilding the heap bottom-up
+ *
+ * Usage: OpenReorderingReport [max-iterations]
+ *
+ * The last ties of APTS are broken by the insertion order (which re-inserting the nodes changes),
+ * hence the strategies may order the nodes with equal keys differently, and the expanded counts
+ * (and the solutions of the iterations) may differ
+ */
+public class OpenReorderingReport {
+
+    private static final String[] OPEN_REORDERINGS = {"reinsert", "heapify"};
+
+    /**
+     * APTS which measures the time of re-ordering OPEN
+     */
+    private static final class TimedAnytimePTS extends AnytimePTS {
+        private long reorderingTime;
+        private long reorderedNodes;
+
+        @Override
+        protected void _reorderOpen() {
+            this.reorderedNodes += this.open.size();
+            long start = System.nanoTime();
+            super._reorderOpen();
+            this.reorderingTime += System.nanoTime() - start;
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static void _report(String domainName, SearchDomain domain, int maxIterations) {
+        for (String openReordering : OpenReorderingReport.OPEN_REORDERINGS) {
+            TimedAnytimePTS apts = new TimedAnytimePTS();
+            apts.setAdditionalParameter("open-reordering", openReordering);
+            long start = System.nanoTime();
+            SearchResultImpl result = apts.search(domain);
+            int iterations = 0;
+            while (result.hasSolution() && iterations < maxIterations) {
+                result = apts.continueSearch();
+                ++iterations;
+            }
+            long time = System.nanoTime() - start;
+            SearchResultImpl total = apts.getTotalSearchResults();
+            System.out.println(domainName + "," + openReordering + "," + iterations + "," +
+                    apts.incumbentSolution + "," + total.getExpanded() + "," + apts.reorderedNodes + "," +
+                    apts.reorderingTime / 1000000 + "," + time / 1000000);
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int maxIterations = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+
+        System.out.println("Domain,OpenReordering,Iterations,Incumbent,Expanded,ReorderedNodes,ReorderingTimeMs,TimeMs");
+
+        for (String instance : new String[]{"1", "2", "3", "4", "5"}) {
+            OpenReorderingReport._report("brc202d-" + instance,
+                    DomainsCreation.createGridPathFindingInstance("brc202d.map", instance), maxIterations);
+        }
+        for (String instance : new String[]{"1", "2", "3", "4", "5"}) {
+            OpenReorderingReport._report("40-pancakes-" + instance,
+                    DomainsCreation.createGeneratedPancakesInstance(40, instance), maxIterations);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.parallel.PBNF;
+import org.cs4j.core.algorithms.weighted.WAstar;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Reports the throughput (expanded nodes per second) of PBNF with 1 to the given number of threads, relative to the
+ * single-threaded WAstar (with a DaryHeap as OPEN), on the GridPathFinding maps and on the 15-puzzle
+ *
+ * Usage: PBNFThroughputReport [max-threads] [repetitions]
+ *
+ * Each weight is reported for the bounded mode of PBNF (pruning by w*f) and for the anytime mode (pruning by f - the
+ * cost is optimal and the number of the improving solutions is reported), and for several values of min-expansions:
+ * larger values acquire fewer nblocks, but expand more nodes that aren't the best ones (the default is 1)
+ */
+public class PBNFThroughputReport {
+
+    private static final String[] MIN_EXPANSIONS = {"1", "8", "32"};
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static void _print(String domainName, String weight, String algorithm, int threads,
+                               String minExpansions, SearchResultImpl result, long time, long baselineTime) {
+        Object nblocks = result.getExtras().get("nblocks");
+        Object acquisitions = result.getExtras().get("nblock-acquisitions");
+        System.out.println(domainName + "," + weight + "," + algorithm + "," + threads + "," +
+                (nblocks == null ? "-" : nblocks) + "," + minExpansions + "," +
+                result.getExpanded() + "," + result.getGenerated() + "," +
+                result.getBestSolution().getCost() + "," + result.getSolutions().size() + "," + time / 1000000 + "," +
+                (long) (result.getExpanded() / (time / 1000000000.0)) + "," +
+                String.format("%.2f", baselineTime / (double) time) + "," +
+                (acquisitions == null ? "-" : acquisitions));
+    }
+
+    private static void _report(String domainName, SearchDomain domain, String weight, int maxThreads,
+                                int repetitions) {
+        long baselineTime = Long.MAX_VALUE;
+        SearchResultImpl baseline = null;
+        for (int i = 0; i < repetitions; ++i) {
+            WAstar wastar = new WAstar();
+            wastar.setAdditionalParameter("weight", weight);
+            wastar.setAdditionalParameter("open-list", "dary");
+            long start = System.nanoTime();
+            baseline = wastar.search(domain);
+            baselineTime = Math.min(baselineTime, System.nanoTime() - start);
+        }
+        PBNFThroughputReport._print(domainName, weight, "wastar", 1, "-", baseline, baselineTime, baselineTime);
+        for (boolean anytime : new boolean[]{false, true}) {
+            for (String minExpansions : PBNFThroughputReport.MIN_EXPANSIONS) {
+                for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                    long minTime = Long.MAX_VALUE;
+                    SearchResultImpl result = null;
+                    for (int i = 0; i < repetitions; ++i) {
+                        PBNF pbnf = new PBNF();
+                        pbnf.setAdditionalParameter("weight", weight);
+                        pbnf.setAdditionalParameter("threads", threads + "");
+                        pbnf.setAdditionalParameter("min-expansions", minExpansions);
+                        pbnf.setAdditionalParameter("anytime", anytime + "");
+                        long start = System.nanoTime();
+                        result = pbnf.search(domain);
+                        minTime = Math.min(minTime, System.nanoTime() - start);
+                    }
+                    PBNFThroughputReport._print(domainName, weight, anytime ? "pbnf-anytime" : "pbnf", threads,
+                            minExpansions, result, minTime, baselineTime);
+                }
+            }
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int repetitions = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+
+        System.out.println("Domain,Weight,Algorithm,Threads,NBlocks,MinExpansions,Expanded,Generated,Cost,Solutions,TimeMs,NodesPerSec," +
+                "Speedup,Acquisitions");
+
+        for (String weight : new String[]{"1.0", "2.0"}) {
+            for (String instance : new String[]{"1", "2"}) {
+                PBNFThroughputReport._report("brc202d-" + instance,
+                        DomainsCreation.createGridPathFindingInstance("brc202d.map", instance), weight, maxThreads,
+                        repetitions);
+            }
+            for (String instance : new String[]{"12", "55"}) {
+                PBNFThroughputReport._report("15-puzzle-" + instance,
+                        DomainsCreation.createKorf100FifteenPuzzleInstance(instance), weight, maxThreads,
+                        repetitions);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.algorithms.weighted.WAstar;
+import org.cs4j.core.collections.PackedElement;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the previous hash of PackedElement (sum of the longs, truncated to int) with the
+ * current one (mixed and cached), on the states seen by WA* in each domain
+ *
+ * For each domain and hash function the report contains:
+ * - The number of distinct hash values among the seen states
+ * - The largest bucket and the average number of entries visited per successful lookup in a
+ *   java.util.HashMap sized for the states
+ * - The time of inserting all the states into a HashMap and looking all of them up
+ */
+public class PackedHashReport {
+
+    /**
+     * A key which uses the previous hash code of PackedElement (recalculated on every call)
+     */
+    private static final class LegacyKey {
+        private final PackedElement packed;
+
+        private LegacyKey(PackedElement packed) {
+            this.packed = packed;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 0;
+            // Allow overflow
+            for (long current : this.packed.getInternal()) {
+                result += current;
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof LegacyKey)) {
+                return false;
+            }
+            long[] mine = this.packed.getInternal();
+            long[] other = ((LegacyKey) object).packed.getInternal();
+            if (mine.length != other.length) {
+                return false;
+            }
+            for (int i = 0; i < mine.length; ++i) {
+                if (mine[i] != other[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    /**
+     * Runs WA* on the given domain and returns the packed representations of all the seen states
+     */
+    private static List<PackedElement> _collectStates(SearchDomain domain, double weight) {
+        WAstar wastar = new WAstar();
+        wastar.setAdditionalParameter("weight", weight + "");
+        wastar.setAdditionalParameter("closed-list", "open-addressing");
+        wastar.search(domain);
+        List<PackedElement> states = new ArrayList<>();
+        for (WAstar.Node node : wastar.getClosed().values()) {
+            states.add(node.getPacked());
+        }
+        return states;
+    }
+
+    /**
+     * Computes the statistics of the given hashes, as they would be distributed into the buckets
+     * of a java.util.HashMap
+     *
+     * @return {distinct hashes, largest bucket, average entries visited per successful lookup}
+     */
+    private static double[] _bucketsStatistics(int[] hashes) {
+        Set<Integer> distinct = new HashSet<>();
+        int tableSize = Integer.highestOneBit(Math.max((int) (hashes.length / 0.75d), 1)) << 1;
+        int[] buckets = new int[tableSize];
+        for (int hash : hashes) {
+            distinct.add(hash);
+            // The same spreading as done by java.util.HashMap
+            ++buckets[(hash ^ (hash >>> 16)) & (tableSize - 1)];
+        }
+        int largest = 0;
+        double visited = 0;
+        for (int bucket : buckets) {
+            largest = Math.max(largest, bucket);
+            visited += bucket * (bucket + 1) / 2.0d;
+        }
+        return new double[]{distinct.size(), largest, visited / hashes.length};
+    }
+
+    /**
+     * @return The time (in ms) required for inserting all the keys into a HashMap and looking all
+     *         of them up
+     */
+    private static <K> long _mapThroughput(List<K> keys) {
+        long start = System.nanoTime();
+        Map<K, K> map = new HashMap<>();
+        for (K key : keys) {
+            map.put(key, key);
+        }
+        for (K key : keys) {
+            if (map.get(key) == null) {
+                throw new IllegalStateException("Key was lost");
+            }
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    private static void _report(String domainName, SearchDomain domain, double weight) {
+        List<PackedElement> states = PackedHashReport._collectStates(domain, weight);
+        List<LegacyKey> legacyKeys = new ArrayList<>(states.size());
+        int[] legacyHashes = new int[states.size()];
+        int[] currentHashes = new int[states.size()];
+        for (int i = 0; i < states.size(); ++i) {
+            LegacyKey legacyKey = new LegacyKey(states.get(i));
+            legacyKeys.add(legacyKey);
+            legacyHashes[i] = legacyKey.hashCode();
+            currentHashes[i] = states.get(i).hashCode();
+        }
+        double[] legacy = PackedHashReport._bucketsStatistics(legacyHashes);
+        double[] current = PackedHashReport._bucketsStatistics(currentHashes);
+        // Warm-up, then measure
+        PackedHashReport._mapThroughput(legacyKeys);
+        PackedHashReport._mapThroughput(states);
+        long legacyTime = PackedHashReport._mapThroughput(legacyKeys);
+        long currentTime = PackedHashReport._mapThroughput(states);
+        System.out.println(domainName + "," + states.size() + "," + states.get(0).getLongsCount() + "," +
+                "sum," + (long) legacy[0] + "," + (long) legacy[1] + "," + String.format("%.3f", legacy[2]) +
+                "," + legacyTime);
+        System.out.println(domainName + "," + states.size() + "," + states.get(0).getLongsCount() + "," +
+                "mixed," + (long) current[0] + "," + (long) current[1] + "," + String.format("%.3f", current[2]) +
+                "," + currentTime);
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        System.out.println("Domain,States,Longs,Hash,DistinctHashes,LargestBucket,AvgVisitedPerLookup,MapTimeMs");
+        PackedHashReport._report("15-puzzle-12",
+                DomainsCreation.createKorf100FifteenPuzzleInstance("12"), 1.0);
+        PackedHashReport._report("pancakes-40-1",
+                DomainsCreation.createGeneratedPancakesInstance(40, "1"), 1.0);
+        PackedHashReport._report("brc202d-3",
+                DomainsCreation.createGridPathFindingInstance("brc202d.map", "3"), 1.0);
+        PackedHashReport._report("dockyard-robot-1",
+                DomainsCreation.createGeneratedDockyardRobotInstance("1"), 1.0);
+        PackedHashReport._report("vacuum-robot-5-1",
+                DomainsCreation.createGeneratedVacuumRobotInstance(5, "1"), 2.0);
+    }
+}
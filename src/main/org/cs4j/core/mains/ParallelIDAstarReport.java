@@ -0,0 +1,77 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.basic.IDAstar;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Reports the scaling of IDA* from a single thread to the given number of threads (see the "threads" and
+ * "frontier-depth" parameters)
+ *
+ * Usage: ParallelIDAstarReport [max-threads] [frontier-depth] [repetitions]
+ *
+ * The parallel search reports the same expanded and generated counts (and solution) as the sequential search (the
+ * report fails otherwise) - the work performed on the right of the solution is reported as AbortedExpanded
+ */
+public class ParallelIDAstarReport {
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static void _report(String domainName, SearchDomain domain, int maxThreads, String frontierDepth,
+                                int repetitions) {
+        SearchResultImpl expected = null;
+        long sequentialTime = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long minTime = Long.MAX_VALUE;
+            SearchResultImpl result = null;
+            for (int i = 0; i < repetitions; ++i) {
+                IDAstar idastar = new IDAstar();
+                idastar.setAdditionalParameter("threads", threads + "");
+                idastar.setAdditionalParameter("frontier-depth", frontierDepth);
+                long start = System.nanoTime();
+                result = idastar.search(domain);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            if (expected == null) {
+                expected = result;
+                sequentialTime = minTime;
+            } else if (expected.getExpanded() != result.getExpanded() ||
+                    expected.getGenerated() != result.getGenerated() ||
+                    expected.getSolutions().get(0).getCost() != result.getSolutions().get(0).getCost()) {
+                throw new IllegalStateException("Different searches: " +
+                        expected.getExpanded() + "/" + expected.getGenerated() + " vs. " +
+                        result.getExpanded() + "/" + result.getGenerated());
+            }
+            Object abortedExpanded = result.getExtras().get("aborted-expanded");
+            System.out.println(domainName + "," + threads + "," + frontierDepth + "," +
+                    result.getExpanded() + "," + result.getGenerated() + "," +
+                    result.getSolutions().get(0).getCost() + "," +
+                    ((abortedExpanded != null) ? abortedExpanded : 0) + "," + minTime / 1000000 + "," +
+                    String.format("%.2f", sequentialTime / (double) minTime));
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        String frontierDepth = (args.length > 1) ? args[1] : "6";
+        int repetitions = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+
+        System.out.println("Domain,Threads,FrontierDepth,Expanded,Generated,Cost,AbortedExpanded,TimeMs,Speedup");
+
+        for (String instance : new String[]{"12", "55", "3"}) {
+            ParallelIDAstarReport._report("15-puzzle-" + instance,
+                    DomainsCreation.createKorf100FifteenPuzzleInstance(instance), maxThreads, frontierDepth,
+                    repetitions);
+        }
+        ParallelIDAstarReport._report("40-pancakes-1", DomainsCreation.createGeneratedPancakesInstance(40, "1"),
+                maxThreads, frontierDepth, repetitions);
+    }
+}
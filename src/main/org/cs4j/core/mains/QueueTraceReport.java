@@ -0,0 +1,382 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchAlgorithm;
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.familiar.DP;
+import org.cs4j.core.algorithms.familiar.EES;
+import org.cs4j.core.algorithms.weighted.WAstar;
+import org.cs4j.core.collections.BinHeap;
+import org.cs4j.core.collections.BucketHeap;
+import org.cs4j.core.collections.DaryHeap;
+import org.cs4j.core.collections.FocalQueue;
+import org.cs4j.core.collections.GEQueue;
+import org.cs4j.core.collections.GH_heap;
+import org.cs4j.core.collections.PairingHeap;
+import org.cs4j.core.collections.QueueTrace;
+import org.cs4j.core.collections.RadixHeap;
+import org.cs4j.core.collections.SearchQueue;
+import org.cs4j.core.collections.TreapGEQueue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Records the operations on the queues of WA*, DP and EES into trace files (see the "queue-trace"
+ * parameter of the algorithms and QueueTraceWriter), and replays the traces on the queue
+ * implementations (see QueueTrace) - hence the queues can be compared and tuned without running
+ * the domains.
+ *
+ * Usage: QueueTraceReport record [directory]
+ *        QueueTraceReport replay repetitions trace-file [trace-file ...]
+ *
+ * The replayed queues are chosen by the algorithm which recorded the trace:
+ * - wastar: BinHeap, DaryHeap (4), PairingHeap and RadixHeap (and BucketHeap if the recorded
+ *   search used it) - ordered by the ranks of the nodes
+ * - dp: GH_heap (with the recorded parameters of DP)
+ * - ees: GEQueue and TreapGEQueue for OPEN and FOCAL, and BinHeap, DaryHeap (4) and PairingHeap
+ *   for cleanup
+ *
+ * Each queue is replayed several times after a warm-up, and the minimum time is reported.
+ */
+public class QueueTraceReport {
+
+    private static final int WARM_UP_REPETITIONS = 3;
+
+    /**
+     * Orders the elements by a primary key and then by high g, like WAstar.NodeComparator (the
+     * primary key is the rank) and EES.CleanupNodeComparator (the primary key is f) - the ties are
+     * broken by the ids
+     */
+    private static final class RankComparator implements Comparator<QueueTrace.Element> {
+        private final DaryHeap.PrimaryKey<QueueTrace.Element> primaryKey;
+
+        private RankComparator(DaryHeap.PrimaryKey<QueueTrace.Element> primaryKey) {
+            this.primaryKey = primaryKey;
+        }
+
+        @Override
+        public int compare(QueueTrace.Element a, QueueTrace.Element b) {
+            double aKey = this.primaryKey.get(a);
+            double bKey = this.primaryKey.get(b);
+            if (aKey != bKey) {
+                return (aKey < bKey) ? -1 : 1;
+            }
+            if (a.getG() != b.getG()) {
+                return (a.getG() > b.getG()) ? -1 : 1;
+            }
+            return Integer.compare(a.getId(), b.getId());
+        }
+    }
+
+    /**
+     * Orders OPEN of EES (like EES.OpenNodeComparator): low f^, low d, high g
+     *
+     * NOTE: f^ is computed from g and h^ (as in EES), since the primary key of an element is
+     * overridden by its record in cleanup
+     */
+    private static final class OpenComparator implements Comparator<QueueTrace.Element> {
+        @Override
+        public int compare(QueueTrace.Element a, QueueTrace.Element b) {
+            double aFHat = a.getG() + a.getHhat();
+            double bFHat = b.getG() + b.getHhat();
+            if (aFHat != bFHat) {
+                return (aFHat < bFHat) ? -1 : 1;
+            }
+            if (a.getD() != b.getD()) {
+                return (a.getD() < b.getD()) ? -1 : 1;
+            }
+            if (a.getG() != b.getG()) {
+                return (a.getG() > b.getG()) ? -1 : 1;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Orders FOCAL of EES (like EES.FocalNodeComparator): low d^, low f^, high g
+     */
+    private static final class FocalComparator implements Comparator<QueueTrace.Element> {
+        @Override
+        public int compare(QueueTrace.Element a, QueueTrace.Element b) {
+            if (a.getDhat() != b.getDhat()) {
+                return (a.getDhat() < b.getDhat()) ? -1 : 1;
+            }
+            double aFHat = a.getG() + a.getHhat();
+            double bFHat = b.getG() + b.getHhat();
+            if (aFHat != bFHat) {
+                return (aFHat < bFHat) ? -1 : 1;
+            }
+            if (a.getG() != b.getG()) {
+                return (a.getG() > b.getG()) ? -1 : 1;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Compares f^ of an element with weight * f^ of another element (like EES.GENodeComparator)
+     */
+    private static final class GEComparator implements Comparator<QueueTrace.Element> {
+        private final double weight;
+
+        private GEComparator(double weight) {
+            this.weight = weight;
+        }
+
+        @Override
+        public int compare(QueueTrace.Element a, QueueTrace.Element b) {
+            double aFHat = a.getG() + a.getHhat();
+            double bFHat = b.getG() + b.getHhat();
+            if (aFHat < this.weight * bFHat) {
+                return -1;
+            } else if (aFHat > this.weight * bFHat) {
+                return 1;
+            }
+            return 0;
+        }
+    }
+
+    private static final class FHatPrimaryKey implements DaryHeap.PrimaryKey<QueueTrace.Element> {
+        @Override
+        public double get(QueueTrace.Element e) {
+            return e.getG() + e.getHhat();
+        }
+    }
+
+    private static final class FPrimaryKey implements DaryHeap.PrimaryKey<QueueTrace.Element> {
+        @Override
+        public double get(QueueTrace.Element e) {
+            return e.getF();
+        }
+    }
+
+    /**
+     * A queue which is replayed on a channel of a trace
+     */
+    private static abstract class ReplayedQueue {
+        final String name;
+        final int channel;
+
+        private ReplayedQueue(String name, int channel) {
+            this.name = name;
+            this.channel = channel;
+        }
+
+        /**
+         * Creates the queue and replays the trace on it
+         *
+         * @return The time of the replay (nanoseconds)
+         */
+        abstract long replay(QueueTrace trace);
+    }
+
+    private static final class ReplayedSearchQueue extends ReplayedQueue {
+        private final String type;
+        private final DaryHeap.PrimaryKey<QueueTrace.Element> primaryKey;
+        private final double[] ghHeapParameters;
+        private final boolean[] ghHeapFlags;
+
+        private ReplayedSearchQueue(String type, int channel, DaryHeap.PrimaryKey<QueueTrace.Element> primaryKey) {
+            super(type, channel);
+            this.type = type;
+            this.primaryKey = primaryKey;
+            this.ghHeapParameters = null;
+            this.ghHeapFlags = null;
+        }
+
+        private ReplayedSearchQueue(double[] ghHeapParameters, boolean[] ghHeapFlags) {
+            super("gh_heap", 0);
+            this.type = "gh_heap";
+            this.primaryKey = null;
+            this.ghHeapParameters = ghHeapParameters;
+            this.ghHeapFlags = ghHeapFlags;
+        }
+
+        private SearchQueue<QueueTrace.Element> _create() {
+            switch (this.type) {
+                case "bin": {
+                    return new BinHeap<>(new RankComparator(this.primaryKey), 0);
+                }
+                case "dary": {
+                    return new DaryHeap<>(new RankComparator(this.primaryKey), 0, 4, this.primaryKey);
+                }
+                case "pairing": {
+                    return new PairingHeap<>(new RankComparator(this.primaryKey), 0, this.primaryKey);
+                }
+                case "bucket": {
+                    return new BucketHeap<>(100, 0);
+                }
+                case "radix": {
+                    return new RadixHeap<>(0);
+                }
+                case "gh_heap": {
+                    GH_heap<QueueTrace.Element> heap = new GH_heap<>(this.ghHeapParameters[0], 0,
+                            this.ghHeapParameters[1], this.ghHeapParameters[2], new SearchResultImpl(),
+                            this.ghHeapFlags[0], this.ghHeapFlags[1], this.ghHeapFlags[2], this.ghHeapFlags[3]);
+                    if (this.ghHeapFlags[4]) {
+                        heap.setOptimal(0);
+                    }
+                    return heap;
+                }
+                default: {
+                    throw new IllegalArgumentException("Unknown queue: " + this.type);
+                }
+            }
+        }
+
+        @Override
+        long replay(QueueTrace trace) {
+            SearchQueue<QueueTrace.Element> queue = this._create();
+            long start = System.nanoTime();
+            QueueTraceReport.check += trace.replay(this.channel, queue);
+            return System.nanoTime() - start;
+        }
+    }
+
+    private static final class ReplayedFocalQueue extends ReplayedQueue {
+        private final String type;
+        private final double weight;
+
+        private ReplayedFocalQueue(String type, double weight) {
+            super(type, 0);
+            this.type = type;
+            this.weight = weight;
+        }
+
+        private FocalQueue<QueueTrace.Element> _create() {
+            if (this.type.equals("rbtree")) {
+                return new GEQueue<>(new OpenComparator(), new GEComparator(this.weight),
+                        new FocalComparator(), 0);
+            }
+            return new TreapGEQueue<>(new OpenComparator(), new FocalComparator(), new FHatPrimaryKey(),
+                    this.weight, 0, 1);
+        }
+
+        @Override
+        long replay(QueueTrace trace) {
+            FocalQueue<QueueTrace.Element> queue = this._create();
+            long start = System.nanoTime();
+            QueueTraceReport.check += trace.replay(this.channel, queue);
+            return System.nanoTime() - start;
+        }
+    }
+
+    // The sum of the results of the replays (prevents the JIT from removing them)
+    private static double check;
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static List<ReplayedQueue> _replayedQueues(QueueTrace trace) {
+        List<ReplayedQueue> queues = new ArrayList<>();
+        String algorithm = trace.getProperty("algorithm");
+        if (algorithm.equals("wastar")) {
+            queues.add(new ReplayedSearchQueue("bin", 0, new QueueTrace.PrimaryKey()));
+            queues.add(new ReplayedSearchQueue("dary", 0, new QueueTrace.PrimaryKey()));
+            queues.add(new ReplayedSearchQueue("pairing", 0, new QueueTrace.PrimaryKey()));
+            queues.add(new ReplayedSearchQueue("radix", 0, new QueueTrace.PrimaryKey()));
+            if ("bucket".equals(trace.getProperty("open-list"))) {
+                queues.add(new ReplayedSearchQueue("bucket", 0, new QueueTrace.PrimaryKey()));
+            }
+        } else if (algorithm.equals("ees")) {
+            double weight = Double.parseDouble(trace.getProperty("weight"));
+            queues.add(new ReplayedFocalQueue("rbtree", weight));
+            queues.add(new ReplayedFocalQueue("treap", weight));
+            queues.add(new ReplayedSearchQueue("bin", 1, new FPrimaryKey()));
+            queues.add(new ReplayedSearchQueue("dary", 1, new FPrimaryKey()));
+            queues.add(new ReplayedSearchQueue("pairing", 1, new FPrimaryKey()));
+        } else {
+            // DP (any of its variants)
+            double[] parameters = {
+                    Double.parseDouble(trace.getProperty("weight")),
+                    Double.parseDouble(trace.getProperty("fmin")),
+                    Double.parseDouble(trace.getProperty("dmin"))};
+            boolean[] flags = {
+                    Boolean.parseBoolean(trace.getProperty("use-fr")),
+                    Boolean.parseBoolean(trace.getProperty("use-d")),
+                    Boolean.parseBoolean(trace.getProperty("focalized")),
+                    Boolean.parseBoolean(trace.getProperty("wa-priority")),
+                    Boolean.parseBoolean(trace.getProperty("optimal"))};
+            queues.add(new ReplayedSearchQueue(parameters, flags));
+        }
+        return queues;
+    }
+
+    private static void _replay(File file, int repetitions) {
+        QueueTrace trace = QueueTrace.read(file);
+        for (ReplayedQueue queue : QueueTraceReport._replayedQueues(trace)) {
+            for (int i = 0; i < QueueTraceReport.WARM_UP_REPETITIONS; ++i) {
+                queue.replay(trace);
+            }
+            long minTime = Long.MAX_VALUE;
+            for (int i = 0; i < repetitions; ++i) {
+                minTime = Math.min(minTime, queue.replay(trace));
+            }
+            int operations = trace.getCount(queue.channel);
+            System.out.println(file.getName() + "," + trace.getProperty("algorithm") + "," +
+                    trace.getProperty("domain") + "," + trace.getProperty("weight") + "," +
+                    queue.channel + "," + operations + "," + trace.getElementsCount() + "," +
+                    queue.name + "," + String.format("%.2f", minTime / 1.0e6) + "," +
+                    String.format("%.0f", operations / (minTime / 1.0e9)));
+        }
+    }
+
+    private static void _record(File directory, String traceName, SearchAlgorithm algorithm, SearchDomain domain,
+                                String weight) {
+        File file = new File(directory, traceName + "-" + algorithm.getName() + "-w" + weight + ".qtr");
+        algorithm.setAdditionalParameter("weight", weight);
+        algorithm.setAdditionalParameter("queue-trace", file.getPath());
+        SearchResultImpl result = algorithm.search(domain);
+        System.out.println(file.getName() + "," + result.getExpanded() + "," + result.getGenerated() + "," +
+                result.opupdated + "," + result.reopened + "," + file.length());
+    }
+
+    private static void _record(File directory, String traceName, SearchDomain domain) {
+        for (String weight : new String[]{"1.0", "2.0"}) {
+            QueueTraceReport._record(directory, traceName, new WAstar(), domain, weight);
+        }
+        QueueTraceReport._record(directory, traceName, new DP("DPS", false, false, false), domain, "1.5");
+        QueueTraceReport._record(directory, traceName, new EES(1.5), domain, "1.5");
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        if (args.length > 0 && args[0].equals("replay")) {
+            int repetitions = Integer.parseInt(args[1]);
+            System.out.println("Trace,Algorithm,Domain,Weight,Channel,Operations,Elements,Queue,TimeMs," +
+                    "OperationsPerSecond");
+            for (int i = 2; i < args.length; ++i) {
+                QueueTraceReport._replay(new File(args[i]), repetitions);
+            }
+            if (QueueTraceReport.check == 0) {
+                System.out.println("[WARNING] Nothing was replayed");
+            }
+            return;
+        }
+
+        File directory = new File((args.length > 1) ? args[1] : "traces");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.out.println("[ERROR] Can't create the directory " + directory);
+            return;
+        }
+        System.out.println("Trace,Expanded,Generated,Updated,Reopened,Bytes");
+        QueueTraceReport._record(directory, "15-puzzle-12",
+                DomainsCreation.createKorf100FifteenPuzzleInstance("12"));
+        QueueTraceReport._record(directory, "brc202d-1",
+                DomainsCreation.createGridPathFindingInstance("brc202d.map", "1"));
+        QueueTraceReport._record(directory, "40-pancakes-1",
+                DomainsCreation.createGeneratedPancakesInstance(40, "1"));
+        QueueTraceReport._record(directory, "vacuum-5-1",
+                DomainsCreation.createGeneratedVacuumRobotInstance(5, "1"));
+        QueueTraceReport._record(directory, "dockyard-1",
+                DomainsCreation.createGeneratedDockyardRobotInstance("1"));
+    }
+}
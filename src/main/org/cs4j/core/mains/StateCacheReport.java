@@ -0,0 +1,89 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.weighted.WAstar;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Reports the hit rate of the state cache of WA* (see the "state-cache" parameter) and the time
+ * of the search with and without the cache
+ *
+ * Usage: StateCacheReport [capacity] [repetitions]
+ *
+ * The searches must be identical (the same expanded and generated counts), since a cached state
+ * is equal to the state that would be unpacked (the report fails otherwise)
+ */
+public class StateCacheReport {
+
+    private static final String WEIGHT = "1.0";
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static WAstar _createAlgorithm(int capacity, boolean nodePool) {
+        WAstar wastar = new WAstar();
+        wastar.setAdditionalParameter("weight", StateCacheReport.WEIGHT);
+        wastar.setAdditionalParameter("state-cache", capacity + "");
+        wastar.setAdditionalParameter("node-pool", nodePool + "");
+        return wastar;
+    }
+
+    private static void _report(String domainName, SearchDomain domain, int capacity,
+                                boolean nodePool, int repetitions) {
+        long expected = -1;
+        long uncachedTime = 0;
+        for (int currentCapacity : new int[]{0, capacity}) {
+            long minTime = Long.MAX_VALUE;
+            SearchResultImpl result = null;
+            for (int i = 0; i < repetitions; ++i) {
+                WAstar wastar = StateCacheReport._createAlgorithm(currentCapacity, nodePool);
+                long start = System.nanoTime();
+                result = wastar.search(domain);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            if (expected == -1) {
+                expected = result.getGenerated();
+                uncachedTime = minTime;
+            } else if (expected != result.getGenerated()) {
+                throw new IllegalStateException("Different searches: " + expected + " vs. " +
+                        result.getGenerated() + " generated nodes");
+            }
+            String hitRate = "-";
+            if (currentCapacity > 0) {
+                long hits = (Long) result.getExtras().get("state-cache-hits");
+                long misses = (Long) result.getExtras().get("state-cache-misses");
+                hitRate = String.format("%.3f", hits / (double) (hits + misses));
+            }
+            System.out.println(domainName + "," + (nodePool ? "node-pool" : "nodes") + "," +
+                    currentCapacity + "," + result.getExpanded() + "," + result.getGenerated() + "," +
+                    hitRate + "," + minTime / 1000000 + "," +
+                    String.format("%.2f", uncachedTime / (double) minTime));
+        }
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int capacity = (args.length > 0) ? Integer.parseInt(args[0]) : 1 << 16;
+        int repetitions = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("Domain,Nodes,Capacity,Expanded,Generated,HitRate,TimeMs,Speedup");
+
+        SearchDomain[] domains = {
+                DomainsCreation.createKorf100FifteenPuzzleInstance("12"),
+                DomainsCreation.createGeneratedPancakesInstance(40, "1"),
+                DomainsCreation.createGridPathFindingInstance("brc202d.map", "1"),
+                DomainsCreation.createGeneratedVacuumRobotInstance(5, "1")};
+        String[] names = {"15-puzzle-12", "40-pancakes-1", "brc202d-1", "vacuum-5-1"};
+        for (int i = 0; i < domains.length; ++i) {
+            for (boolean nodePool : new boolean[]{false, true}) {
+                StateCacheReport._report(names[i], domains[i], capacity, nodePool, repetitions);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.cs4j.core.mains;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.anytime.AnytimePTS;
+import org.cs4j.core.algorithms.familiar.PTS;
+import org.cs4j.core.algorithms.weighted.WAstar;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Compares the open lists of Potential Search (PTS, with a cost bound of 1.5 times the optimal cost) and of Anytime
+ * Potential Search (APTS, until it finds the optimal solution or the iterations limit is reached): a BinHeap ordered
+ * by a comparator of the potentials which doesn't break ties, and a KeyedHeap whose keys (the potential, then a higher
+ * g and then the insertion order) are computed once per node - see the "open-list" parameter
+ *
+ * Usage: TieBreakingReport [repetitions] [max-iterations]
+ */
+public class TieBreakingReport {
+
+    private static final String[] OPEN_LISTS = {"bin", "keyed"};
+    private static final double BOUND_FACTOR = 1.5;
+
+    /*******************************************************************************************************************
+     * Private static methods
+     ******************************************************************************************************************/
+
+    private static void _reportPTS(String domainName, SearchDomain domain, double maxCost, int repetitions) {
+        for (String openList : TieBreakingReport.OPEN_LISTS) {
+            long minTime = Long.MAX_VALUE;
+            SearchResultImpl result = null;
+            for (int i = 0; i < repetitions; ++i) {
+                PTS pts = new PTS();
+                pts.setAdditionalParameter("max-cost", maxCost + "");
+                pts.setAdditionalParameter("open-list", openList);
+                long start = System.nanoTime();
+                result = pts.search(domain);
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            System.out.println(domainName + ",pts," + openList + ",1," +
+                    (result.hasSolution() ? result.getSolutions().get(0).getCost() : -1) + "," +
+                    result.getExpanded() + "," + result.getGenerated() + "," + minTime / 1000000);
+        }
+    }
+
+    private static void _reportAPTS(String domainName, SearchDomain domain, double optimalCost, int repetitions,
+                                    int maxIterations) {
+        for (String openList : TieBreakingReport.OPEN_LISTS) {
+            long minTime = Long.MAX_VALUE;
+            AnytimePTS apts = null;
+            int iterations = 0;
+            for (int i = 0; i < repetitions; ++i) {
+                apts = new AnytimePTS();
+                apts.setAdditionalParameter("open-list", openList);
+                long start = System.nanoTime();
+                SearchResultImpl result = apts.search(domain);
+                iterations = 1;
+                while (result.hasSolution() && apts.incumbentSolution > optimalCost && iterations < maxIterations) {
+                    result = apts.continueSearch();
+                    ++iterations;
+                }
+                minTime = Math.min(minTime, System.nanoTime() - start);
+            }
+            SearchResultImpl total = apts.getTotalSearchResults();
+            System.out.println(domainName + ",apts," + openList + "," + iterations + "," +
+                    apts.incumbentSolution + "," + total.getExpanded() + "," + total.getGenerated() + "," +
+                    minTime / 1000000);
+        }
+    }
+
+    private static void _report(String domainName, SearchDomain domain, int repetitions, int maxIterations) {
+        WAstar astar = new WAstar();
+        astar.setAdditionalParameter("weight", "1.0");
+        double optimalCost = astar.search(domain).getSolutions().get(0).getCost();
+        TieBreakingReport._reportPTS(domainName, domain, optimalCost * TieBreakingReport.BOUND_FACTOR, repetitions);
+        TieBreakingReport._reportAPTS(domainName, domain, optimalCost, repetitions, maxIterations);
+    }
+
+    /*******************************************************************************************************************
+     * Main
+     ******************************************************************************************************************/
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int repetitions = (args.length > 0) ? Integer.parseInt(args[0]) : 3;
+        int maxIterations = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+
+        System.out.println("Domain,Algorithm,OpenList,Iterations,Cost,Expanded,Generated,TimeMs");
+
+        for (String instance : new String[]{"1", "2", "3"}) {
+            TieBreakingReport._report("brc202d-" + instance,
+                    DomainsCreation.createGridPathFindingInstance("brc202d.map", instance), repetitions,
+                    maxIterations);
+        }
+        for (String instance : new String[]{"12", "55"}) {
+            TieBreakingReport._report("15-puzzle-" + instance,
+                    DomainsCreation.createKorf100FifteenPuzzleInstance(instance), repetitions, maxIterations);
+        }
+        for (String instance : new String[]{"1"}) {
+            TieBreakingReport._report("40-pancakes-" + instance,
+                    DomainsCreation.createGeneratedPancakesInstance(40, instance), repetitions, maxIterations);
+        }
+    }
+}
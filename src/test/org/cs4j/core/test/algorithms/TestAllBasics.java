@@ -33,6 +33,8 @@ public class TestAllBasics {
 	public void testAstarBinHeap() throws FileNotFoundException {
 		SearchDomain domain = TestUtils.createFifteenPuzzle("12");
 		SearchAlgorithm algo = new WAStar();
+		// The open list is chosen according to the domain by default (a BucketHeap for the 15-puzzle)
+		algo.setAdditionalParameter("open-list", "bin");
 		TestUtils.testSearchAlgorithm(domain, algo, 65271, 32470, 45);
 	}	
 
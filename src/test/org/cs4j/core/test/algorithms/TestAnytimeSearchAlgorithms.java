@@ -89,6 +89,8 @@ public class TestAnytimeSearchAlgorithms {
         for(double w=1;w<4;w=w+0.25) {
             WAStar wastar = new WAStar();
             wastar.setAdditionalParameter("weight", ""+w);
+            // AWA* orders OPEN by a BinHeap (the ties of the automatically chosen heap are broken differently)
+            wastar.setAdditionalParameter("open-list", "bin");
             SearchDomain domain = TestUtils.createFifteenPuzzle("12");
 
             SearchResult resultsWAstar = wastar.search(domain);
@@ -0,0 +1,83 @@
+package java.org.cs4j.core.test.algorithms;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.weighted.WAstar;
+import org.cs4j.core.mains.DomainsCreation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Verifies the batched expansion of WAstar: a single node per batch performs exactly like the regular expansion,
+ * the number of threads doesn't affect the search, and the cost of a solution is bounded by the weight
+ */
+public class TestBatchedWAstar {
+
+    // The optimal cost of the 15-puzzle instance 12
+    private static final double OPTIMAL_COST = 45;
+
+    private static SearchResultImpl search(SearchDomain domain, String weight, int batchSize, int threads) {
+        WAstar wastar = new WAstar();
+        wastar.setAdditionalParameter("weight", weight);
+        if (batchSize > 0) {
+            wastar.setAdditionalParameter("batch-size", batchSize + "");
+            wastar.setAdditionalParameter("batch-threads", threads + "");
+        }
+        SearchResultImpl result = wastar.search(domain);
+        Assert.assertTrue(result.hasSolution());
+        return result;
+    }
+
+    private static void assertSameSearch(SearchResultImpl expected, SearchResultImpl result) {
+        Assert.assertEquals(expected.getGenerated(), result.getGenerated());
+        Assert.assertEquals(expected.getExpanded(), result.getExpanded());
+        Assert.assertEquals(expected.getDuplicates(), result.getDuplicates());
+        Assert.assertEquals(expected.getReopened(), result.getReopened());
+        Assert.assertEquals(expected.getBestSolution().getCost(), result.getBestSolution().getCost(), 0);
+        Assert.assertEquals(expected.getBestSolution().getLength(), result.getBestSolution().getLength());
+    }
+
+    @Test
+    public void testSingleNodeBatchLikeRegular() throws FileNotFoundException {
+        SearchDomain[] domains = {
+                DomainsCreation.createKorf100FifteenPuzzleInstance("12"),
+                DomainsCreation.createGeneratedDockyardRobotInstance("1")};
+        for (SearchDomain domain : domains) {
+            for (String weight : new String[]{"1", "2"}) {
+                SearchResultImpl expected = TestBatchedWAstar.search(domain, weight, 0, 0);
+                for (int threads : new int[]{1, 2}) {
+                    TestBatchedWAstar.assertSameSearch(expected, TestBatchedWAstar.search(domain, weight, 1, threads));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testThreadsDontAffectSearch() throws FileNotFoundException {
+        SearchDomain domain = DomainsCreation.createKorf100FifteenPuzzleInstance("12");
+        for (int batchSize : new int[]{4, 16}) {
+            SearchResultImpl expected = TestBatchedWAstar.search(domain, "2", batchSize, 1);
+            for (int threads : new int[]{2, 4}) {
+                SearchResultImpl result = TestBatchedWAstar.search(domain, "2", batchSize, threads);
+                TestBatchedWAstar.assertSameSearch(expected, result);
+                Assert.assertEquals(expected.getExtras().get("batches"), result.getExtras().get("batches"));
+            }
+        }
+    }
+
+    @Test
+    public void testBoundedCost() throws FileNotFoundException {
+        SearchDomain domain = DomainsCreation.createKorf100FifteenPuzzleInstance("12");
+        for (int batchSize : new int[]{2, 4, 16}) {
+            // Only the first node of a batch is accepted as a goal, hence the cost is optimal for w=1
+            SearchResultImpl result = TestBatchedWAstar.search(domain, "1", batchSize, 2);
+            Assert.assertEquals(TestBatchedWAstar.OPTIMAL_COST, result.getBestSolution().getCost(), 0);
+            result = TestBatchedWAstar.search(domain, "2", batchSize, 2);
+            double cost = result.getBestSolution().getCost();
+            Assert.assertTrue("Cost " + cost + " with batches of " + batchSize,
+                    cost >= TestBatchedWAstar.OPTIMAL_COST && cost <= 2 * TestBatchedWAstar.OPTIMAL_COST);
+        }
+    }
+}
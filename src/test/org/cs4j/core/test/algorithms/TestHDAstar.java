@@ -0,0 +1,66 @@
+package java.org.cs4j.core.test.algorithms;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.parallel.HDAstar;
+import org.cs4j.core.algorithms.weighted.WAstar;
+import org.cs4j.core.mains.DomainsCreation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Verifies HDAstar: a single thread expands the nodes by the order of WAstar (with a DaryHeap as OPEN), and multiple
+ * threads keep the cost optimal for w=1 and at most w times the optimal cost otherwise
+ */
+public class TestHDAstar {
+
+    // The optimal cost of the 15-puzzle instance 12
+    private static final double OPTIMAL_COST = 45;
+
+    private static SearchResultImpl search(String weight, int threads) throws FileNotFoundException {
+        SearchDomain domain = DomainsCreation.createKorf100FifteenPuzzleInstance("12");
+        HDAstar hdastar = new HDAstar();
+        hdastar.setAdditionalParameter("weight", weight);
+        hdastar.setAdditionalParameter("threads", threads + "");
+        SearchResultImpl result = hdastar.search(domain);
+        Assert.assertTrue(result.hasSolution());
+        return result;
+    }
+
+    @Test
+    public void testSingleThreadLikeWAstar() throws FileNotFoundException {
+        SearchDomain domain = DomainsCreation.createKorf100FifteenPuzzleInstance("12");
+        WAstar wastar = new WAstar();
+        wastar.setAdditionalParameter("open-list", "dary");
+        SearchResultImpl expected = wastar.search(domain);
+        Assert.assertEquals(65128, expected.getGenerated());
+        Assert.assertEquals(32406, expected.getExpanded());
+
+        SearchResultImpl result = TestHDAstar.search("1", 1);
+        Assert.assertEquals(expected.getGenerated(), result.getGenerated());
+        Assert.assertEquals(expected.getExpanded(), result.getExpanded());
+        Assert.assertEquals(TestHDAstar.OPTIMAL_COST, result.getBestSolution().getCost(), 0);
+        Assert.assertEquals(TestHDAstar.OPTIMAL_COST, result.getBestSolution().getLength(), 0);
+    }
+
+    @Test
+    public void testOptimalWithMultipleThreads() throws FileNotFoundException {
+        for (int threads : new int[]{2, 4}) {
+            SearchResultImpl result = TestHDAstar.search("1", threads);
+            Assert.assertEquals(TestHDAstar.OPTIMAL_COST, result.getBestSolution().getCost(), 0);
+            Assert.assertEquals(TestHDAstar.OPTIMAL_COST, result.getBestSolution().getLength(), 0);
+        }
+    }
+
+    @Test
+    public void testBoundedWithMultipleThreads() throws FileNotFoundException {
+        for (int threads : new int[]{1, 2, 4}) {
+            SearchResultImpl result = TestHDAstar.search("2", threads);
+            double cost = result.getBestSolution().getCost();
+            Assert.assertTrue("Cost " + cost + " with " + threads + " threads",
+                    cost >= TestHDAstar.OPTIMAL_COST && cost <= 2 * TestHDAstar.OPTIMAL_COST);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package java.org.cs4j.core.test.algorithms;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.parallel.PBNF;
+import org.cs4j.core.mains.DomainsCreation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+
+/**
+ * Verifies the costs of PBNF with a single thread and with multiple threads: optimal for w=1, at most w times the
+ * optimal cost otherwise, and improved until optimal in the anytime mode
+ */
+public class TestPBNF {
+
+    // The optimal cost of the 15-puzzle instance 12
+    private static final double OPTIMAL_COST = 45;
+
+    private static SearchResultImpl search(String weight, int threads, boolean anytime)
+            throws FileNotFoundException {
+        SearchDomain domain = DomainsCreation.createKorf100FifteenPuzzleInstance("12");
+        PBNF pbnf = new PBNF();
+        pbnf.setAdditionalParameter("weight", weight);
+        pbnf.setAdditionalParameter("threads", threads + "");
+        pbnf.setAdditionalParameter("anytime", anytime + "");
+        SearchResultImpl result = pbnf.search(domain);
+        Assert.assertTrue(result.hasSolution());
+        Assert.assertEquals(threads, result.getExtras().get("threads"));
+        return result;
+    }
+
+    @Test
+    public void testOptimal() throws FileNotFoundException {
+        for (int threads : new int[]{1, 3}) {
+            SearchResultImpl result = TestPBNF.search("1", threads, false);
+            Assert.assertEquals(TestPBNF.OPTIMAL_COST, result.getBestSolution().getCost(), 0);
+            Assert.assertEquals(TestPBNF.OPTIMAL_COST, result.getBestSolution().getLength(), 0);
+        }
+    }
+
+    @Test
+    public void testBounded() throws FileNotFoundException {
+        for (int threads : new int[]{1, 3}) {
+            SearchResultImpl result = TestPBNF.search("2", threads, false);
+            // Only the best solution is returned
+            Assert.assertEquals(1, result.solutionsCount());
+            double cost = result.getBestSolution().getCost();
+            Assert.assertTrue("Cost " + cost + " with " + threads + " threads",
+                    cost >= TestPBNF.OPTIMAL_COST && cost <= 2 * TestPBNF.OPTIMAL_COST);
+        }
+    }
+
+    @Test
+    public void testAnytime() throws FileNotFoundException {
+        for (int threads : new int[]{1, 3}) {
+            SearchResultImpl result = TestPBNF.search("2", threads, true);
+            List<SearchResultImpl.Solution> solutions = result.getSolutions();
+            // The first solution is found by the order of w*f, and then improved
+            Assert.assertTrue(solutions.size() > 1);
+            for (int i = 1; i < solutions.size(); ++i) {
+                Assert.assertTrue(solutions.get(i).getCost() < solutions.get(i - 1).getCost());
+            }
+            Assert.assertEquals(TestPBNF.OPTIMAL_COST, result.getBestSolution().getCost(), 0);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package java.org.cs4j.core.test.algorithms;
+
+import org.cs4j.core.SearchDomain;
+import org.cs4j.core.SearchResultImpl;
+import org.cs4j.core.algorithms.basic.IDAstar;
+import org.cs4j.core.mains.DomainsCreation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+
+/**
+ * Verifies that the parallel IDAstar reports the same solution and the same expanded and generated counts as the
+ * sequential search, for any number of threads and any frontier depth
+ */
+public class TestParallelIDAstar {
+
+    private static SearchResultImpl search(SearchDomain domain, int threads, int frontierDepth) {
+        IDAstar idastar = new IDAstar();
+        idastar.setAdditionalParameter("threads", threads + "");
+        idastar.setAdditionalParameter("frontier-depth", frontierDepth + "");
+        SearchResultImpl result = idastar.search(domain);
+        Assert.assertTrue(result.hasSolution());
+        return result;
+    }
+
+    @Test
+    public void testLikeSequential() throws FileNotFoundException {
+        SearchDomain domain = DomainsCreation.createKorf100FifteenPuzzleInstance("12");
+        // The frontier depth is ignored by a single thread
+        SearchResultImpl expected = TestParallelIDAstar.search(domain, 1, 0);
+        Assert.assertEquals(546343, expected.getGenerated());
+        Assert.assertEquals(269708, expected.getExpanded());
+        Assert.assertEquals(45, expected.getBestSolution().getCost(), 0);
+        for (int threads : new int[]{2, 4}) {
+            // The root itself is the frontier (a single subtree), and deeper frontiers
+            for (int frontierDepth : new int[]{0, 3, 6}) {
+                SearchResultImpl result = TestParallelIDAstar.search(domain, threads, frontierDepth);
+                String message = threads + " threads, frontier depth " + frontierDepth;
+                Assert.assertEquals(message, threads, result.getExtras().get("threads"));
+                Assert.assertEquals(message, expected.getGenerated(), result.getGenerated());
+                Assert.assertEquals(message, expected.getExpanded(), result.getExpanded());
+                Assert.assertEquals(message, expected.getBestSolution().getCost(),
+                        result.getBestSolution().getCost(), 0);
+                Assert.assertEquals(message, expected.getBestSolution().getLength(),
+                        result.getBestSolution().getLength());
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.BucketHeap;
+import org.cs4j.core.collections.RBTreeElement;
+import org.cs4j.core.collections.RBTreeNode;
+
+import java.util.Arrays;
+
+/**
+ * An element of the tested queues, whose keys are set directly by the tests (its rank at level 0
+ * is f and its rank at level 1 is g - like the ranks of an A* node)
+ */
+public final class QueueElement implements BucketHeap.BucketHeapElement, RBTreeElement<QueueElement, QueueElement> {
+
+    private static final int INDEXES_COUNT = 2;
+
+    private final int id;
+    private final int[] indexes = new int[QueueElement.INDEXES_COUNT];
+    private final int[] secondaryIndexes = new int[QueueElement.INDEXES_COUNT];
+    private RBTreeNode<QueueElement, QueueElement> node;
+
+    double f;
+    double g;
+    double h;
+    double d;
+    double depth;
+    double hHat;
+    double dHat;
+    // The number of the last add or update of the element (for the queues which prefer the last one)
+    long order;
+
+    QueueElement(int id) {
+        this.id = id;
+        Arrays.fill(this.indexes, -1);
+        Arrays.fill(this.secondaryIndexes, -1);
+    }
+
+    int getId() {
+        return this.id;
+    }
+
+    @Override
+    public void setIndex(int key, int index) {
+        this.indexes[key] = index;
+    }
+
+    @Override
+    public int getIndex(int key) {
+        return this.indexes[key];
+    }
+
+    @Override
+    public void setSecondaryIndex(int key, int index) {
+        this.secondaryIndexes[key] = index;
+    }
+
+    @Override
+    public int getSecondaryIndex(int key) {
+        return this.secondaryIndexes[key];
+    }
+
+    @Override
+    public RBTreeNode<QueueElement, QueueElement> getNode() {
+        return this.node;
+    }
+
+    @Override
+    public void setNode(RBTreeNode<QueueElement, QueueElement> node) {
+        this.node = node;
+    }
+
+    @Override
+    public double getRank(int level) {
+        return (level == 0) ? this.f : this.g;
+    }
+
+    @Override
+    public double getF() {
+        return this.f;
+    }
+
+    @Override
+    public double getG() {
+        return this.g;
+    }
+
+    @Override
+    public double getDepth() {
+        return this.depth;
+    }
+
+    @Override
+    public double getH() {
+        return this.h;
+    }
+
+    @Override
+    public double getD() {
+        return this.d;
+    }
+
+    @Override
+    public double getHhat() {
+        return this.hHat;
+    }
+
+    @Override
+    public double getDhat() {
+        return this.dHat;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueElement{id=" + this.id + ", f=" + this.f + ", g=" + this.g + ", h=" + this.h + '}';
+    }
+}
@@ -0,0 +1,172 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.SearchQueue;
+import org.junit.Assert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Applies random operations (add, poll, update and remove) to a search queue and to a reference
+ * TreeSet, and verifies that the queue returns the elements in the order of the reference and keeps
+ * the indexes of the elements
+ *
+ * The elements which are equal by the given order may be returned in any order (unless the order
+ * compares QueueElement.order, which is set on each add and update)
+ */
+final class SearchQueueChecker {
+
+    private final SearchQueue<QueueElement> queue;
+    private final Comparator<QueueElement> order;
+    private final Random random;
+    // The keys are integers in [0, range)
+    private final int range;
+    private final TreeSet<QueueElement> reference;
+    // The elements of the queue (for choosing an element at random)
+    private final List<QueueElement> members = new ArrayList<>();
+    // Elements which were in the queue and can be added again
+    private final List<QueueElement> removed = new ArrayList<>();
+    private int elementsCount;
+    private long operationsCount;
+
+    SearchQueueChecker(SearchQueue<QueueElement> queue, final Comparator<QueueElement> order,
+                       long seed, int range) {
+        this.queue = queue;
+        this.order = order;
+        this.random = new Random(seed);
+        this.range = range;
+        this.reference = new TreeSet<>(new Comparator<QueueElement>() {
+            @Override
+            public int compare(QueueElement a, QueueElement b) {
+                int result = order.compare(a, b);
+                return (result != 0) ? result : Integer.compare(a.getId(), b.getId());
+            }
+        });
+    }
+
+    List<QueueElement> getMembers() {
+        return this.members;
+    }
+
+    /**
+     * Sets random keys to the given element: f = g + h, where g and h are in [0, range)
+     */
+    private void _randomizeKeys(QueueElement e) {
+        e.g = this.random.nextInt(this.range);
+        e.h = this.random.nextInt(this.range);
+        e.f = e.g + e.h;
+        e.d = e.h;
+        e.depth = e.g;
+        e.hHat = e.h + this.random.nextInt(this.range);
+        e.dHat = e.d + this.random.nextInt(this.range);
+        e.order = this.operationsCount++;
+    }
+
+    private QueueElement _takeRandom(List<QueueElement> list) {
+        int i = this.random.nextInt(list.size());
+        QueueElement e = list.get(i);
+        list.set(i, list.get(list.size() - 1));
+        list.remove(list.size() - 1);
+        return e;
+    }
+
+    /**
+     * Adds a new element (or an element which was removed before)
+     */
+    void add() {
+        QueueElement e;
+        if (!this.removed.isEmpty() && this.random.nextBoolean()) {
+            e = this._takeRandom(this.removed);
+        } else {
+            e = new QueueElement(this.elementsCount++);
+        }
+        this._randomizeKeys(e);
+        this.queue.add(e);
+        Assert.assertTrue(this.reference.add(e));
+        this.members.add(e);
+        Assert.assertTrue(e.getIndex(this.queue.getKey()) >= 0);
+    }
+
+    void poll() {
+        QueueElement expected = this.reference.isEmpty() ? null : this.reference.first();
+        QueueElement e = this.queue.poll();
+        if (expected == null) {
+            Assert.assertEquals(null, e);
+            return;
+        }
+        Assert.assertEquals("Polled " + e + " instead of " + expected, 0, this.order.compare(expected, e));
+        Assert.assertTrue(this.reference.remove(e));
+        Assert.assertTrue(this.members.remove(e));
+        this.removed.add(e);
+        Assert.assertEquals(-1, e.getIndex(this.queue.getKey()));
+    }
+
+    void update() {
+        if (this.members.isEmpty()) {
+            return;
+        }
+        QueueElement e = this.members.get(this.random.nextInt(this.members.size()));
+        Assert.assertTrue(this.reference.remove(e));
+        this._randomizeKeys(e);
+        this.reference.add(e);
+        this.queue.update(e);
+        Assert.assertTrue(e.getIndex(this.queue.getKey()) >= 0);
+    }
+
+    void remove() {
+        if (this.members.isEmpty()) {
+            return;
+        }
+        QueueElement e = this._takeRandom(this.members);
+        Assert.assertTrue(this.reference.remove(e));
+        Assert.assertEquals(e, this.queue.remove(e));
+        this.removed.add(e);
+        Assert.assertEquals(-1, e.getIndex(this.queue.getKey()));
+    }
+
+    /**
+     * Verifies the size of the queue and its first element
+     */
+    void check() {
+        Assert.assertEquals(this.reference.size(), this.queue.size());
+        Assert.assertEquals(this.reference.isEmpty(), this.queue.isEmpty());
+        if (!this.reference.isEmpty()) {
+            Assert.assertEquals(0, this.order.compare(this.reference.first(), this.queue.peek()));
+        } else {
+            Assert.assertEquals(null, this.queue.peek());
+        }
+    }
+
+    /**
+     * Applies the given number of random operations (more adds than polls, hence the queue grows)
+     */
+    void run(int operations, boolean withUpdates) {
+        for (int i = 0; i < operations; ++i) {
+            int operation = this.random.nextInt(10);
+            if (operation < 4) {
+                this.add();
+            } else if (operation < 7) {
+                this.poll();
+            } else if (operation < 9 && withUpdates) {
+                this.update();
+            } else {
+                this.remove();
+            }
+            this.check();
+        }
+    }
+
+    /**
+     * Polls all the elements of the queue
+     */
+    void drain() {
+        while (!this.reference.isEmpty()) {
+            this.poll();
+            this.check();
+        }
+        this.poll();
+    }
+}
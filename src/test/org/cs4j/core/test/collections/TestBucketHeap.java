@@ -0,0 +1,119 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.BucketHeap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Comparator;
+
+/**
+ * Verifies the order of BucketHeap (low f, then high g) and its lazy deletion: the updated and
+ * removed elements are left in their bins and must be skipped
+ */
+public class TestBucketHeap {
+
+    private static final int KEY = 0;
+
+    /**
+     * Low f, then high g
+     */
+    static final Comparator<QueueElement> F_HIGH_G = new Comparator<QueueElement>() {
+        @Override
+        public int compare(QueueElement a, QueueElement b) {
+            if (a.f != b.f) {
+                return (a.f < b.f) ? -1 : 1;
+            }
+            if (a.g != b.g) {
+                return (a.g > b.g) ? -1 : 1;
+            }
+            return 0;
+        }
+    };
+
+    private static QueueElement element(int id, double f, double g) {
+        QueueElement e = new QueueElement(id);
+        e.f = f;
+        e.g = g;
+        return e;
+    }
+
+    @Test
+    public void testAgainstReference() {
+        // Few buckets, hence the bins are shared by many (stale and live) copies
+        SearchQueueChecker checker =
+                new SearchQueueChecker(new BucketHeap<QueueElement>(4, TestBucketHeap.KEY), TestBucketHeap.F_HIGH_G, 11, 30);
+        checker.run(200000, true);
+        // The indexes of an element are its bucket and its bin
+        for (QueueElement e : checker.getMembers()) {
+            Assert.assertEquals((int) e.f, e.getIndex(TestBucketHeap.KEY));
+            Assert.assertEquals((int) e.g, e.getSecondaryIndex(TestBucketHeap.KEY));
+        }
+        checker.drain();
+    }
+
+    @Test
+    public void testStaleCopiesAreSkipped() {
+        BucketHeap<QueueElement> heap = new BucketHeap<>(4, TestBucketHeap.KEY);
+        QueueElement a = TestBucketHeap.element(0, 5, 3);
+        QueueElement b = TestBucketHeap.element(1, 5, 2);
+        heap.add(b);
+        heap.add(a);
+        // Move a to another bucket and back: its bin holds two copies of it
+        a.f = 6;
+        heap.update(a);
+        a.f = 5;
+        heap.update(a);
+        Assert.assertEquals(2, heap.size());
+        Assert.assertEquals(a, heap.poll());
+        Assert.assertEquals(-1, a.getIndex(TestBucketHeap.KEY));
+        Assert.assertEquals(-1, a.getSecondaryIndex(TestBucketHeap.KEY));
+        Assert.assertEquals(b, heap.poll());
+        Assert.assertTrue(heap.isEmpty());
+        Assert.assertEquals(null, heap.poll());
+        // A removed element which is added again is polled once
+        heap.add(a);
+        heap.add(b);
+        heap.remove(a);
+        heap.add(a);
+        Assert.assertEquals(2, heap.size());
+        Assert.assertEquals(a, heap.poll());
+        Assert.assertEquals(b, heap.poll());
+        Assert.assertEquals(null, heap.peek());
+    }
+
+    @Test
+    public void testLastAddedIsFirst() {
+        BucketHeap<QueueElement> heap = new BucketHeap<>(4, TestBucketHeap.KEY);
+        for (int i = 0; i < 10; ++i) {
+            heap.add(TestBucketHeap.element(i, 7, 1));
+        }
+        for (int i = 9; i >= 0; --i) {
+            Assert.assertEquals(i, heap.poll().getId());
+        }
+    }
+
+    @Test
+    public void testGrowsBeyondInitialSize() {
+        BucketHeap<QueueElement> heap = new BucketHeap<>(1, TestBucketHeap.KEY);
+        for (int i = 0; i < 100; ++i) {
+            heap.add(TestBucketHeap.element(i, 100 - i, i));
+        }
+        for (int i = 99; i >= 0; --i) {
+            Assert.assertEquals(i, heap.poll().getId());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdateOfRemovedElement() {
+        BucketHeap<QueueElement> heap = new BucketHeap<>(4, TestBucketHeap.KEY);
+        QueueElement a = TestBucketHeap.element(0, 1, 1);
+        heap.add(a);
+        heap.remove(a);
+        heap.update(a);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeRank() {
+        new BucketHeap<QueueElement>(4, TestBucketHeap.KEY).add(TestBucketHeap.element(0, -1, 0));
+    }
+}
@@ -0,0 +1,168 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.ClosedList;
+import org.cs4j.core.collections.ClosedLists;
+import org.cs4j.core.collections.OffHeapClosedList;
+import org.cs4j.core.collections.PackedElement;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Verifies that all the closed list implementations behave like a java.util.Map
+ */
+public class TestClosedLists {
+
+    /**
+     * Stores the integer values as the g values of the records
+     */
+    private static final OffHeapClosedList.Codec<Integer> INTEGER_CODEC =
+            new OffHeapClosedList.Codec<Integer>() {
+                @Override
+                public double getG(Integer element) {
+                    return element;
+                }
+
+                @Override
+                public PackedElement getParentPacked(Integer element) {
+                    return null;
+                }
+
+                @Override
+                public int getOperatorIndex(Integer element) {
+                    return OffHeapClosedList.NO_OPERATOR;
+                }
+
+                @Override
+                public Integer decode(PackedElement packed, double g, PackedElement parentPacked,
+                                      int operatorIndex) {
+                    return (int) g;
+                }
+            };
+
+    private static PackedElement[] randomPool(Random random, int longsCount, int poolSize) {
+        PackedElement[] pool = new PackedElement[poolSize];
+        for (int i = 0; i < poolSize; ++i) {
+            long[] longs = new long[longsCount];
+            for (int j = 0; j < longsCount; ++j) {
+                longs[j] = random.nextLong();
+            }
+            pool[i] = new PackedElement(longs);
+        }
+        return pool;
+    }
+
+    private void testAgainstMap(ClosedList.Type type, int longsCount) {
+        this.testAgainstMap(ClosedLists.<Integer>create(type, longsCount), longsCount);
+    }
+
+    private void testAgainstMap(ClosedList<Integer> closed, int longsCount) {
+        Random random = new Random(17);
+        Map<PackedElement, Integer> expected = new HashMap<>();
+        // A small pool forces repeated keys
+        PackedElement[] pool = TestClosedLists.randomPool(random, longsCount, 5000);
+        for (int i = 0; i < 200000; ++i) {
+            // Use a copy in order to check that the keys are compared by value
+            PackedElement packed = new PackedElement(pool[random.nextInt(pool.length)]);
+            switch (random.nextInt(3)) {
+                case 0: {
+                    Assert.assertEquals(expected.put(packed, i), closed.put(packed, i));
+                    break;
+                }
+                case 1: {
+                    Assert.assertEquals(expected.remove(packed), closed.remove(packed));
+                    break;
+                }
+                default: {
+                    Assert.assertEquals(expected.get(packed), closed.get(packed));
+                    Assert.assertEquals(expected.containsKey(packed), closed.containsKey(packed));
+                }
+            }
+            Assert.assertEquals(expected.size(), closed.size());
+        }
+        Set<Integer> expectedValues = new HashSet<>(expected.values());
+        int iterated = 0;
+        for (Integer value : closed.values()) {
+            Assert.assertTrue(expectedValues.contains(value));
+            ++iterated;
+        }
+        Assert.assertEquals(expected.size(), iterated);
+        closed.clear();
+        Assert.assertTrue(closed.isEmpty());
+    }
+
+    @Test
+    public void testSingleLongOpenAddressing() {
+        this.testAgainstMap(ClosedList.Type.OPEN_ADDRESSING, 1);
+    }
+
+    @Test
+    public void testMultiLongOpenAddressing() {
+        this.testAgainstMap(ClosedList.Type.OPEN_ADDRESSING, 3);
+    }
+
+    @Test
+    public void testTree() {
+        this.testAgainstMap(ClosedList.Type.TREE, 2);
+    }
+
+    @Test
+    public void testOffHeap() {
+        OffHeapClosedList<Integer> closed = new OffHeapClosedList<>(2, TestClosedLists.INTEGER_CODEC);
+        this.testAgainstMap(closed, 2);
+        closed.close();
+    }
+
+    @Test
+    public void testFileBacked() {
+        OffHeapClosedList<Integer> closed = new OffHeapClosedList<>(1, TestClosedLists.INTEGER_CODEC, null);
+        Assert.assertTrue(closed.isFileBacked());
+        this.testAgainstMap(closed, 1);
+        closed.close();
+    }
+
+    @Test
+    public void testOffHeapRecordsSurviveGrowth() {
+        OffHeapClosedList<Integer> closed = new OffHeapClosedList<>(1, TestClosedLists.INTEGER_CODEC);
+        // A chain of states (each one is the parent of the next), long enough to grow the table
+        int parentId = OffHeapClosedList.NO_PARENT;
+        for (int i = 0; i < 300000; ++i) {
+            int id = closed.insert(i * 31L, i, parentId, i % 4);
+            Assert.assertEquals(i, id);
+            parentId = id;
+        }
+        for (int i = 299999; i >= 0; --i) {
+            int id = closed.find(i * 31L);
+            Assert.assertEquals(i, id);
+            Assert.assertEquals(i, closed.getG(id), 0);
+            Assert.assertEquals(i - 1, closed.getParentId(id));
+            Assert.assertEquals(i % 4, closed.getOperatorIndex(id));
+            Assert.assertEquals(i * 31L, closed.getPacked(id).getFirst());
+        }
+        Assert.assertEquals(-1, closed.find(1L));
+        closed.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSingleLongRejectsWiderStates() {
+        ClosedList<Integer> closed = ClosedLists.create(ClosedList.Type.OPEN_ADDRESSING, 1);
+        closed.put(new PackedElement(new long[]{1, 2}), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOnHeapTypeRejectsOffHeap() {
+        ClosedLists.parseOnHeapType("off-heap");
+    }
+
+    @Test
+    public void testOnHeapTypes() {
+        Assert.assertEquals(ClosedList.Type.TREE, ClosedLists.parseOnHeapType("tree"));
+        Assert.assertEquals(ClosedList.Type.HASH, ClosedLists.parseOnHeapType("hash"));
+        Assert.assertEquals(ClosedList.Type.OPEN_ADDRESSING, ClosedLists.parseOnHeapType("open-addressing"));
+    }
+}
@@ -0,0 +1,78 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.DaryHeap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Verifies the order of DaryHeap (by the primary key, and then by the comparator) and the indexes
+ * of its elements, for several arities
+ */
+public class TestDaryHeap {
+
+    private static final int KEY = 0;
+
+    static final DaryHeap.PrimaryKey<QueueElement> F = new DaryHeap.PrimaryKey<QueueElement>() {
+        @Override
+        public double get(QueueElement e) {
+            return e.f;
+        }
+    };
+
+    /**
+     * The indexes of the elements are their (distinct) locations in the heap
+     */
+    static void checkPositions(List<QueueElement> members, int key) {
+        boolean[] used = new boolean[members.size()];
+        for (QueueElement e : members) {
+            int index = e.getIndex(key);
+            Assert.assertTrue(index >= 0 && index < used.length);
+            Assert.assertFalse(used[index]);
+            used[index] = true;
+        }
+    }
+
+    private void testArity(int arity) {
+        SearchQueueChecker checker = new SearchQueueChecker(
+                new DaryHeap<>(TestBucketHeap.F_HIGH_G, TestDaryHeap.KEY, arity, TestDaryHeap.F),
+                TestBucketHeap.F_HIGH_G, 13, 50);
+        // Grow beyond the initial capacity
+        for (int i = 0; i < 5000; ++i) {
+            checker.add();
+        }
+        checker.run(100000, true);
+        TestDaryHeap.checkPositions(checker.getMembers(), TestDaryHeap.KEY);
+        checker.drain();
+    }
+
+    @Test
+    public void testBinary() {
+        this.testArity(2);
+    }
+
+    @Test
+    public void testQuaternary() {
+        this.testArity(4);
+    }
+
+    @Test
+    public void testOctonary() {
+        this.testArity(8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnaryIsRejected() {
+        new DaryHeap<>(TestBucketHeap.F_HIGH_G, TestDaryHeap.KEY, 1, TestDaryHeap.F);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdateOfPolledElement() {
+        DaryHeap<QueueElement> heap = new DaryHeap<>(TestBucketHeap.F_HIGH_G, TestDaryHeap.KEY, 4, TestDaryHeap.F);
+        QueueElement e = new QueueElement(0);
+        heap.add(e);
+        heap.poll();
+        heap.update(e);
+    }
+}
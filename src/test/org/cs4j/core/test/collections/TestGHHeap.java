@@ -0,0 +1,176 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.GH_heap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Verifies the order of GH_heap (the open list of DP) when the potentials of its buckets are fixed,
+ * the tracking of fmin, and FOCAL
+ */
+public class TestGHHeap {
+
+    private static final int KEY = 0;
+
+    /**
+     * Orders the elements like GH_heap: high potential, low cost, low estimator, low f, low h, low g,
+     * and then by the order of their addition
+     */
+    private static final class PotentialComparator implements Comparator<QueueElement> {
+        private final double w;
+        private final double fmin;
+        private final boolean useWApriority;
+
+        private PotentialComparator(double w, double fmin, boolean useWApriority) {
+            this.w = w;
+            this.fmin = fmin;
+            this.useWApriority = useWApriority;
+        }
+
+        private double _potential(QueueElement e) {
+            if (e.h == 0 || e.d == 0) {
+                return Double.MAX_VALUE;
+            }
+            return this.useWApriority ? e.g + e.h * this.w : (this.w * this.fmin - e.g) / e.h;
+        }
+
+        @Override
+        public int compare(QueueElement a, QueueElement b) {
+            double aPotential = this._potential(a);
+            double bPotential = this._potential(b);
+            if (aPotential != bPotential) {
+                return (aPotential > bPotential) ? -1 : 1;
+            }
+            // (The cost and the estimator are 0 if the potential is maximal)
+            boolean aIsMax = aPotential == Double.MAX_VALUE;
+            double aCost = aIsMax ? 0 : a.g;
+            double bCost = aIsMax ? 0 : b.g;
+            if (aCost != bCost) {
+                return (aCost < bCost) ? -1 : 1;
+            }
+            double aEstimator = aIsMax ? 0 : a.h;
+            double bEstimator = aIsMax ? 0 : b.h;
+            if (aEstimator != bEstimator) {
+                return (aEstimator < bEstimator) ? -1 : 1;
+            }
+            if (a.f != b.f) {
+                return (a.f < b.f) ? -1 : 1;
+            }
+            if (a.h != b.h) {
+                return (a.h < b.h) ? -1 : 1;
+            }
+            if (a.g != b.g) {
+                return (a.g < b.g) ? -1 : 1;
+            }
+            return Long.compare(a.order, b.order);
+        }
+    }
+
+    private static GH_heap<QueueElement> create(double w, double fmin, boolean useFR, boolean isFocalized,
+                                                boolean useWApriority) {
+        return new GH_heap<>(w, TestGHHeap.KEY, fmin, 0, null, useFR, false, isFocalized, useWApriority);
+    }
+
+    @Test
+    public void testPotentialOrder() {
+        GH_heap<QueueElement> heap = TestGHHeap.create(2, 10, false, false, false);
+        // fmin is fixed, hence so are the potentials
+        heap.setOptimal(10);
+        SearchQueueChecker checker = new SearchQueueChecker(heap, new PotentialComparator(2, 10, false), 14, 20);
+        checker.run(100000, false);
+        checker.drain();
+    }
+
+    @Test
+    public void testWAPriorityOrder() {
+        // The WA priority doesn't depend on fmin
+        SearchQueueChecker checker = new SearchQueueChecker(TestGHHeap.create(1.5, 0, false, false, true),
+                new PotentialComparator(1.5, 0, true), 14, 20);
+        checker.run(100000, false);
+        checker.drain();
+    }
+
+    /**
+     * Adds elements whose f is at least fmin (like a consistent heuristic), and polls and removes
+     * elements at random
+     */
+    private void testFmin(double w, boolean isFocalized) {
+        double fmin = 10;
+        GH_heap<QueueElement> heap = TestGHHeap.create(w, fmin, true, isFocalized, false);
+        List<QueueElement> members = new ArrayList<>();
+        Random random = new Random(14);
+        int id = 0;
+        for (int i = 0; i < 50000; ++i) {
+            int operation = random.nextInt(3);
+            if (operation == 0 || members.isEmpty()) {
+                QueueElement e = new QueueElement(id++);
+                e.g = random.nextInt(10);
+                // (Like the initial state of DP, an element which is added to an empty heap has f = fmin)
+                e.f = heap.getFmin() + (members.isEmpty() ? 0 : random.nextInt(10));
+                e.h = e.f - e.g;
+                e.d = e.h;
+                heap.add(e);
+                members.add(e);
+            } else if (operation == 1) {
+                double fminBefore = heap.getFmin();
+                QueueElement e = heap.poll();
+                Assert.assertTrue(members.remove(e));
+                Assert.assertEquals(-1, e.getIndex(TestGHHeap.KEY));
+                // The polled element is in FOCAL
+                Assert.assertTrue(!isFocalized || e.f <= w * fminBefore + 1e-9);
+            } else {
+                QueueElement e = members.remove(random.nextInt(members.size()));
+                Assert.assertEquals(e, heap.remove(e));
+                Assert.assertEquals(-1, e.getIndex(TestGHHeap.KEY));
+            }
+            Assert.assertEquals(members.size(), heap.size());
+            if (!members.isEmpty()) {
+                QueueElement min = members.get(0);
+                for (QueueElement e : members) {
+                    if (e.f < min.f || (e.f == min.f && e.h < min.h)) {
+                        min = e;
+                    }
+                }
+                Assert.assertEquals(min.f, heap.getFmin(), 0);
+                Assert.assertTrue(heap.getFminCount() > 0);
+                // peekF returns an element with the minimal f (and the minimal h among them)
+                Assert.assertEquals(min.f, heap.peekF().f, 0);
+                Assert.assertEquals(min.h, heap.peekF().h, 0);
+                Assert.assertTrue(heap.peek() != null);
+            }
+        }
+    }
+
+    @Test
+    public void testFmin() {
+        this.testFmin(2, false);
+    }
+
+    @Test
+    public void testFocal() {
+        this.testFmin(1.2, true);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUpdateIsUnsupported() {
+        GH_heap<QueueElement> heap = TestGHHeap.create(2, 0, false, false, false);
+        QueueElement e = new QueueElement(0);
+        heap.add(e);
+        heap.update(e);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveOfMissingElement() {
+        GH_heap<QueueElement> heap = TestGHHeap.create(2, 0, false, false, false);
+        QueueElement e = new QueueElement(0);
+        e.h = 1;
+        e.d = 1;
+        heap.add(new QueueElement(1));
+        heap.remove(e);
+    }
+}
@@ -0,0 +1,140 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.KeyedHeap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Verifies the exact order of KeyedHeap (primary key, secondary key, and then the last added or
+ * updated element first), the indexes of its elements, and reorder
+ */
+public class TestKeyedHeap {
+
+    private static final int KEY = 0;
+
+    /**
+     * Low f, then high g
+     */
+    private static final KeyedHeap.Keys<QueueElement> F_HIGH_G = new KeyedHeap.Keys<QueueElement>() {
+        @Override
+        public double getPrimary(QueueElement e) {
+            return e.f;
+        }
+
+        @Override
+        public double getSecondary(QueueElement e) {
+            return -e.g;
+        }
+    };
+
+    /**
+     * Low f, high g, and then the last added (or updated) element
+     */
+    private static final Comparator<QueueElement> F_HIGH_G_LAST = new Comparator<QueueElement>() {
+        @Override
+        public int compare(QueueElement a, QueueElement b) {
+            int result = TestBucketHeap.F_HIGH_G.compare(a, b);
+            return (result != 0) ? result : Long.compare(b.order, a.order);
+        }
+    };
+
+    /**
+     * Low g + weight * h (the weight can be changed), then low h
+     */
+    private static final class WeightedKeys implements KeyedHeap.Keys<QueueElement> {
+        private double weight;
+
+        @Override
+        public double getPrimary(QueueElement e) {
+            return e.g + this.weight * e.h;
+        }
+
+        @Override
+        public double getSecondary(QueueElement e) {
+            return e.h;
+        }
+    }
+
+    private void testArity(int arity) {
+        SearchQueueChecker checker = new SearchQueueChecker(
+                new KeyedHeap<>(TestKeyedHeap.F_HIGH_G, TestKeyedHeap.KEY, arity), TestKeyedHeap.F_HIGH_G_LAST, 20, 30);
+        // Grow beyond the initial capacity
+        for (int i = 0; i < 5000; ++i) {
+            checker.add();
+        }
+        checker.run(100000, true);
+        TestDaryHeap.checkPositions(checker.getMembers(), TestKeyedHeap.KEY);
+        checker.drain();
+    }
+
+    @Test
+    public void testBinary() {
+        this.testArity(2);
+    }
+
+    @Test
+    public void testQuaternary() {
+        this.testArity(4);
+    }
+
+    @Test
+    public void testReorder() {
+        final WeightedKeys keys = new WeightedKeys();
+        keys.weight = 1;
+        KeyedHeap<QueueElement> heap = new KeyedHeap<>(keys, TestKeyedHeap.KEY, 4);
+        Random random = new Random(20);
+        List<QueueElement> elements = new ArrayList<>();
+        for (int i = 0; i < 3000; ++i) {
+            QueueElement e = new QueueElement(i);
+            e.g = random.nextInt(20);
+            e.h = random.nextInt(20);
+            e.order = i;
+            heap.add(e);
+            elements.add(e);
+        }
+        // The keys aren't recomputed until reorder is called
+        keys.weight = 3;
+        heap.reorder();
+        TestDaryHeap.checkPositions(elements, TestKeyedHeap.KEY);
+        Collections.sort(elements, new Comparator<QueueElement>() {
+            @Override
+            public int compare(QueueElement a, QueueElement b) {
+                double aPrimary = keys.getPrimary(a);
+                double bPrimary = keys.getPrimary(b);
+                if (aPrimary != bPrimary) {
+                    return (aPrimary < bPrimary) ? -1 : 1;
+                }
+                if (a.h != b.h) {
+                    return (a.h < b.h) ? -1 : 1;
+                }
+                // The insertion order is kept
+                return Long.compare(b.order, a.order);
+            }
+        });
+        for (QueueElement e : elements) {
+            Assert.assertEquals(e, heap.poll());
+            Assert.assertEquals(-1, e.getIndex(TestKeyedHeap.KEY));
+        }
+        Assert.assertTrue(heap.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnaryIsRejected() {
+        new KeyedHeap<>(TestKeyedHeap.F_HIGH_G, TestKeyedHeap.KEY, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveOfPolledElement() {
+        KeyedHeap<QueueElement> heap = new KeyedHeap<>(TestKeyedHeap.F_HIGH_G, TestKeyedHeap.KEY, 2);
+        QueueElement e = new QueueElement(0);
+        heap.add(e);
+        heap.poll();
+        heap.remove(e);
+    }
+}
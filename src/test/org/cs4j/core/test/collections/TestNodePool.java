@@ -0,0 +1,160 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.algorithms.auxiliary.NodePool;
+import org.cs4j.core.collections.BinHeap;
+import org.cs4j.core.collections.IntBinHeap;
+import org.cs4j.core.collections.PackedElement;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Verifies NodePool as a closed list (like a java.util.Map from the packed states to the nodes),
+ * and IntBinHeap over the nodes of the pool: it must perform exactly like a BinHeap of the same
+ * nodes (including the order of the ties)
+ */
+public class TestNodePool {
+
+    /**
+     * Low f, then high g
+     */
+    private static final NodePool.HandleComparator F_HIGH_G = new NodePool.HandleComparator() {
+        @Override
+        public int compare(NodePool pool, int a, int b) {
+            double aF = pool.getG(a) + pool.getH(a);
+            double bF = pool.getG(b) + pool.getH(b);
+            if (aF != bF) {
+                return (aF < bF) ? -1 : 1;
+            }
+            if (pool.getG(a) != pool.getG(b)) {
+                return (pool.getG(a) > pool.getG(b)) ? -1 : 1;
+            }
+            return 0;
+        }
+    };
+
+    private void testAgainstMap(int longsCount) {
+        NodePool pool = new NodePool(longsCount);
+        Map<PackedElement, Integer> expected = new HashMap<>();
+        Random random = new Random(5);
+        // Grow beyond the initial capacity
+        for (int i = 0; i < 200000; ++i) {
+            long[] longs = new long[longsCount];
+            for (int j = 0; j < longsCount; ++j) {
+                longs[j] = random.nextInt(300000);
+            }
+            PackedElement packed = new PackedElement(longs);
+            Integer handle = expected.get(packed);
+            Assert.assertEquals(handle == null ? -1 : (int) handle,
+                    (longsCount == 1) ? pool.find(longs[0]) : pool.find(packed));
+            if (handle == null) {
+                int parent = expected.isEmpty() ? NodePool.NO_PARENT : random.nextInt(pool.size());
+                handle = (longsCount == 1) ?
+                        pool.add(longs[0], i, i + 1, parent, i % 4, null) :
+                        pool.add(packed, i, i + 1, parent, i % 4, null);
+                Assert.assertEquals(expected.size(), (int) handle);
+                expected.put(packed, handle);
+                Assert.assertEquals(parent, pool.getParent(handle));
+            }
+            Assert.assertEquals(expected.size(), pool.size());
+        }
+        for (Map.Entry<PackedElement, Integer> entry : expected.entrySet()) {
+            int handle = entry.getValue();
+            Assert.assertEquals(handle, pool.find(entry.getKey()));
+            Assert.assertEquals(entry.getKey(), pool.getPacked(handle));
+            Assert.assertEquals(pool.getG(handle) + 1, pool.getH(handle), 0);
+            Assert.assertEquals((int) pool.getG(handle) % 4, pool.getOperator(handle));
+            Assert.assertEquals(-1, pool.getIndex(handle));
+        }
+    }
+
+    @Test
+    public void testSingleLongAgainstMap() {
+        this.testAgainstMap(1);
+    }
+
+    @Test
+    public void testMultiLongAgainstMap() {
+        this.testAgainstMap(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateStateIsRejected() {
+        NodePool pool = new NodePool(1);
+        pool.add(7, 0, 0, NodePool.NO_PARENT, NodePool.NO_OPERATOR, null);
+        pool.add(7, 1, 0, NodePool.NO_PARENT, NodePool.NO_OPERATOR, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongLongsCountIsRejected() {
+        new NodePool(2).find(new PackedElement(new long[]{1, 2, 3}));
+    }
+
+    /**
+     * Applies the same random operations to an IntBinHeap of the nodes of a pool and to a BinHeap of
+     * elements with the same keys
+     */
+    @Test
+    public void testIntBinHeapLikeBinHeap() {
+        NodePool pool = new NodePool(1);
+        pool.setComparator(TestNodePool.F_HIGH_G);
+        IntBinHeap heap = new IntBinHeap(pool);
+        BinHeap<QueueElement> expected = new BinHeap<>(TestBucketHeap.F_HIGH_G, 0);
+        // The elements of BinHeap (by the handles of the nodes)
+        List<QueueElement> elements = new ArrayList<>();
+        // The handles of the nodes in the heap
+        List<Integer> members = new ArrayList<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 200000; ++i) {
+            int operation = random.nextInt(10);
+            if (operation < 4 || members.isEmpty()) {
+                QueueElement e = new QueueElement(elements.size());
+                e.g = random.nextInt(30);
+                e.h = random.nextInt(30);
+                e.f = e.g + e.h;
+                int handle = pool.add(elements.size(), e.g, e.h, NodePool.NO_PARENT, NodePool.NO_OPERATOR, null);
+                elements.add(e);
+                members.add(handle);
+                expected.add(e);
+                heap.add(handle);
+            } else if (operation < 7) {
+                QueueElement e = expected.poll();
+                int handle = heap.poll();
+                Assert.assertEquals(e.getId(), handle);
+                Assert.assertTrue(members.remove(Integer.valueOf(handle)));
+                Assert.assertEquals(-1, pool.getIndex(handle));
+            } else if (operation < 9) {
+                // A shorter path to a node in the heap
+                int handle = members.get(random.nextInt(members.size()));
+                QueueElement e = elements.get(handle);
+                e.g = Math.max(0, e.g - random.nextInt(5));
+                e.f = e.g + e.h;
+                pool.setPath(handle, e.g, NodePool.NO_PARENT, NodePool.NO_OPERATOR, null);
+                expected.update(e);
+                heap.update(handle);
+            } else {
+                int handle = members.remove(random.nextInt(members.size()));
+                expected.remove(elements.get(handle));
+                heap.remove(handle);
+                Assert.assertEquals(-1, pool.getIndex(handle));
+            }
+            Assert.assertEquals(expected.size(), heap.size());
+            Assert.assertEquals(expected.isEmpty() ? -1 : expected.peek().getId(), heap.peek());
+        }
+        // The nodes are at the same locations in both heaps
+        for (int handle : members) {
+            Assert.assertEquals(elements.get(handle).getIndex(0), pool.getIndex(handle));
+        }
+        heap.clear();
+        for (int handle : members) {
+            Assert.assertEquals(-1, pool.getIndex(handle));
+        }
+        Assert.assertTrue(heap.isEmpty());
+        Assert.assertEquals(-1, heap.poll());
+    }
+}
@@ -0,0 +1,90 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.PairingHeap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Verifies the order of PairingHeap (by the primary key, and then by the comparator), its
+ * decrease-key and the indexes (slots) of its elements
+ */
+public class TestPairingHeap {
+
+    private static final int KEY = 1;
+
+    private static PairingHeap<QueueElement> create() {
+        return new PairingHeap<>(TestBucketHeap.F_HIGH_G, TestPairingHeap.KEY, TestDaryHeap.F);
+    }
+
+    @Test
+    public void testAgainstReference() {
+        SearchQueueChecker checker = new SearchQueueChecker(TestPairingHeap.create(), TestBucketHeap.F_HIGH_G, 18, 50);
+        // Grow beyond the initial capacity (the slots of the removed elements are recycled later)
+        for (int i = 0; i < 5000; ++i) {
+            checker.add();
+        }
+        checker.run(100000, true);
+        // The indexes of the elements are distinct slots
+        Set<Integer> slots = new HashSet<>();
+        for (QueueElement e : checker.getMembers()) {
+            Assert.assertTrue(e.getIndex(TestPairingHeap.KEY) >= 0);
+            Assert.assertTrue(slots.add(e.getIndex(TestPairingHeap.KEY)));
+        }
+        checker.drain();
+    }
+
+    @Test
+    public void testDecreaseKey() {
+        PairingHeap<QueueElement> heap = TestPairingHeap.create();
+        QueueElement[] elements = new QueueElement[1000];
+        for (int i = 0; i < elements.length; ++i) {
+            elements[i] = new QueueElement(i);
+            elements[i].f = 2000 + i;
+            heap.add(elements[i]);
+        }
+        // Build a deep tree
+        QueueElement first = heap.poll();
+        Assert.assertEquals(0, first.getId());
+        // Decrease the keys in reverse order: each one becomes the new first element
+        Random random = new Random(18);
+        for (int i = elements.length - 1; i > 0; --i) {
+            elements[i].f = 1000 - (elements.length - i) - random.nextDouble() * 0.5;
+            heap.update(elements[i]);
+            Assert.assertEquals(elements[i], heap.peek());
+        }
+        for (int i = 1; i < elements.length; ++i) {
+            Assert.assertEquals(elements[i], heap.poll());
+            Assert.assertEquals(-1, elements[i].getIndex(TestPairingHeap.KEY));
+        }
+        Assert.assertTrue(heap.isEmpty());
+        Assert.assertEquals(null, heap.poll());
+    }
+
+    @Test
+    public void testClear() {
+        PairingHeap<QueueElement> heap = TestPairingHeap.create();
+        for (int i = 0; i < 10; ++i) {
+            heap.add(new QueueElement(i));
+        }
+        heap.clear();
+        Assert.assertTrue(heap.isEmpty());
+        QueueElement e = new QueueElement(10);
+        heap.add(e);
+        Assert.assertEquals(e, heap.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdateOfPolledElement() {
+        PairingHeap<QueueElement> heap = TestPairingHeap.create();
+        QueueElement e = new QueueElement(0);
+        heap.add(e);
+        heap.add(new QueueElement(1));
+        heap.poll();
+        heap.poll();
+        heap.update(e);
+    }
+}
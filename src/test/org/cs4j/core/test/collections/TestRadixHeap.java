@@ -0,0 +1,107 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.RadixHeap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Verifies the order of RadixHeap (low f, then high g) for monotone and for arbitrary ranks, and
+ * the indexes of its elements (the bucket and the location in the bucket)
+ */
+public class TestRadixHeap {
+
+    private static final int KEY = 1;
+
+    private static void checkIndexes(Iterable<QueueElement> members) {
+        Set<Long> locations = new HashSet<>();
+        for (QueueElement e : members) {
+            int bucket = e.getSecondaryIndex(TestRadixHeap.KEY);
+            int index = e.getIndex(TestRadixHeap.KEY);
+            Assert.assertTrue(bucket >= 0 && bucket <= 64);
+            Assert.assertTrue(index >= 0);
+            Assert.assertTrue(locations.add(((long) bucket << 32) | index));
+        }
+    }
+
+    @Test
+    public void testAgainstReference() {
+        // The ranks aren't monotone: elements below the last polled rank go to bucket 0
+        SearchQueueChecker checker =
+                new SearchQueueChecker(new RadixHeap<QueueElement>(TestRadixHeap.KEY), TestBucketHeap.F_HIGH_G, 12, 1000);
+        checker.run(200000, true);
+        TestRadixHeap.checkIndexes(checker.getMembers());
+        checker.drain();
+    }
+
+    @Test
+    public void testMonotoneRealRanks() {
+        RadixHeap<QueueElement> heap = new RadixHeap<>(TestRadixHeap.KEY);
+        TreeSet<QueueElement> reference = new TreeSet<>(TestBucketHeap.F_HIGH_G);
+        Random random = new Random(12);
+        int id = 0;
+        QueueElement root = new QueueElement(id++);
+        heap.add(root);
+        reference.add(root);
+        // Like A* with a consistent heuristic: the children are never better than their parent
+        while (id < 100000 && !heap.isEmpty()) {
+            QueueElement parent = heap.poll();
+            Assert.assertEquals(reference.pollFirst(), parent);
+            Assert.assertEquals(-1, parent.getIndex(TestRadixHeap.KEY));
+            for (int i = random.nextInt(4); i > 0; --i) {
+                QueueElement child = new QueueElement(id++);
+                // Distinct ranks (the reference can't hold equal elements)
+                child.g = parent.g + random.nextDouble();
+                child.f = parent.f + random.nextInt(3) * 0.25 + id * 1e-9;
+                heap.add(child);
+                reference.add(child);
+            }
+            Assert.assertEquals(reference.size(), heap.size());
+        }
+        TestRadixHeap.checkIndexes(reference);
+        while (!reference.isEmpty()) {
+            Assert.assertEquals(reference.pollFirst(), heap.poll());
+        }
+        Assert.assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        RadixHeap<QueueElement> heap = new RadixHeap<>(TestRadixHeap.KEY);
+        QueueElement a = new QueueElement(0);
+        a.f = 10;
+        heap.add(a);
+        heap.poll();
+        heap.clear();
+        // A rank below the last polled one before clear
+        QueueElement b = new QueueElement(1);
+        b.f = 3;
+        QueueElement c = new QueueElement(2);
+        c.f = 5;
+        heap.add(c);
+        heap.add(b);
+        Assert.assertEquals(b, heap.poll());
+        Assert.assertEquals(c, heap.poll());
+        Assert.assertEquals(null, heap.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeRank() {
+        QueueElement e = new QueueElement(0);
+        e.f = -0.5;
+        new RadixHeap<QueueElement>(TestRadixHeap.KEY).add(e);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveOfPolledElement() {
+        RadixHeap<QueueElement> heap = new RadixHeap<>(TestRadixHeap.KEY);
+        QueueElement e = new QueueElement(0);
+        heap.add(e);
+        heap.poll();
+        heap.remove(e);
+    }
+}
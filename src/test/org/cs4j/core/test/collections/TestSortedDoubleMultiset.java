@@ -0,0 +1,124 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.SortedDoubleMultiset;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Verifies that SortedDoubleMultiset behaves like a TreeMap from the values to their counts
+ */
+public class TestSortedDoubleMultiset {
+
+    private static void add(TreeMap<Double, Integer> expected, SortedDoubleMultiset multiset, double value) {
+        Integer count = expected.get(value);
+        int newCount = (count == null) ? 1 : count + 1;
+        expected.put(value, newCount);
+        Assert.assertEquals(newCount, multiset.add(value));
+    }
+
+    private static void remove(TreeMap<Double, Integer> expected, SortedDoubleMultiset multiset, double value) {
+        int newCount = expected.get(value) - 1;
+        if (newCount == 0) {
+            expected.remove(value);
+        } else {
+            expected.put(value, newCount);
+        }
+        Assert.assertEquals(newCount, multiset.remove(value));
+    }
+
+    private static void check(TreeMap<Double, Integer> expected, SortedDoubleMultiset multiset, int size) {
+        Assert.assertEquals(size, multiset.size());
+        Assert.assertEquals(size == 0, multiset.isEmpty());
+        Assert.assertEquals(expected.size(), multiset.distinctSize());
+        if (!expected.isEmpty()) {
+            Assert.assertEquals(expected.firstKey(), multiset.min(), 0);
+        }
+    }
+
+    @Test
+    public void testAgainstTreeMap() {
+        TreeMap<Double, Integer> expected = new TreeMap<>();
+        SortedDoubleMultiset multiset = new SortedDoubleMultiset();
+        Random random = new Random(17);
+        int size = 0;
+        for (int i = 0; i < 200000; ++i) {
+            // Few distinct values, hence many repeated values
+            double value = random.nextInt(300) * 0.5;
+            if (random.nextInt(5) < 3 || expected.isEmpty()) {
+                TestSortedDoubleMultiset.add(expected, multiset, value);
+                ++size;
+            } else {
+                Double existing = expected.ceilingKey(value);
+                if (existing == null) {
+                    existing = expected.firstKey();
+                }
+                TestSortedDoubleMultiset.remove(expected, multiset, existing);
+                --size;
+            }
+            Assert.assertEquals(expected.containsKey(value) ? (int) expected.get(value) : 0, multiset.count(value));
+            TestSortedDoubleMultiset.check(expected, multiset, size);
+        }
+    }
+
+    /**
+     * The values of a search: new values are close to the maximal value, and the minimal value is
+     * removed most of the times (the values move away from the beginning of the arrays)
+     */
+    @Test
+    public void testSlidingValues() {
+        TreeMap<Double, Integer> expected = new TreeMap<>();
+        SortedDoubleMultiset multiset = new SortedDoubleMultiset();
+        Random random = new Random(17);
+        int size = 0;
+        double max = 0;
+        for (int i = 0; i < 200000; ++i) {
+            if (random.nextBoolean() || expected.isEmpty()) {
+                double value = max - 20 + random.nextInt(25);
+                max = Math.max(max, value);
+                TestSortedDoubleMultiset.add(expected, multiset, value);
+                ++size;
+            } else {
+                double value = (random.nextInt(4) > 0) ? expected.firstKey() : expected.lastKey();
+                TestSortedDoubleMultiset.remove(expected, multiset, value);
+                --size;
+            }
+            TestSortedDoubleMultiset.check(expected, multiset, size);
+        }
+        while (size > 0) {
+            TestSortedDoubleMultiset.remove(expected, multiset, expected.firstKey());
+            TestSortedDoubleMultiset.check(expected, multiset, --size);
+        }
+        multiset.add(3);
+        multiset.clear();
+        TestSortedDoubleMultiset.check(new TreeMap<Double, Integer>(), multiset, 0);
+    }
+
+    @Test
+    public void testNegativeZeroIsDistinct() {
+        SortedDoubleMultiset multiset = new SortedDoubleMultiset();
+        multiset.add(0.0);
+        multiset.add(-0.0);
+        Assert.assertEquals(2, multiset.distinctSize());
+        Assert.assertEquals(1, multiset.count(0.0));
+        Assert.assertEquals(Double.valueOf(-0.0), Double.valueOf(multiset.min()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveOfMissingValue() {
+        SortedDoubleMultiset multiset = new SortedDoubleMultiset();
+        multiset.add(1);
+        multiset.remove(2);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testMinOfEmptyMultiset() {
+        SortedDoubleMultiset multiset = new SortedDoubleMultiset();
+        multiset.add(1);
+        multiset.remove(1);
+        multiset.min();
+    }
+}
@@ -0,0 +1,213 @@
+package java.org.cs4j.core.test.collections;
+
+import org.cs4j.core.collections.DaryHeap;
+import org.cs4j.core.collections.GEQueue;
+import org.cs4j.core.collections.TreapGEQueue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Verifies that TreapGEQueue behaves like GEQueue: the same operations (in the order EES applies
+ * them) are applied to both queues, on copies of the same elements
+ */
+public class TestTreapGEQueue {
+
+    private static final int FOCAL_ID = 0;
+    private static final int OPEN_ID = 1;
+
+    private static double fHat(QueueElement e) {
+        return e.g + e.hHat;
+    }
+
+    /**
+     * Low f^, low d, high g (like EES.OpenNodeComparator)
+     */
+    private static final Comparator<QueueElement> OPEN = new Comparator<QueueElement>() {
+        @Override
+        public int compare(QueueElement a, QueueElement b) {
+            double aFHat = TestTreapGEQueue.fHat(a);
+            double bFHat = TestTreapGEQueue.fHat(b);
+            if (aFHat != bFHat) {
+                return (aFHat < bFHat) ? -1 : 1;
+            }
+            if (a.d != b.d) {
+                return (a.d < b.d) ? -1 : 1;
+            }
+            if (a.g != b.g) {
+                return (a.g > b.g) ? -1 : 1;
+            }
+            return 0;
+        }
+    };
+
+    /**
+     * Low d^, low f^, high g (like EES.FocalNodeComparator)
+     */
+    private static final Comparator<QueueElement> FOCAL = new Comparator<QueueElement>() {
+        @Override
+        public int compare(QueueElement a, QueueElement b) {
+            if (a.dHat != b.dHat) {
+                return (a.dHat < b.dHat) ? -1 : 1;
+            }
+            double aFHat = TestTreapGEQueue.fHat(a);
+            double bFHat = TestTreapGEQueue.fHat(b);
+            if (aFHat != bFHat) {
+                return (aFHat < bFHat) ? -1 : 1;
+            }
+            if (a.g != b.g) {
+                return (a.g > b.g) ? -1 : 1;
+            }
+            return 0;
+        }
+    };
+
+    private static final DaryHeap.PrimaryKey<QueueElement> F_HAT = new DaryHeap.PrimaryKey<QueueElement>() {
+        @Override
+        public double get(QueueElement e) {
+            return TestTreapGEQueue.fHat(e);
+        }
+    };
+
+    private static Comparator<QueueElement> geComparator(final double weight) {
+        return new Comparator<QueueElement>() {
+            @Override
+            public int compare(QueueElement a, QueueElement b) {
+                double aFHat = TestTreapGEQueue.fHat(a);
+                double bFHat = weight * TestTreapGEQueue.fHat(b);
+                return (aFHat < bFHat) ? -1 : ((aFHat > bFHat) ? 1 : 0);
+            }
+        };
+    }
+
+    private static int idOf(QueueElement e) {
+        return (e == null) ? -1 : e.getId();
+    }
+
+    /**
+     * Creates an element and its copy for the treap
+     */
+    private static QueueElement[] newPair(Random random, int id, int range) {
+        QueueElement[] pair = new QueueElement[]{new QueueElement(id), new QueueElement(id)};
+        double g = random.nextInt(range);
+        double hHat = random.nextInt(range);
+        double d = random.nextInt(range);
+        double dHat = d + random.nextInt(range);
+        for (QueueElement e : pair) {
+            e.g = g;
+            e.hHat = hHat;
+            e.d = d;
+            e.dHat = dHat;
+        }
+        return pair;
+    }
+
+    private void testWeight(double weight, int range) {
+        GEQueue<QueueElement> expected = new GEQueue<>(TestTreapGEQueue.OPEN,
+                TestTreapGEQueue.geComparator(weight), TestTreapGEQueue.FOCAL, TestTreapGEQueue.FOCAL_ID);
+        TreapGEQueue<QueueElement> actual = new TreapGEQueue<>(TestTreapGEQueue.OPEN, TestTreapGEQueue.FOCAL,
+                TestTreapGEQueue.F_HAT, weight, TestTreapGEQueue.FOCAL_ID, TestTreapGEQueue.OPEN_ID);
+        Random random = new Random(16);
+        // The copies of the elements of the treap (by the ids of the elements)
+        List<QueueElement> copies = new ArrayList<>();
+        // The elements of GEQueue
+        List<QueueElement> members = new ArrayList<>();
+        QueueElement[] init = TestTreapGEQueue.newPair(random, 0, range);
+        copies.add(init[1]);
+        members.add(init[0]);
+        expected.add(init[0], init[0]);
+        expected.updateFocal(null, init[0], 0);
+        actual.add(init[1], init[1]);
+        actual.updateFocal(null, init[1], 0);
+        for (int i = 0; i < 10000 && !members.isEmpty(); ++i) {
+            QueueElement oldBest = expected.peekOpen();
+            QueueElement oldBestCopy = actual.peekOpen();
+            Assert.assertEquals(oldBest.getId(), oldBestCopy.getId());
+            Assert.assertEquals(TestTreapGEQueue.idOf(expected.peekFocal()),
+                    TestTreapGEQueue.idOf(actual.peekFocal()));
+            // Take an element out, like EES._selectNode
+            QueueElement e;
+            QueueElement copy;
+            switch (random.nextInt(3)) {
+                case 0: {
+                    e = expected.pollFocal();
+                    copy = actual.pollFocal();
+                    break;
+                }
+                case 1: {
+                    e = expected.pollOpen();
+                    copy = actual.pollOpen();
+                    break;
+                }
+                default: {
+                    e = members.get(random.nextInt(members.size()));
+                    copy = copies.get(e.getId());
+                    expected.remove(e);
+                    actual.remove(copy);
+                }
+            }
+            if (e != null) {
+                Assert.assertEquals(e.getId(), copy.getId());
+                Assert.assertTrue(members.remove(e));
+                Assert.assertEquals(-1, copy.getIndex(TestTreapGEQueue.OPEN_ID));
+                Assert.assertEquals(-1, copy.getIndex(TestTreapGEQueue.FOCAL_ID));
+            }
+            // Insert the children (oldBest may have been taken out, but its f^ is still used)
+            for (int j = random.nextInt(4); j > 0; --j) {
+                QueueElement[] child = TestTreapGEQueue.newPair(random, copies.size(), range);
+                copies.add(child[1]);
+                members.add(child[0]);
+                expected.add(child[0], oldBest);
+                actual.add(child[1], oldBestCopy);
+                Assert.assertTrue(child[1].getIndex(TestTreapGEQueue.OPEN_ID) >= 0);
+            }
+            Assert.assertEquals(members.size(), actual.size());
+            Assert.assertEquals(expected.isEmpty(), actual.isEmpty());
+            if (!expected.isEmpty()) {
+                QueueElement newBest = expected.peekOpen();
+                QueueElement newBestCopy = actual.peekOpen();
+                Assert.assertEquals(newBest.getId(), newBestCopy.getId());
+                int fHatChange = Double.compare(TestTreapGEQueue.fHat(newBest), TestTreapGEQueue.fHat(oldBest));
+                expected.updateFocal(oldBest, newBest, fHatChange);
+                actual.updateFocal(oldBestCopy, newBestCopy, fHatChange);
+            }
+            if (i % 50 == 0) {
+                // The same elements are in FOCAL
+                for (QueueElement member : members) {
+                    Assert.assertEquals(member.getIndex(TestTreapGEQueue.FOCAL_ID) != -1,
+                            copies.get(member.getId()).getIndex(TestTreapGEQueue.FOCAL_ID) != -1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testManyTies() {
+        this.testWeight(1.5, 4);
+    }
+
+    @Test
+    public void testFewTies() {
+        this.testWeight(1.2, 1000);
+    }
+
+    @Test
+    public void testNoSuboptimality() {
+        this.testWeight(1, 20);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveOfPolledElement() {
+        TreapGEQueue<QueueElement> queue = new TreapGEQueue<>(TestTreapGEQueue.OPEN, TestTreapGEQueue.FOCAL,
+                TestTreapGEQueue.F_HAT, 2, TestTreapGEQueue.FOCAL_ID, TestTreapGEQueue.OPEN_ID);
+        QueueElement e = new QueueElement(0);
+        queue.add(e, e);
+        queue.updateFocal(null, e, 0);
+        queue.pollFocal();
+        queue.remove(e);
+    }
+}